@@ -47,6 +47,8 @@ import java.util.Set;
 
 import org.apache.commons.lang3.tuple.ImmutablePair;
 import org.wikidata.wdtk.datamodel.helpers.Datamodel;
+import org.wikidata.wdtk.datamodel.implementation.EntityDocumentWalker;
+import org.wikidata.wdtk.datamodel.interfaces.EntityDocumentVisitor;
 import org.wikidata.wdtk.datamodel.interfaces.ItemDocument;
 import org.wikidata.wdtk.datamodel.interfaces.ItemIdValue;
 import org.wikidata.wdtk.datamodel.interfaces.PropertyDocument;
@@ -54,7 +56,6 @@ import org.wikidata.wdtk.datamodel.interfaces.PropertyIdValue;
 import org.wikidata.wdtk.datamodel.interfaces.SiteLink;
 import org.wikidata.wdtk.datamodel.interfaces.Sites;
 import org.wikidata.wdtk.datamodel.interfaces.Snak;
-import org.wikidata.wdtk.datamodel.interfaces.SnakGroup;
 import org.wikidata.wdtk.datamodel.interfaces.Statement;
 import org.wikidata.wdtk.datamodel.interfaces.StatementDocument;
 import org.wikidata.wdtk.datamodel.interfaces.StatementGroup;
@@ -380,6 +381,49 @@ public class SchemaUsageAnalyzer implements DumpProcessingAction {
 	private final EntityStatistics itemStatistics = new EntityStatistics();
 	private final EntityStatistics propertyStatistics = new EntityStatistics();
 
+	/**
+	 * Walker used to visit the qualifiers of all statements.
+	 */
+	private final EntityDocumentWalker documentWalker = new EntityDocumentWalker();
+	private final QualifierCounter qualifierCounter = new QualifierCounter();
+
+	/**
+	 * Visitor that counts, for each property, how many of its statements use
+	 * a qualifier property. Every qualifier property is counted once per
+	 * statement.
+	 */
+	private class QualifierCounter implements EntityDocumentVisitor {
+
+		PropertyIdValue property;
+		PropertyRecord propertyRecord;
+
+		@Override
+		public boolean onStatement(Statement statement, Context context) {
+			PropertyIdValue statementProperty = statement.getMainSnak()
+					.getPropertyId();
+			if (!statementProperty.equals(this.property)) {
+				this.property = statementProperty;
+				this.propertyRecord = getPropertyRecord(statementProperty);
+			}
+			return true;
+		}
+
+		@Override
+		public void onQualifier(Snak qualifier, Context context) {
+			if (context.getSnakIndex() != 0) {
+				return;
+			}
+			Integer qualifierId = getNumId(qualifier.getPropertyId().getId(),
+					false);
+			if (this.propertyRecord.qualifiers.containsKey(qualifierId)) {
+				this.propertyRecord.qualifiers.put(qualifierId,
+						this.propertyRecord.qualifiers.get(qualifierId) + 1);
+			} else {
+				this.propertyRecord.qualifiers.put(qualifierId, 1);
+			}
+		}
+	}
+
 	/**
 	 * Create a directory at the given path if it does not exist yet.
 	 *
@@ -548,21 +592,11 @@ public class SchemaUsageAnalyzer implements DumpProcessingAction {
 			propertyRecord.itemCount++;
 			countCooccurringProperties(statementDocument, propertyRecord,
 					sg.getProperty());
-
-			for (Statement s : sg) {
-				for (SnakGroup snakGroup : s.getQualifiers()) {
-					Integer qualifierId = getNumId(snakGroup.getProperty()
-							.getId(), false);
-					if (propertyRecord.qualifiers.containsKey(qualifierId)) {
-						propertyRecord.qualifiers.put(qualifierId,
-								propertyRecord.qualifiers.get(qualifierId) + 1);
-					} else {
-						propertyRecord.qualifiers.put(qualifierId, 1);
-					}
-				}
-			}
 		}
 
+		// Count qualifiers without creating snak groups for each statement:
+		this.documentWalker.walk(statementDocument, this.qualifierCounter);
+
 		// print a report once in a while:
 		if (this.countEntities % 100000 == 0) {
 			printReport();
@@ -51,8 +51,10 @@ import org.wikidata.wdtk.datamodel.interfaces.SnakGroup;
 import org.wikidata.wdtk.datamodel.interfaces.SnakVisitor;
 import org.wikidata.wdtk.datamodel.interfaces.SomeValueSnak;
 import org.wikidata.wdtk.datamodel.interfaces.Statement;
+import org.wikidata.wdtk.datamodel.interfaces.StatementDocument;
 import org.wikidata.wdtk.datamodel.interfaces.StatementGroup;
 import org.wikidata.wdtk.datamodel.interfaces.StringValue;
+import org.wikidata.wdtk.datamodel.interfaces.TermedDocument;
 import org.wikidata.wdtk.datamodel.interfaces.TimeValue;
 import org.wikidata.wdtk.datamodel.interfaces.Value;
 import org.wikidata.wdtk.datamodel.interfaces.ValueSnak;
@@ -93,6 +95,13 @@ public class DatamodelConverter implements SnakVisitor<Snak>,
 	 */
 	private boolean deepCopyReferences = true;
 
+	/**
+	 * If set to true, documents that are not changed by the filter are
+	 * returned as they are, and other documents share all subobjects that the
+	 * filter does not change. This is false by default.
+	 */
+	private boolean structuralSharing = false;
+
 	private DocumentDataFilter filter = new DocumentDataFilter();
 
 	/**
@@ -148,6 +157,34 @@ public class DatamodelConverter implements SnakVisitor<Snak>,
 		this.deepCopyReferences = value;
 	}
 
+	/**
+	 * Returns true if documents are copied with structural sharing. See
+	 * {@link #setOptionStructuralSharing(boolean)}.
+	 *
+	 * @return true if structural sharing is used
+	 */
+	public boolean hasOptionStructuralSharing() {
+		return this.structuralSharing;
+	}
+
+	/**
+	 * Sets the value of the structural sharing option. If true, copying an
+	 * {@link ItemDocument} or {@link PropertyDocument} only creates new
+	 * objects where the filter removes data: documents without any data to
+	 * remove are returned unchanged, and other documents are rebuilt with the
+	 * factory from the original statement groups, terms and site links that
+	 * pass the filter. This is the cheapest way of filtering documents, e.g.,
+	 * in dump processing. The result may then contain objects of other
+	 * implementations than the one of the factory. The deep copy options are
+	 * ignored for documents when this option is set.
+	 *
+	 * @param value
+	 *            the value of the structural sharing option
+	 */
+	public void setOptionStructuralSharing(boolean value) {
+		this.structuralSharing = value;
+	}
+
 	/**
 	 * Replaces the current filter settings with the given ones. Future changes
 	 * to the settings will take effect (a reference is used, not a full copy).
@@ -489,7 +526,12 @@ public class DatamodelConverter implements SnakVisitor<Snak>,
 	 * @return copied object
 	 */
 	public PropertyDocument copy(PropertyDocument object) {
-		if (this.deepCopy) {
+		if (this.structuralSharing) {
+			if (isUnchangedByFilter(object)) {
+				return object;
+			}
+			return shallowCopy(object);
+		} else if (this.deepCopy) {
 			return this.dataObjectFactory.getPropertyDocument(copy(object
 					.getPropertyId()), deepCopyMonoLingualTextValues(object
 					.getLabels().values()),
@@ -499,13 +541,7 @@ public class DatamodelConverter implements SnakVisitor<Snak>,
 							.getStatementGroups()), copy(object.getDatatype()),
 					object.getRevisionId());
 		} else {
-			return this.dataObjectFactory.getPropertyDocument(object
-					.getPropertyId(), copyMonoLingualTextValues(object
-					.getLabels().values()), copyMonoLingualTextValues(object
-					.getDescriptions().values()), flattenAliasMap(object
-					.getAliases()), copyStatementGroups(object
-					.getStatementGroups()), object.getDatatype(), object
-					.getRevisionId());
+			return shallowCopy(object);
 		}
 	}
 
@@ -517,7 +553,13 @@ public class DatamodelConverter implements SnakVisitor<Snak>,
 	 * @return copied object
 	 */
 	public ItemDocument copy(ItemDocument object) {
-		if (this.deepCopy) {
+		if (this.structuralSharing) {
+			if (isUnchangedByFilter(object)
+					&& includesAllSiteLinks(object.getSiteLinks().keySet())) {
+				return object;
+			}
+			return shallowCopy(object);
+		} else if (this.deepCopy) {
 			return this.dataObjectFactory.getItemDocument(copy(object
 					.getItemId()), deepCopyMonoLingualTextValues(object
 					.getLabels().values()),
@@ -527,16 +569,7 @@ public class DatamodelConverter implements SnakVisitor<Snak>,
 							.getStatementGroups()), deepCopySiteLinks(object
 							.getSiteLinks()), object.getRevisionId());
 		} else {
-			return this.dataObjectFactory
-					.getItemDocument(object.getItemId(),
-							copyMonoLingualTextValues(object.getLabels()
-									.values()),
-							copyMonoLingualTextValues(object.getDescriptions()
-									.values()), flattenAliasMap(object
-									.getAliases()), copyStatementGroups(object
-									.getStatementGroups()),
-							copySiteLinks(object.getSiteLinks()), object
-									.getRevisionId());
+			return shallowCopy(object);
 		}
 	}
 
@@ -665,6 +698,105 @@ public class DatamodelConverter implements SnakVisitor<Snak>,
 
 	}
 
+	/**
+	 * Creates a shallow copy of a {@link PropertyDocument}, which shares all
+	 * subobjects that pass the filter.
+	 *
+	 * @param object
+	 *            object to copy
+	 * @return copied object
+	 */
+	private PropertyDocument shallowCopy(PropertyDocument object) {
+		return this.dataObjectFactory.getPropertyDocument(object
+				.getPropertyId(), copyMonoLingualTextValues(object
+				.getLabels().values()), copyMonoLingualTextValues(object
+				.getDescriptions().values()), flattenAliasMap(object
+				.getAliases()), copyStatementGroups(object
+				.getStatementGroups()), object.getDatatype(), object
+				.getRevisionId());
+	}
+
+	/**
+	 * Creates a shallow copy of an {@link ItemDocument}, which shares all
+	 * subobjects that pass the filter.
+	 *
+	 * @param object
+	 *            object to copy
+	 * @return copied object
+	 */
+	private ItemDocument shallowCopy(ItemDocument object) {
+		return this.dataObjectFactory.getItemDocument(object.getItemId(),
+				copyMonoLingualTextValues(object.getLabels().values()),
+				copyMonoLingualTextValues(object.getDescriptions().values()),
+				flattenAliasMap(object.getAliases()),
+				copyStatementGroups(object.getStatementGroups()),
+				copySiteLinks(object.getSiteLinks()), object.getRevisionId());
+	}
+
+	/**
+	 * Returns true if the filter does not remove any terms or statements
+	 * from the given document. Site links are not considered.
+	 *
+	 * @param document
+	 *            the document to check
+	 * @return true if the document passes the filter unchanged
+	 */
+	private boolean isUnchangedByFilter(TermedDocument document) {
+		if (!includesAllLanguages(document.getLabels().keySet())
+				|| !includesAllLanguages(document.getDescriptions().keySet())
+				|| !includesAllLanguages(document.getAliases().keySet())) {
+			return false;
+		}
+		if (this.filter.getPropertyFilter() != null
+				&& document instanceof StatementDocument) {
+			for (StatementGroup statementGroup : ((StatementDocument) document)
+					.getStatementGroups()) {
+				if (!this.filter.includePropertyId(statementGroup.getProperty())) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Returns true if the filter includes all of the given language codes.
+	 *
+	 * @param languageCodes
+	 *            the language codes to check
+	 * @return true if no language is removed
+	 */
+	private boolean includesAllLanguages(Collection<String> languageCodes) {
+		if (this.filter.getLanguageFilter() == null) {
+			return true;
+		}
+		for (String languageCode : languageCodes) {
+			if (!this.filter.includeLanguage(languageCode)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Returns true if the filter includes all of the given site keys.
+	 *
+	 * @param siteKeys
+	 *            the site keys to check
+	 * @return true if no site link is removed
+	 */
+	private boolean includesAllSiteLinks(Collection<String> siteKeys) {
+		if (this.filter.getSiteLinkFilter() == null) {
+			return true;
+		}
+		for (String siteKey : siteKeys) {
+			if (!this.filter.includeSiteLink(siteKey)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
 	/**
 	 * Copies the given {@link PropertyIdValue} appearing as a subobject of some
 	 * copied structure. Depending on the setting for the deep copy option, this
@@ -0,0 +1,571 @@
+package org.wikidata.wdtk.datamodel.helpers;
+
+/*
+ * #%L
+ * Wikidata Toolkit Data Model
+ * %%
+ * Copyright (C) 2014 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import org.wikidata.wdtk.datamodel.interfaces.Claim;
+import org.wikidata.wdtk.datamodel.interfaces.DatatypeIdValue;
+import org.wikidata.wdtk.datamodel.interfaces.EntityDocument;
+import org.wikidata.wdtk.datamodel.interfaces.EntityIdValue;
+import org.wikidata.wdtk.datamodel.interfaces.GlobeCoordinatesValue;
+import org.wikidata.wdtk.datamodel.interfaces.ItemDocument;
+import org.wikidata.wdtk.datamodel.interfaces.MonolingualTextValue;
+import org.wikidata.wdtk.datamodel.interfaces.NoValueSnak;
+import org.wikidata.wdtk.datamodel.interfaces.PropertyDocument;
+import org.wikidata.wdtk.datamodel.interfaces.QuantityValue;
+import org.wikidata.wdtk.datamodel.interfaces.Reference;
+import org.wikidata.wdtk.datamodel.interfaces.SiteLink;
+import org.wikidata.wdtk.datamodel.interfaces.Snak;
+import org.wikidata.wdtk.datamodel.interfaces.SnakGroup;
+import org.wikidata.wdtk.datamodel.interfaces.SnakVisitor;
+import org.wikidata.wdtk.datamodel.interfaces.SomeValueSnak;
+import org.wikidata.wdtk.datamodel.interfaces.Statement;
+import org.wikidata.wdtk.datamodel.interfaces.StatementGroup;
+import org.wikidata.wdtk.datamodel.interfaces.StringValue;
+import org.wikidata.wdtk.datamodel.interfaces.TermedDocument;
+import org.wikidata.wdtk.datamodel.interfaces.TimeValue;
+import org.wikidata.wdtk.datamodel.interfaces.Value;
+import org.wikidata.wdtk.datamodel.interfaces.ValueSnak;
+import org.wikidata.wdtk.datamodel.interfaces.ValueVisitor;
+
+/**
+ * Static class for computing 64-bit fingerprints of arbitrary data objects
+ * using only their interfaces. Objects that are equal have the same
+ * fingerprint, and objects that are not equal have different fingerprints
+ * with very high probability.
+ * <p>
+ * Unlike the hash codes computed by {@link Hash}, fingerprints only depend on
+ * the content of objects, and not on the identity hash codes of enums or on
+ * the iteration order of maps. They are therefore the same in every JVM and
+ * can be stored, e.g., as keys of external hash tables that are used to
+ * deduplicate statements or references across dumps.
+ * <p>
+ * Fingerprints are computed from the whole object every time; if they are
+ * needed repeatedly, they should be stored by the caller.
+ */
+public class Fingerprint {
+
+	/**
+	 * Multiplier used to combine fingerprints of parts, the 64-bit FNV prime.
+	 */
+	final static long prime = 0x100000001B3L;
+
+	/**
+	 * Offset basis of 64-bit FNV hashes, used as the fingerprint of null.
+	 */
+	final static long offset = 0xCBF29CE484222325L;
+
+	/*
+	 * Seeds that distinguish the types of objects, so that, e.g., a string
+	 * value and a monolingual text value with empty language are different.
+	 */
+	final static long SEED_ENTITY_ID = fingerprint("entityid");
+	final static long SEED_DATATYPE_ID = fingerprint("datatypeid");
+	final static long SEED_TIME = fingerprint("time");
+	final static long SEED_GLOBE_COORDINATES = fingerprint("globecoordinates");
+	final static long SEED_STRING = fingerprint("string");
+	final static long SEED_MONOLINGUAL_TEXT = fingerprint("monolingualtext");
+	final static long SEED_QUANTITY = fingerprint("quantity");
+	final static long SEED_VALUE_SNAK = fingerprint("value");
+	final static long SEED_SOME_VALUE_SNAK = fingerprint("somevalue");
+	final static long SEED_NO_VALUE_SNAK = fingerprint("novalue");
+	final static long SEED_SNAK_GROUP = fingerprint("snakgroup");
+	final static long SEED_CLAIM = fingerprint("claim");
+	final static long SEED_REFERENCE = fingerprint("reference");
+	final static long SEED_STATEMENT = fingerprint("statement");
+	final static long SEED_STATEMENT_GROUP = fingerprint("statementgroup");
+	final static long SEED_SITE_LINK = fingerprint("sitelink");
+	final static long SEED_ITEM_DOCUMENT = fingerprint("item");
+	final static long SEED_PROPERTY_DOCUMENT = fingerprint("property");
+
+	/**
+	 * Visitor that computes the fingerprints of values.
+	 */
+	static final ValueVisitor<Long> valueVisitor = new ValueVisitor<Long>() {
+
+		@Override
+		public Long visit(DatatypeIdValue value) {
+			return fingerprint(value);
+		}
+
+		@Override
+		public Long visit(EntityIdValue value) {
+			return fingerprint(value);
+		}
+
+		@Override
+		public Long visit(GlobeCoordinatesValue value) {
+			return fingerprint(value);
+		}
+
+		@Override
+		public Long visit(MonolingualTextValue value) {
+			return fingerprint(value);
+		}
+
+		@Override
+		public Long visit(QuantityValue value) {
+			return fingerprint(value);
+		}
+
+		@Override
+		public Long visit(StringValue value) {
+			return fingerprint(value);
+		}
+
+		@Override
+		public Long visit(TimeValue value) {
+			return fingerprint(value);
+		}
+	};
+
+	/**
+	 * Visitor that computes the fingerprints of snaks.
+	 */
+	static final SnakVisitor<Long> snakVisitor = new SnakVisitor<Long>() {
+
+		@Override
+		public Long visit(ValueSnak snak) {
+			return fingerprint(snak);
+		}
+
+		@Override
+		public Long visit(SomeValueSnak snak) {
+			return fingerprint(snak);
+		}
+
+		@Override
+		public Long visit(NoValueSnak snak) {
+			return fingerprint(snak);
+		}
+	};
+
+	/**
+	 * Returns a fingerprint for the given string.
+	 *
+	 * @param s
+	 *            the string to create a fingerprint for, or null
+	 * @return the fingerprint
+	 */
+	public static long fingerprint(String s) {
+		if (s == null) {
+			return offset;
+		}
+		long result = offset;
+		for (int i = 0; i < s.length(); i++) {
+			result = (result ^ s.charAt(i)) * prime;
+		}
+		return mix(result ^ s.length());
+	}
+
+	/**
+	 * Returns a fingerprint for the given value.
+	 *
+	 * @param o
+	 *            the value to create a fingerprint for
+	 * @return the fingerprint
+	 */
+	public static long fingerprint(Value o) {
+		return o.accept(valueVisitor);
+	}
+
+	/**
+	 * Returns a fingerprint for the given value.
+	 *
+	 * @param o
+	 *            the value to create a fingerprint for
+	 * @return the fingerprint
+	 */
+	public static long fingerprint(EntityIdValue o) {
+		long result = SEED_ENTITY_ID;
+		result = combine(result, fingerprint(o.getId()));
+		result = combine(result, fingerprint(o.getSiteIri()));
+		result = combine(result, fingerprint(o.getEntityType()));
+		return result;
+	}
+
+	/**
+	 * Returns a fingerprint for the given value.
+	 *
+	 * @param o
+	 *            the value to create a fingerprint for
+	 * @return the fingerprint
+	 */
+	public static long fingerprint(DatatypeIdValue o) {
+		return combine(SEED_DATATYPE_ID, fingerprint(o.getIri()));
+	}
+
+	/**
+	 * Returns a fingerprint for the given value.
+	 *
+	 * @param o
+	 *            the value to create a fingerprint for
+	 * @return the fingerprint
+	 */
+	public static long fingerprint(TimeValue o) {
+		long result = SEED_TIME;
+		result = combine(result, o.getYear());
+		result = combine(result, o.getMonth());
+		result = combine(result, o.getDay());
+		result = combine(result, o.getHour());
+		result = combine(result, o.getMinute());
+		result = combine(result, o.getSecond());
+		result = combine(result, o.getPrecision());
+		result = combine(result, o.getBeforeTolerance());
+		result = combine(result, o.getAfterTolerance());
+		result = combine(result, o.getTimezoneOffset());
+		result = combine(result, fingerprint(o.getPreferredCalendarModel()));
+		return result;
+	}
+
+	/**
+	 * Returns a fingerprint for the given value.
+	 *
+	 * @param o
+	 *            the value to create a fingerprint for
+	 * @return the fingerprint
+	 */
+	public static long fingerprint(GlobeCoordinatesValue o) {
+		long result = SEED_GLOBE_COORDINATES;
+		result = combine(result, fingerprint(o.getGlobe()));
+		result = combine(result, Double.doubleToLongBits(o.getLatitude()));
+		result = combine(result, Double.doubleToLongBits(o.getLongitude()));
+		result = combine(result, Double.doubleToLongBits(o.getPrecision()));
+		return result;
+	}
+
+	/**
+	 * Returns a fingerprint for the given value.
+	 *
+	 * @param o
+	 *            the value to create a fingerprint for
+	 * @return the fingerprint
+	 */
+	public static long fingerprint(StringValue o) {
+		return combine(SEED_STRING, fingerprint(o.getString()));
+	}
+
+	/**
+	 * Returns a fingerprint for the given value.
+	 *
+	 * @param o
+	 *            the value to create a fingerprint for
+	 * @return the fingerprint
+	 */
+	public static long fingerprint(MonolingualTextValue o) {
+		long result = SEED_MONOLINGUAL_TEXT;
+		result = combine(result, fingerprint(o.getLanguageCode()));
+		result = combine(result, fingerprint(o.getText()));
+		return result;
+	}
+
+	/**
+	 * Returns a fingerprint for the given value. Numbers are compared like
+	 * {@link BigDecimal#equals(Object)} does, i.e., "1.0" and "1.00" have
+	 * different fingerprints.
+	 *
+	 * @param o
+	 *            the value to create a fingerprint for
+	 * @return the fingerprint
+	 */
+	public static long fingerprint(QuantityValue o) {
+		long result = SEED_QUANTITY;
+		result = combine(result, fingerprint(o.getNumericValue()));
+		result = combine(result, fingerprint(o.getUnit()));
+		result = combine(result, fingerprint(o.getLowerBound()));
+		result = combine(result, fingerprint(o.getUpperBound()));
+		return result;
+	}
+
+	/**
+	 * Returns a fingerprint for the given snak.
+	 *
+	 * @param o
+	 *            the snak to create a fingerprint for
+	 * @return the fingerprint
+	 */
+	public static long fingerprint(Snak o) {
+		return o.accept(snakVisitor);
+	}
+
+	/**
+	 * Returns a fingerprint for the given snak.
+	 *
+	 * @param o
+	 *            the snak to create a fingerprint for
+	 * @return the fingerprint
+	 */
+	public static long fingerprint(ValueSnak o) {
+		long result = SEED_VALUE_SNAK;
+		result = combine(result, fingerprint(o.getPropertyId()));
+		result = combine(result, fingerprint(o.getValue()));
+		return result;
+	}
+
+	/**
+	 * Returns a fingerprint for the given snak.
+	 *
+	 * @param o
+	 *            the snak to create a fingerprint for
+	 * @return the fingerprint
+	 */
+	public static long fingerprint(SomeValueSnak o) {
+		return combine(SEED_SOME_VALUE_SNAK, fingerprint(o.getPropertyId()));
+	}
+
+	/**
+	 * Returns a fingerprint for the given snak.
+	 *
+	 * @param o
+	 *            the snak to create a fingerprint for
+	 * @return the fingerprint
+	 */
+	public static long fingerprint(NoValueSnak o) {
+		return combine(SEED_NO_VALUE_SNAK, fingerprint(o.getPropertyId()));
+	}
+
+	/**
+	 * Returns a fingerprint for the given snak group.
+	 *
+	 * @param o
+	 *            the snak group to create a fingerprint for
+	 * @return the fingerprint
+	 */
+	public static long fingerprint(SnakGroup o) {
+		long result = SEED_SNAK_GROUP;
+		for (Snak snak : o.getSnaks()) {
+			result = combine(result, fingerprint(snak));
+		}
+		return combine(result, o.getSnaks().size());
+	}
+
+	/**
+	 * Returns a fingerprint for the given claim.
+	 *
+	 * @param o
+	 *            the claim to create a fingerprint for
+	 * @return the fingerprint
+	 */
+	public static long fingerprint(Claim o) {
+		long result = SEED_CLAIM;
+		result = combine(result, fingerprint(o.getSubject()));
+		result = combine(result, fingerprint(o.getMainSnak()));
+		result = combine(result, fingerprintSnakGroups(o.getQualifiers()));
+		return result;
+	}
+
+	/**
+	 * Returns a fingerprint for the given reference.
+	 *
+	 * @param o
+	 *            the reference to create a fingerprint for
+	 * @return the fingerprint
+	 */
+	public static long fingerprint(Reference o) {
+		return combine(SEED_REFERENCE, fingerprintSnakGroups(o.getSnakGroups()));
+	}
+
+	/**
+	 * Returns a fingerprint for the given statement.
+	 *
+	 * @param o
+	 *            the statement to create a fingerprint for
+	 * @return the fingerprint
+	 */
+	public static long fingerprint(Statement o) {
+		long result = SEED_STATEMENT;
+		result = combine(result, fingerprint(o.getSubject()));
+		result = combine(result, fingerprint(o.getMainSnak()));
+		result = combine(result, fingerprintSnakGroups(o.getQualifiers()));
+		for (Reference reference : o.getReferences()) {
+			result = combine(result, fingerprint(reference));
+		}
+		result = combine(result, o.getReferences().size());
+		result = combine(result, fingerprint(o.getRank().name()));
+		result = combine(result, fingerprint(o.getStatementId()));
+		return result;
+	}
+
+	/**
+	 * Returns a fingerprint for the given statement group.
+	 *
+	 * @param o
+	 *            the statement group to create a fingerprint for
+	 * @return the fingerprint
+	 */
+	public static long fingerprint(StatementGroup o) {
+		long result = SEED_STATEMENT_GROUP;
+		for (Statement statement : o.getStatements()) {
+			result = combine(result, fingerprint(statement));
+		}
+		return combine(result, o.size());
+	}
+
+	/**
+	 * Returns a fingerprint for the given site link.
+	 *
+	 * @param o
+	 *            the site link to create a fingerprint for
+	 * @return the fingerprint
+	 */
+	public static long fingerprint(SiteLink o) {
+		long result = SEED_SITE_LINK;
+		result = combine(result, fingerprint(o.getSiteKey()));
+		result = combine(result, fingerprint(o.getPageTitle()));
+		for (String badge : o.getBadges()) {
+			result = combine(result, fingerprint(badge));
+		}
+		return combine(result, o.getBadges().size());
+	}
+
+	/**
+	 * Returns a fingerprint for the given document. Documents other than
+	 * items and properties only contribute their id and revision id.
+	 *
+	 * @param o
+	 *            the document to create a fingerprint for
+	 * @return the fingerprint
+	 */
+	public static long fingerprint(EntityDocument o) {
+		if (o instanceof ItemDocument) {
+			return fingerprint((ItemDocument) o);
+		} else if (o instanceof PropertyDocument) {
+			return fingerprint((PropertyDocument) o);
+		}
+		long result = fingerprint(o.getEntityId());
+		return combine(result, o.getRevisionId());
+	}
+
+	/**
+	 * Returns a fingerprint for the given document.
+	 *
+	 * @param o
+	 *            the document to create a fingerprint for
+	 * @return the fingerprint
+	 */
+	public static long fingerprint(ItemDocument o) {
+		long result = fingerprintTermedDocument(SEED_ITEM_DOCUMENT, o);
+		result = combine(result, fingerprintStatementGroups(o.getStatementGroups()));
+		long siteLinks = 0;
+		for (SiteLink siteLink : o.getSiteLinks().values()) {
+			siteLinks += fingerprint(siteLink);
+		}
+		result = combine(result, siteLinks);
+		return combine(result, o.getSiteLinks().size());
+	}
+
+	/**
+	 * Returns a fingerprint for the given document.
+	 *
+	 * @param o
+	 *            the document to create a fingerprint for
+	 * @return the fingerprint
+	 */
+	public static long fingerprint(PropertyDocument o) {
+		long result = fingerprintTermedDocument(SEED_PROPERTY_DOCUMENT, o);
+		result = combine(result, fingerprintStatementGroups(o.getStatementGroups()));
+		return combine(result, fingerprint(o.getDatatype()));
+	}
+
+	/**
+	 * Returns a fingerprint for the given number, or for null.
+	 */
+	static long fingerprint(BigDecimal number) {
+		return number == null ? offset : fingerprint(number.toString());
+	}
+
+	/**
+	 * Returns a fingerprint for the terms and the id of the given document.
+	 * Terms are combined independently of their order, since they are kept
+	 * in maps.
+	 */
+	static long fingerprintTermedDocument(long seed, TermedDocument o) {
+		long result = combine(seed, fingerprint(o.getEntityId()));
+		result = combine(result, o.getRevisionId());
+		result = combine(result, fingerprintTerms(o.getLabels().values()));
+		result = combine(result, fingerprintTerms(o.getDescriptions().values()));
+		long aliases = 0;
+		for (Map.Entry<String, List<MonolingualTextValue>> entry : o.getAliases().entrySet()) {
+			long languageAliases = fingerprint(entry.getKey());
+			for (MonolingualTextValue alias : entry.getValue()) {
+				languageAliases = combine(languageAliases, fingerprint(alias));
+			}
+			aliases += mix(languageAliases);
+		}
+		return combine(result, aliases);
+	}
+
+	static long fingerprintTerms(Collection<MonolingualTextValue> terms) {
+		long result = 0;
+		for (MonolingualTextValue term : terms) {
+			result += fingerprint(term);
+		}
+		return combine(result, terms.size());
+	}
+
+	/**
+	 * Returns a fingerprint for the given statement groups. The groups are
+	 * combined independently of their order, since their order depends on
+	 * the maps that documents use to store them.
+	 */
+	static long fingerprintStatementGroups(List<StatementGroup> statementGroups) {
+		long result = 0;
+		for (StatementGroup statementGroup : statementGroups) {
+			result += fingerprint(statementGroup);
+		}
+		return combine(result, statementGroups.size());
+	}
+
+	static long fingerprintSnakGroups(List<SnakGroup> snakGroups) {
+		long result = offset;
+		for (SnakGroup snakGroup : snakGroups) {
+			result = combine(result, fingerprint(snakGroup));
+		}
+		return combine(result, snakGroups.size());
+	}
+
+	/**
+	 * Combines a fingerprint with the fingerprint or value of a part, such
+	 * that the order of parts matters.
+	 */
+	static long combine(long result, long part) {
+		return mix(result * prime + part);
+	}
+
+	/**
+	 * Spreads the bits of the given value, as in the finalization step of
+	 * MurmurHash3.
+	 */
+	static long mix(long h) {
+		h ^= h >>> 33;
+		h *= 0xFF51AFD7ED558CCDL;
+		h ^= h >>> 33;
+		h *= 0xC4CEB9FE1A85EC53L;
+		h ^= h >>> 33;
+		return h;
+	}
+
+}
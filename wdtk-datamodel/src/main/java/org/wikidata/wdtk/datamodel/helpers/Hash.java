@@ -46,6 +46,13 @@ import org.wikidata.wdtk.datamodel.interfaces.ValueSnak;
  * arbitrary interface implementations. More efficient solutions might exist if
  * the object that implements an interface is of a specific known type, but the
  * methods here could always be used as a fallback or default.
+ * <p>
+ * The implementations of this library cache the hash codes of statements,
+ * references, documents, and other nested objects, since computing them
+ * requires a walk over all of their parts. The hash codes of enums, such as
+ * {@link org.wikidata.wdtk.datamodel.interfaces.StatementRank}, differ
+ * between JVMs, so the results should not be stored; {@link Fingerprint}
+ * provides hashes that can be stored.
  *
  * @author Markus Kroetzsch
  *
@@ -0,0 +1,183 @@
+package org.wikidata.wdtk.datamodel.implementation;
+
+/*
+ * #%L
+ * Wikidata Toolkit Data Model
+ * %%
+ * Copyright (C) 2014 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.AbstractList;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import org.wikidata.wdtk.datamodel.interfaces.MonolingualTextValue;
+
+/**
+ * Immutable map from language codes to lists of aliases that stores the texts
+ * of all aliases in one array. It is the counterpart of
+ * {@link CompactTermMap} for aliases; see there for details.
+ */
+public class CompactAliasMap extends
+		AbstractMap<String, List<MonolingualTextValue>> {
+
+	/**
+	 * Interned language codes in ascending order.
+	 */
+	final String[] languageCodes;
+	/**
+	 * Position of the first alias of each language in {@link #texts}; the
+	 * last element is the total number of aliases.
+	 */
+	final int[] offsets;
+	/**
+	 * Texts of the aliases, grouped by language in the order of
+	 * {@link #languageCodes}, and in their original order within each
+	 * language.
+	 */
+	final String[] texts;
+
+	/**
+	 * List of the aliases of one language.
+	 */
+	class AliasList extends AbstractList<MonolingualTextValue> {
+		final int index;
+
+		AliasList(int index) {
+			this.index = index;
+		}
+
+		@Override
+		public MonolingualTextValue get(int i) {
+			if (i < 0 || i >= size()) {
+				throw new IndexOutOfBoundsException("Index: " + i);
+			}
+			return new TermImpl(languageCodes[this.index],
+					texts[offsets[this.index] + i]);
+		}
+
+		@Override
+		public int size() {
+			return offsets[this.index + 1] - offsets[this.index];
+		}
+	}
+
+	/**
+	 * Creates a new map with the same content as the given map. Languages
+	 * without aliases are omitted.
+	 *
+	 * @param aliases
+	 *            map from language codes to lists of aliases
+	 */
+	public CompactAliasMap(Map<String, List<MonolingualTextValue>> aliases) {
+		String[] keys = aliases.entrySet().stream()
+				.filter(entry -> !entry.getValue().isEmpty())
+				.map(Entry::getKey).sorted().toArray(String[]::new);
+		int count = 0;
+		for (String key : keys) {
+			count += aliases.get(key).size();
+		}
+
+		this.languageCodes = new String[keys.length];
+		this.offsets = new int[keys.length + 1];
+		this.texts = new String[count];
+		int position = 0;
+		for (int i = 0; i < keys.length; i++) {
+			this.languageCodes[i] = keys[i].intern();
+			this.offsets[i] = position;
+			for (MonolingualTextValue alias : aliases.get(keys[i])) {
+				this.texts[position++] = alias.getText();
+			}
+		}
+		this.offsets[keys.length] = position;
+	}
+
+	/**
+	 * Returns an estimate of the heap memory used by this map in bytes. The
+	 * interned language codes are not counted, since they are shared.
+	 *
+	 * @return estimated number of bytes
+	 */
+	long estimateMemoryFootprint() {
+		return MemoryFootprint.ofObject(5 * MemoryFootprint.REFERENCE_SIZE)
+				+ MemoryFootprint.ofArray(this.languageCodes.length,
+						MemoryFootprint.REFERENCE_SIZE)
+				+ MemoryFootprint.ofArray(this.offsets.length, 4)
+				+ MemoryFootprint.ofArray(this.texts.length,
+						MemoryFootprint.REFERENCE_SIZE)
+				+ MemoryFootprint.ofStrings(this.texts);
+	}
+
+	@Override
+	public int size() {
+		return this.languageCodes.length;
+	}
+
+	@Override
+	public boolean containsKey(Object key) {
+		return key instanceof String
+				&& Arrays.binarySearch(this.languageCodes, key) >= 0;
+	}
+
+	@Override
+	public List<MonolingualTextValue> get(Object key) {
+		if (!(key instanceof String)) {
+			return null;
+		}
+		int index = Arrays.binarySearch(this.languageCodes, key);
+		return index < 0 ? null : new AliasList(index);
+	}
+
+	@Override
+	public Set<Entry<String, List<MonolingualTextValue>>> entrySet() {
+		return new AbstractSet<Entry<String, List<MonolingualTextValue>>>() {
+
+			@Override
+			public Iterator<Entry<String, List<MonolingualTextValue>>> iterator() {
+				return new Iterator<Entry<String, List<MonolingualTextValue>>>() {
+					int index = 0;
+
+					@Override
+					public boolean hasNext() {
+						return this.index < languageCodes.length;
+					}
+
+					@Override
+					public Entry<String, List<MonolingualTextValue>> next() {
+						if (!hasNext()) {
+							throw new NoSuchElementException();
+						}
+						int current = this.index++;
+						return new SimpleImmutableEntry<>(
+								languageCodes[current], new AliasList(current));
+					}
+				};
+			}
+
+			@Override
+			public int size() {
+				return languageCodes.length;
+			}
+		};
+	}
+
+}
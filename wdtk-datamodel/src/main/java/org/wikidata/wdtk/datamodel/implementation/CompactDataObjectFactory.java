@@ -0,0 +1,93 @@
+package org.wikidata.wdtk.datamodel.implementation;
+
+/*
+ * #%L
+ * Wikidata Toolkit Data Model
+ * %%
+ * Copyright (C) 2014 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.List;
+import java.util.Map;
+
+import org.wikidata.wdtk.datamodel.interfaces.ItemDocument;
+import org.wikidata.wdtk.datamodel.interfaces.ItemIdValue;
+import org.wikidata.wdtk.datamodel.interfaces.MonolingualTextValue;
+import org.wikidata.wdtk.datamodel.interfaces.SiteLink;
+import org.wikidata.wdtk.datamodel.interfaces.StatementGroup;
+
+/**
+ * Factory that creates {@link CompactItemDocument} objects for items, and
+ * the same objects as {@link DataObjectFactoryImpl} otherwise. All documents
+ * of one factory share its {@link CompactDictionary}. It is meant to be used
+ * with a {@link org.wikidata.wdtk.datamodel.helpers.DatamodelConverter} to
+ * convert items that should be kept in memory:
+ *
+ * <pre>
+ * DatamodelConverter converter = new DatamodelConverter(
+ * 		new CompactDataObjectFactory());
+ * converter.setOptionDeepCopy(false);
+ * ItemDocument compactItem = converter.copy(itemDocument);
+ * </pre>
+ *
+ * Shallow copies are sufficient, since all data is encoded in the compact
+ * document anyway.
+ */
+public class CompactDataObjectFactory extends DataObjectFactoryImpl {
+
+	final CompactDictionary dictionary;
+
+	/**
+	 * Creates a factory with a new dictionary.
+	 */
+	public CompactDataObjectFactory() {
+		this(new CompactDictionary());
+	}
+
+	/**
+	 * Creates a factory that uses the given dictionary.
+	 *
+	 * @param dictionary
+	 *            the dictionary shared by the documents of this factory
+	 */
+	public CompactDataObjectFactory(CompactDictionary dictionary) {
+		this.dictionary = dictionary;
+	}
+
+	/**
+	 * Returns the dictionary that is shared by the documents of this factory.
+	 * Its memory footprint should be added to the footprints of the documents
+	 * when estimating the memory that is needed.
+	 *
+	 * @return the dictionary
+	 */
+	public CompactDictionary getDictionary() {
+		return this.dictionary;
+	}
+
+	@Override
+	public ItemDocument getItemDocument(ItemIdValue itemIdValue,
+			List<MonolingualTextValue> labels,
+			List<MonolingualTextValue> descriptions,
+			List<MonolingualTextValue> aliases,
+			List<StatementGroup> statementGroups,
+			Map<String, SiteLink> siteLinks, long revisionId) {
+		return new CompactItemDocument(itemIdValue, labels, descriptions,
+				aliases, statementGroups, siteLinks, revisionId,
+				this.dictionary);
+	}
+
+}
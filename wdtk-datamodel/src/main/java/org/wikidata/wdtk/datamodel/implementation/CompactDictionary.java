@@ -0,0 +1,145 @@
+package org.wikidata.wdtk.datamodel.implementation;
+
+/*
+ * #%L
+ * Wikidata Toolkit Data Model
+ * %%
+ * Copyright (C) 2014 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Dictionary that assigns integer codes to immutable objects, such as
+ * strings and property ids, so that they can be stored once and referred to
+ * by their code in packed arrays. It is used by {@link CompactItemDocument}
+ * for data that is repeated across many documents, such as site IRIs,
+ * properties, datatypes, language codes, site keys, units and calendar
+ * models.
+ * <p>
+ * Codes are never removed. A dictionary can be shared by many documents and
+ * threads: adding objects is synchronized, and looking up objects by code
+ * does not need locks.
+ */
+public class CompactDictionary {
+
+	/**
+	 * Codes of the objects in the dictionary.
+	 */
+	final Map<Object, Integer> codes = new HashMap<>();
+
+	/**
+	 * Objects of the dictionary, indexed by their code. Written after each
+	 * change to make new entries visible to other threads.
+	 */
+	volatile Object[] objects = new Object[64];
+
+	/**
+	 * Number of objects in the dictionary.
+	 */
+	int size = 0;
+
+	/**
+	 * Returns the code of the given object, adding it to the dictionary if
+	 * necessary.
+	 *
+	 * @param object
+	 *            the object, which must not be null and must not be changed
+	 *            later
+	 * @return the code of the object
+	 */
+	public synchronized int getCode(Object object) {
+		Integer code = this.codes.get(object);
+		if (code != null) {
+			return code;
+		}
+		Object[] array = this.objects;
+		if (this.size == array.length) {
+			Object[] newArray = new Object[array.length * 2];
+			System.arraycopy(array, 0, newArray, 0, this.size);
+			array = newArray;
+		}
+		if (object instanceof String) {
+			object = ((String) object).intern();
+		}
+		array[this.size] = object;
+		this.codes.put(object, this.size);
+		this.objects = array;
+		return this.size++;
+	}
+
+	/**
+	 * Returns the object of the given code.
+	 *
+	 * @param code
+	 *            a code that was returned by {@link #getCode(Object)}
+	 * @return the object
+	 */
+	public Object getObject(int code) {
+		return this.objects[code];
+	}
+
+	/**
+	 * Returns the string of the given code.
+	 *
+	 * @param code
+	 *            a code that was returned by {@link #getCode(Object)} for a
+	 *            string
+	 * @return the string
+	 */
+	public String getString(int code) {
+		return (String) this.objects[code];
+	}
+
+	/**
+	 * Returns the number of objects in the dictionary.
+	 *
+	 * @return number of objects
+	 */
+	public synchronized int size() {
+		return this.size;
+	}
+
+	/**
+	 * Returns an estimate of the heap memory used by this dictionary in
+	 * bytes, using the same assumptions as
+	 * {@link CompactItemDocument#estimateMemoryFootprint()}. Strings are
+	 * counted fully, although interned strings may be shared with other
+	 * objects.
+	 *
+	 * @return estimated number of bytes
+	 */
+	public synchronized long estimateMemoryFootprint() {
+		// the dictionary, its map, the map table, and the object array
+		long result = 16 + 48 + MemoryFootprint.ofArray(this.codes.size() * 4 / 3,
+				MemoryFootprint.REFERENCE_SIZE)
+				+ MemoryFootprint.ofArray(this.objects.length,
+						MemoryFootprint.REFERENCE_SIZE);
+		for (int i = 0; i < this.size; i++) {
+			// map entry and boxed code
+			result += 32 + 16;
+			Object object = this.objects[i];
+			if (object instanceof String) {
+				result += MemoryFootprint.ofString((String) object);
+			} else {
+				result += MemoryFootprint.OTHER_OBJECT_SIZE;
+			}
+		}
+		return result;
+	}
+
+}
@@ -0,0 +1,847 @@
+package org.wikidata.wdtk.datamodel.implementation;
+
+/*
+ * #%L
+ * Wikidata Toolkit Data Model
+ * %%
+ * Copyright (C) 2014 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+
+import org.apache.commons.lang3.Validate;
+import org.wikidata.wdtk.datamodel.helpers.Equality;
+import org.wikidata.wdtk.datamodel.helpers.Hash;
+import org.wikidata.wdtk.datamodel.helpers.ToString;
+import org.wikidata.wdtk.datamodel.interfaces.DatatypeIdValue;
+import org.wikidata.wdtk.datamodel.interfaces.EntityIdValue;
+import org.wikidata.wdtk.datamodel.interfaces.GlobeCoordinatesValue;
+import org.wikidata.wdtk.datamodel.interfaces.ItemDocument;
+import org.wikidata.wdtk.datamodel.interfaces.ItemIdValue;
+import org.wikidata.wdtk.datamodel.interfaces.MonolingualTextValue;
+import org.wikidata.wdtk.datamodel.interfaces.NoValueSnak;
+import org.wikidata.wdtk.datamodel.interfaces.PropertyIdValue;
+import org.wikidata.wdtk.datamodel.interfaces.QuantityValue;
+import org.wikidata.wdtk.datamodel.interfaces.Reference;
+import org.wikidata.wdtk.datamodel.interfaces.SiteLink;
+import org.wikidata.wdtk.datamodel.interfaces.Snak;
+import org.wikidata.wdtk.datamodel.interfaces.SnakGroup;
+import org.wikidata.wdtk.datamodel.interfaces.SnakVisitor;
+import org.wikidata.wdtk.datamodel.interfaces.SomeValueSnak;
+import org.wikidata.wdtk.datamodel.interfaces.Statement;
+import org.wikidata.wdtk.datamodel.interfaces.StatementGroup;
+import org.wikidata.wdtk.datamodel.interfaces.StatementRank;
+import org.wikidata.wdtk.datamodel.interfaces.StringValue;
+import org.wikidata.wdtk.datamodel.interfaces.TimeValue;
+import org.wikidata.wdtk.datamodel.interfaces.Value;
+import org.wikidata.wdtk.datamodel.interfaces.ValueSnak;
+import org.wikidata.wdtk.datamodel.interfaces.ValueVisitor;
+
+/**
+ * Implementation of {@link ItemDocument} that uses little memory, for
+ * applications that keep millions of items in memory. Instead of a graph of
+ * statement, snak and value objects, the statements are encoded in one array
+ * of integers, together with an array for the strings and numbers that
+ * cannot be stored as integers. Data that is repeated across documents, such
+ * as properties, site IRIs, datatypes, units and calendar models, is stored
+ * once in a {@link CompactDictionary} that is shared by all documents. Item
+ * ids are stored as numbers, statement ids as two longs, and terms in
+ * {@link CompactTermMap} and {@link CompactAliasMap} objects.
+ * <p>
+ * The usual data objects are created when they are accessed, so reading a
+ * compact document is slower than reading an {@link ItemDocumentImpl} and
+ * creates garbage. The methods {@link #findStatementGroup(String)} and
+ * {@link #hasStatement(String)} only decode the statements of the given
+ * property. Documents are immutable and equal to other {@link ItemDocument}
+ * objects with the same data.
+ * <p>
+ * Compact documents are usually created with a
+ * {@link org.wikidata.wdtk.datamodel.helpers.DatamodelConverter} that uses a
+ * {@link CompactDataObjectFactory}. They cannot be serialized to JSON
+ * directly, but can be converted back with a converter that uses a
+ * {@link DataObjectFactoryImpl}.
+ *
+ * @see #estimateMemoryFootprint()
+ */
+public class CompactItemDocument implements ItemDocument {
+
+	static final int TAG_NO_VALUE = 0;
+	static final int TAG_SOME_VALUE = 1;
+	static final int TAG_ITEM = 2;
+	static final int TAG_PROPERTY = 3;
+	static final int TAG_STRING = 4;
+	static final int TAG_TIME = 5;
+	static final int TAG_GLOBE_COORDINATES = 6;
+	static final int TAG_MONOLINGUAL_TEXT = 7;
+	static final int TAG_QUANTITY = 8;
+	static final int TAG_OTHER = 9;
+
+	static final int ID_EMPTY = 0;
+	static final int ID_UUID = 1;
+	static final int ID_UPPER_CASE_UUID = 2;
+	static final int ID_OTHER = 3;
+
+	/**
+	 * Code for missing dictionary entries and objects.
+	 */
+	static final int NONE = -1;
+	/**
+	 * Datatype code of value snaks that are not {@link ValueSnakImpl}
+	 * objects, which get the default datatype of their value.
+	 */
+	static final int DATATYPE_DEFAULT = -2;
+
+	static final StatementRank[] RANKS = StatementRank.values();
+
+	final CompactDictionary dictionary;
+
+	final int itemNumber;
+	final int siteIriCode;
+	final long revisionId;
+
+	final CompactTermMap labels;
+	final CompactTermMap descriptions;
+	final CompactAliasMap aliases;
+
+	/**
+	 * Dictionary codes of the site keys of the site links.
+	 */
+	final int[] siteKeys;
+	/**
+	 * Page titles of the site links, in the order of {@link #siteKeys}.
+	 */
+	final String[] pageTitles;
+	/**
+	 * Dictionary codes of the badges of each site link, or null if no site
+	 * link has badges.
+	 */
+	final int[][] badges;
+
+	/**
+	 * Encoded statement groups. Each group starts with the dictionary code of
+	 * its property, followed by the number of integers of the rest of the
+	 * group, so that groups can be skipped.
+	 */
+	final int[] statementData;
+	/**
+	 * Strings and numbers that are referred to by the statement data, or null
+	 * if there are none.
+	 */
+	final Object[] statementObjects;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param itemIdValue
+	 *            the id of the item that data is about
+	 * @param labels
+	 *            the list of labels of this item, with at most one label for
+	 *            each language code
+	 * @param descriptions
+	 *            the list of descriptions of this item, with at most one
+	 *            description for each language code
+	 * @param aliases
+	 *            the list of aliases of this item
+	 * @param statementGroups
+	 *            the list of statement groups of this item; all of them must
+	 *            have the given itemIdValue as their subject
+	 * @param siteLinks
+	 *            the sitelinks of this item by site key
+	 * @param revisionId
+	 *            the revision ID or 0 if not known
+	 * @param dictionary
+	 *            the dictionary for data that is shared with other documents
+	 */
+	public CompactItemDocument(ItemIdValue itemIdValue,
+			List<MonolingualTextValue> labels,
+			List<MonolingualTextValue> descriptions,
+			List<MonolingualTextValue> aliases,
+			List<StatementGroup> statementGroups,
+			Map<String, SiteLink> siteLinks, long revisionId,
+			CompactDictionary dictionary) {
+		Validate.notNull(itemIdValue);
+		Validate.notNull(dictionary);
+		this.dictionary = dictionary;
+		this.itemNumber = getNumber(itemIdValue.getId(), 'Q');
+		Validate.isTrue(this.itemNumber >= 0, "Unsupported item id: "
+				+ itemIdValue.getId());
+		this.siteIriCode = dictionary.getCode(itemIdValue.getSiteIri());
+		this.revisionId = revisionId;
+
+		this.labels = new CompactTermMap(
+				TermedStatementDocumentImpl.constructTermMap(labels != null ? labels
+						: Collections.emptyList()));
+		this.descriptions = new CompactTermMap(
+				TermedStatementDocumentImpl.constructTermMap(descriptions != null ? descriptions
+						: Collections.emptyList()));
+		this.aliases = new CompactAliasMap(
+				TermedStatementDocumentImpl.constructTermListMap(aliases != null ? aliases
+						: Collections.emptyList()));
+
+		int siteLinkCount = (siteLinks != null) ? siteLinks.size() : 0;
+		this.siteKeys = new int[siteLinkCount];
+		this.pageTitles = new String[siteLinkCount];
+		int[][] siteLinkBadges = null;
+		if (siteLinkCount > 0) {
+			int i = 0;
+			for (SiteLink siteLink : siteLinks.values()) {
+				this.siteKeys[i] = dictionary.getCode(siteLink.getSiteKey());
+				this.pageTitles[i] = siteLink.getPageTitle();
+				List<String> linkBadges = siteLink.getBadges();
+				if (!linkBadges.isEmpty()) {
+					if (siteLinkBadges == null) {
+						siteLinkBadges = new int[siteLinkCount][];
+					}
+					siteLinkBadges[i] = new int[linkBadges.size()];
+					for (int j = 0; j < linkBadges.size(); j++) {
+						siteLinkBadges[i][j] = dictionary.getCode(linkBadges
+								.get(j));
+					}
+				}
+				i++;
+			}
+		}
+		this.badges = siteLinkBadges;
+
+		Encoder encoder = new Encoder(dictionary, itemIdValue);
+		if (statementGroups != null) {
+			for (StatementGroup statementGroup : statementGroups) {
+				Validate.isTrue(statementGroup.getSubject().equals(itemIdValue),
+						"Subject for the statement group and the document are different: "
+								+ statementGroup.getSubject() + " vs " + itemIdValue);
+				encoder.writeStatementGroup(statementGroup);
+			}
+		}
+		this.statementData = encoder.getData();
+		this.statementObjects = encoder.getObjects();
+	}
+
+	/**
+	 * Creates a compact copy of the given document.
+	 *
+	 * @param document
+	 *            the document to copy
+	 * @param dictionary
+	 *            the dictionary for data that is shared with other documents
+	 */
+	public CompactItemDocument(ItemDocument document,
+			CompactDictionary dictionary) {
+		this(document.getItemId(), new ArrayList<>(document.getLabels()
+				.values()), new ArrayList<>(document.getDescriptions()
+				.values()), flattenAliases(document.getAliases()), document
+				.getStatementGroups(), document.getSiteLinks(), document
+				.getRevisionId(), dictionary);
+	}
+
+	/**
+	 * Returns the dictionary that this document shares with other documents.
+	 *
+	 * @return the dictionary
+	 */
+	public CompactDictionary getDictionary() {
+		return this.dictionary;
+	}
+
+	@Override
+	public ItemIdValue getItemId() {
+		return new ItemIdValueImpl("Q" + this.itemNumber,
+				this.dictionary.getString(this.siteIriCode));
+	}
+
+	@Override
+	public EntityIdValue getEntityId() {
+		return getItemId();
+	}
+
+	@Override
+	public long getRevisionId() {
+		return this.revisionId;
+	}
+
+	@Override
+	public Map<String, MonolingualTextValue> getLabels() {
+		return this.labels;
+	}
+
+	@Override
+	public Map<String, MonolingualTextValue> getDescriptions() {
+		return this.descriptions;
+	}
+
+	@Override
+	public Map<String, List<MonolingualTextValue>> getAliases() {
+		return this.aliases;
+	}
+
+	@Override
+	public String findLabel(String languageCode) {
+		return this.labels.getText(languageCode);
+	}
+
+	@Override
+	public String findDescription(String languageCode) {
+		return this.descriptions.getText(languageCode);
+	}
+
+	@Override
+	public Map<String, SiteLink> getSiteLinks() {
+		Map<String, SiteLink> result = new HashMap<>();
+		for (int i = 0; i < this.siteKeys.length; i++) {
+			List<String> linkBadges;
+			if (this.badges == null || this.badges[i] == null) {
+				linkBadges = Collections.emptyList();
+			} else {
+				linkBadges = new ArrayList<>(this.badges[i].length);
+				for (int code : this.badges[i]) {
+					linkBadges.add(this.dictionary.getString(code));
+				}
+			}
+			String siteKey = this.dictionary.getString(this.siteKeys[i]);
+			result.put(siteKey, new SiteLinkImpl(this.pageTitles[i], siteKey,
+					linkBadges));
+		}
+		return Collections.unmodifiableMap(result);
+	}
+
+	@Override
+	public List<StatementGroup> getStatementGroups() {
+		Decoder decoder = new Decoder();
+		List<StatementGroup> result = new ArrayList<>();
+		while (decoder.position < this.statementData.length) {
+			result.add(decoder.readStatementGroup());
+		}
+		return Collections.unmodifiableList(result);
+	}
+
+	@Override
+	public StatementGroup findStatementGroup(String propertyId) {
+		int position = findGroupPosition(propertyId, null);
+		if (position < 0) {
+			return null;
+		}
+		Decoder decoder = new Decoder();
+		decoder.position = position;
+		return decoder.readStatementGroup();
+	}
+
+	@Override
+	public StatementGroup findStatementGroup(PropertyIdValue propertyIdValue) {
+		int position = findGroupPosition(propertyIdValue.getId(),
+				propertyIdValue);
+		if (position < 0) {
+			return null;
+		}
+		Decoder decoder = new Decoder();
+		decoder.position = position;
+		return decoder.readStatementGroup();
+	}
+
+	@Override
+	public boolean hasStatement(String propertyId) {
+		return findGroupPosition(propertyId, null) >= 0;
+	}
+
+	@Override
+	public boolean hasStatement(PropertyIdValue propertyIdValue) {
+		return findGroupPosition(propertyIdValue.getId(), propertyIdValue) >= 0;
+	}
+
+	/**
+	 * Returns an estimate of the heap memory used by this document in bytes.
+	 * The estimate assumes a 64bit JVM with compressed references and strings
+	 * with two bytes per character. Data that is shared with other documents
+	 * is not counted: see {@link CompactDictionary#estimateMemoryFootprint()}
+	 * for the memory used by the dictionary.
+	 *
+	 * @return estimated number of bytes
+	 */
+	public long estimateMemoryFootprint() {
+		long result = MemoryFootprint.ofObject(8 * MemoryFootprint.REFERENCE_SIZE
+				+ 2 * 4 + 8);
+		result += this.labels.estimateMemoryFootprint()
+				+ this.descriptions.estimateMemoryFootprint()
+				+ this.aliases.estimateMemoryFootprint();
+		result += MemoryFootprint.ofArray(this.siteKeys.length, 4)
+				+ MemoryFootprint.ofArray(this.pageTitles.length,
+						MemoryFootprint.REFERENCE_SIZE)
+				+ MemoryFootprint.ofStrings(this.pageTitles);
+		if (this.badges != null) {
+			result += MemoryFootprint.ofArray(this.badges.length,
+					MemoryFootprint.REFERENCE_SIZE);
+			for (int[] linkBadges : this.badges) {
+				if (linkBadges != null) {
+					result += MemoryFootprint.ofArray(linkBadges.length, 4);
+				}
+			}
+		}
+		result += MemoryFootprint.ofArray(this.statementData.length, 4);
+		if (this.statementObjects != null) {
+			result += MemoryFootprint.ofArray(this.statementObjects.length,
+					MemoryFootprint.REFERENCE_SIZE);
+			for (Object object : this.statementObjects) {
+				result += MemoryFootprint.ofValue(object);
+			}
+		}
+		return result;
+	}
+
+	@Override
+	public int hashCode() {
+		return Hash.hashCode(this);
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		return Equality.equalsItemDocument(this, obj);
+	}
+
+	@Override
+	public String toString() {
+		return ToString.toString(this);
+	}
+
+	/**
+	 * Returns the position of the statement group for the given property in
+	 * {@link #statementData}, or -1 if there is no such group.
+	 *
+	 * @param propertyId
+	 *            the id of the property
+	 * @param propertyIdValue
+	 *            the property, or null if only the id should be compared
+	 * @return position of the group or -1
+	 */
+	int findGroupPosition(String propertyId, PropertyIdValue propertyIdValue) {
+		int position = 0;
+		while (position < this.statementData.length) {
+			PropertyIdValue property = (PropertyIdValue) this.dictionary
+					.getObject(this.statementData[position]);
+			if (property.getId().equals(propertyId)
+					&& (propertyIdValue == null || propertyIdValue
+							.equals(property))) {
+				return position;
+			}
+			position += this.statementData[position + 1] + 2;
+		}
+		return -1;
+	}
+
+	/**
+	 * Returns the number of an entity id with the given prefix, or -1 if the
+	 * id does not have this form or if the number is too large to be stored.
+	 *
+	 * @param id
+	 *            the entity id, e.g., "Q42"
+	 * @param prefix
+	 *            the expected first character of the id
+	 * @return number of the id, or -1
+	 */
+	static int getNumber(String id, char prefix) {
+		int length = id.length();
+		if (length < 2 || length > 10 || id.charAt(0) != prefix
+				|| (id.charAt(1) == '0' && length > 2)) {
+			return -1;
+		}
+		int result = 0;
+		for (int i = 1; i < length; i++) {
+			char c = id.charAt(i);
+			if (c < '0' || c > '9') {
+				return -1;
+			}
+			result = result * 10 + (c - '0');
+		}
+		return result;
+	}
+
+	static List<MonolingualTextValue> flattenAliases(
+			Map<String, List<MonolingualTextValue>> aliases) {
+		List<MonolingualTextValue> result = new ArrayList<>();
+		for (List<MonolingualTextValue> languageAliases : aliases.values()) {
+			result.addAll(languageAliases);
+		}
+		return result;
+	}
+
+	/**
+	 * Writes statements to an array of integers.
+	 */
+	static class Encoder implements SnakVisitor<Void>, ValueVisitor<Integer> {
+
+		final CompactDictionary dictionary;
+		final ItemIdValue subject;
+		final String statementIdPrefix;
+
+		int[] data = new int[64];
+		int size = 0;
+		final List<Object> objects = new ArrayList<>();
+
+		Encoder(CompactDictionary dictionary, ItemIdValue subject) {
+			this.dictionary = dictionary;
+			this.subject = subject;
+			this.statementIdPrefix = subject.getId() + "$";
+		}
+
+		int[] getData() {
+			return Arrays.copyOf(this.data, this.size);
+		}
+
+		Object[] getObjects() {
+			return this.objects.isEmpty() ? null : this.objects.toArray();
+		}
+
+		void write(int value) {
+			if (this.size == this.data.length) {
+				this.data = Arrays.copyOf(this.data, this.size * 2);
+			}
+			this.data[this.size++] = value;
+		}
+
+		void writeLong(long value) {
+			write((int) (value >>> 32));
+			write((int) value);
+		}
+
+		void writeCode(Object object) {
+			write(object == null ? NONE : this.dictionary.getCode(object));
+		}
+
+		void writeObject(Object object) {
+			if (object == null) {
+				write(NONE);
+			} else {
+				write(this.objects.size());
+				this.objects.add(object);
+			}
+		}
+
+		void writeStatementGroup(StatementGroup statementGroup) {
+			writeCode(statementGroup.getProperty());
+			int lengthPosition = this.size;
+			write(0);
+			List<Statement> statements = statementGroup.getStatements();
+			write(statements.size());
+			for (Statement statement : statements) {
+				writeStatement(statement);
+			}
+			this.data[lengthPosition] = this.size - lengthPosition - 1;
+		}
+
+		void writeStatement(Statement statement) {
+			String statementId = statement.getStatementId();
+			int rank = statement.getRank().ordinal();
+			int idType = getIdType(statementId);
+			write(rank | (idType << 2));
+			if (idType == ID_UUID || idType == ID_UPPER_CASE_UUID) {
+				UUID uuid = UUID.fromString(statementId
+						.substring(this.statementIdPrefix.length()));
+				writeLong(uuid.getMostSignificantBits());
+				writeLong(uuid.getLeastSignificantBits());
+			} else if (idType == ID_OTHER) {
+				writeObject(statementId);
+			}
+
+			statement.getMainSnak().accept(this);
+			writeSnakGroups(statement.getQualifiers());
+			List<Reference> references = statement.getReferences();
+			write(references.size());
+			for (Reference reference : references) {
+				writeSnakGroups(reference.getSnakGroups());
+			}
+		}
+
+		/**
+		 * Returns how the given statement id can be stored. Ids that consist
+		 * of the id of the subject, "$", and a UUID in lower or upper case
+		 * are stored as numbers.
+		 */
+		int getIdType(String statementId) {
+			if (statementId == null || statementId.isEmpty()) {
+				return ID_EMPTY;
+			}
+			if (statementId.length() != this.statementIdPrefix.length() + 36
+					|| !statementId.startsWith(this.statementIdPrefix)) {
+				return ID_OTHER;
+			}
+			String suffix = statementId.substring(this.statementIdPrefix
+					.length());
+			String uuid;
+			try {
+				uuid = UUID.fromString(suffix).toString();
+			} catch (IllegalArgumentException e) {
+				return ID_OTHER;
+			}
+			if (uuid.equals(suffix)) {
+				return ID_UUID;
+			} else if (uuid.toUpperCase(Locale.ROOT).equals(suffix)) {
+				return ID_UPPER_CASE_UUID;
+			} else {
+				return ID_OTHER;
+			}
+		}
+
+		void writeSnakGroups(List<SnakGroup> snakGroups) {
+			write(snakGroups.size());
+			for (SnakGroup snakGroup : snakGroups) {
+				List<Snak> snaks = snakGroup.getSnaks();
+				write(snaks.size());
+				for (Snak snak : snaks) {
+					snak.accept(this);
+				}
+			}
+		}
+
+		@Override
+		public Void visit(ValueSnak snak) {
+			int tagPosition = this.size;
+			write(0);
+			writeCode(snak.getPropertyId());
+			if (snak instanceof ValueSnakImpl) {
+				writeCode(((ValueSnakImpl) snak).getDatatype());
+			} else {
+				write(DATATYPE_DEFAULT);
+			}
+			// the array may grow while writing the value
+			int tag = snak.getValue().accept(this);
+			this.data[tagPosition] = tag;
+			return null;
+		}
+
+		@Override
+		public Void visit(SomeValueSnak snak) {
+			write(TAG_SOME_VALUE);
+			writeCode(snak.getPropertyId());
+			return null;
+		}
+
+		@Override
+		public Void visit(NoValueSnak snak) {
+			write(TAG_NO_VALUE);
+			writeCode(snak.getPropertyId());
+			return null;
+		}
+
+		@Override
+		public Integer visit(DatatypeIdValue value) {
+			writeObject(value);
+			return TAG_OTHER;
+		}
+
+		@Override
+		public Integer visit(EntityIdValue value) {
+			if (value instanceof ItemIdValue || value instanceof PropertyIdValue) {
+				boolean isItem = value instanceof ItemIdValue;
+				int number = getNumber(value.getId(), isItem ? 'Q' : 'P');
+				if (number >= 0) {
+					write(number);
+					writeCode(value.getSiteIri());
+					return isItem ? TAG_ITEM : TAG_PROPERTY;
+				}
+			}
+			writeObject(value);
+			return TAG_OTHER;
+		}
+
+		@Override
+		public Integer visit(GlobeCoordinatesValue value) {
+			writeLong(Double.doubleToRawLongBits(value.getLatitude()));
+			writeLong(Double.doubleToRawLongBits(value.getLongitude()));
+			writeLong(Double.doubleToRawLongBits(value.getPrecision()));
+			writeCode(value.getGlobe());
+			return TAG_GLOBE_COORDINATES;
+		}
+
+		@Override
+		public Integer visit(MonolingualTextValue value) {
+			writeObject(value.getText());
+			writeCode(value.getLanguageCode());
+			return TAG_MONOLINGUAL_TEXT;
+		}
+
+		@Override
+		public Integer visit(QuantityValue value) {
+			writeObject(value.getNumericValue());
+			writeObject(value.getLowerBound());
+			writeObject(value.getUpperBound());
+			writeCode(value.getUnit());
+			return TAG_QUANTITY;
+		}
+
+		@Override
+		public Integer visit(StringValue value) {
+			writeObject(value.getString());
+			return TAG_STRING;
+		}
+
+		@Override
+		public Integer visit(TimeValue value) {
+			writeLong(value.getYear());
+			write((value.getMonth() & 0xff) << 24 | (value.getDay() & 0xff) << 16
+					| (value.getHour() & 0xff) << 8 | (value.getMinute() & 0xff));
+			write((value.getSecond() & 0xff) << 8 | (value.getPrecision() & 0xff));
+			write(value.getBeforeTolerance());
+			write(value.getAfterTolerance());
+			write(value.getTimezoneOffset());
+			writeCode(value.getPreferredCalendarModel());
+			return TAG_TIME;
+		}
+	}
+
+	/**
+	 * Reads statements from {@link #statementData}.
+	 */
+	class Decoder {
+
+		final ItemIdValue subject = getItemId();
+		int position = 0;
+
+		int read() {
+			return statementData[this.position++];
+		}
+
+		long readLong() {
+			long high = read();
+			return (high << 32) | (read() & 0xffffffffL);
+		}
+
+		String readString() {
+			int code = read();
+			return code == NONE ? null : dictionary.getString(code);
+		}
+
+		Object readObject() {
+			int index = read();
+			return index == NONE ? null : statementObjects[index];
+		}
+
+		StatementGroup readStatementGroup() {
+			this.position += 2; // property and length
+			int count = read();
+			List<Statement> statements = new ArrayList<>(count);
+			for (int i = 0; i < count; i++) {
+				statements.add(readStatement());
+			}
+			return new StatementGroupImpl(statements);
+		}
+
+		Statement readStatement() {
+			int flags = read();
+			String statementId;
+			switch (flags >>> 2) {
+			case ID_UUID:
+				statementId = this.subject.getId() + "$"
+						+ new UUID(readLong(), readLong()).toString();
+				break;
+			case ID_UPPER_CASE_UUID:
+				statementId = this.subject.getId() + "$"
+						+ new UUID(readLong(), readLong()).toString()
+								.toUpperCase(Locale.ROOT);
+				break;
+			case ID_OTHER:
+				statementId = (String) readObject();
+				break;
+			default:
+				statementId = "";
+			}
+			Snak mainSnak = readSnak();
+			List<SnakGroup> qualifiers = readSnakGroups();
+			int referenceCount = read();
+			List<Reference> references = new ArrayList<>(referenceCount);
+			for (int i = 0; i < referenceCount; i++) {
+				references.add(new ReferenceImpl(readSnakGroups()));
+			}
+			return new StatementImpl(statementId, RANKS[flags & 3], mainSnak,
+					qualifiers, references, this.subject);
+		}
+
+		List<SnakGroup> readSnakGroups() {
+			int count = read();
+			List<SnakGroup> snakGroups = new ArrayList<>(count);
+			for (int i = 0; i < count; i++) {
+				int snakCount = read();
+				List<Snak> snaks = new ArrayList<>(snakCount);
+				for (int j = 0; j < snakCount; j++) {
+					snaks.add(readSnak());
+				}
+				snakGroups.add(new SnakGroupImpl(snaks));
+			}
+			return snakGroups;
+		}
+
+		Snak readSnak() {
+			int tag = read();
+			PropertyIdValue property = (PropertyIdValue) dictionary
+					.getObject(read());
+			switch (tag) {
+			case TAG_NO_VALUE:
+				return new NoValueSnakImpl(property.getId(),
+						property.getSiteIri());
+			case TAG_SOME_VALUE:
+				return new SomeValueSnakImpl(property.getId(),
+						property.getSiteIri());
+			default:
+				int datatype = read();
+				Value value = readValue(tag);
+				if (datatype == DATATYPE_DEFAULT) {
+					return new ValueSnakImpl(property, value);
+				}
+				return new ValueSnakImpl(property.getId(),
+						datatype == NONE ? null : dictionary.getString(datatype),
+						value, property.getSiteIri());
+			}
+		}
+
+		Value readValue(int tag) {
+			switch (tag) {
+			case TAG_ITEM:
+				return new ItemIdValueImpl("Q" + read(), readString());
+			case TAG_PROPERTY:
+				return new PropertyIdValueImpl("P" + read(), readString());
+			case TAG_STRING:
+				return new StringValueImpl((String) readObject());
+			case TAG_TIME:
+				long year = readLong();
+				int date = read();
+				int second = read();
+				return new TimeValueImpl(year, (byte) (date >>> 24),
+						(byte) (date >>> 16), (byte) (date >>> 8), (byte) date,
+						(byte) (second >>> 8), (byte) second, read(), read(),
+						read(), readString());
+			case TAG_GLOBE_COORDINATES:
+				return new GlobeCoordinatesValueImpl(
+						Double.longBitsToDouble(readLong()),
+						Double.longBitsToDouble(readLong()),
+						Double.longBitsToDouble(readLong()), readString());
+			case TAG_MONOLINGUAL_TEXT:
+				return new MonolingualTextValueImpl((String) readObject(),
+						readString());
+			case TAG_QUANTITY:
+				return new QuantityValueImpl((BigDecimal) readObject(),
+						(BigDecimal) readObject(), (BigDecimal) readObject(),
+						readString());
+			default:
+				return (Value) readObject();
+			}
+		}
+	}
+
+}
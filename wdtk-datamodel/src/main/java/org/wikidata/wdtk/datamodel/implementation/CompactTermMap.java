@@ -0,0 +1,156 @@
+package org.wikidata.wdtk.datamodel.implementation;
+
+/*
+ * #%L
+ * Wikidata Toolkit Data Model
+ * %%
+ * Copyright (C) 2014 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import org.wikidata.wdtk.datamodel.interfaces.MonolingualTextValue;
+
+/**
+ * Immutable map from language codes to terms that stores the data of the
+ * terms in two parallel arrays instead of term objects and map entries. The
+ * language codes are interned, so that all maps share the same strings. This
+ * takes much less memory than a {@link java.util.HashMap} of {@link TermImpl}
+ * objects, and is meant for applications that keep many documents in memory.
+ * <p>
+ * Term objects are created when they are accessed, so repeated access is
+ * slower than with a {@link java.util.HashMap}. Lookups by language use
+ * binary search.
+ */
+public class CompactTermMap extends AbstractMap<String, MonolingualTextValue> {
+
+	/**
+	 * Interned language codes in ascending order.
+	 */
+	final String[] languageCodes;
+	/**
+	 * Texts of the terms, in the order of their language codes.
+	 */
+	final String[] texts;
+
+	/**
+	 * Creates a new map with the same content as the given map.
+	 *
+	 * @param terms
+	 *            map from language codes to terms; the language code of each
+	 *            term must be its key
+	 */
+	public CompactTermMap(Map<String, MonolingualTextValue> terms) {
+		String[] keys = terms.keySet().toArray(new String[terms.size()]);
+		Arrays.sort(keys);
+		this.languageCodes = new String[keys.length];
+		this.texts = new String[keys.length];
+		for (int i = 0; i < keys.length; i++) {
+			this.languageCodes[i] = keys[i].intern();
+			this.texts[i] = terms.get(keys[i]).getText();
+		}
+	}
+
+	/**
+	 * Returns the text of the term for the given language without creating
+	 * a term object.
+	 *
+	 * @param languageCode
+	 *            the language code
+	 * @return the text, or null if there is no term for this language
+	 */
+	public String getText(String languageCode) {
+		int index = Arrays.binarySearch(this.languageCodes, languageCode);
+		return index < 0 ? null : this.texts[index];
+	}
+
+	/**
+	 * Returns an estimate of the heap memory used by this map in bytes. The
+	 * interned language codes are not counted, since they are shared.
+	 *
+	 * @return estimated number of bytes
+	 */
+	long estimateMemoryFootprint() {
+		return MemoryFootprint.ofObject(4 * MemoryFootprint.REFERENCE_SIZE)
+				+ MemoryFootprint.ofArray(this.languageCodes.length,
+						MemoryFootprint.REFERENCE_SIZE)
+				+ MemoryFootprint.ofArray(this.texts.length,
+						MemoryFootprint.REFERENCE_SIZE)
+				+ MemoryFootprint.ofStrings(this.texts);
+	}
+
+	@Override
+	public int size() {
+		return this.languageCodes.length;
+	}
+
+	@Override
+	public boolean containsKey(Object key) {
+		return key instanceof String
+				&& Arrays.binarySearch(this.languageCodes, key) >= 0;
+	}
+
+	@Override
+	public MonolingualTextValue get(Object key) {
+		if (!(key instanceof String)) {
+			return null;
+		}
+		int index = Arrays.binarySearch(this.languageCodes, key);
+		return index < 0 ? null : new TermImpl(this.languageCodes[index],
+				this.texts[index]);
+	}
+
+	@Override
+	public Set<Entry<String, MonolingualTextValue>> entrySet() {
+		return new AbstractSet<Entry<String, MonolingualTextValue>>() {
+
+			@Override
+			public Iterator<Entry<String, MonolingualTextValue>> iterator() {
+				return new Iterator<Entry<String, MonolingualTextValue>>() {
+					int index = 0;
+
+					@Override
+					public boolean hasNext() {
+						return this.index < languageCodes.length;
+					}
+
+					@Override
+					public Entry<String, MonolingualTextValue> next() {
+						if (!hasNext()) {
+							throw new NoSuchElementException();
+						}
+						String languageCode = languageCodes[this.index];
+						String text = texts[this.index++];
+						return new SimpleImmutableEntry<>(languageCode,
+								new TermImpl(languageCode, text));
+					}
+				};
+			}
+
+			@Override
+			public int size() {
+				return languageCodes.length;
+			}
+		};
+	}
+
+}
@@ -0,0 +1,268 @@
+package org.wikidata.wdtk.datamodel.implementation;
+
+/*
+ * #%L
+ * Wikidata Toolkit Data Model
+ * %%
+ * Copyright (C) 2014 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.List;
+import java.util.Map;
+
+import org.wikidata.wdtk.datamodel.interfaces.EntityDocument;
+import org.wikidata.wdtk.datamodel.interfaces.EntityDocumentVisitor;
+import org.wikidata.wdtk.datamodel.interfaces.EntityDocumentVisitor.TermKind;
+import org.wikidata.wdtk.datamodel.interfaces.ItemDocument;
+import org.wikidata.wdtk.datamodel.interfaces.MonolingualTextValue;
+import org.wikidata.wdtk.datamodel.interfaces.Reference;
+import org.wikidata.wdtk.datamodel.interfaces.SiteLink;
+import org.wikidata.wdtk.datamodel.interfaces.Snak;
+import org.wikidata.wdtk.datamodel.interfaces.SnakGroup;
+import org.wikidata.wdtk.datamodel.interfaces.Statement;
+import org.wikidata.wdtk.datamodel.interfaces.StatementDocument;
+import org.wikidata.wdtk.datamodel.interfaces.StatementGroup;
+import org.wikidata.wdtk.datamodel.interfaces.TermedDocument;
+
+/**
+ * Walks over the terms, site links, statements, qualifiers and reference snaks
+ * of entity documents and passes them to an {@link EntityDocumentVisitor}.
+ * This is a push-style alternative to iterating over
+ * {@link StatementDocument#getAllStatements()},
+ * {@link Statement#getQualifiers()} or {@link Reference#getSnakGroups()},
+ * which create iterators and group objects for each document and statement.
+ * For the implementations of this package, the walker reads the maps of
+ * statements and snaks that are kept internally, so that one pass over a
+ * document does not create any objects per element. Other implementations
+ * are visited through their interfaces.
+ * <p>
+ * Lists of the datamodel are accessed by index. The walker is its own
+ * {@link EntityDocumentVisitor.Context}, so that the same object is used for
+ * all callbacks. Objects of this class can be reused for any number of
+ * documents, but they are not thread safe.
+ */
+public class EntityDocumentWalker implements EntityDocumentVisitor.Context {
+
+	EntityDocument document;
+	TermKind termKind;
+	Statement statement;
+	int statementIndex = -1;
+	Reference reference;
+	int referenceIndex = -1;
+	int snakIndex = -1;
+
+	/**
+	 * Visits all parts of the given document, in the order terms, site links
+	 * and statements. The qualifiers and references of each statement are
+	 * visited after the statement.
+	 *
+	 * @param document
+	 *            the document to visit
+	 * @param visitor
+	 *            the visitor that is called for each part
+	 */
+	public void walk(EntityDocument document, EntityDocumentVisitor visitor) {
+		this.document = document;
+		try {
+			if (document instanceof TermedDocument) {
+				walkTerms((TermedDocument) document, visitor);
+			}
+			if (document instanceof ItemDocument) {
+				for (SiteLink siteLink : ((ItemDocument) document)
+						.getSiteLinks().values()) {
+					visitor.onSiteLink(siteLink, this);
+				}
+			}
+			if (document instanceof StatementDocument) {
+				walkStatements((StatementDocument) document, visitor);
+			}
+		} finally {
+			this.document = null;
+			this.termKind = null;
+			this.statement = null;
+			this.statementIndex = -1;
+			this.reference = null;
+			this.referenceIndex = -1;
+			this.snakIndex = -1;
+		}
+	}
+
+	@Override
+	public EntityDocument getDocument() {
+		return this.document;
+	}
+
+	@Override
+	public TermKind getTermKind() {
+		return this.termKind;
+	}
+
+	@Override
+	public Statement getStatement() {
+		return this.statement;
+	}
+
+	@Override
+	public int getStatementIndex() {
+		return this.statementIndex;
+	}
+
+	@Override
+	public Reference getReference() {
+		return this.reference;
+	}
+
+	@Override
+	public int getReferenceIndex() {
+		return this.referenceIndex;
+	}
+
+	@Override
+	public int getSnakIndex() {
+		return this.snakIndex;
+	}
+
+	/**
+	 * Visits the labels, descriptions and aliases of a document.
+	 */
+	void walkTerms(TermedDocument document, EntityDocumentVisitor visitor) {
+		this.termKind = TermKind.LABEL;
+		for (MonolingualTextValue label : document.getLabels().values()) {
+			visitor.onTerm(label, this);
+		}
+		this.termKind = TermKind.DESCRIPTION;
+		for (MonolingualTextValue description : document.getDescriptions()
+				.values()) {
+			visitor.onTerm(description, this);
+		}
+		this.termKind = TermKind.ALIAS;
+		for (List<MonolingualTextValue> aliases : document.getAliases()
+				.values()) {
+			for (int i = 0; i < aliases.size(); i++) {
+				visitor.onTerm(aliases.get(i), this);
+			}
+		}
+		this.termKind = null;
+	}
+
+	/**
+	 * Visits the statements of a document, using the map of claims for
+	 * documents of this package to avoid creating statement groups.
+	 */
+	void walkStatements(StatementDocument document,
+			EntityDocumentVisitor visitor) {
+		if (document instanceof TermedStatementDocumentImpl) {
+			for (List<Statement> statements : ((TermedStatementDocumentImpl) document)
+					.getJsonClaims().values()) {
+				walkStatementList(statements, visitor);
+			}
+		} else {
+			List<StatementGroup> groups = document.getStatementGroups();
+			for (int i = 0; i < groups.size(); i++) {
+				walkStatementList(groups.get(i).getStatements(), visitor);
+			}
+		}
+		this.statement = null;
+	}
+
+	/**
+	 * Visits the given statements together with their qualifiers and
+	 * references.
+	 */
+	void walkStatementList(List<Statement> statements,
+			EntityDocumentVisitor visitor) {
+		for (int i = 0; i < statements.size(); i++) {
+			Statement statement = statements.get(i);
+			this.statement = statement;
+			this.statementIndex++;
+			if (!visitor.onStatement(statement, this)) {
+				continue;
+			}
+
+			if (statement instanceof StatementImpl) {
+				StatementImpl statementImpl = (StatementImpl) statement;
+				walkQualifiers(statementImpl.getQualifierMap(),
+						statementImpl.getQualifierPropertyOrder(), visitor);
+			} else {
+				List<SnakGroup> groups = statement.getQualifiers();
+				for (int j = 0; j < groups.size(); j++) {
+					walkQualifierList(groups.get(j).getSnaks(), visitor);
+				}
+			}
+
+			List<Reference> references = statement.getReferences();
+			for (int j = 0; j < references.size(); j++) {
+				this.reference = references.get(j);
+				this.referenceIndex = j;
+				walkReference(this.reference, visitor);
+			}
+			this.reference = null;
+			this.referenceIndex = -1;
+		}
+	}
+
+	/**
+	 * Visits the qualifiers of a statement in the order of their properties.
+	 */
+	void walkQualifiers(Map<String, List<Snak>> qualifiers,
+			List<String> propertyOrder, EntityDocumentVisitor visitor) {
+		for (int i = 0; i < propertyOrder.size(); i++) {
+			walkQualifierList(qualifiers.get(propertyOrder.get(i)), visitor);
+		}
+	}
+
+	/**
+	 * Visits the qualifiers of one property.
+	 */
+	void walkQualifierList(List<Snak> snaks, EntityDocumentVisitor visitor) {
+		for (int i = 0; i < snaks.size(); i++) {
+			this.snakIndex = i;
+			visitor.onQualifier(snaks.get(i), this);
+		}
+		this.snakIndex = -1;
+	}
+
+	/**
+	 * Visits the snaks of a reference in the order of their properties.
+	 */
+	void walkReference(Reference reference, EntityDocumentVisitor visitor) {
+		if (reference instanceof ReferenceImpl) {
+			ReferenceImpl referenceImpl = (ReferenceImpl) reference;
+			Map<String, List<Snak>> snaks = referenceImpl.getSnakMap();
+			List<String> propertyOrder = referenceImpl.getSnakPropertyOrder();
+			for (int i = 0; i < propertyOrder.size(); i++) {
+				walkReferenceSnakList(snaks.get(propertyOrder.get(i)), visitor);
+			}
+		} else {
+			List<SnakGroup> groups = reference.getSnakGroups();
+			for (int i = 0; i < groups.size(); i++) {
+				walkReferenceSnakList(groups.get(i).getSnaks(), visitor);
+			}
+		}
+	}
+
+	/**
+	 * Visits the reference snaks of one property.
+	 */
+	void walkReferenceSnakList(List<Snak> snaks, EntityDocumentVisitor visitor) {
+		for (int i = 0; i < snaks.size(); i++) {
+			this.snakIndex = i;
+			visitor.onReferenceSnak(snaks.get(i), this);
+		}
+		this.snakIndex = -1;
+	}
+
+}
@@ -49,6 +49,11 @@ import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 public class ItemDocumentImpl extends TermedStatementDocumentImpl
 		implements ItemDocument {
 
+	/**
+	 * Cached result of {@link #hashCode()}, or 0 if not computed yet.
+	 */
+	private int hashCode = 0;
+
 	/**
 	 * Map to store site links.
 	 */
@@ -86,14 +91,15 @@ public class ItemDocumentImpl extends TermedStatementDocumentImpl
 			List<SiteLink> siteLinks,
 			long revisionId) {
 		super(id, labels, descriptions, aliases, statements, revisionId);
-		this.sitelinks = new HashMap<>();
+		Map<String, SiteLink> siteLinkMap = new HashMap<>();
 		for(SiteLink sitelink : siteLinks) {
-			if(this.sitelinks.containsKey(sitelink.getSiteKey())) {
+			if(siteLinkMap.containsKey(sitelink.getSiteKey())) {
 				throw new IllegalArgumentException("Multiple site links provided for the same site.");
 			} else {
-				this.sitelinks.put(sitelink.getSiteKey(), sitelink);
+				siteLinkMap.put(sitelink.getSiteKey(), sitelink);
 			}
 		}
+		this.sitelinks = Collections.unmodifiableMap(siteLinkMap);
 	}
 
 	/**
@@ -112,12 +118,55 @@ public class ItemDocumentImpl extends TermedStatementDocumentImpl
 			@JacksonInject("siteIri") String siteIri) {
 		super(jsonId, labels, descriptions, aliases, claims, revisionId, siteIri);
 		if (sitelinks != null) {
-			this.sitelinks = sitelinks;
+			this.sitelinks = Collections.unmodifiableMap(sitelinks);
+		} else {
+			this.sitelinks = Collections.emptyMap();
+		}
+	}
+
+	/**
+	 * Constructor for documents whose statements and site links have been
+	 * created already, as done by {@link JsonEntityDocumentReader}. The given
+	 * maps are used directly and must not be modified afterwards.
+	 */
+	ItemDocumentImpl(
+			ItemIdValue id,
+			Map<String, MonolingualTextValue> labels,
+			Map<String, MonolingualTextValue> descriptions,
+			Map<String, List<MonolingualTextValue>> aliases,
+			Map<String, List<Statement>> claims,
+			Map<String, SiteLink> sitelinks,
+			long revisionId) {
+		super(id, labels, descriptions, aliases, claims, revisionId);
+		if (sitelinks != null) {
+			this.sitelinks = Collections.unmodifiableMap(sitelinks);
 		} else {
 			this.sitelinks = Collections.emptyMap();
 		}
 	}
 
+	/**
+	 * Copy constructor that replaces the terms of the given document.
+	 */
+	private ItemDocumentImpl(
+			ItemDocumentImpl document,
+			Map<String, MonolingualTextValue> labels,
+			Map<String, MonolingualTextValue> descriptions,
+			Map<String, List<MonolingualTextValue>> aliases) {
+		super(document, labels, descriptions, aliases);
+		this.sitelinks = document.sitelinks;
+	}
+
+	@Override
+	public ItemDocumentImpl withCompactTerms() {
+		if (hasCompactTerms()) {
+			return this;
+		}
+		return new ItemDocumentImpl(this, new CompactTermMap(this.labels),
+				new CompactTermMap(this.descriptions), new CompactAliasMap(
+						this.aliases));
+	}
+
 	@JsonIgnore
 	@Override
 	public ItemIdValue getItemId() {
@@ -133,12 +182,17 @@ public class ItemDocumentImpl extends TermedStatementDocumentImpl
 	@JsonProperty("sitelinks")
 	@Override
 	public Map<String, SiteLink> getSiteLinks() {
-		return Collections. unmodifiableMap(this.sitelinks);
+		return this.sitelinks;
 	}
 
 	@Override
 	public int hashCode() {
-		return Hash.hashCode(this);
+		int result = this.hashCode;
+		if (result == 0) {
+			result = Hash.hashCode(this);
+			this.hashCode = result;
+		}
+		return result;
 	}
 
 	@Override
@@ -0,0 +1,898 @@
+package org.wikidata.wdtk.datamodel.implementation;
+
+/*
+ * #%L
+ * Wikidata Toolkit Data Model
+ * %%
+ * Copyright (C) 2014 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.lang3.Validate;
+import org.wikidata.wdtk.datamodel.implementation.json.JacksonInnerEntityId;
+import org.wikidata.wdtk.datamodel.implementation.json.JacksonInnerQuantity;
+import org.wikidata.wdtk.datamodel.implementation.json.JacksonInnerTime;
+import org.wikidata.wdtk.datamodel.interfaces.EntityDocument;
+import org.wikidata.wdtk.datamodel.interfaces.EntityIdValue;
+import org.wikidata.wdtk.datamodel.interfaces.ItemIdValue;
+import org.wikidata.wdtk.datamodel.interfaces.MonolingualTextValue;
+import org.wikidata.wdtk.datamodel.interfaces.PropertyIdValue;
+import org.wikidata.wdtk.datamodel.interfaces.Reference;
+import org.wikidata.wdtk.datamodel.interfaces.SiteLink;
+import org.wikidata.wdtk.datamodel.interfaces.Snak;
+import org.wikidata.wdtk.datamodel.interfaces.Statement;
+import org.wikidata.wdtk.datamodel.interfaces.StatementRank;
+import org.wikidata.wdtk.datamodel.interfaces.Value;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+
+/**
+ * Reads entity documents from their JSON serialization with a streaming
+ * {@link JsonParser}. It creates the same objects as reading
+ * {@link TermedStatementDocumentImpl} with a
+ * {@link org.wikidata.wdtk.datamodel.helpers.DatamodelMapper}, but is much
+ * faster, since it does not use data binding: statements are created
+ * directly rather than through
+ * {@link org.wikidata.wdtk.datamodel.implementation.json.JacksonPreStatement}
+ * objects, and values are read in one pass without buffering their JSON
+ * tree to find their type. Fields that are not part of the data model are
+ * skipped.
+ * <p>
+ * Readers have no state apart from their configuration and can be shared by
+ * many threads.
+ */
+public class JsonEntityDocumentReader {
+
+	/**
+	 * Factory used to create parsers for strings.
+	 */
+	private final JsonFactory jsonFactory;
+
+	/**
+	 * The site IRI of the entity ids in the documents that are read.
+	 */
+	private final String siteIri;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param siteIri
+	 *            the IRI of the Wikibase site that the documents are from,
+	 *            used for all entity ids in the documents
+	 */
+	public JsonEntityDocumentReader(String siteIri) {
+		this(siteIri, new JsonFactory());
+	}
+
+	/**
+	 * Constructor.
+	 *
+	 * @param siteIri
+	 *            the IRI of the Wikibase site that the documents are from,
+	 *            used for all entity ids in the documents
+	 * @param jsonFactory
+	 *            the factory to use for creating parsers
+	 */
+	public JsonEntityDocumentReader(String siteIri, JsonFactory jsonFactory) {
+		Validate.notNull(siteIri, "Site IRI cannot be null");
+		Validate.notNull(jsonFactory);
+		this.siteIri = siteIri;
+		this.jsonFactory = jsonFactory;
+	}
+
+	/**
+	 * Returns the site IRI that is used for the entity ids of the documents.
+	 *
+	 * @return the site IRI
+	 */
+	public String getSiteIri() {
+		return this.siteIri;
+	}
+
+	/**
+	 * Reads an item or property document from the given JSON string.
+	 *
+	 * @param json
+	 *            the JSON serialization of the document
+	 * @return the document, which is an {@link ItemDocumentImpl} or a
+	 *         {@link PropertyDocumentImpl}
+	 * @throws IOException
+	 *             if the JSON is malformed or does not describe a supported
+	 *             entity document
+	 */
+	public EntityDocument readEntityDocument(String json) throws IOException {
+		try (JsonParser parser = this.jsonFactory.createParser(json)) {
+			return readEntityDocument(parser);
+		}
+	}
+
+	/**
+	 * Reads an item document from the given JSON string.
+	 *
+	 * @param json
+	 *            the JSON serialization of the item document
+	 * @return the document
+	 * @throws IOException
+	 *             if the JSON is malformed or does not describe an item
+	 *             document
+	 */
+	public ItemDocumentImpl readItemDocument(String json) throws IOException {
+		try (JsonParser parser = this.jsonFactory.createParser(json)) {
+			EntityDocument document = readEntityDocument(parser);
+			if (!(document instanceof ItemDocumentImpl)) {
+				throw JsonMappingException.from(parser,
+						"Expected an item document but found "
+								+ document.getEntityId());
+			}
+			return (ItemDocumentImpl) document;
+		}
+	}
+
+	/**
+	 * Reads a property document from the given JSON string.
+	 *
+	 * @param json
+	 *            the JSON serialization of the property document
+	 * @return the document
+	 * @throws IOException
+	 *             if the JSON is malformed or does not describe a property
+	 *             document
+	 */
+	public PropertyDocumentImpl readPropertyDocument(String json)
+			throws IOException {
+		try (JsonParser parser = this.jsonFactory.createParser(json)) {
+			EntityDocument document = readEntityDocument(parser);
+			if (!(document instanceof PropertyDocumentImpl)) {
+				throw JsonMappingException.from(parser,
+						"Expected a property document but found "
+								+ document.getEntityId());
+			}
+			return (PropertyDocumentImpl) document;
+		}
+	}
+
+	/**
+	 * Reads the next item or property document from the given parser. The
+	 * parser must be positioned on the start of the JSON object of the
+	 * document, directly before it, or before the start of an array of
+	 * documents. Afterwards, it is positioned on the end of this
+	 * object, so that further documents can be read from the same parser,
+	 * e.g., from the array of a JSON dump.
+	 *
+	 * @param parser
+	 *            the parser to read from
+	 * @return the document, which is an {@link ItemDocumentImpl} or a
+	 *         {@link PropertyDocumentImpl}
+	 * @throws IOException
+	 *             if the JSON is malformed or does not describe a supported
+	 *             entity document
+	 */
+	public EntityDocument readEntityDocument(JsonParser parser)
+			throws IOException {
+		JsonToken token = parser.getCurrentToken();
+		if (token != JsonToken.START_OBJECT) {
+			token = parser.nextToken();
+		}
+		if (token == JsonToken.START_ARRAY) { // start of a list of documents
+			token = parser.nextToken();
+		}
+		if (token != JsonToken.START_OBJECT) {
+			throw JsonMappingException.from(parser,
+					"Expected the start of an entity document but found "
+							+ token);
+		}
+		try {
+			return readDocument(parser);
+		} catch (IllegalArgumentException | NullPointerException e) {
+			// thrown by the constructors for invalid data
+			throw JsonMappingException.from(parser, e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * Reads the fields of a document, starting with its opening brace.
+	 */
+	private EntityDocument readDocument(JsonParser parser) throws IOException {
+		String type = null;
+		EntityIdValue id = null;
+		String datatype = null;
+		long revisionId = 0;
+		Map<String, MonolingualTextValue> labels = null;
+		Map<String, MonolingualTextValue> descriptions = null;
+		Map<String, List<MonolingualTextValue>> aliases = null;
+		Map<String, List<Statement>> claims = null;
+		Map<String, SiteLink> sitelinks = null;
+		TokenBuffer bufferedClaims = null;
+
+		while (parser.nextToken() == JsonToken.FIELD_NAME) {
+			String field = parser.getCurrentName();
+			parser.nextToken();
+			switch (field) {
+			case "type":
+				type = parser.getValueAsString();
+				break;
+			case "id":
+				id = makeDocumentId(parser, parser.getValueAsString());
+				break;
+			case "datatype":
+				datatype = parser.getValueAsString();
+				break;
+			case "lastrevid":
+				revisionId = parser.getValueAsLong();
+				break;
+			case "labels":
+				labels = readTerms(parser);
+				break;
+			case "descriptions":
+				descriptions = readTerms(parser);
+				break;
+			case "aliases":
+				aliases = readAliases(parser);
+				break;
+			case "claims":
+				if (id != null) {
+					claims = readClaims(parser, id);
+				} else {
+					// Statements need their subject, which is usually given
+					// before; only buffer the claims if this is not so
+					bufferedClaims = new TokenBuffer(parser);
+					bufferedClaims.copyCurrentStructure(parser);
+				}
+				break;
+			case "sitelinks":
+				sitelinks = readSiteLinks(parser);
+				break;
+			default:
+				parser.skipChildren();
+			}
+		}
+
+		if (id == null) {
+			throw JsonMappingException.from(parser,
+					"Entity document without an id");
+		}
+		if (bufferedClaims != null) {
+			try (JsonParser claimsParser = bufferedClaims.asParser()) {
+				claimsParser.nextToken();
+				claims = readClaims(claimsParser, id);
+			}
+		}
+
+		if (id instanceof ItemIdValue) {
+			checkDocumentType(parser, type,
+					TermedStatementDocumentImpl.JSON_TYPE_ITEM, id);
+			return new ItemDocumentImpl((ItemIdValue) id, labels,
+					descriptions, aliases, claims, sitelinks, revisionId);
+		} else {
+			checkDocumentType(parser, type,
+					TermedStatementDocumentImpl.JSON_TYPE_PROPERTY, id);
+			return new PropertyDocumentImpl((PropertyIdValue) id, labels,
+					descriptions, aliases, claims, datatype, revisionId);
+		}
+	}
+
+	/**
+	 * Creates the id of a document from its JSON id.
+	 */
+	private EntityIdValue makeDocumentId(JsonParser parser, String id)
+			throws JsonMappingException {
+		if (id != null && id.length() > 1) {
+			switch (id.charAt(0)) {
+			case 'Q':
+				return new ItemIdValueImpl(id, this.siteIri);
+			case 'P':
+				return new PropertyIdValueImpl(id, this.siteIri);
+			default:
+			}
+		}
+		throw JsonMappingException.from(parser, "Entity id \"" + id
+				+ "\" is not supported for entity documents yet.");
+	}
+
+	/**
+	 * Checks that the type given in JSON, if any, fits the document id.
+	 */
+	private void checkDocumentType(JsonParser parser, String type,
+			String expectedType, EntityIdValue id) throws JsonMappingException {
+		if (type != null && !type.equals(expectedType)) {
+			throw JsonMappingException.from(parser, "Entity id " + id.getId()
+					+ " does not match document type \"" + type + "\"");
+		}
+	}
+
+	/**
+	 * Reads a map of labels or descriptions.
+	 */
+	private Map<String, MonolingualTextValue> readTerms(JsonParser parser)
+			throws IOException {
+		if (!startObject(parser)) {
+			return null;
+		}
+		Map<String, MonolingualTextValue> result = new HashMap<>();
+		while (parser.nextToken() == JsonToken.FIELD_NAME) {
+			String languageCode = parser.getCurrentName();
+			parser.nextToken();
+			result.put(languageCode, readTerm(parser));
+		}
+		return result;
+	}
+
+	/**
+	 * Reads a map of alias lists.
+	 */
+	private Map<String, List<MonolingualTextValue>> readAliases(
+			JsonParser parser) throws IOException {
+		if (!startObject(parser)) {
+			return null;
+		}
+		Map<String, List<MonolingualTextValue>> result = new HashMap<>();
+		while (parser.nextToken() == JsonToken.FIELD_NAME) {
+			String languageCode = parser.getCurrentName();
+			parser.nextToken();
+			List<MonolingualTextValue> terms = new ArrayList<>();
+			if (startArray(parser)) {
+				while (parser.nextToken() != JsonToken.END_ARRAY) {
+					terms.add(readTerm(parser));
+				}
+			}
+			result.put(languageCode, terms);
+		}
+		return result;
+	}
+
+	/**
+	 * Reads a single term, i.e., a label, description or alias.
+	 */
+	private TermImpl readTerm(JsonParser parser) throws IOException {
+		expectObject(parser);
+		String language = null;
+		String text = null;
+		while (parser.nextToken() == JsonToken.FIELD_NAME) {
+			String field = parser.getCurrentName();
+			parser.nextToken();
+			switch (field) {
+			case "language":
+				language = parser.getValueAsString();
+				break;
+			case "value":
+				text = parser.getValueAsString();
+				break;
+			default:
+				parser.skipChildren();
+			}
+		}
+		return new TermImpl(language, text);
+	}
+
+	/**
+	 * Reads the map of site links of an item.
+	 */
+	private Map<String, SiteLink> readSiteLinks(JsonParser parser)
+			throws IOException {
+		if (!startObject(parser)) {
+			return null;
+		}
+		Map<String, SiteLink> result = new HashMap<>();
+		while (parser.nextToken() == JsonToken.FIELD_NAME) {
+			String siteKey = parser.getCurrentName();
+			parser.nextToken();
+			expectObject(parser);
+			String site = null;
+			String title = null;
+			List<String> badges = null;
+			while (parser.nextToken() == JsonToken.FIELD_NAME) {
+				String field = parser.getCurrentName();
+				parser.nextToken();
+				switch (field) {
+				case "site":
+					site = parser.getValueAsString();
+					break;
+				case "title":
+					title = parser.getValueAsString();
+					break;
+				case "badges":
+					badges = readStrings(parser);
+					break;
+				default:
+					parser.skipChildren();
+				}
+			}
+			result.put(siteKey, new SiteLinkImpl(title, site, badges));
+		}
+		return result;
+	}
+
+	/**
+	 * Reads the statements of a document.
+	 */
+	private Map<String, List<Statement>> readClaims(JsonParser parser,
+			EntityIdValue subject) throws IOException {
+		if (!startObject(parser)) {
+			return null;
+		}
+		Map<String, List<Statement>> result = new HashMap<>();
+		while (parser.nextToken() == JsonToken.FIELD_NAME) {
+			String propertyId = parser.getCurrentName();
+			parser.nextToken();
+			List<Statement> statements = new ArrayList<>();
+			if (startArray(parser)) {
+				while (parser.nextToken() != JsonToken.END_ARRAY) {
+					statements.add(readStatement(parser, subject));
+				}
+			}
+			result.put(propertyId, statements);
+		}
+		return result;
+	}
+
+	/**
+	 * Reads a single statement.
+	 */
+	private Statement readStatement(JsonParser parser, EntityIdValue subject)
+			throws IOException {
+		expectObject(parser);
+		String statementId = null;
+		StatementRank rank = null;
+		Snak mainSnak = null;
+		Map<String, List<Snak>> qualifiers = null;
+		List<String> qualifiersOrder = null;
+		List<Reference> references = null;
+		while (parser.nextToken() == JsonToken.FIELD_NAME) {
+			String field = parser.getCurrentName();
+			parser.nextToken();
+			switch (field) {
+			case "id":
+				statementId = parser.getValueAsString();
+				break;
+			case "rank":
+				rank = readRank(parser);
+				break;
+			case "mainsnak":
+				mainSnak = readSnak(parser);
+				break;
+			case "qualifiers":
+				qualifiers = readSnaks(parser);
+				break;
+			case "qualifiers-order":
+				qualifiersOrder = readStrings(parser);
+				break;
+			case "references":
+				references = readReferences(parser);
+				break;
+			default:
+				parser.skipChildren();
+			}
+		}
+		if (qualifiers == null) {
+			qualifiers = new HashMap<>();
+		}
+		return new StatementImpl(statementId, rank, mainSnak, qualifiers,
+				qualifiersOrder, references, subject);
+	}
+
+	/**
+	 * Reads the rank of a statement.
+	 */
+	private StatementRank readRank(JsonParser parser) throws IOException {
+		String rank = parser.getValueAsString();
+		if (rank == null) {
+			return null;
+		}
+		switch (rank) {
+		case "normal":
+			return StatementRank.NORMAL;
+		case "preferred":
+			return StatementRank.PREFERRED;
+		case "deprecated":
+			return StatementRank.DEPRECATED;
+		default:
+			return StatementRank.valueOf(rank.toUpperCase());
+		}
+	}
+
+	/**
+	 * Reads the list of references of a statement.
+	 */
+	private List<Reference> readReferences(JsonParser parser)
+			throws IOException {
+		if (!startArray(parser)) {
+			return null;
+		}
+		List<Reference> result = new ArrayList<>();
+		while (parser.nextToken() != JsonToken.END_ARRAY) {
+			expectObject(parser);
+			Map<String, List<SnakImpl>> snaks = null;
+			List<String> propertyOrder = null;
+			while (parser.nextToken() == JsonToken.FIELD_NAME) {
+				String field = parser.getCurrentName();
+				parser.nextToken();
+				switch (field) {
+				case "snaks":
+					snaks = readReferenceSnaks(parser);
+					break;
+				case "snaks-order":
+					propertyOrder = readStrings(parser);
+					break;
+				default:
+					parser.skipChildren();
+				}
+			}
+			if (snaks == null) {
+				snaks = Collections.emptyMap();
+			}
+			result.add(new ReferenceImpl(snaks, propertyOrder));
+		}
+		return result;
+	}
+
+	/**
+	 * Reads a map from property ids to snaks, as used for qualifiers.
+	 */
+	private Map<String, List<Snak>> readSnaks(JsonParser parser)
+			throws IOException {
+		if (!startObject(parser)) {
+			return null;
+		}
+		Map<String, List<Snak>> result = new HashMap<>();
+		while (parser.nextToken() == JsonToken.FIELD_NAME) {
+			String propertyId = parser.getCurrentName();
+			parser.nextToken();
+			List<Snak> snaks = new ArrayList<>();
+			if (startArray(parser)) {
+				while (parser.nextToken() != JsonToken.END_ARRAY) {
+					snaks.add(readSnak(parser));
+				}
+			}
+			result.put(propertyId, snaks);
+		}
+		return result;
+	}
+
+	/**
+	 * Reads a map from property ids to snaks in the form that is needed for
+	 * creating {@link ReferenceImpl} objects.
+	 */
+	private Map<String, List<SnakImpl>> readReferenceSnaks(JsonParser parser)
+			throws IOException {
+		if (!startObject(parser)) {
+			return null;
+		}
+		Map<String, List<SnakImpl>> result = new HashMap<>();
+		while (parser.nextToken() == JsonToken.FIELD_NAME) {
+			String propertyId = parser.getCurrentName();
+			parser.nextToken();
+			List<SnakImpl> snaks = new ArrayList<>();
+			if (startArray(parser)) {
+				while (parser.nextToken() != JsonToken.END_ARRAY) {
+					snaks.add(readSnak(parser));
+				}
+			}
+			result.put(propertyId, snaks);
+		}
+		return result;
+	}
+
+	/**
+	 * Reads a single snak.
+	 */
+	private SnakImpl readSnak(JsonParser parser) throws IOException {
+		expectObject(parser);
+		String snakType = null;
+		String property = null;
+		String datatype = null;
+		Value value = null;
+		while (parser.nextToken() == JsonToken.FIELD_NAME) {
+			String field = parser.getCurrentName();
+			parser.nextToken();
+			switch (field) {
+			case "snaktype":
+				snakType = parser.getValueAsString();
+				break;
+			case "property":
+				property = parser.getValueAsString();
+				break;
+			case "datatype":
+				datatype = parser.getValueAsString();
+				break;
+			case "datavalue":
+				value = readValue(parser);
+				break;
+			default:
+				parser.skipChildren();
+			}
+		}
+		if (snakType == null) {
+			throw JsonMappingException.from(parser, "Snak without snaktype");
+		}
+		switch (snakType) {
+		case SnakImpl.JSON_SNAK_TYPE_VALUE:
+			return new ValueSnakImpl(property, datatype, value, this.siteIri);
+		case SnakImpl.JSON_SNAK_TYPE_SOMEVALUE:
+			return new SomeValueSnakImpl(property, this.siteIri);
+		case SnakImpl.JSON_SNAK_TYPE_NOVALUE:
+			return new NoValueSnakImpl(property, this.siteIri);
+		default:
+			throw JsonMappingException.from(parser, "Snaks of type \""
+					+ snakType + "\" are not supported.");
+		}
+	}
+
+	/**
+	 * Reads the data value of a snak. The JSON type of the value is often
+	 * given after its content, so the content is read without knowing the
+	 * type, and the type is checked afterwards.
+	 */
+	private Value readValue(JsonParser parser) throws IOException {
+		if (!startObject(parser)) {
+			return null;
+		}
+		String type = null;
+		ValueImpl value = null;
+		while (parser.nextToken() == JsonToken.FIELD_NAME) {
+			String field = parser.getCurrentName();
+			parser.nextToken();
+			switch (field) {
+			case "type":
+				type = parser.getValueAsString();
+				break;
+			case "value":
+				if (parser.getCurrentToken() == JsonToken.START_OBJECT) {
+					value = readValueContent(parser);
+				} else if (parser.getCurrentToken() == JsonToken.VALUE_STRING) {
+					value = new StringValueImpl(parser.getText());
+				} else {
+					throw JsonMappingException.from(parser,
+							"Unexpected content of data value: "
+									+ parser.getCurrentToken());
+				}
+				break;
+			default:
+				parser.skipChildren();
+			}
+		}
+		if (value == null) {
+			throw JsonMappingException.from(parser,
+					"Data value without content");
+		}
+		if (type == null) {
+			throw JsonMappingException.from(parser, "Data value without type");
+		}
+		if (!type.equals(value.getType())) {
+			throw JsonMappingException.from(parser, "Data value of type \""
+					+ type + "\" does not match its content.");
+		}
+		return value;
+	}
+
+	/**
+	 * Reads the JSON object that is the content of a data value. The kind of
+	 * value is recognized from the fields that are present.
+	 */
+	private ValueImpl readValueContent(JsonParser parser) throws IOException {
+		// entity ids
+		String id = null;
+		int numericId = 0;
+		String entityType = null;
+		// time values
+		String time = null;
+		int timezone = 0;
+		int before = 0;
+		int after = 0;
+		String calendarModel = null;
+		// globe coordinates; precision is also used for time values
+		double precision = 0;
+		Double latitude = null;
+		double longitude = 0;
+		String globe = null;
+		// quantities
+		String amount = null;
+		String lowerBound = null;
+		String upperBound = null;
+		String unit = null;
+		// monolingual text values
+		String text = null;
+		String language = null;
+
+		while (parser.nextToken() == JsonToken.FIELD_NAME) {
+			String field = parser.getCurrentName();
+			parser.nextToken();
+			switch (field) {
+			case "id":
+				id = parser.getValueAsString();
+				break;
+			case "numeric-id":
+				numericId = parser.getValueAsInt();
+				break;
+			case "entity-type":
+				entityType = parser.getValueAsString();
+				break;
+			case "time":
+				time = parser.getValueAsString();
+				break;
+			case "timezone":
+				timezone = parser.getValueAsInt();
+				break;
+			case "before":
+				before = parser.getValueAsInt();
+				break;
+			case "after":
+				after = parser.getValueAsInt();
+				break;
+			case "calendarmodel":
+				calendarModel = parser.getValueAsString();
+				break;
+			case "precision":
+				precision = parser.getValueAsDouble();
+				break;
+			case "latitude":
+				latitude = parser.getValueAsDouble();
+				break;
+			case "longitude":
+				longitude = parser.getValueAsDouble();
+				break;
+			case "globe":
+				globe = parser.getValueAsString();
+				break;
+			case "amount":
+				amount = readDecimal(parser);
+				break;
+			case "lowerBound":
+				lowerBound = readDecimal(parser);
+				break;
+			case "upperBound":
+				upperBound = readDecimal(parser);
+				break;
+			case "unit":
+				unit = parser.getValueAsString();
+				break;
+			case "text":
+				text = parser.getValueAsString();
+				break;
+			case "language":
+				language = parser.getValueAsString();
+				break;
+			default:
+				parser.skipChildren();
+			}
+		}
+
+		if (time != null) {
+			return new TimeValueImpl(new JacksonInnerTime(time, timezone,
+					before, after, (int) precision, calendarModel));
+		} else if (latitude != null) {
+			return new GlobeCoordinatesValueImpl(latitude, longitude,
+					precision, globe);
+		} else if (amount != null) {
+			return new QuantityValueImpl(JacksonInnerQuantity.fromStrings(
+					amount, lowerBound, upperBound, unit));
+		} else if (text != null) {
+			return new MonolingualTextValueImpl(text, language);
+		} else if (id != null || entityType != null) {
+			JacksonInnerEntityId innerId = new JacksonInnerEntityId(id,
+					numericId, entityType);
+			switch (innerId.getJsonEntityType()) {
+			case JacksonInnerEntityId.JSON_ENTITY_TYPE_ITEM:
+				return new ItemIdValueImpl(innerId, this.siteIri);
+			case JacksonInnerEntityId.JSON_ENTITY_TYPE_PROPERTY:
+				return new PropertyIdValueImpl(innerId, this.siteIri);
+			default:
+				throw JsonMappingException.from(parser, "Entities of type \""
+						+ innerId.getJsonEntityType()
+						+ "\" are not supported as property values yet.");
+			}
+		} else {
+			throw JsonMappingException.from(parser,
+					"Unexpected content of data value");
+		}
+	}
+
+	/**
+	 * Reads a decimal number that is given as a string or as a number. The
+	 * text of the number is returned, so that it can be parsed by
+	 * {@link JacksonInnerQuantity#fromStrings(String, String, String, String)}
+	 * without creating a {@link java.math.BigDecimal}.
+	 */
+	private String readDecimal(JsonParser parser) throws IOException {
+		switch (parser.getCurrentToken()) {
+		case VALUE_STRING:
+		case VALUE_NUMBER_INT:
+		case VALUE_NUMBER_FLOAT:
+			return parser.getText();
+		case VALUE_NULL:
+			return null;
+		default:
+			throw JsonMappingException.from(parser,
+					"Expected a decimal number but found "
+							+ parser.getCurrentToken());
+		}
+	}
+
+	/**
+	 * Reads a list of strings.
+	 */
+	private List<String> readStrings(JsonParser parser) throws IOException {
+		if (!startArray(parser)) {
+			return null;
+		}
+		List<String> result = new ArrayList<>();
+		while (parser.nextToken() != JsonToken.END_ARRAY) {
+			result.add(parser.getValueAsString());
+		}
+		return result;
+	}
+
+	/**
+	 * Checks if the current token starts an object that should be read. Null
+	 * values and empty arrays, which are used for empty maps in some JSON
+	 * exports, are skipped and lead to false.
+	 */
+	private boolean startObject(JsonParser parser) throws IOException {
+		switch (parser.getCurrentToken()) {
+		case START_OBJECT:
+			return true;
+		case VALUE_NULL:
+			return false;
+		case START_ARRAY:
+			if (parser.nextToken() == JsonToken.END_ARRAY) {
+				return false;
+			}
+			// fall through
+		default:
+			throw JsonMappingException.from(parser,
+					"Expected a JSON object but found "
+							+ parser.getCurrentToken());
+		}
+	}
+
+	/**
+	 * Checks if the current token starts an array that should be read. Null
+	 * values are skipped and lead to false.
+	 */
+	private boolean startArray(JsonParser parser) throws IOException {
+		switch (parser.getCurrentToken()) {
+		case START_ARRAY:
+			return true;
+		case VALUE_NULL:
+			return false;
+		default:
+			throw JsonMappingException.from(parser,
+					"Expected a JSON array but found "
+							+ parser.getCurrentToken());
+		}
+	}
+
+	/**
+	 * Checks that the current token starts an object.
+	 */
+	private void expectObject(JsonParser parser) throws IOException {
+		if (parser.getCurrentToken() != JsonToken.START_OBJECT) {
+			throw JsonMappingException.from(parser,
+					"Expected a JSON object but found "
+							+ parser.getCurrentToken());
+		}
+	}
+
+}
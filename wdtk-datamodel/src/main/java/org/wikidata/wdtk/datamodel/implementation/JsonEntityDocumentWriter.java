@@ -0,0 +1,686 @@
+package org.wikidata.wdtk.datamodel.implementation;
+
+/*
+ * #%L
+ * Wikidata Toolkit Data Model
+ * %%
+ * Copyright (C) 2014 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import org.apache.commons.lang3.Validate;
+import org.wikidata.wdtk.datamodel.implementation.json.JacksonInnerEntityId;
+import org.wikidata.wdtk.datamodel.implementation.json.JacksonInnerQuantity;
+import org.wikidata.wdtk.datamodel.implementation.json.JacksonInnerTime;
+import org.wikidata.wdtk.datamodel.interfaces.EntityDocument;
+import org.wikidata.wdtk.datamodel.interfaces.EntityIdValue;
+import org.wikidata.wdtk.datamodel.interfaces.GlobeCoordinatesValue;
+import org.wikidata.wdtk.datamodel.interfaces.ItemDocument;
+import org.wikidata.wdtk.datamodel.interfaces.MonolingualTextValue;
+import org.wikidata.wdtk.datamodel.interfaces.PropertyDocument;
+import org.wikidata.wdtk.datamodel.interfaces.QuantityValue;
+import org.wikidata.wdtk.datamodel.interfaces.Reference;
+import org.wikidata.wdtk.datamodel.interfaces.SiteLink;
+import org.wikidata.wdtk.datamodel.interfaces.Snak;
+import org.wikidata.wdtk.datamodel.interfaces.SnakGroup;
+import org.wikidata.wdtk.datamodel.interfaces.SomeValueSnak;
+import org.wikidata.wdtk.datamodel.interfaces.Statement;
+import org.wikidata.wdtk.datamodel.interfaces.StatementDocument;
+import org.wikidata.wdtk.datamodel.interfaces.StatementGroup;
+import org.wikidata.wdtk.datamodel.interfaces.StringValue;
+import org.wikidata.wdtk.datamodel.interfaces.TermedDocument;
+import org.wikidata.wdtk.datamodel.interfaces.TimeValue;
+import org.wikidata.wdtk.datamodel.interfaces.Value;
+import org.wikidata.wdtk.datamodel.interfaces.ValueSnak;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+
+/**
+ * Writes the JSON serialization of item and property documents to a
+ * streaming {@link JsonGenerator}. The output is the same JSON as when
+ * serializing {@link ItemDocumentImpl} and {@link PropertyDocumentImpl}
+ * objects with Jackson, but no reflection or intermediate objects are needed,
+ * and fields are always written in the same order. Documents of other
+ * implementations of the data model interfaces are written in the same
+ * format.
+ * <p>
+ * Writers have no state apart from their configuration and can be shared by
+ * many threads.
+ *
+ * @see JsonEntityDocumentReader
+ */
+public class JsonEntityDocumentWriter {
+
+	/*
+	 * Field names are serialized once, so that they need not be encoded again
+	 * for every document.
+	 */
+	private static final SerializableString NAME_TYPE = new SerializedString(
+			"type");
+	private static final SerializableString NAME_ID = new SerializedString(
+			"id");
+	private static final SerializableString NAME_LABELS = new SerializedString(
+			"labels");
+	private static final SerializableString NAME_DESCRIPTIONS = new SerializedString(
+			"descriptions");
+	private static final SerializableString NAME_ALIASES = new SerializedString(
+			"aliases");
+	private static final SerializableString NAME_CLAIMS = new SerializedString(
+			"claims");
+	private static final SerializableString NAME_SITELINKS = new SerializedString(
+			"sitelinks");
+	private static final SerializableString NAME_DATATYPE = new SerializedString(
+			"datatype");
+	private static final SerializableString NAME_LASTREVID = new SerializedString(
+			"lastrevid");
+	private static final SerializableString NAME_LANGUAGE = new SerializedString(
+			"language");
+	private static final SerializableString NAME_VALUE = new SerializedString(
+			"value");
+	private static final SerializableString NAME_TITLE = new SerializedString(
+			"title");
+	private static final SerializableString NAME_SITE = new SerializedString(
+			"site");
+	private static final SerializableString NAME_BADGES = new SerializedString(
+			"badges");
+	private static final SerializableString NAME_RANK = new SerializedString(
+			"rank");
+	private static final SerializableString NAME_REFERENCES = new SerializedString(
+			"references");
+	private static final SerializableString NAME_MAINSNAK = new SerializedString(
+			"mainsnak");
+	private static final SerializableString NAME_QUALIFIERS_ORDER = new SerializedString(
+			"qualifiers-order");
+	private static final SerializableString NAME_QUALIFIERS = new SerializedString(
+			"qualifiers");
+	private static final SerializableString NAME_SNAKS = new SerializedString(
+			"snaks");
+	private static final SerializableString NAME_SNAKS_ORDER = new SerializedString(
+			"snaks-order");
+	private static final SerializableString NAME_PROPERTY = new SerializedString(
+			"property");
+	private static final SerializableString NAME_SNAKTYPE = new SerializedString(
+			"snaktype");
+	private static final SerializableString NAME_DATAVALUE = new SerializedString(
+			"datavalue");
+	private static final SerializableString NAME_TIME = new SerializedString(
+			"time");
+	private static final SerializableString NAME_TIMEZONE = new SerializedString(
+			"timezone");
+	private static final SerializableString NAME_BEFORE = new SerializedString(
+			"before");
+	private static final SerializableString NAME_AFTER = new SerializedString(
+			"after");
+	private static final SerializableString NAME_PRECISION = new SerializedString(
+			"precision");
+	private static final SerializableString NAME_CALENDARMODEL = new SerializedString(
+			"calendarmodel");
+	private static final SerializableString NAME_LATITUDE = new SerializedString(
+			"latitude");
+	private static final SerializableString NAME_LONGITUDE = new SerializedString(
+			"longitude");
+	private static final SerializableString NAME_GLOBE = new SerializedString(
+			"globe");
+	private static final SerializableString NAME_AMOUNT = new SerializedString(
+			"amount");
+	private static final SerializableString NAME_LOWER_BOUND = new SerializedString(
+			"lowerBound");
+	private static final SerializableString NAME_UPPER_BOUND = new SerializedString(
+			"upperBound");
+	private static final SerializableString NAME_UNIT = new SerializedString(
+			"unit");
+	private static final SerializableString NAME_TEXT = new SerializedString(
+			"text");
+	private static final SerializableString NAME_ENTITY_TYPE = new SerializedString(
+			"entity-type");
+	private static final SerializableString NAME_NUMERIC_ID = new SerializedString(
+			"numeric-id");
+
+	/**
+	 * Factory used to create generators.
+	 */
+	private final JsonFactory jsonFactory;
+
+	/**
+	 * Constructor.
+	 */
+	public JsonEntityDocumentWriter() {
+		this(new JsonFactory());
+	}
+
+	/**
+	 * Constructor.
+	 *
+	 * @param jsonFactory
+	 *            the factory to use for creating generators
+	 */
+	public JsonEntityDocumentWriter(JsonFactory jsonFactory) {
+		Validate.notNull(jsonFactory);
+		this.jsonFactory = jsonFactory;
+	}
+
+	/**
+	 * Returns the JSON serialization of the given document.
+	 *
+	 * @param document
+	 *            an {@link ItemDocument} or {@link PropertyDocument}
+	 * @return JSON serialization
+	 * @throws IOException
+	 *             if the document could not be serialized
+	 */
+	public String writeToString(EntityDocument document) throws IOException {
+		StringWriter writer = new StringWriter();
+		try (JsonGenerator generator = this.jsonFactory
+				.createGenerator(writer)) {
+			writeEntityDocument(document, generator);
+		}
+		return writer.toString();
+	}
+
+	/**
+	 * Returns the JSON serialization of the given document in UTF-8.
+	 *
+	 * @param document
+	 *            an {@link ItemDocument} or {@link PropertyDocument}
+	 * @return JSON serialization
+	 * @throws IOException
+	 *             if the document could not be serialized
+	 */
+	public byte[] writeToBytes(EntityDocument document) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		write(document, out);
+		return out.toByteArray();
+	}
+
+	/**
+	 * Writes the JSON serialization of the given document in UTF-8 to the
+	 * given stream. The stream is not closed.
+	 *
+	 * @param document
+	 *            an {@link ItemDocument} or {@link PropertyDocument}
+	 * @param outputStream
+	 *            the stream to write to
+	 * @throws IOException
+	 *             if the document could not be written
+	 */
+	public void write(EntityDocument document, OutputStream outputStream)
+			throws IOException {
+		try (JsonGenerator generator = this.jsonFactory.createGenerator(
+				outputStream, JsonEncoding.UTF8)) {
+			generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+			writeEntityDocument(document, generator);
+		}
+	}
+
+	/**
+	 * Writes the JSON serialization of the given document to the given
+	 * generator. The generator is not flushed.
+	 *
+	 * @param document
+	 *            an {@link ItemDocument} or {@link PropertyDocument}
+	 * @param generator
+	 *            the generator to write to
+	 * @throws IOException
+	 *             if the document could not be written
+	 * @throws IllegalArgumentException
+	 *             if the document is of another type
+	 */
+	public void writeEntityDocument(EntityDocument document,
+			JsonGenerator generator) throws IOException {
+		if (document instanceof ItemDocument) {
+			ItemDocument itemDocument = (ItemDocument) document;
+			writeDocumentStart(itemDocument,
+					TermedStatementDocumentImpl.JSON_TYPE_ITEM, generator);
+			generator.writeFieldName(NAME_SITELINKS);
+			writeSiteLinks(itemDocument.getSiteLinks(), generator);
+			writeDocumentEnd(itemDocument, generator);
+		} else if (document instanceof PropertyDocument) {
+			PropertyDocument propertyDocument = (PropertyDocument) document;
+			writeDocumentStart(propertyDocument,
+					TermedStatementDocumentImpl.JSON_TYPE_PROPERTY, generator);
+			writeStringField(generator, NAME_DATATYPE, DatatypeIdImpl
+					.getJsonDatatypeFromDatatypeIri(propertyDocument
+							.getDatatype().getIri()));
+			writeDocumentEnd(propertyDocument, generator);
+		} else {
+			throw new IllegalArgumentException(
+					"Unsupported type of entity document: "
+							+ document.getClass());
+		}
+	}
+
+	/**
+	 * Writes the fields that items and properties have in common, up to the
+	 * statements.
+	 */
+	private <T extends TermedDocument & StatementDocument> void writeDocumentStart(
+			T document, String type, JsonGenerator generator)
+			throws IOException {
+		generator.writeStartObject();
+		writeStringField(generator, NAME_TYPE, type);
+		EntityIdValue id = document.getEntityId();
+		if (!EntityIdValue.SITE_LOCAL.equals(id.getSiteIri())) {
+			writeStringField(generator, NAME_ID, id.getId());
+		}
+		generator.writeFieldName(NAME_LABELS);
+		writeTerms(document.getLabels(), generator);
+		generator.writeFieldName(NAME_DESCRIPTIONS);
+		writeTerms(document.getDescriptions(), generator);
+		generator.writeFieldName(NAME_ALIASES);
+		generator.writeStartObject();
+		for (Entry<String, List<MonolingualTextValue>> entry : document
+				.getAliases().entrySet()) {
+			generator.writeArrayFieldStart(entry.getKey());
+			for (MonolingualTextValue alias : entry.getValue()) {
+				writeTerm(alias, generator);
+			}
+			generator.writeEndArray();
+		}
+		generator.writeEndObject();
+		generator.writeFieldName(NAME_CLAIMS);
+		generator.writeStartObject();
+		if (document instanceof TermedStatementDocumentImpl) {
+			for (Entry<String, List<Statement>> entry : ((TermedStatementDocumentImpl) document)
+					.getJsonClaims().entrySet()) {
+				generator.writeArrayFieldStart(entry.getKey());
+				for (Statement statement : entry.getValue()) {
+					writeStatement(statement, generator);
+				}
+				generator.writeEndArray();
+			}
+		} else {
+			for (StatementGroup group : document.getStatementGroups()) {
+				generator.writeArrayFieldStart(group.getProperty().getId());
+				for (Statement statement : group) {
+					writeStatement(statement, generator);
+				}
+				generator.writeEndArray();
+			}
+		}
+		generator.writeEndObject();
+	}
+
+	/**
+	 * Writes the revision id, if any, and closes the document.
+	 */
+	private void writeDocumentEnd(EntityDocument document,
+			JsonGenerator generator) throws IOException {
+		if (document.getRevisionId() != 0) {
+			writeNumberField(generator, NAME_LASTREVID, document.getRevisionId());
+		}
+		generator.writeEndObject();
+	}
+
+	/**
+	 * Writes a map of labels or descriptions.
+	 */
+	private void writeTerms(Map<String, MonolingualTextValue> terms,
+			JsonGenerator generator) throws IOException {
+		generator.writeStartObject();
+		for (Entry<String, MonolingualTextValue> entry : terms.entrySet()) {
+			generator.writeFieldName(entry.getKey());
+			writeTerm(entry.getValue(), generator);
+		}
+		generator.writeEndObject();
+	}
+
+	/**
+	 * Writes a label, description or alias.
+	 */
+	private void writeTerm(MonolingualTextValue term, JsonGenerator generator)
+			throws IOException {
+		generator.writeStartObject();
+		writeStringField(generator, NAME_LANGUAGE, term.getLanguageCode());
+		writeStringField(generator, NAME_VALUE, term.getText());
+		generator.writeEndObject();
+	}
+
+	/**
+	 * Writes the site links of an item.
+	 */
+	private void writeSiteLinks(Map<String, SiteLink> siteLinks,
+			JsonGenerator generator) throws IOException {
+		generator.writeStartObject();
+		for (Entry<String, SiteLink> entry : siteLinks.entrySet()) {
+			SiteLink siteLink = entry.getValue();
+			generator.writeObjectFieldStart(entry.getKey());
+			writeStringField(generator, NAME_TITLE, siteLink.getPageTitle());
+			writeStringField(generator, NAME_SITE, siteLink.getSiteKey());
+			generator.writeFieldName(NAME_BADGES);
+			generator.writeStartArray();
+			for (String badge : siteLink.getBadges()) {
+				generator.writeString(badge);
+			}
+			generator.writeEndArray();
+			generator.writeEndObject();
+		}
+		generator.writeEndObject();
+	}
+
+	/**
+	 * Writes a statement. Empty fields are omitted, and the value of the main
+	 * snak is repeated in the "value" field, as done by Jackson.
+	 */
+	private void writeStatement(Statement statement, JsonGenerator generator)
+			throws IOException {
+		generator.writeStartObject();
+		writeStringField(generator, NAME_RANK, statement.getRank().name()
+				.toLowerCase());
+		List<Reference> references = statement.getReferences();
+		if (!references.isEmpty()) {
+			generator.writeFieldName(NAME_REFERENCES);
+			generator.writeStartArray();
+			for (Reference reference : references) {
+				writeReference(reference, generator);
+			}
+			generator.writeEndArray();
+		}
+		Value value = statement.getValue();
+		if (value != null) {
+			generator.writeFieldName(NAME_VALUE);
+			writeValue(value, generator);
+		}
+		String statementId = statement.getStatementId();
+		if (statementId != null && !statementId.isEmpty()) {
+			writeStringField(generator, NAME_ID, statementId);
+		}
+		generator.writeFieldName(NAME_MAINSNAK);
+		writeSnak(statement.getMainSnak(), generator);
+		if (statement instanceof StatementImpl) {
+			StatementImpl statementImpl = (StatementImpl) statement;
+			writeStrings(NAME_QUALIFIERS_ORDER,
+					statementImpl.getQualifiersOrder(), generator);
+			writeSnakMap(NAME_QUALIFIERS, statementImpl.getJsonQualifiers(),
+					generator);
+		} else {
+			List<SnakGroup> qualifiers = statement.getQualifiers();
+			if (!qualifiers.isEmpty()) {
+				generator.writeFieldName(NAME_QUALIFIERS_ORDER);
+				generator.writeStartArray();
+				for (SnakGroup group : qualifiers) {
+					generator.writeString(group.getProperty().getId());
+				}
+				generator.writeEndArray();
+			}
+			if (!qualifiers.isEmpty()) {
+				generator.writeFieldName(NAME_QUALIFIERS);
+				generator.writeStartObject();
+				for (SnakGroup group : qualifiers) {
+					generator.writeArrayFieldStart(group.getProperty().getId());
+					for (Snak snak : group) {
+						writeSnak(snak, generator);
+					}
+					generator.writeEndArray();
+				}
+				generator.writeEndObject();
+			}
+		}
+		writeStringField(generator, NAME_TYPE, "statement");
+		generator.writeEndObject();
+	}
+
+	/**
+	 * Writes a reference.
+	 */
+	private void writeReference(Reference reference, JsonGenerator generator)
+			throws IOException {
+		generator.writeStartObject();
+		if (reference instanceof ReferenceImpl) {
+			ReferenceImpl referenceImpl = (ReferenceImpl) reference;
+			generator.writeFieldName(NAME_SNAKS);
+			generator.writeStartObject();
+			for (Entry<String, List<Snak>> entry : referenceImpl.getSnaks()
+					.entrySet()) {
+				generator.writeArrayFieldStart(entry.getKey());
+				for (Snak snak : entry.getValue()) {
+					writeSnak(snak, generator);
+				}
+				generator.writeEndArray();
+			}
+			generator.writeEndObject();
+			generator.writeFieldName(NAME_SNAKS_ORDER);
+			generator.writeStartArray();
+			for (String propertyId : referenceImpl.getPropertyOrder()) {
+				generator.writeString(propertyId);
+			}
+			generator.writeEndArray();
+		} else {
+			List<SnakGroup> groups = reference.getSnakGroups();
+			generator.writeFieldName(NAME_SNAKS);
+			generator.writeStartObject();
+			for (SnakGroup group : groups) {
+				generator.writeArrayFieldStart(group.getProperty().getId());
+				for (Snak snak : group) {
+					writeSnak(snak, generator);
+				}
+				generator.writeEndArray();
+			}
+			generator.writeEndObject();
+			generator.writeFieldName(NAME_SNAKS_ORDER);
+			generator.writeStartArray();
+			for (SnakGroup group : groups) {
+				generator.writeString(group.getProperty().getId());
+			}
+			generator.writeEndArray();
+		}
+		generator.writeEndObject();
+	}
+
+	/**
+	 * Writes a map of snaks, unless it is empty.
+	 */
+	private void writeSnakMap(SerializableString fieldName,
+			Map<String, List<Snak>> snaks,
+			JsonGenerator generator) throws IOException {
+		if (snaks.isEmpty()) {
+			return;
+		}
+		generator.writeFieldName(fieldName);
+		generator.writeStartObject();
+		for (Entry<String, List<Snak>> entry : snaks.entrySet()) {
+			generator.writeArrayFieldStart(entry.getKey());
+			for (Snak snak : entry.getValue()) {
+				writeSnak(snak, generator);
+			}
+			generator.writeEndArray();
+		}
+		generator.writeEndObject();
+	}
+
+	/**
+	 * Writes a list of strings, unless it is empty.
+	 */
+	private void writeStrings(SerializableString fieldName, List<String> strings,
+			JsonGenerator generator) throws IOException {
+		if (strings.isEmpty()) {
+			return;
+		}
+		generator.writeFieldName(fieldName);
+		generator.writeStartArray();
+		for (String string : strings) {
+			generator.writeString(string);
+		}
+		generator.writeEndArray();
+	}
+
+	/**
+	 * Writes a snak.
+	 */
+	private void writeSnak(Snak snak, JsonGenerator generator)
+			throws IOException {
+		generator.writeStartObject();
+		writeStringField(generator, NAME_PROPERTY, snak.getPropertyId().getId());
+		String snakType;
+		if (snak instanceof ValueSnak) {
+			Value value = ((ValueSnak) snak).getValue();
+			String datatype;
+			if (snak instanceof ValueSnakImpl) {
+				datatype = ((ValueSnakImpl) snak).getDatatype();
+			} else {
+				datatype = ValueSnakImpl.getJsonPropertyTypeForValueType(value);
+			}
+			if (datatype != null) {
+				writeStringField(generator, NAME_DATATYPE, datatype);
+			}
+			generator.writeFieldName(NAME_DATAVALUE);
+			writeValue(value, generator);
+			snakType = SnakImpl.JSON_SNAK_TYPE_VALUE;
+		} else if (snak instanceof SomeValueSnak) {
+			snakType = SnakImpl.JSON_SNAK_TYPE_SOMEVALUE;
+		} else {
+			snakType = SnakImpl.JSON_SNAK_TYPE_NOVALUE;
+		}
+		writeStringField(generator, NAME_SNAKTYPE, snakType);
+		generator.writeEndObject();
+	}
+
+	/**
+	 * Writes a data value, using the JSON helper objects of the Jackson
+	 * implementation where available so that the output is the same.
+	 */
+	private void writeValue(Value value, JsonGenerator generator)
+			throws IOException {
+		generator.writeStartObject();
+		generator.writeFieldName(NAME_VALUE);
+		String type;
+		if (value instanceof EntityIdValue) {
+			JacksonInnerEntityId inner;
+			if (value instanceof EntityIdValueImpl) {
+				inner = ((EntityIdValueImpl) value).getValue();
+			} else {
+				inner = new JacksonInnerEntityId(((EntityIdValue) value).getId());
+			}
+			generator.writeStartObject();
+			writeStringField(generator, NAME_ID, inner.getStringId());
+			writeNumberField(generator, NAME_NUMERIC_ID, inner.getNumericId());
+			writeStringField(generator, NAME_ENTITY_TYPE,
+					inner.getJsonEntityType());
+			generator.writeEndObject();
+			type = ValueImpl.JSON_VALUE_TYPE_ENTITY_ID;
+		} else if (value instanceof StringValue) {
+			generator.writeString(((StringValue) value).getString());
+			type = ValueImpl.JSON_VALUE_TYPE_STRING;
+		} else if (value instanceof TimeValue) {
+			JacksonInnerTime inner;
+			if (value instanceof TimeValueImpl) {
+				inner = ((TimeValueImpl) value).getValue();
+			} else {
+				TimeValue timeValue = (TimeValue) value;
+				inner = new JacksonInnerTime(timeValue.getYear(),
+						timeValue.getMonth(), timeValue.getDay(),
+						timeValue.getHour(), timeValue.getMinute(),
+						timeValue.getSecond(), timeValue.getTimezoneOffset(),
+						timeValue.getBeforeTolerance(),
+						timeValue.getAfterTolerance(),
+						timeValue.getPrecision(),
+						timeValue.getPreferredCalendarModel());
+			}
+			generator.writeStartObject();
+			writeStringField(generator, NAME_TIME, inner.getTime());
+			writeNumberField(generator, NAME_TIMEZONE, inner.getTimezone());
+			writeNumberField(generator, NAME_BEFORE, inner.getBefore());
+			writeNumberField(generator, NAME_AFTER, inner.getAfter());
+			writeNumberField(generator, NAME_PRECISION, inner.getPrecision());
+			writeStringField(generator, NAME_CALENDARMODEL,
+					inner.getCalendarmodel());
+			generator.writeEndObject();
+			type = ValueImpl.JSON_VALUE_TYPE_TIME;
+		} else if (value instanceof GlobeCoordinatesValue) {
+			GlobeCoordinatesValue coordinates = (GlobeCoordinatesValue) value;
+			generator.writeStartObject();
+			writeNumberField(generator, NAME_LATITUDE, coordinates.getLatitude());
+			writeNumberField(generator, NAME_LONGITUDE, coordinates.getLongitude());
+			writeNumberField(generator, NAME_PRECISION, coordinates.getPrecision());
+			writeStringField(generator, NAME_GLOBE, coordinates.getGlobe());
+			generator.writeEndObject();
+			type = ValueImpl.JSON_VALUE_TYPE_GLOBE_COORDINATES;
+		} else if (value instanceof QuantityValue) {
+			JacksonInnerQuantity inner;
+			if (value instanceof QuantityValueImpl) {
+				inner = ((QuantityValueImpl) value).getValue();
+			} else {
+				QuantityValue quantity = (QuantityValue) value;
+				inner = new JacksonInnerQuantity(quantity.getNumericValue(),
+						quantity.getLowerBound(), quantity.getUpperBound(),
+						quantity.getUnit());
+			}
+			generator.writeStartObject();
+			writeStringField(generator, NAME_AMOUNT, inner.getAmountAsString());
+			String lowerBound = inner.getLowerBoundAsString();
+			if (lowerBound != null) {
+				writeStringField(generator, NAME_LOWER_BOUND, lowerBound);
+			}
+			String upperBound = inner.getUpperBoundAsString();
+			if (upperBound != null) {
+				writeStringField(generator, NAME_UPPER_BOUND, upperBound);
+			}
+			writeStringField(generator, NAME_UNIT, inner.getUnit());
+			generator.writeEndObject();
+			type = ValueImpl.JSON_VALUE_TYPE_QUANTITY;
+		} else if (value instanceof MonolingualTextValue) {
+			MonolingualTextValue text = (MonolingualTextValue) value;
+			generator.writeStartObject();
+			writeStringField(generator, NAME_LANGUAGE, text.getLanguageCode());
+			writeStringField(generator, NAME_TEXT, text.getText());
+			generator.writeEndObject();
+			type = ValueImpl.JSON_VALUE_TYPE_MONOLINGUAL_TEXT;
+		} else {
+			throw new IllegalArgumentException("Unsupported value type "
+					+ value.getClass());
+		}
+		writeStringField(generator, NAME_TYPE, type);
+		generator.writeEndObject();
+	}
+
+	/**
+	 * Writes a field with a string value.
+	 */
+	private static void writeStringField(JsonGenerator generator,
+			SerializableString name, String value) throws IOException {
+		generator.writeFieldName(name);
+		generator.writeString(value);
+	}
+
+	/**
+	 * Writes a field with an integer value.
+	 */
+	private static void writeNumberField(JsonGenerator generator,
+			SerializableString name, long value) throws IOException {
+		generator.writeFieldName(name);
+		generator.writeNumber(value);
+	}
+
+	/**
+	 * Writes a field with a floating point value.
+	 */
+	private static void writeNumberField(JsonGenerator generator,
+			SerializableString name, double value) throws IOException {
+		generator.writeFieldName(name);
+		generator.writeNumber(value);
+	}
+
+}
@@ -0,0 +1,105 @@
+package org.wikidata.wdtk.datamodel.implementation;
+
+/*
+ * #%L
+ * Wikidata Toolkit Data Model
+ * %%
+ * Copyright (C) 2014 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.math.BigDecimal;
+
+/**
+ * Static helpers to estimate the heap memory used by objects of compact
+ * documents. The estimates assume a 64bit JVM with compressed references,
+ * 12 byte object headers, 8 byte alignment, and strings that use two bytes
+ * per character. They are meant for sizing heaps, not for exact accounting.
+ */
+final class MemoryFootprint {
+
+	static final int REFERENCE_SIZE = 4;
+	static final int OBJECT_HEADER_SIZE = 12;
+	static final int ARRAY_HEADER_SIZE = 16;
+	/**
+	 * Rough size assumed for objects of other types.
+	 */
+	static final int OTHER_OBJECT_SIZE = 64;
+
+	private MemoryFootprint() {
+	}
+
+	/**
+	 * Rounds the given size up to the alignment of objects.
+	 */
+	static long align(long size) {
+		return (size + 7) & ~7L;
+	}
+
+	/**
+	 * Size of an object with the given number of bytes for fields.
+	 */
+	static long ofObject(int fieldBytes) {
+		return align(OBJECT_HEADER_SIZE + fieldBytes);
+	}
+
+	/**
+	 * Size of an array with the given length and element size.
+	 */
+	static long ofArray(int length, int elementSize) {
+		return align(ARRAY_HEADER_SIZE + (long) length * elementSize);
+	}
+
+	/**
+	 * Size of a string, including its character array.
+	 */
+	static long ofString(String string) {
+		return 24 + ofArray(string.length(), 2);
+	}
+
+	/**
+	 * Size of the strings of the given array, without the array itself.
+	 * Elements can be null.
+	 */
+	static long ofStrings(String[] strings) {
+		long result = 0;
+		for (String string : strings) {
+			if (string != null) {
+				result += ofString(string);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Size of an object that is stored in a compact document.
+	 */
+	static long ofValue(Object object) {
+		if (object instanceof String) {
+			return ofString((String) object);
+		} else if (object instanceof BigDecimal) {
+			BigDecimal number = (BigDecimal) object;
+			long result = 40;
+			int bitLength = number.unscaledValue().bitLength();
+			if (bitLength > 63) {
+				result += 40 + ofArray((bitLength + 31) / 32, 4);
+			}
+			return result;
+		} else {
+			return OTHER_OBJECT_SIZE;
+		}
+	}
+
+}
@@ -48,6 +48,11 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 public class PropertyDocumentImpl extends TermedStatementDocumentImpl
 		implements PropertyDocument {
 
+	/**
+	 * Cached result of {@link #hashCode()}, or 0 if not computed yet.
+	 */
+	private int hashCode = 0;
+
 	/**
 	 * Datatype of the property. This is internally stored as 
 	 * a Jackson object because we need to be able to serialize
@@ -106,6 +111,45 @@ public class PropertyDocumentImpl extends TermedStatementDocumentImpl
 		this.datatype = new DatatypeIdImpl(DatatypeIdImpl.getDatatypeIriFromJsonDatatype(datatype));
 	}
 
+	/**
+	 * Constructor for documents whose statements have been created already,
+	 * as done by {@link JsonEntityDocumentReader}. The given maps are used
+	 * directly and must not be modified afterwards.
+	 */
+	PropertyDocumentImpl(
+			PropertyIdValue id,
+			Map<String, MonolingualTextValue> labels,
+			Map<String, MonolingualTextValue> descriptions,
+			Map<String, List<MonolingualTextValue>> aliases,
+			Map<String, List<Statement>> claims,
+			String datatype,
+			long revisionId) {
+		super(id, labels, descriptions, aliases, claims, revisionId);
+		this.datatype = new DatatypeIdImpl(DatatypeIdImpl.getDatatypeIriFromJsonDatatype(datatype));
+	}
+
+	/**
+	 * Copy constructor that replaces the terms of the given document.
+	 */
+	private PropertyDocumentImpl(
+			PropertyDocumentImpl document,
+			Map<String, MonolingualTextValue> labels,
+			Map<String, MonolingualTextValue> descriptions,
+			Map<String, List<MonolingualTextValue>> aliases) {
+		super(document, labels, descriptions, aliases);
+		this.datatype = document.datatype;
+	}
+
+	@Override
+	public PropertyDocumentImpl withCompactTerms() {
+		if (hasCompactTerms()) {
+			return this;
+		}
+		return new PropertyDocumentImpl(this, new CompactTermMap(this.labels),
+				new CompactTermMap(this.descriptions), new CompactAliasMap(
+						this.aliases));
+	}
+
 	/**
 	 * Returns the JSON string version of the property's datatype. Note that
 	 * {@link #getDatatype()} is already used for another function of the
@@ -138,7 +182,12 @@ public class PropertyDocumentImpl extends TermedStatementDocumentImpl
 
 	@Override
 	public int hashCode() {
-		return Hash.hashCode(this);
+		int result = this.hashCode;
+		if (result == 0) {
+			result = Hash.hashCode(this);
+			this.hashCode = result;
+		}
+		return result;
 	}
 
 	@Override
@@ -47,6 +47,11 @@ import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 @JsonDeserialize(using = None.class)
 public class QuantityValueImpl extends ValueImpl implements QuantityValue {
 
+	/**
+	 * Cached result of {@link #hashCode()}, or 0 if not computed yet.
+	 */
+	private int hashCode = 0;
+
 	/**
 	 * Inner helper object to store the actual data. Used to get the nested JSON
 	 * structure that is required here.
@@ -104,6 +109,18 @@ public class QuantityValueImpl extends ValueImpl implements QuantityValue {
 		return this.value.getAmount();
 	}
 
+	/**
+	 * Returns the numeric value as a double. This is the same as
+	 * {@code getNumericValue().doubleValue()}, but usually avoids creating a
+	 * {@link BigDecimal}, which makes it much faster for computing statistics.
+	 *
+	 * @return the numeric value, rounded to the nearest double
+	 */
+	@JsonIgnore
+	public double getNumericValueAsDouble() {
+		return this.value.getAmountAsDouble();
+	}
+
 	@JsonIgnore
 	@Override
 	public BigDecimal getLowerBound() {
@@ -129,7 +146,12 @@ public class QuantityValueImpl extends ValueImpl implements QuantityValue {
 
 	@Override
 	public int hashCode() {
-		return Hash.hashCode(this);
+		int result = this.hashCode;
+		if (result == 0) {
+			result = Hash.hashCode(this);
+			this.hashCode = result;
+		}
+		return result;
 	}
 
 	@Override
@@ -48,6 +48,11 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 @JsonIgnoreProperties(ignoreUnknown = true)
 public class ReferenceImpl implements Reference {
 
+	/**
+	 * Cached result of {@link #hashCode()}, or 0 if not computed yet.
+	 */
+	private int hashCode = 0;
+
 	private List<SnakGroup> snakGroups;
 
 	/**
@@ -124,6 +129,26 @@ public class ReferenceImpl implements Reference {
 		return Collections.unmodifiableList(this.propertyOrder);
 	}
 
+	/**
+	 * Returns the map of snaks without an unmodifiable wrapper. Only for
+	 * read-only access in this package, e.g., by {@link EntityDocumentWalker}.
+	 *
+	 * @return the map of snaks
+	 */
+	Map<String, List<Snak>> getSnakMap() {
+		return this.snaks;
+	}
+
+	/**
+	 * Returns the order of snak properties without an unmodifiable wrapper.
+	 * Only for read-only access in this package.
+	 *
+	 * @return the list of property ids
+	 */
+	List<String> getSnakPropertyOrder() {
+		return this.propertyOrder;
+	}
+
 	@Override
 	@JsonIgnore
 	public Iterator<Snak> getAllSnaks() {
@@ -132,7 +157,12 @@ public class ReferenceImpl implements Reference {
 
 	@Override
 	public int hashCode() {
-		return Hash.hashCode(this);
+		int result = this.hashCode;
+		if (result == 0) {
+			result = Hash.hashCode(this);
+			this.hashCode = result;
+		}
+		return result;
 	}
 
 	@Override
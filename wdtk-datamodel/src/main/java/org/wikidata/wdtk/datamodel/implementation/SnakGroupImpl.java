@@ -43,6 +43,11 @@ import org.wikidata.wdtk.datamodel.interfaces.SnakGroup;
  */
 public class SnakGroupImpl implements SnakGroup {
 
+	/**
+	 * Cached result of {@link #hashCode()}, or 0 if not computed yet.
+	 */
+	private int hashCode = 0;
+
 	private final List<Snak> snaks;
 
 	/**
@@ -103,7 +108,12 @@ public class SnakGroupImpl implements SnakGroup {
 
 	@Override
 	public int hashCode() {
-		return Hash.hashCode(this);
+		int result = this.hashCode;
+		if (result == 0) {
+			result = Hash.hashCode(this);
+			this.hashCode = result;
+		}
+		return result;
 	}
 
 	@Override
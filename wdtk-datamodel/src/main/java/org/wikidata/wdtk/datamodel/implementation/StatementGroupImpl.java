@@ -33,6 +33,7 @@ import org.wikidata.wdtk.datamodel.interfaces.EntityIdValue;
 import org.wikidata.wdtk.datamodel.interfaces.PropertyIdValue;
 import org.wikidata.wdtk.datamodel.interfaces.Statement;
 import org.wikidata.wdtk.datamodel.interfaces.StatementGroup;
+import org.wikidata.wdtk.datamodel.interfaces.StatementRank;
 
 /**
  * Helper class to represent a {@link StatementGroup}.
@@ -42,6 +43,11 @@ import org.wikidata.wdtk.datamodel.interfaces.StatementGroup;
  */
 public class StatementGroupImpl extends AbstractCollection<Statement> implements StatementGroup {
 
+	/**
+	 * Cached result of {@link #hashCode()}, or 0 if not computed yet.
+	 */
+	private int hashCode = 0;
+
 	private final List<Statement> statements;
 
 	/**
@@ -79,7 +85,7 @@ public class StatementGroupImpl extends AbstractCollection<Statement> implements
 
 	@Override
 	public List<Statement> getStatements() {
-		return Collections.unmodifiableList(statements);
+		return statements; // unmodifiable already
 	}
 
 	@Override
@@ -92,9 +98,48 @@ public class StatementGroupImpl extends AbstractCollection<Statement> implements
 		return statements.get(0).getSubject();
 	}
 
+	/**
+	 * Finds the best rank like the default implementation, but without
+	 * creating an iterator.
+	 */
+	@Override
+	public StatementRank getBestRank() {
+		StatementRank result = null;
+		for (int i = 0; i < statements.size(); i++) {
+			StatementRank rank = statements.get(i).getRank();
+			if (rank == StatementRank.PREFERRED) {
+				return rank;
+			} else if (rank == StatementRank.NORMAL) {
+				result = rank;
+			}
+		}
+		return result;
+	}
+
+	@Override
+	public List<Statement> getBestStatements() {
+		StatementRank bestRank = getBestRank();
+		if (bestRank == null) {
+			return Collections.emptyList();
+		}
+		int i = 0;
+		while (i < statements.size() && statements.get(i).getRank() == bestRank) {
+			i++;
+		}
+		if (i == statements.size()) { // common case: no copy needed
+			return statements;
+		}
+		return StatementGroup.super.getBestStatements();
+	}
+
 	@Override
 	public int hashCode() {
-		return Hash.hashCode(this);
+		int result = this.hashCode;
+		if (result == 0) {
+			result = Hash.hashCode(this);
+			this.hashCode = result;
+		}
+		return result;
 	}
 
 	@Override
@@ -45,6 +45,11 @@ import org.wikidata.wdtk.util.NestedIterator;
 @JsonInclude(JsonInclude.Include.NON_EMPTY)
 public class StatementImpl implements Statement {
 
+	/**
+	 * Cached result of {@link #hashCode()}, or 0 if not computed yet.
+	 */
+	private int hashCode = 0;
+
 	private final String statementId;
 
 	private final StatementRank rank;
@@ -195,6 +200,26 @@ public class StatementImpl implements Statement {
 		return Collections.unmodifiableList(this.qualifiersOrder);
 	}
 
+	/**
+	 * Returns the map of qualifiers without an unmodifiable wrapper. Only for
+	 * read-only access in this package, e.g., by {@link EntityDocumentWalker}.
+	 *
+	 * @return the map of qualifiers
+	 */
+	Map<String, List<Snak>> getQualifierMap() {
+		return this.qualifiers;
+	}
+
+	/**
+	 * Returns the order of qualifier properties without an unmodifiable
+	 * wrapper. Only for read-only access in this package.
+	 *
+	 * @return the list of property ids
+	 */
+	List<String> getQualifierPropertyOrder() {
+		return this.qualifiersOrder;
+	}
+
 	@Override
 	@JsonSerialize(using = StatementRankSerializer.class)
 	public StatementRank getRank() {
@@ -219,7 +244,12 @@ public class StatementImpl implements Statement {
 
 	@Override
 	public int hashCode() {
-		return Hash.hashCode(this);
+		int result = this.hashCode;
+		if (result == 0) {
+			result = Hash.hashCode(this);
+			this.hashCode = result;
+		}
+		return result;
 	}
 
 	@Override
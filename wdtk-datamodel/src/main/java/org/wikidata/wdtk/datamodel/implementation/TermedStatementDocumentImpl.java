@@ -24,9 +24,11 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
 
 import org.apache.commons.lang3.Validate;
 import org.wikidata.wdtk.datamodel.implementation.json.AliasesDeserializer;
@@ -34,10 +36,12 @@ import org.wikidata.wdtk.datamodel.implementation.json.JacksonPreStatement;
 import org.wikidata.wdtk.datamodel.interfaces.EntityDocument;
 import org.wikidata.wdtk.datamodel.interfaces.EntityIdValue;
 import org.wikidata.wdtk.datamodel.interfaces.MonolingualTextValue;
+import org.wikidata.wdtk.datamodel.interfaces.PropertyIdValue;
 import org.wikidata.wdtk.datamodel.interfaces.Statement;
 import org.wikidata.wdtk.datamodel.interfaces.StatementGroup;
 import org.wikidata.wdtk.datamodel.interfaces.TermedDocument;
 import org.wikidata.wdtk.datamodel.interfaces.StatementDocument;
+import org.wikidata.wdtk.datamodel.interfaces.Value;
 import org.wikidata.wdtk.util.NestedIterator;
 
 import com.fasterxml.jackson.annotation.JacksonInject;
@@ -78,6 +82,16 @@ public abstract class TermedStatementDocumentImpl implements
 	 */
 	public static final String JSON_TYPE_PROPERTY = "property";
 
+	/**
+	 * Classes of the views returned by
+	 * {@link Collections#unmodifiableList(List)}, used to avoid wrapping
+	 * such views again.
+	 */
+	private static final Class<?> UNMODIFIABLE_LIST_CLASS = Collections
+			.unmodifiableList(new LinkedList<>()).getClass();
+	private static final Class<?> UNMODIFIABLE_RANDOM_ACCESS_LIST_CLASS = Collections
+			.unmodifiableList(new ArrayList<>()).getClass();
+
 	@JsonDeserialize(using = AliasesDeserializer.class)
 	protected final Map<String, List<MonolingualTextValue>> aliases;
 	
@@ -93,10 +107,12 @@ public abstract class TermedStatementDocumentImpl implements
 	private final Map<String, List<Statement>> claims;
 
 	/**
-	 * Statement groups. This member is initialized when statements are
-	 * accessed.
+	 * Statement groups, as a list and by property id. This member is
+	 * initialized when statement groups are accessed. Both are published
+	 * together through this field, so that the same group objects are
+	 * returned by all methods, also to other threads.
 	 */
-	private List<StatementGroup> statementGroups;
+	private volatile StatementGroups statementGroups;
 
 	/**
 	 * The id of the entity that the document refers to. This is not mapped to
@@ -155,17 +171,17 @@ public abstract class TermedStatementDocumentImpl implements
 		this.entityId = id.getId();
 		this.siteIri = id.getSiteIri();
 		if (labels != null) {
-			this.labels = constructTermMap(labels);
+			this.labels = makeUnmodifiable(constructTermMap(labels));
 		} else {
 			this.labels = Collections.emptyMap();
 		}
 		if (descriptions != null) {
-			this.descriptions = constructTermMap(descriptions);
+			this.descriptions = makeUnmodifiable(constructTermMap(descriptions));
 		} else {
 			this.descriptions = Collections.emptyMap();
 		}
 		if (aliases != null) {
-			this.aliases = constructTermListMap(aliases);
+			this.aliases = makeAliasesUnmodifiable(constructTermListMap(aliases));
 		} else {
 			this.aliases = Collections.emptyMap();
 		}
@@ -197,17 +213,17 @@ public abstract class TermedStatementDocumentImpl implements
 		Validate.notNull(siteIri);
 		this.siteIri = siteIri;
 		if (labels != null) {
-			this.labels = labels;
+			this.labels = makeUnmodifiable(labels);
 		} else {
 			this.labels = Collections.emptyMap();
 		}
 		if (descriptions != null) {
-			this.descriptions = descriptions;
+			this.descriptions = makeUnmodifiable(descriptions);
 		} else {
 			this.descriptions = Collections.emptyMap();
 		}
 		if (aliases != null) {
-			this.aliases = aliases;
+			this.aliases = makeAliasesUnmodifiable(aliases);
 		} else {
 			this.aliases = Collections.emptyMap();
 		}
@@ -228,33 +244,145 @@ public abstract class TermedStatementDocumentImpl implements
 		this.revisionId = revisionId;
 	}
 
+	/**
+	 * Constructor for documents whose statements have been created already,
+	 * as done by {@link JsonEntityDocumentReader}. The given maps are used
+	 * directly and must not be modified afterwards.
+	 *
+	 * @param id
+	 *            the identifier of the subject of this document
+	 * @param labels
+	 *            map from language codes to labels, or null
+	 * @param descriptions
+	 *            map from language codes to descriptions, or null
+	 * @param aliases
+	 *            map from language codes to lists of aliases, or null
+	 * @param claims
+	 *            map from property ids to statements with the given subject,
+	 *            or null
+	 * @param revisionId
+	 *            the id of the last revision of this document
+	 */
+	protected TermedStatementDocumentImpl(
+			EntityIdValue id,
+			Map<String, MonolingualTextValue> labels,
+			Map<String, MonolingualTextValue> descriptions,
+			Map<String, List<MonolingualTextValue>> aliases,
+			Map<String, List<Statement>> claims,
+			long revisionId) {
+		Validate.notNull(id);
+		this.entityId = id.getId();
+		this.siteIri = id.getSiteIri();
+		if (labels != null) {
+			this.labels = makeUnmodifiable(labels);
+		} else {
+			this.labels = Collections.emptyMap();
+		}
+		if (descriptions != null) {
+			this.descriptions = makeUnmodifiable(descriptions);
+		} else {
+			this.descriptions = Collections.emptyMap();
+		}
+		if (aliases != null) {
+			this.aliases = makeAliasesUnmodifiable(aliases);
+		} else {
+			this.aliases = Collections.emptyMap();
+		}
+		if (claims != null) {
+			this.claims = claims;
+		} else {
+			this.claims = Collections.emptyMap();
+		}
+		this.revisionId = revisionId;
+	}
+
 
+	/**
+	 * Copy constructor that replaces the terms of the given document. The
+	 * statements of the document are shared with the new document.
+	 *
+	 * @param document
+	 *            the document to copy
+	 * @param labels
+	 *            the labels of the new document
+	 * @param descriptions
+	 *            the descriptions of the new document
+	 * @param aliases
+	 *            the aliases of the new document
+	 */
+	protected TermedStatementDocumentImpl(
+			TermedStatementDocumentImpl document,
+			Map<String, MonolingualTextValue> labels,
+			Map<String, MonolingualTextValue> descriptions,
+			Map<String, List<MonolingualTextValue>> aliases) {
+		this.entityId = document.entityId;
+		this.siteIri = document.siteIri;
+		this.revisionId = document.revisionId;
+		this.claims = document.claims;
+		this.statementGroups = document.statementGroups;
+		this.labels = makeUnmodifiable(labels);
+		this.descriptions = makeUnmodifiable(descriptions);
+		this.aliases = makeAliasesUnmodifiable(aliases);
+	}
+
+	/**
+	 * Returns the aliases of this document. The map and its lists are
+	 * unmodifiable views that are created only once, so this method does not
+	 * allocate memory.
+	 */
 	@JsonProperty("aliases")
 	@Override
 	public Map<String, List<MonolingualTextValue>> getAliases() {
-		// because of the typing provided by the interface one has to
-		// re-create the map anew, simple casting is not possible
-		Map<String, List<MonolingualTextValue>> returnMap = new HashMap<>();
-
-		for (Entry<String, List<MonolingualTextValue>> entry : this.aliases
-				.entrySet()) {
-			returnMap.put(entry.getKey(), Collections
-					. unmodifiableList(entry.getValue()));
-		}
-
-		return Collections.unmodifiableMap(returnMap);
+		return this.aliases;
 	}
 
 	@JsonProperty("descriptions")
 	@Override
 	public Map<String, MonolingualTextValue> getDescriptions() {
-		return Collections.unmodifiableMap(this.descriptions);
+		return this.descriptions;
 	}
 
 	@JsonProperty("labels")
 	@Override
 	public Map<String, MonolingualTextValue> getLabels() {
-		return Collections.unmodifiableMap(this.labels);
+		return this.labels;
+	}
+
+	@Override
+	public String findLabel(String languageCode) {
+		return findText(this.labels, languageCode);
+	}
+
+	@Override
+	public String findDescription(String languageCode) {
+		return findText(this.descriptions, languageCode);
+	}
+
+	/**
+	 * Returns true if the terms of this document are stored in compact form,
+	 * as created by {@link #withCompactTerms()}.
+	 *
+	 * @return true if terms are compact
+	 */
+	@JsonIgnore
+	public boolean hasCompactTerms() {
+		return this.labels instanceof CompactTermMap;
+	}
+
+	/**
+	 * Returns a document with the same content as this one, which stores its
+	 * labels, descriptions and aliases in {@link CompactTermMap} and
+	 * {@link CompactAliasMap} objects. This saves a lot of memory when many
+	 * documents are kept, at the cost of creating term objects on access.
+	 * Statements are shared with this document. Subclasses that do not
+	 * override this method keep their terms as they are and return this
+	 * document.
+	 *
+	 * @return document with compact terms, or this document if its terms
+	 *         are compact already
+	 */
+	public TermedStatementDocumentImpl withCompactTerms() {
+		return this;
 	}
 
 	/**
@@ -281,14 +409,118 @@ public abstract class TermedStatementDocumentImpl implements
 	@JsonIgnore
 	@Override
 	public List<StatementGroup> getStatementGroups() {
-		if (this.statementGroups == null) {
-			this.statementGroups = new ArrayList<>(this.claims.size());
-			for (List<Statement> statements : this.claims.values()) {
-				this.statementGroups
-						.add(new StatementGroupImpl(statements));
+		return getIndexedStatementGroups().list;
+	}
+
+	/**
+	 * Returns the statement groups of this document, creating them on first
+	 * use. Threads that call this concurrently may each create the groups,
+	 * but each thread gets a list and an index that belong together.
+	 */
+	private StatementGroups getIndexedStatementGroups() {
+		StatementGroups groups = this.statementGroups;
+		if (groups == null) {
+			groups = new StatementGroups(this.claims);
+			this.statementGroups = groups;
+		}
+		return groups;
+	}
+
+	/*
+	 * The following methods override the default implementations of
+	 * StatementDocument, which search all statement groups, by lookups in the
+	 * map of claims. Methods that only need statements do not create group
+	 * objects at all.
+	 */
+
+	@Override
+	public StatementGroup findStatementGroup(String propertyId) {
+		if (!this.claims.containsKey(propertyId)) {
+			return null;
+		}
+		return getIndexedStatementGroups().index.get(propertyId);
+	}
+
+	@Override
+	public StatementGroup findStatementGroup(PropertyIdValue propertyIdValue) {
+		if (getStatements(propertyIdValue) == null) {
+			return null;
+		}
+		return findStatementGroup(propertyIdValue.getId());
+	}
+
+	@Override
+	public boolean hasStatement(String propertyId) {
+		return getStatements(propertyId) != null;
+	}
+
+	@Override
+	public boolean hasStatement(PropertyIdValue propertyIdValue) {
+		return getStatements(propertyIdValue) != null;
+	}
+
+	@Override
+	public boolean hasStatementValue(String propertyId,
+			Set<? extends Value> values) {
+		return containsValue(getStatements(propertyId), values);
+	}
+
+	@Override
+	public boolean hasStatementValue(PropertyIdValue propertyIdValue,
+			Set<? extends Value> values) {
+		return containsValue(getStatements(propertyIdValue), values);
+	}
+
+	@Override
+	public Statement findStatement(String propertyId) {
+		List<Statement> statements = getStatements(propertyId);
+		return (statements != null && statements.size() == 1) ? statements
+				.get(0) : null;
+	}
+
+	@Override
+	public Statement findStatement(PropertyIdValue propertyIdValue) {
+		List<Statement> statements = getStatements(propertyIdValue);
+		return (statements != null && statements.size() == 1) ? statements
+				.get(0) : null;
+	}
+
+	/**
+	 * Returns the statements for the given property id, or null if there are
+	 * none.
+	 */
+	private List<Statement> getStatements(String propertyId) {
+		List<Statement> statements = this.claims.get(propertyId);
+		return (statements == null || statements.isEmpty()) ? null
+				: statements;
+	}
+
+	/**
+	 * Returns the statements for the given property, or null if there are
+	 * none. Unlike {@link #getStatements(String)}, the site IRI of the
+	 * property is also compared.
+	 */
+	private List<Statement> getStatements(PropertyIdValue propertyIdValue) {
+		List<Statement> statements = getStatements(propertyIdValue.getId());
+		if (statements == null
+				|| !propertyIdValue.equals(statements.get(0).getMainSnak()
+						.getPropertyId())) {
+			return null;
+		}
+		return statements;
+	}
+
+	private static boolean containsValue(List<Statement> statements,
+			Set<? extends Value> values) {
+		if (statements == null) {
+			return false;
+		}
+		for (Statement statement : statements) {
+			if (values.contains(statement.getValue())) {
+				return true;
 			}
 		}
-		return this.statementGroups;
+		return false;
 	}
 
 	/**
@@ -334,8 +566,8 @@ public abstract class TermedStatementDocumentImpl implements
 				throw new IllegalArgumentException("Multiple terms provided for the same language.");
 			}
 			// We need to make sure the terms are of the right type, otherwise they will not
-			// be serialized correctly.
-			map.put(language, new TermImpl(term));
+			// be serialized correctly. Terms of this type are immutable and can be shared.
+			map.put(language, toTermImpl(term));
 		}
 		return map;
 	}
@@ -345,8 +577,8 @@ public abstract class TermedStatementDocumentImpl implements
 		for(MonolingualTextValue term : terms) {
 			String language = term.getLanguageCode();
 			// We need to make sure the terms are of the right type, otherwise they will not
-			// be serialized correctly.
-			TermImpl castTerm = new TermImpl(term);
+			// be serialized correctly. Terms of this type are immutable and can be shared.
+			TermImpl castTerm = toTermImpl(term);
 			List<MonolingualTextValue> aliases = map.get(language);
 			if(aliases == null) {
 				aliases = new ArrayList<>();
@@ -359,4 +591,85 @@ public abstract class TermedStatementDocumentImpl implements
 		return map;
 	}
 
+	private static TermImpl toTermImpl(MonolingualTextValue term) {
+		return (term instanceof TermImpl) ? (TermImpl) term : new TermImpl(term);
+	}
+
+	/**
+	 * Returns an unmodifiable view of the given map of terms. Compact maps are
+	 * unmodifiable already and are returned as they are, so that their
+	 * methods remain accessible.
+	 */
+	protected static Map<String, MonolingualTextValue> makeUnmodifiable(
+			Map<String, MonolingualTextValue> terms) {
+		if (terms instanceof CompactTermMap) {
+			return terms;
+		}
+		return Collections.unmodifiableMap(terms);
+	}
+
+	/**
+	 * Returns an unmodifiable copy of the given map of aliases, where the
+	 * lists of aliases are unmodifiable too. The given map is not changed.
+	 * Lists that are already unmodifiable views are not wrapped again, so
+	 * repeated calls on the result of this method do not nest views.
+	 */
+	protected static Map<String, List<MonolingualTextValue>> makeAliasesUnmodifiable(
+			Map<String, List<MonolingualTextValue>> aliases) {
+		if (aliases instanceof CompactAliasMap) {
+			return aliases;
+		}
+		Map<String, List<MonolingualTextValue>> copy = new HashMap<>(
+				aliases.size() * 4 / 3 + 1);
+		for (Entry<String, List<MonolingualTextValue>> entry : aliases
+				.entrySet()) {
+			copy.put(entry.getKey(), makeAliasListUnmodifiable(entry.getValue()));
+		}
+		return Collections.unmodifiableMap(copy);
+	}
+
+	/**
+	 * Returns an unmodifiable view of the given list of aliases, or the list
+	 * itself if it is such a view already.
+	 */
+	private static List<MonolingualTextValue> makeAliasListUnmodifiable(
+			List<MonolingualTextValue> aliases) {
+		Class<?> listClass = aliases.getClass();
+		if (listClass == UNMODIFIABLE_LIST_CLASS
+				|| listClass == UNMODIFIABLE_RANDOM_ACCESS_LIST_CLASS) {
+			return aliases;
+		}
+		return Collections.unmodifiableList(aliases);
+	}
+
+	/**
+	 * Immutable holder for the statement groups of a document and their
+	 * index by property id.
+	 */
+	private static final class StatementGroups {
+		final List<StatementGroup> list;
+		final Map<String, StatementGroup> index;
+
+		StatementGroups(Map<String, List<Statement>> claims) {
+			List<StatementGroup> groups = new ArrayList<>(claims.size());
+			Map<String, StatementGroup> groupIndex = new HashMap<>();
+			for (Entry<String, List<Statement>> entry : claims.entrySet()) {
+				StatementGroup group = new StatementGroupImpl(entry.getValue());
+				groups.add(group);
+				groupIndex.put(entry.getKey(), group);
+			}
+			this.list = groups;
+			this.index = groupIndex;
+		}
+	}
+
+	private static String findText(Map<String, MonolingualTextValue> terms,
+			String languageCode) {
+		if (terms instanceof CompactTermMap) {
+			return ((CompactTermMap) terms).getText(languageCode);
+		}
+		MonolingualTextValue value = terms.get(languageCode);
+		return (value != null) ? value.getText() : null;
+	}
+
 }
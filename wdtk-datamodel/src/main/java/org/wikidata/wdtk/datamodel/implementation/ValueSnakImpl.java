@@ -53,6 +53,11 @@ import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 @JsonIgnoreProperties(ignoreUnknown = true)
 public class ValueSnakImpl extends SnakImpl implements ValueSnak {
 
+	/**
+	 * Cached result of {@link #hashCode()}, or 0 if not computed yet.
+	 */
+	private int hashCode = 0;
+
 	/**
 	 * The {@link Value} assigned to this snak.
 	 */
@@ -138,7 +143,12 @@ public class ValueSnakImpl extends SnakImpl implements ValueSnak {
 
 	@Override
 	public int hashCode() {
-		return Hash.hashCode(this);
+		int result = this.hashCode;
+		if (result == 0) {
+			result = Hash.hashCode(this);
+			this.hashCode = result;
+		}
+		return result;
 	}
 
 	@Override
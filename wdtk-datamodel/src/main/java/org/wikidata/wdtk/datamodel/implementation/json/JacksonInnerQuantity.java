@@ -22,6 +22,7 @@ package org.wikidata.wdtk.datamodel.implementation.json;
 
 import java.math.BigDecimal;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonInclude;
 
 import org.apache.commons.lang3.Validate;
@@ -35,6 +36,11 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 /**
  * Helper object that represents the JSON object structure that is used to
  * represent values of type {@link ValueImpl#JSON_VALUE_TYPE_QUANTITY}.
+ * <p>
+ * Numbers that are read from JSON and that have at most 18 digits, which are
+ * almost all quantities in practice, are stored as a long together with a
+ * decimal scale. {@link BigDecimal} objects for them are only created when
+ * they are requested.
  *
  * @author Fredo Erxleben
  * @author Antonin Delpeuch
@@ -43,9 +49,51 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 @JsonIgnoreProperties(ignoreUnknown = true)
 public class JacksonInnerQuantity {
 
-	private final BigDecimal amount;
-	private final BigDecimal upperBound;
-	private final BigDecimal lowerBound;
+	/**
+	 * Scale used for numbers that are only stored as {@link BigDecimal}.
+	 */
+	static final byte SCALE_DECIMAL = -1;
+	/**
+	 * Scale used for bounds that are not given.
+	 */
+	static final byte SCALE_NONE = -2;
+	/**
+	 * Unscaled value returned by {@link #parseUnscaled(String)} for numbers
+	 * that cannot be stored as a long.
+	 */
+	static final long NOT_A_LONG = Long.MIN_VALUE;
+
+	/**
+	 * Unscaled values up to this bound can be multiplied by 10 and increased
+	 * by 9 without overflow.
+	 */
+	private static final long MAX_UNSCALED_BEFORE_DIGIT = 100000000000000000L;
+	/**
+	 * Largest integer up to which all integers are exact doubles.
+	 */
+	private static final long MAX_EXACT_DOUBLE_INTEGER = 1L << 53;
+	/**
+	 * Powers of ten that are exact doubles.
+	 */
+	private static final double[] DOUBLE_POWERS_OF_TEN = { 1e0, 1e1, 1e2,
+			1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14,
+			1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22 };
+
+	/*
+	 * Each number is given by its unscaled value and scale, or only by a
+	 * BigDecimal if the scale is SCALE_DECIMAL. BigDecimals for the other
+	 * numbers are created on demand.
+	 */
+	private long amountUnscaled;
+	private byte amountScale;
+	private BigDecimal amount;
+	private long lowerUnscaled;
+	private byte lowerScale;
+	private BigDecimal lowerBound;
+	private long upperUnscaled;
+	private byte upperScale;
+	private BigDecimal upperBound;
+
 	private final String unit;
 
 	/**
@@ -61,33 +109,103 @@ public class JacksonInnerQuantity {
 	 * @param unit
 	 * 		the unit of this string, as an IRI to the relevant entity
 	 */
+	public JacksonInnerQuantity(BigDecimal amount, BigDecimal lowerBound,
+			BigDecimal upperBound, String unit) {
+		this(unit);
+		Validate.notNull(amount, "Numeric value cannot be null");
+		this.amountScale = SCALE_DECIMAL;
+		this.amount = amount;
+		this.lowerScale = (lowerBound == null) ? SCALE_NONE : SCALE_DECIMAL;
+		this.lowerBound = lowerBound;
+		this.upperScale = (upperBound == null) ? SCALE_NONE : SCALE_DECIMAL;
+		this.upperBound = upperBound;
+		validateBounds();
+	}
+
+	/**
+	 * Constructor for the numbers as given in JSON, that is, as strings of
+	 * decimal numbers with an optional sign. Empty strings are treated like
+	 * null.
+	 *
+	 * @param amount
+	 * 		the main value of this quantity
+	 * @param lowerBound
+	 * 		the lower bound of this quantity, or null
+	 * @param upperBound
+	 * 		the upper bound of this quantity, or null
+	 * @param unit
+	 * 		the unit of this string, as an IRI to the relevant entity
+	 * @return the new object
+	 * @throws NumberFormatException
+	 *             if a number could not be parsed
+	 */
 	@JsonCreator
-	public JacksonInnerQuantity(
-			@JsonProperty("amount") BigDecimal amount,
-			@JsonProperty("lowerBound") BigDecimal lowerBound,
-			@JsonProperty("upperBound") BigDecimal upperBound,
+	public static JacksonInnerQuantity fromStrings(
+			@JsonProperty("amount") String amount,
+			@JsonProperty("lowerBound") String lowerBound,
+			@JsonProperty("upperBound") String upperBound,
 			@JsonProperty("unit") String unit) {
+		JacksonInnerQuantity result = new JacksonInnerQuantity(unit);
+		amount = trimToNull(amount);
+		lowerBound = trimToNull(lowerBound);
+		upperBound = trimToNull(upperBound);
 		Validate.notNull(amount, "Numeric value cannot be null");
+
+		result.amountUnscaled = parseUnscaled(amount);
+		result.amountScale = scaleOf(amount, result.amountUnscaled);
+		result.amount = toDecimal(amount, result.amountScale);
+		result.lowerUnscaled = parseUnscaled(lowerBound);
+		result.lowerScale = scaleOf(lowerBound, result.lowerUnscaled);
+		result.lowerBound = toDecimal(lowerBound, result.lowerScale);
+		result.upperUnscaled = parseUnscaled(upperBound);
+		result.upperScale = scaleOf(upperBound, result.upperUnscaled);
+		result.upperBound = toDecimal(upperBound, result.upperScale);
+		result.validateBounds();
+		return result;
+	}
+
+	/**
+	 * Constructor that only sets the unit.
+	 */
+	private JacksonInnerQuantity(String unit) {
 		Validate.notNull(unit, "Unit cannot be null");
 		Validate.notEmpty(unit, "Unit cannot be empty. Use \"1\" for unit-less quantities.");
+		this.unit = unit;
+	}
 
-		if(lowerBound != null || upperBound != null) {
-			Validate.notNull(lowerBound, "Lower and upper bounds should be null at the same time");
-			Validate.notNull(upperBound, "Lower and upper bounds should be null at the same time");
+	/**
+	 * Checks that both bounds are given or missing, and that the amount lies
+	 * between them.
+	 */
+	private void validateBounds() {
+		if (this.lowerScale == SCALE_NONE && this.upperScale == SCALE_NONE) {
+			return;
+		}
+		if (this.lowerScale == SCALE_NONE || this.upperScale == SCALE_NONE) {
+			throw new NullPointerException(
+					"Lower and upper bounds should be null at the same time");
+		}
 
-			if (lowerBound.compareTo(amount) > 0) {
-				throw new IllegalArgumentException(
-						"Lower bound cannot be strictly greater than numeric value");
-			}
-			if (amount.compareTo(upperBound) > 0) {
-				throw new IllegalArgumentException(
-						"Upper bound cannot be strictly smaller than numeric value");
-			}
+		boolean lowerTooLarge;
+		if (this.lowerScale >= 0 && this.lowerScale == this.amountScale) {
+			lowerTooLarge = this.lowerUnscaled > this.amountUnscaled;
+		} else {
+			lowerTooLarge = getLowerBound().compareTo(getAmount()) > 0;
+		}
+		if (lowerTooLarge) {
+			throw new IllegalArgumentException(
+					"Lower bound cannot be strictly greater than numeric value");
+		}
+		boolean upperTooSmall;
+		if (this.upperScale >= 0 && this.upperScale == this.amountScale) {
+			upperTooSmall = this.amountUnscaled > this.upperUnscaled;
+		} else {
+			upperTooSmall = getAmount().compareTo(getUpperBound()) > 0;
+		}
+		if (upperTooSmall) {
+			throw new IllegalArgumentException(
+					"Upper bound cannot be strictly smaller than numeric value");
 		}
-		this.amount = amount;
-		this.upperBound = upperBound;
-		this.lowerBound = lowerBound;
-		this.unit = unit;
 	}
 
 	/**
@@ -97,7 +215,11 @@ public class JacksonInnerQuantity {
 	 * @return the value
 	 */
 	public BigDecimal getAmount() {
-		return amount;
+		if (this.amount == null) {
+			this.amount = BigDecimal.valueOf(this.amountUnscaled,
+					this.amountScale);
+		}
+		return this.amount;
 	}
 
 	/**
@@ -107,7 +229,11 @@ public class JacksonInnerQuantity {
 	 * @return the upper bound
 	 */
 	public BigDecimal getUpperBound() {
-		return upperBound;
+		if (this.upperBound == null && this.upperScale != SCALE_NONE) {
+			this.upperBound = BigDecimal.valueOf(this.upperUnscaled,
+					this.upperScale);
+		}
+		return this.upperBound;
 	}
 
 	/**
@@ -117,24 +243,49 @@ public class JacksonInnerQuantity {
 	 * @return the lower bound
 	 */
 	public BigDecimal getLowerBound() {
-		return lowerBound;
+		if (this.lowerBound == null && this.lowerScale != SCALE_NONE) {
+			this.lowerBound = BigDecimal.valueOf(this.lowerUnscaled,
+					this.lowerScale);
+		}
+		return this.lowerBound;
+	}
+
+	/**
+	 * Returns the numeric value as a double. This does not create a
+	 * {@link BigDecimal} if the value is stored as a long and can be converted
+	 * exactly, and is therefore much faster than
+	 * {@code getAmount().doubleValue()}, which gives the same result.
+	 *
+	 * @return the value, rounded to the nearest double
+	 */
+	@JsonIgnore
+	public double getAmountAsDouble() {
+		if (this.amountScale >= 0
+				&& this.amountScale < DOUBLE_POWERS_OF_TEN.length
+				&& Math.abs(this.amountUnscaled) <= MAX_EXACT_DOUBLE_INTEGER) {
+			return this.amountUnscaled / DOUBLE_POWERS_OF_TEN[this.amountScale];
+		}
+		return getAmount().doubleValue();
 	}
 
 	@JsonProperty("amount")
 	public String getAmountAsString() {
-		return bigDecimalToSignedString(this.amount);
+		return toSignedString(this.amountUnscaled, this.amountScale,
+				this.amount);
 	}
 
 	@JsonProperty("upperBound")
 	@JsonInclude(JsonInclude.Include.NON_NULL)
 	public String getUpperBoundAsString() {
-		return this.upperBound != null ? bigDecimalToSignedString(this.upperBound) : null;
+		return toSignedString(this.upperUnscaled, this.upperScale,
+				this.upperBound);
 	}
 
 	@JsonProperty("lowerBound")
 	@JsonInclude(JsonInclude.Include.NON_NULL)
 	public String getLowerBoundAsString() {
-		return this.lowerBound != null ? bigDecimalToSignedString(this.lowerBound) : null;
+		return toSignedString(this.lowerUnscaled, this.lowerScale,
+				this.lowerBound);
 	}
 
 	/**
@@ -159,9 +310,9 @@ public class JacksonInnerQuantity {
 		}
 		JacksonInnerQuantity other = (JacksonInnerQuantity) o;
 
-		return this.amount.equals(other.amount)
-				&& equalsNullable(this.lowerBound, other.lowerBound)
-				&& equalsNullable(this.upperBound, other.upperBound)
+		return this.getAmount().equals(other.getAmount())
+				&& equalsNullable(this.getLowerBound(), other.getLowerBound())
+				&& equalsNullable(this.getUpperBound(), other.getUpperBound())
 				&& this.unit.equals(other.unit);
 	}
 
@@ -169,13 +320,136 @@ public class JacksonInnerQuantity {
 		return o1 == null ? o2 == null : o1.equals(o2);
 	}
 
+	/**
+	 * Returns the unscaled value of the given decimal number if it has at most
+	 * 18 digits, and {@link #NOT_A_LONG} otherwise. Numbers in exponential
+	 * notation are not supported here either. For null, 0 is returned.
+	 *
+	 * @param string
+	 *            decimal number with an optional sign, or null
+	 * @return unscaled value
+	 */
+	static long parseUnscaled(String string) {
+		if (string == null) {
+			return 0;
+		}
+		int length = string.length();
+		int position = 0;
+		boolean negative = false;
+		if (length > 0
+				&& (string.charAt(0) == '+' || string.charAt(0) == '-')) {
+			negative = string.charAt(0) == '-';
+			position++;
+		}
+		long result = 0;
+		boolean hasDigits = false;
+		boolean hasPoint = false;
+		for (; position < length; position++) {
+			char c = string.charAt(position);
+			if (c >= '0' && c <= '9') {
+				if (result >= MAX_UNSCALED_BEFORE_DIGIT) {
+					return NOT_A_LONG;
+				}
+				result = 10 * result + (c - '0');
+				hasDigits = true;
+			} else if (c == '.' && !hasPoint) {
+				hasPoint = true;
+			} else {
+				return NOT_A_LONG;
+			}
+		}
+		if (!hasDigits) {
+			return NOT_A_LONG;
+		}
+		return negative ? -result : result;
+	}
+
+	/**
+	 * Returns the scale to store for the given decimal number.
+	 *
+	 * @param string
+	 *            decimal number, or null
+	 * @param unscaled
+	 *            the result of {@link #parseUnscaled(String)} for the number
+	 * @return the number of digits after the decimal point,
+	 *         {@link #SCALE_DECIMAL} if the number cannot be stored as a long,
+	 *         or {@link #SCALE_NONE} if the string is null
+	 */
+	static byte scaleOf(String string, long unscaled) {
+		if (string == null) {
+			return SCALE_NONE;
+		}
+		if (unscaled == NOT_A_LONG) {
+			return SCALE_DECIMAL;
+		}
+		int point = string.indexOf('.');
+		int scale = (point < 0) ? 0 : string.length() - point - 1;
+		return (scale > Byte.MAX_VALUE) ? SCALE_DECIMAL : (byte) scale;
+	}
+
+	/**
+	 * Returns the {@link BigDecimal} for numbers that cannot be stored as a
+	 * long, and null otherwise.
+	 */
+	private static BigDecimal toDecimal(String string, byte scale) {
+		return (scale == SCALE_DECIMAL) ? new BigDecimal(string) : null;
+	}
+
+	/**
+	 * Returns the trimmed string, or null if it is null or empty.
+	 */
+	private static String trimToNull(String string) {
+		if (string == null) {
+			return null;
+		}
+		string = string.trim();
+		return string.isEmpty() ? null : string;
+	}
+
+	/**
+	 * Formats a number with a leading signum as JSON expects it. The result
+	 * is the same as for the corresponding {@link BigDecimal}.
+	 *
+	 * @return the formatted number, or null if the number is not given
+	 */
+	private static String toSignedString(long unscaled, byte scale,
+			BigDecimal decimal) {
+		if (scale == SCALE_NONE) {
+			return null;
+		} else if (scale == SCALE_DECIMAL) {
+			return bigDecimalToSignedString(decimal);
+		}
+
+		String digits = Long.toString(Math.abs(unscaled));
+		int length = digits.length();
+		if (length - 1 - scale < -6) {
+			// BigDecimal uses exponential notation here
+			return bigDecimalToSignedString(BigDecimal.valueOf(unscaled, scale));
+		}
+		StringBuilder builder = new StringBuilder(length + scale + 3);
+		builder.append(unscaled < 0 ? '-' : '+');
+		if (scale == 0) {
+			builder.append(digits);
+		} else if (length > scale) {
+			builder.append(digits, 0, length - scale).append('.')
+					.append(digits, length - scale, length);
+		} else {
+			builder.append("0.");
+			for (int i = length; i < scale; i++) {
+				builder.append('0');
+			}
+			builder.append(digits);
+		}
+		return builder.toString();
+	}
+
 	/**
 	 * Formats the string output with a leading signum as JSON expects it.
 	 *
 	 * @param value
 	 * @return
 	 */
-	private String bigDecimalToSignedString(BigDecimal value) {
+	private static String bigDecimalToSignedString(BigDecimal value) {
 		if (value.signum() < 0) {
 			return value.toString();
 		} else {
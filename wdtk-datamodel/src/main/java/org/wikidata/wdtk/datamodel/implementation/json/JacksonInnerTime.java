@@ -41,7 +41,11 @@ import com.fasterxml.jackson.annotation.JsonProperty;
  */
 @JsonIgnoreProperties(ignoreUnknown = true)
 public class JacksonInnerTime {
-	private final String time;
+	/**
+	 * The time string as used in JSON. For times that are created from their
+	 * components, it is only composed when needed.
+	 */
+	private String time;
 	private final int timezone;
 	private final int before;
 	private final int after;
@@ -142,14 +146,95 @@ public class JacksonInnerTime {
 		this.after = after;
 		this.precision = precision;
 		this.calendarmodel = calendarModel;
-		this.time = composeTimeString();
 	}
 
 	/**
-	 * Helper method to decompose the time string into its parts.
+	 * Helper method to decompose the time string into its parts. Strings of
+	 * the usual form "+YYYY-MM-DDThh:mm:ssZ", with any number of digits for
+	 * the year, are scanned directly; other strings are split with a regular
+	 * expression.
 	 */
 	private void decomposeTimeString() {
-		// decompose the time string into its parts
+		if (!scanTimeString()) {
+			splitTimeString();
+		}
+	}
+
+	/**
+	 * Decomposes time strings of the usual form without creating any
+	 * objects.
+	 *
+	 * @return true if the string had the usual form and has been decomposed
+	 */
+	private boolean scanTimeString() {
+		String string = this.time;
+		int length = string.length();
+		// the year needs at least one digit
+		if (length < 17) {
+			return false;
+		}
+		int position = 0;
+		boolean negative = false;
+		char first = string.charAt(0);
+		if (first == '+' || first == '-') {
+			negative = (first == '-');
+			position++;
+		}
+		int yearEnd = length - 16;
+		if (yearEnd - position > 18 || yearEnd <= position) {
+			return false;
+		}
+		long year = 0;
+		for (; position < yearEnd; position++) {
+			int digit = string.charAt(position) - '0';
+			if (digit < 0 || digit > 9) {
+				return false;
+			}
+			year = 10 * year + digit;
+		}
+		if (string.charAt(yearEnd) != '-'
+				|| string.charAt(yearEnd + 3) != '-'
+				|| string.charAt(yearEnd + 6) != 'T'
+				|| string.charAt(yearEnd + 9) != ':'
+				|| string.charAt(yearEnd + 12) != ':'
+				|| string.charAt(length - 1) != 'Z') {
+			return false;
+		}
+		int month = scanTwoDigits(string, yearEnd + 1);
+		int day = scanTwoDigits(string, yearEnd + 4);
+		int hour = scanTwoDigits(string, yearEnd + 7);
+		int minute = scanTwoDigits(string, yearEnd + 10);
+		int second = scanTwoDigits(string, yearEnd + 13);
+		if (month < 0 || day < 0 || hour < 0 || minute < 0 || second < 0) {
+			return false;
+		}
+
+		this.year = negative ? -year : year;
+		this.month = (byte) month;
+		this.day = (byte) day;
+		this.hour = (byte) hour;
+		this.minute = (byte) minute;
+		this.second = (byte) second;
+		return true;
+	}
+
+	/**
+	 * Returns the number given by the two digits at the given position, or -1
+	 * if there are no digits.
+	 */
+	private static int scanTwoDigits(String string, int position) {
+		int high = string.charAt(position) - '0';
+		int low = string.charAt(position + 1) - '0';
+		if (high < 0 || high > 9 || low < 0 || low > 9) {
+			return -1;
+		}
+		return 10 * high + low;
+	}
+
+	/**
+	 * Decomposes time strings of any form by splitting them.
+	 */
+	private void splitTimeString() {
 		String[] substrings = time.split("(?<!\\A)[\\-:TZ]");
 
 		// get the components of the date
@@ -165,9 +250,34 @@ public class JacksonInnerTime {
 	 * Helper method to compose the time string from its components.
 	 */
 	private String composeTimeString() {
-		return String.format("%+04d-%02d-%02dT%02d:%02d:%02dZ",
-				this.year, this.month, this.day, this.hour, this.minute,
-				this.second);
+		StringBuilder builder = new StringBuilder(24);
+		String yearDigits = Long.toString(this.year);
+		if (this.year < 0) {
+			builder.append(yearDigits, 0, 1);
+			yearDigits = yearDigits.substring(1);
+		} else {
+			builder.append('+');
+		}
+		for (int i = yearDigits.length(); i < 3; i++) {
+			builder.append('0');
+		}
+		builder.append(yearDigits);
+		appendTwoDigits(builder.append('-'), this.month);
+		appendTwoDigits(builder.append('-'), this.day);
+		appendTwoDigits(builder.append('T'), this.hour);
+		appendTwoDigits(builder.append(':'), this.minute);
+		appendTwoDigits(builder.append(':'), this.second);
+		return builder.append('Z').toString();
+	}
+
+	/**
+	 * Appends a number with at least two digits, like the format "%02d".
+	 */
+	private static void appendTwoDigits(StringBuilder builder, byte number) {
+		if (number >= 0 && number < 10) {
+			builder.append('0');
+		}
+		builder.append(number);
 	}
 
 	/**
@@ -177,6 +287,9 @@ public class JacksonInnerTime {
 	 * @return the time string
 	 */
 	public String getTime() {
+		if (this.time == null) {
+			this.time = composeTimeString();
+		}
 		return this.time;
 	}
 
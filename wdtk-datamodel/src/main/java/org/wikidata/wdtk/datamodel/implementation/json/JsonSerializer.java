@@ -26,6 +26,7 @@ import java.io.OutputStream;
 import org.apache.commons.compress.utils.Charsets;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.wikidata.wdtk.datamodel.implementation.JsonEntityDocumentWriter;
 import org.wikidata.wdtk.datamodel.interfaces.EntityDocument;
 import org.wikidata.wdtk.datamodel.interfaces.EntityDocumentDumpProcessor;
 import org.wikidata.wdtk.datamodel.interfaces.ItemDocument;
@@ -44,8 +45,10 @@ import com.fasterxml.jackson.databind.ObjectMapper;
  * the first document is serialized. It is the responsibility of the caller to
  * do this.
  * <p>
- * Implementations of the data model are expected to be appropriately serializable
- * to JSON with Jackson.
+ * Entity documents are written with a {@link JsonEntityDocumentWriter}, which
+ * produces the same JSON as Jackson but works for all implementations of the
+ * data model interfaces. Other objects, such as statements, are expected to be
+ * appropriately serializable to JSON with Jackson.
  *
  * @author Markus Kroetzsch
  *
@@ -71,6 +74,12 @@ public class JsonSerializer implements EntityDocumentDumpProcessor {
 		mapper.configure(JsonGenerator.Feature.AUTO_CLOSE_TARGET, false);
 	}
 
+	/**
+	 * Writer that is used to serialize entity documents.
+	 */
+	protected static final JsonEntityDocumentWriter documentWriter = new JsonEntityDocumentWriter(
+			mapper.getFactory());
+
 	/**
 	 * Counter for the number of documents serialized so far.
 	 */
@@ -153,7 +162,7 @@ public class JsonSerializer implements EntityDocumentDumpProcessor {
 			if (this.entityDocumentCount > 0) {
 				this.outputStream.write(JSON_SEP);
 			}
-			mapper.writeValue(this.outputStream, entityDocument);
+			documentWriter.write(entityDocument, this.outputStream);
 		} catch (IOException e) {
 			reportException(e);
 		}
@@ -169,7 +178,7 @@ public class JsonSerializer implements EntityDocumentDumpProcessor {
 	 * @return JSON serialization or null
 	 */
 	public static String getJsonString(ItemDocument itemDocument) {
-		return jacksonObjectToString(itemDocument);
+		return entityDocumentToString(itemDocument);
 	}
 
 	/**
@@ -181,7 +190,7 @@ public class JsonSerializer implements EntityDocumentDumpProcessor {
 	 * @return JSON serialization or null
 	 */
 	public static String getJsonString(PropertyDocument propertyDocument) {
-		return jacksonObjectToString(propertyDocument);
+		return entityDocumentToString(propertyDocument);
 	}
 
 	/**
@@ -196,6 +205,24 @@ public class JsonSerializer implements EntityDocumentDumpProcessor {
 		return jacksonObjectToString(statement);
 	}
 
+	/**
+	 * Serializes the given entity document in JSON and returns the resulting
+	 * string. In case of errors, null is returned and an error is logged.
+	 *
+	 * @param entityDocument
+	 *            document to serialize
+	 * @return JSON serialization or null
+	 */
+	protected static String entityDocumentToString(
+			EntityDocument entityDocument) {
+		try {
+			return documentWriter.writeToString(entityDocument);
+		} catch (IOException e) {
+			logger.error("Failed to serialize JSON data: " + e.toString());
+			return null;
+		}
+	}
+
 	/**
 	 * Serializes the given object in JSON and returns the resulting string. In
 	 * case of errors, null is returned. In particular, this happens if the
@@ -26,9 +26,11 @@ import org.wikidata.wdtk.datamodel.implementation.DataObjectFactoryImpl;
 /**
  * Implementation of {@link EntityDocumentProcessor} that acts as a filter,
  * removing some of the data from {@link EntityDocument} objects before passing
- * them on to another processor. There is an overhead involved in using this,
- * even if no filters are set, since a deep copy of the data is created to
- * filter it.
+ * them on to another processor. Documents are copied with structural
+ * sharing: documents that the filter does not change are passed on as they
+ * are, and other documents are rebuilt from the original statement groups,
+ * terms and site links that pass the filter, so that the overhead is
+ * proportional to the data that is removed.
  *
  *
  * @author Markus Kroetzsch
@@ -52,6 +54,7 @@ public class EntityDocumentProcessorFilter implements EntityDocumentProcessor {
 			DocumentDataFilter filter) {
 		this.converter = new DatamodelConverter(new DataObjectFactoryImpl());
 		this.converter.setOptionFilter(filter);
+		this.converter.setOptionStructuralSharing(true);
 		this.entityDocumentProcessor = entityDocumentProcessor;
 	}
 
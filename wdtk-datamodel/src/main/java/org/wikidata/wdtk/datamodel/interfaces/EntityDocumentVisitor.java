@@ -0,0 +1,170 @@
+package org.wikidata.wdtk.datamodel.interfaces;
+
+/*
+ * #%L
+ * Wikidata Toolkit Data Model
+ * %%
+ * Copyright (C) 2014 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+/**
+ * A visitor for the parts of an entity document, which is called by
+ * {@link org.wikidata.wdtk.datamodel.implementation.EntityDocumentWalker}
+ * for each term, site link, statement, qualifier and reference snak of a
+ * document. Unlike iterating over the collections of a document, this does
+ * not create any iterators or wrapper objects for each element. Information
+ * about the position of the current element in the document is provided by a
+ * {@link Context} object, which is reused for all calls and must not be
+ * stored by the visitor.
+ * <p>
+ * All methods do nothing by default, so that visitors only need to implement
+ * the callbacks they are interested in.
+ */
+public interface EntityDocumentVisitor {
+
+	/**
+	 * The kinds of terms of a document.
+	 */
+	enum TermKind {
+		LABEL, DESCRIPTION, ALIAS
+	}
+
+	/**
+	 * Position of the current element in the document that is visited. The
+	 * values change during traversal and are only valid for the duration of a
+	 * callback.
+	 */
+	interface Context {
+
+		/**
+		 * Returns the document that is visited.
+		 *
+		 * @return the document
+		 */
+		EntityDocument getDocument();
+
+		/**
+		 * Returns the kind of the current term, or null if no term is visited.
+		 *
+		 * @return kind of the current term
+		 */
+		TermKind getTermKind();
+
+		/**
+		 * Returns the current statement, or null if no statement is visited.
+		 * This is also set while visiting the qualifiers and references of the
+		 * statement.
+		 *
+		 * @return the current statement
+		 */
+		Statement getStatement();
+
+		/**
+		 * Returns the position of the current statement among all statements
+		 * of the document, or -1 if no statement is visited.
+		 *
+		 * @return index of the current statement
+		 */
+		int getStatementIndex();
+
+		/**
+		 * Returns the current reference, or null if no reference is visited.
+		 *
+		 * @return the current reference
+		 */
+		Reference getReference();
+
+		/**
+		 * Returns the position of the current reference in the list of
+		 * references of the current statement, or -1 if no reference is
+		 * visited.
+		 *
+		 * @return index of the current reference
+		 */
+		int getReferenceIndex();
+
+		/**
+		 * Returns the position of the current qualifier or reference snak
+		 * among the snaks with the same property, or -1 if no snak is visited.
+		 * A value of 0 marks the first snak of a snak group.
+		 *
+		 * @return index of the current snak in its group
+		 */
+		int getSnakIndex();
+	}
+
+	/**
+	 * Visits a label, description or alias of the document. The kind of term
+	 * is given by {@link Context#getTermKind()}.
+	 *
+	 * @param term
+	 *            the term to visit
+	 * @param context
+	 *            the position of the term
+	 */
+	default void onTerm(MonolingualTextValue term, Context context) {
+	}
+
+	/**
+	 * Visits a site link of an item document.
+	 *
+	 * @param siteLink
+	 *            the site link to visit
+	 * @param context
+	 *            the position of the site link
+	 */
+	default void onSiteLink(SiteLink siteLink, Context context) {
+	}
+
+	/**
+	 * Visits a statement of the document. Statements are visited grouped by
+	 * their main property, as in {@link StatementDocument#getStatementGroups()}
+	 * .
+	 *
+	 * @param statement
+	 *            the statement to visit
+	 * @param context
+	 *            the position of the statement
+	 * @return true if the qualifiers and references of the statement should be
+	 *         visited, too
+	 */
+	default boolean onStatement(Statement statement, Context context) {
+		return true;
+	}
+
+	/**
+	 * Visits a qualifier of the current statement.
+	 *
+	 * @param qualifier
+	 *            the qualifier to visit
+	 * @param context
+	 *            the position of the qualifier
+	 */
+	default void onQualifier(Snak qualifier, Context context) {
+	}
+
+	/**
+	 * Visits a snak of the current reference.
+	 *
+	 * @param snak
+	 *            the snak to visit
+	 * @param context
+	 *            the position of the snak
+	 */
+	default void onReferenceSnak(Snak snak, Context context) {
+	}
+
+}
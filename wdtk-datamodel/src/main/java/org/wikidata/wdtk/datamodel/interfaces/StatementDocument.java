@@ -94,6 +94,39 @@ public interface StatementDocument extends EntityDocument {
 		return null;
 	}
 
+	/**
+	 * Returns the statements for the given property that have the best
+	 * non-deprecated rank, i.e., the preferred statements if there are any, and
+	 * the normal statements otherwise. This is a convenience method for
+	 * accessing the data that can be obtained via {@link #getStatementGroups()}.
+	 *
+	 * @param propertyIdValue
+	 *            the property to search for
+	 * @return list of statements, empty if there are no such statements
+	 */
+	default List<Statement> findBestStatements(PropertyIdValue propertyIdValue) {
+		StatementGroup statementGroup = findStatementGroup(propertyIdValue);
+		return (statementGroup != null) ? statementGroup.getBestStatements() : Collections.emptyList();
+	}
+
+	/**
+	 * Returns the statements for the given property that have the best
+	 * non-deprecated rank. Only the string id of the property is compared, not
+	 * the site id. This is useful in situations where all data is known to
+	 * come from a single site.
+	 * <p>
+	 * This is a convenience method for accessing the data that can be obtained
+	 * via {@link #getStatementGroups()}.
+	 *
+	 * @param propertyId
+	 *            the property to search for
+	 * @return list of statements, empty if there are no such statements
+	 */
+	default List<Statement> findBestStatements(String propertyId) {
+		StatementGroup statementGroup = findStatementGroup(propertyId);
+		return (statementGroup != null) ? statementGroup.getBestStatements() : Collections.emptyList();
+	}
+
 	/**
 	 * Returns true if there is a statement for the given property. This is a
 	 * convenience method for accessing the data that can be obtained via
@@ -20,6 +20,7 @@ package org.wikidata.wdtk.datamodel.interfaces;
  * #L%
  */
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 
@@ -55,4 +56,52 @@ public interface StatementGroup extends Collection<Statement> {
 	 * @return an EntityIdValue
 	 */
 	EntityIdValue getSubject();
+
+	/**
+	 * Returns the highest rank of the statements in this group. Deprecated
+	 * statements are never considered best, so the result is null if all
+	 * statements are deprecated. The ranks are compared in a single pass
+	 * that stops at the first preferred statement.
+	 *
+	 * @return {@link StatementRank#PREFERRED}, {@link StatementRank#NORMAL},
+	 *         or null
+	 */
+	default StatementRank getBestRank() {
+		StatementRank result = null;
+		for (Statement statement : getStatements()) {
+			switch (statement.getRank()) {
+			case PREFERRED:
+				return StatementRank.PREFERRED;
+			case NORMAL:
+				result = StatementRank.NORMAL;
+				break;
+			default:
+				break;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the statements of this group that have the best non-deprecated
+	 * rank, as determined by {@link #getBestRank()}. The order of statements
+	 * is preserved. If all statements of the group have the best rank,
+	 * implementations may return the list of all statements without copying
+	 * it.
+	 *
+	 * @return a list of statements, empty if all statements are deprecated
+	 */
+	default List<Statement> getBestStatements() {
+		StatementRank bestRank = getBestRank();
+		List<Statement> statements = getStatements();
+		List<Statement> result = new ArrayList<>(statements.size());
+		if (bestRank != null) {
+			for (Statement statement : statements) {
+				if (statement.getRank() == bestRank) {
+					result.add(statement);
+				}
+			}
+		}
+		return result;
+	}
 }
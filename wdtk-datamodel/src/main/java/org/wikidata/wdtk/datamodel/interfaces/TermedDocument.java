@@ -20,6 +20,7 @@ package org.wikidata.wdtk.datamodel.interfaces;
  * #L%
  */
 
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 
@@ -80,4 +81,18 @@ public interface TermedDocument extends EntityDocument {
 		return (value != null) ? value.getText() : null;
 	}
 
+	/**
+	 * Returns the aliases for the given language code, or an empty list if
+	 * there are no aliases for this code. This is a convenience method for
+	 * accessing the data that can be obtained via {@link #getAliases()}.
+	 *
+	 * @param languageCode
+	 *            a string that represents language
+	 * @return the list of aliases, which must not be modified
+	 */
+	default List<MonolingualTextValue> findAliases(String languageCode) {
+		List<MonolingualTextValue> aliases = this.getAliases().get(languageCode);
+		return (aliases != null) ? aliases : Collections.emptyList();
+	}
+
 }
@@ -22,6 +22,8 @@ package org.wikidata.wdtk.datamodel.helpers;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 
 import java.util.ArrayList;
 import java.util.Collections;
@@ -94,6 +96,10 @@ public class FilterCopyTest {
 		datamodelConverter.setOptionDeepCopy(false);
 		assertEquals(itemDocumentFiltered,
 				datamodelConverter.copy(itemDocument));
+
+		datamodelConverter.setOptionStructuralSharing(true);
+		assertEquals(itemDocumentFiltered,
+				datamodelConverter.copy(itemDocument));
 	}
 
 	@Test
@@ -151,6 +157,10 @@ public class FilterCopyTest {
 		datamodelConverter.setOptionDeepCopy(false);
 		assertEquals(itemDocumentFiltered,
 				datamodelConverter.copy(itemDocument));
+
+		datamodelConverter.setOptionStructuralSharing(true);
+		assertEquals(itemDocumentFiltered,
+				datamodelConverter.copy(itemDocument));
 	}
 
 	/**
@@ -221,6 +231,42 @@ public class FilterCopyTest {
 		datamodelConverter.setOptionDeepCopy(false);
 		assertEquals(itemDocumentFiltered,
 				datamodelConverter.copy(itemDocument));
+
+		datamodelConverter.setOptionStructuralSharing(true);
+		assertEquals(itemDocumentFiltered,
+				datamodelConverter.copy(itemDocument));
+	}
+
+	@Test
+	public void testStructuralSharing() {
+		PropertyIdValue p1 = Datamodel.makeWikidataPropertyIdValue("P1");
+		PropertyIdValue p2 = Datamodel.makeWikidataPropertyIdValue("P2");
+
+		DatamodelConverter datamodelConverter = new DatamodelConverter(
+				new DataObjectFactoryImpl());
+		datamodelConverter.setOptionStructuralSharing(true);
+		datamodelConverter.setOptionLanguageFilter(Collections.singleton("en"));
+
+		StatementGroup statementGroup1 = makeTestStatementGroup(p1);
+		List<StatementGroup> statementGroups = new ArrayList<>();
+		statementGroups.add(statementGroup1);
+		statementGroups.add(makeTestStatementGroup(p2));
+		ItemDocument itemDocument = Datamodel.makeItemDocument(
+				Datamodel.makeWikidataItemIdValue("Q42"),
+				Collections.singletonList(Datamodel.makeMonolingualTextValue("Label en", "en")),
+				Collections.emptyList(),
+				Collections.emptyList(),
+				statementGroups, Collections.emptyMap());
+
+		assertTrue(datamodelConverter.hasOptionStructuralSharing());
+		assertSame(itemDocument, datamodelConverter.copy(itemDocument));
+
+		datamodelConverter.setOptionPropertyFilter(Collections.singleton(p1));
+		ItemDocument copy = datamodelConverter.copy(itemDocument);
+		assertEquals(1, copy.getStatementGroups().size());
+		assertSame(statementGroup1.getStatements(),
+				copy.getStatementGroups().get(0).getStatements());
+		assertSame(itemDocument.getLabels().get("en"), copy.getLabels().get("en"));
 	}
 
 	@Test
@@ -256,6 +302,10 @@ public class FilterCopyTest {
 		datamodelConverter.setOptionDeepCopy(false);
 		assertEquals(itemDocumentFiltered,
 				datamodelConverter.copy(itemDocument));
+
+		datamodelConverter.setOptionStructuralSharing(true);
+		assertEquals(itemDocumentFiltered,
+				datamodelConverter.copy(itemDocument));
 	}
 
 	@Test
@@ -309,6 +359,10 @@ public class FilterCopyTest {
 		datamodelConverter.setOptionDeepCopy(false);
 		assertEquals(itemDocumentFiltered,
 				datamodelConverter.copy(itemDocument));
+
+		datamodelConverter.setOptionStructuralSharing(true);
+		assertEquals(itemDocumentFiltered,
+				datamodelConverter.copy(itemDocument));
 	}
 
 	@Test
@@ -348,6 +402,10 @@ public class FilterCopyTest {
 		datamodelConverter.setOptionDeepCopy(false);
 		assertEquals(itemDocumentFiltered,
 				datamodelConverter.copy(itemDocument));
+
+		datamodelConverter.setOptionStructuralSharing(true);
+		assertEquals(itemDocumentFiltered,
+				datamodelConverter.copy(itemDocument));
 	}
 
 	@Test
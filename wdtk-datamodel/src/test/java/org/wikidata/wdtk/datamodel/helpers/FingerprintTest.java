@@ -0,0 +1,120 @@
+package org.wikidata.wdtk.datamodel.helpers;
+
+/*
+ * #%L
+ * Wikidata Toolkit Data Model
+ * %%
+ * Copyright (C) 2014 - 2015 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Test;
+import org.wikidata.wdtk.datamodel.implementation.ItemDocumentImpl;
+import org.wikidata.wdtk.datamodel.interfaces.ItemDocument;
+import org.wikidata.wdtk.datamodel.interfaces.ItemIdValue;
+import org.wikidata.wdtk.datamodel.interfaces.PropertyIdValue;
+import org.wikidata.wdtk.datamodel.interfaces.Reference;
+import org.wikidata.wdtk.datamodel.interfaces.Statement;
+import org.wikidata.wdtk.datamodel.interfaces.StatementRank;
+
+public class FingerprintTest {
+
+	final ItemIdValue q42 = Datamodel.makeWikidataItemIdValue("Q42");
+	final PropertyIdValue p31 = Datamodel.makeWikidataPropertyIdValue("P31");
+	final PropertyIdValue p580 = Datamodel.makeWikidataPropertyIdValue("P580");
+
+	Statement makeStatement(StatementRank rank) {
+		Reference reference = ReferenceBuilder.newInstance()
+				.withPropertyValue(p31, Datamodel.makeStringValue("source"))
+				.build();
+		return StatementBuilder.forSubjectAndProperty(q42, p31)
+				.withValue(Datamodel.makeWikidataItemIdValue("Q5"))
+				.withQualifierValue(p580, Datamodel.makeQuantityValue(
+						new BigDecimal("1.5"), "1"))
+				.withReference(reference).withRank(rank).withId("Q42$1")
+				.build();
+	}
+
+	@Test
+	public void testStringFingerprintIsStable() {
+		// fixed values, so that changes of fingerprints are noticed
+		assertEquals(0xEC56AC5DDF8B1126L, Fingerprint.fingerprint("abc"));
+		assertEquals(0x48C8F28B59FC0F0AL,
+				Fingerprint.fingerprint(Datamodel.makeStringValue("abc")));
+	}
+
+	@Test
+	public void testEqualObjectsHaveEqualFingerprints() {
+		assertEquals(Fingerprint.fingerprint(makeStatement(StatementRank.NORMAL)),
+				Fingerprint.fingerprint(makeStatement(StatementRank.NORMAL)));
+		assertEquals(Fingerprint.fingerprint(makeStatement(StatementRank.NORMAL).getReferences().get(0)),
+				Fingerprint.fingerprint(makeStatement(StatementRank.NORMAL).getReferences().get(0)));
+	}
+
+	@Test
+	public void testDifferentObjectsHaveDifferentFingerprints() {
+		Set<Long> fingerprints = new HashSet<>();
+		fingerprints.add(Fingerprint.fingerprint(makeStatement(StatementRank.NORMAL)));
+		fingerprints.add(Fingerprint.fingerprint(makeStatement(StatementRank.PREFERRED)));
+		fingerprints.add(Fingerprint.fingerprint(makeStatement(StatementRank.NORMAL).getClaim()));
+		fingerprints.add(Fingerprint.fingerprint(Datamodel.makeStringValue("Q5")));
+		fingerprints.add(Fingerprint.fingerprint(Datamodel.makeMonolingualTextValue("Q5", "")));
+		fingerprints.add(Fingerprint.fingerprint(Datamodel.makeWikidataItemIdValue("Q5")));
+		fingerprints.add(Fingerprint.fingerprint(Datamodel.makeQuantityValue(new BigDecimal("1.0"))));
+		fingerprints.add(Fingerprint.fingerprint(Datamodel.makeQuantityValue(new BigDecimal("1.00"))));
+		fingerprints.add(Fingerprint.fingerprint(Datamodel.makeSomeValueSnak(p31)));
+		fingerprints.add(Fingerprint.fingerprint(Datamodel.makeNoValueSnak(p31)));
+		assertEquals(10, fingerprints.size());
+	}
+
+	@Test
+	public void testDocumentFingerprintIgnoresMapOrder() throws IOException {
+		DatamodelMapper mapper = new DatamodelMapper(Datamodel.SITE_WIKIDATA);
+		String json1 = "{\"type\":\"item\",\"id\":\"Q42\","
+				+ "\"labels\":{\"en\":{\"language\":\"en\",\"value\":\"Douglas Adams\"},\"de\":{\"language\":\"de\",\"value\":\"Douglas Adams\"}},"
+				+ "\"claims\":{\"P31\":[{\"type\":\"statement\",\"id\":\"Q42$1\",\"rank\":\"normal\",\"mainsnak\":{\"snaktype\":\"somevalue\",\"property\":\"P31\"}}],"
+				+ "\"P21\":[{\"type\":\"statement\",\"id\":\"Q42$2\",\"rank\":\"normal\",\"mainsnak\":{\"snaktype\":\"novalue\",\"property\":\"P21\"}}]}}";
+		String json2 = "{\"type\":\"item\",\"id\":\"Q42\","
+				+ "\"claims\":{\"P21\":[{\"type\":\"statement\",\"id\":\"Q42$2\",\"rank\":\"normal\",\"mainsnak\":{\"snaktype\":\"novalue\",\"property\":\"P21\"}}],"
+				+ "\"P31\":[{\"type\":\"statement\",\"id\":\"Q42$1\",\"rank\":\"normal\",\"mainsnak\":{\"snaktype\":\"somevalue\",\"property\":\"P31\"}}]},"
+				+ "\"labels\":{\"de\":{\"language\":\"de\",\"value\":\"Douglas Adams\"},\"en\":{\"language\":\"en\",\"value\":\"Douglas Adams\"}}}";
+		ItemDocument document1 = mapper.readValue(json1, ItemDocumentImpl.class);
+		ItemDocument document2 = mapper.readValue(json2, ItemDocumentImpl.class);
+
+		assertEquals(Fingerprint.fingerprint(document1), Fingerprint.fingerprint(document2));
+		assertNotEquals(Fingerprint.fingerprint(document1),
+				Fingerprint.fingerprint(ItemDocumentBuilder.fromItemDocument(document1)
+						.withRevisionId(1234).build()));
+	}
+
+	@Test
+	public void testCachedHashCode() {
+		Statement statement = makeStatement(StatementRank.NORMAL);
+		int hashCode = statement.hashCode();
+		assertEquals(Hash.hashCode(statement), hashCode);
+		assertEquals(hashCode, statement.hashCode());
+		assertEquals(hashCode, makeStatement(StatementRank.NORMAL).hashCode());
+	}
+
+}
@@ -0,0 +1,155 @@
+package org.wikidata.wdtk.datamodel.implementation;
+
+/*
+ * #%L
+ * Wikidata Toolkit Data Model
+ * %%
+ * Copyright (C) 2014 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import static org.junit.Assert.*;
+import static org.wikidata.wdtk.datamodel.implementation.TestDocuments.*;
+
+import java.io.IOException;
+import java.util.Collections;
+
+import org.junit.Test;
+import org.wikidata.wdtk.datamodel.helpers.Datamodel;
+import org.wikidata.wdtk.datamodel.helpers.DatamodelConverter;
+import org.wikidata.wdtk.datamodel.helpers.DatamodelMapper;
+import org.wikidata.wdtk.datamodel.helpers.ItemDocumentBuilder;
+import org.wikidata.wdtk.datamodel.helpers.StatementBuilder;
+import org.wikidata.wdtk.datamodel.interfaces.*;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class CompactItemDocumentTest {
+
+	private final ObjectMapper mapper = new DatamodelMapper(Datamodel.SITE_WIKIDATA);
+
+	private final String JSON_ITEM = "{\"type\":\"item\",\"id\":\"Q42\","
+			+ "\"labels\":{\"en\":{\"language\":\"en\",\"value\":\"Douglas Adams\"}},"
+			+ "\"descriptions\":{},\"aliases\":{},\"sitelinks\":{},"
+			+ "\"claims\":{\"P31\":[{\"rank\":\"normal\",\"id\":\"Q42$F078E5B3-F9A8-480E-B7AC-D97778CBBEF9\","
+			+ "\"mainsnak\":{\"property\":\"P31\",\"snaktype\":\"value\",\"datatype\":\"wikibase-item\","
+			+ "\"datavalue\":{\"type\":\"wikibase-entityid\",\"value\":{\"entity-type\":\"item\",\"numeric-id\":5}}},"
+			+ "\"type\":\"statement\"}]},\"lastrevid\":1234}";
+
+	@Test
+	public void equalToOriginal() {
+		ItemDocument document = makeItemDocument();
+		CompactItemDocument compact = new CompactItemDocument(document, new CompactDictionary());
+
+		assertEquals(document, compact);
+		assertEquals(compact, document);
+		assertEquals(document.hashCode(), compact.hashCode());
+		assertEquals(document.toString(), compact.toString());
+		assertEquals(Q42, compact.getItemId());
+		assertEquals(1234, compact.getRevisionId());
+	}
+
+	@Test
+	public void findStatements() {
+		ItemDocument document = makeItemDocument();
+		CompactItemDocument compact = new CompactItemDocument(document, new CompactDictionary());
+
+		assertEquals(document.findStatementGroup("P1"), compact.findStatementGroup("P1"));
+		assertEquals(document.findStatementGroup(P2), compact.findStatementGroup(P2));
+		assertNull(compact.findStatementGroup("P3"));
+		assertNull(compact.findStatementGroup(Datamodel.makePropertyIdValue("P1", "http://example.org/")));
+		assertTrue(compact.hasStatement("P1"));
+		assertTrue(compact.hasStatement(P2));
+		assertFalse(compact.hasStatement("P3"));
+		assertTrue(compact.hasStatementValue("P1", Datamodel.makeWikidataItemIdValue("Q5")));
+		assertEquals("writer", compact.findDescription("en"));
+		assertEquals(2, compact.findAliases("en").size());
+	}
+
+	@Test
+	public void keepsJsonDatatype() throws IOException {
+		ItemDocument document = mapper.readValue(JSON_ITEM, ItemDocumentImpl.class);
+		CompactItemDocument compact = new CompactItemDocument(document, new CompactDictionary());
+
+		assertEquals(document, compact);
+		Statement statement = compact.findStatement("P31");
+		assertEquals("Q42$F078E5B3-F9A8-480E-B7AC-D97778CBBEF9", statement.getStatementId());
+		assertEquals("wikibase-item", ((ValueSnakImpl) statement.getMainSnak()).getDatatype());
+	}
+
+	@Test
+	public void convertWithFactory() {
+		ItemDocument document = makeItemDocument();
+		CompactDataObjectFactory factory = new CompactDataObjectFactory();
+		DatamodelConverter converter = new DatamodelConverter(factory);
+		converter.setOptionDeepCopy(false);
+
+		ItemDocument compact = converter.copy(document);
+		assertTrue(compact instanceof CompactItemDocument);
+		assertEquals(document, compact);
+
+		int dictionarySize = factory.getDictionary().size();
+		converter.copy(document);
+		assertEquals(dictionarySize, factory.getDictionary().size());
+
+		ItemDocument copy = new DatamodelConverter(new DataObjectFactoryImpl()).copy(compact);
+		assertTrue(copy instanceof ItemDocumentImpl);
+		assertEquals(document, copy);
+	}
+
+	@Test
+	public void emptyDocument() {
+		ItemDocument document = ItemDocumentBuilder.forItemId(Q42).build();
+		CompactItemDocument compact = new CompactItemDocument(document, new CompactDictionary());
+
+		assertEquals(document, compact);
+		assertTrue(compact.getStatementGroups().isEmpty());
+		assertTrue(compact.getSiteLinks().isEmpty());
+		assertNull(compact.findStatementGroup("P1"));
+	}
+
+	@Test
+	public void estimateMemoryFootprint() {
+		CompactDictionary dictionary = new CompactDictionary();
+		CompactItemDocument empty = new CompactItemDocument(
+				ItemDocumentBuilder.forItemId(Q42).build(), dictionary);
+		CompactItemDocument compact = new CompactItemDocument(makeItemDocument(), dictionary);
+
+		assertTrue(empty.estimateMemoryFootprint() > 0);
+		assertTrue(compact.estimateMemoryFootprint() > empty.estimateMemoryFootprint());
+		assertTrue(dictionary.estimateMemoryFootprint() > 0);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void statementGroupsUseSameSubject() {
+		ItemIdValue q43 = Datamodel.makeWikidataItemIdValue("Q43");
+		new CompactItemDocument(Q42, null, null, null,
+				Collections.singletonList(Datamodel.makeStatementGroup(Collections.singletonList(
+						StatementBuilder.forSubjectAndProperty(q43, P1).build()))),
+				null, 0, new CompactDictionary());
+	}
+
+	@Test
+	public void dictionaryCodes() {
+		CompactDictionary dictionary = new CompactDictionary();
+		for (int i = 0; i < 100; i++) {
+			assertEquals(i, dictionary.getCode("P" + i));
+		}
+		assertEquals(5, dictionary.getCode("P5"));
+		assertEquals(P1, dictionary.getObject(dictionary.getCode(P1)));
+		assertEquals("P99", dictionary.getString(99));
+		assertEquals(101, dictionary.size());
+	}
+}
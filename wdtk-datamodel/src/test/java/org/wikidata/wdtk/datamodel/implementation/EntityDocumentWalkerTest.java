@@ -0,0 +1,231 @@
+package org.wikidata.wdtk.datamodel.implementation;
+
+/*
+ * #%L
+ * Wikidata Toolkit Data Model
+ * %%
+ * Copyright (C) 2014 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+import static org.junit.Assert.*;
+import static org.wikidata.wdtk.datamodel.implementation.TestDocuments.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+import org.wikidata.wdtk.datamodel.helpers.Datamodel;
+import org.wikidata.wdtk.datamodel.helpers.ItemDocumentBuilder;
+import org.wikidata.wdtk.datamodel.helpers.PropertyDocumentBuilder;
+import org.wikidata.wdtk.datamodel.helpers.ReferenceBuilder;
+import org.wikidata.wdtk.datamodel.helpers.StatementBuilder;
+import org.wikidata.wdtk.datamodel.interfaces.*;
+
+public class EntityDocumentWalkerTest {
+
+	/**
+	 * Records all callbacks as strings.
+	 */
+	private static class RecordingVisitor implements EntityDocumentVisitor {
+
+		final List<String> events = new ArrayList<>();
+		boolean visitStatementDetails = true;
+
+		@Override
+		public void onTerm(MonolingualTextValue term, Context context) {
+			events.add(context.getTermKind() + " " + term);
+		}
+
+		@Override
+		public void onSiteLink(SiteLink siteLink, Context context) {
+			events.add("sitelink " + siteLink);
+		}
+
+		@Override
+		public boolean onStatement(Statement statement, Context context) {
+			events.add("statement " + context.getStatementIndex() + " "
+					+ statement.getStatementId());
+			assertSame(statement, context.getStatement());
+			return visitStatementDetails;
+		}
+
+		@Override
+		public void onQualifier(Snak qualifier, Context context) {
+			events.add("qualifier " + context.getSnakIndex() + " " + qualifier);
+			assertTrue(context.getStatement().getQualifiers().size() > 0);
+		}
+
+		@Override
+		public void onReferenceSnak(Snak snak, Context context) {
+			events.add("reference " + context.getReferenceIndex() + " "
+					+ context.getSnakIndex() + " " + snak);
+			assertSame(context.getStatement().getReferences()
+					.get(context.getReferenceIndex()), context.getReference());
+		}
+	}
+
+	/**
+	 * Returns an item with several qualifiers and references per statement,
+	 * so that the indexes in the context of the visitor can be checked.
+	 */
+	private ItemDocument makeItemDocument() {
+		return ItemDocumentBuilder.forItemId(Q42)
+				.withLabel("Douglas Adams", "en")
+				.withDescription("writer", "en")
+				.withAlias("DNA", "en")
+				.withAlias("Douglas Noël Adams", "en")
+				.withSiteLink("Douglas Adams", "enwiki")
+				.withStatement(StatementBuilder.forSubjectAndProperty(Q42, P1)
+						.withId("S1")
+						.withValue(Datamodel.makeWikidataItemIdValue("Q5"))
+						.withQualifierValue(P2, Datamodel.makeStringValue("a"))
+						.withQualifierValue(P2, Datamodel.makeStringValue("b"))
+						.withQualifierNoValue(P3)
+						.withReference(ReferenceBuilder.newInstance()
+								.withPropertyValue(P2, Datamodel.makeStringValue("source"))
+								.build())
+						.withReference(ReferenceBuilder.newInstance()
+								.withPropertyValue(P3, Datamodel.makeStringValue("c"))
+								.withPropertyValue(P3, Datamodel.makeStringValue("d"))
+								.build())
+						.build())
+				.withStatement(StatementBuilder.forSubjectAndProperty(Q42, P1)
+						.withId("S2")
+						.withSomeValue()
+						.build())
+				.withStatement(StatementBuilder.forSubjectAndProperty(Q42, P2)
+						.withId("S3")
+						.withValue(Datamodel.makeStringValue("value"))
+						.withQualifierValue(P1, Datamodel.makeStringValue("e"))
+						.build())
+				.build();
+	}
+
+	/**
+	 * Returns the events that are expected for the given document, found by
+	 * iterating over its parts.
+	 */
+	private List<String> getExpectedEvents(ItemDocument document,
+			boolean visitStatementDetails) {
+		List<String> events = new ArrayList<>();
+		for (MonolingualTextValue label : document.getLabels().values()) {
+			events.add("LABEL " + label);
+		}
+		for (MonolingualTextValue description : document.getDescriptions().values()) {
+			events.add("DESCRIPTION " + description);
+		}
+		for (List<MonolingualTextValue> aliases : document.getAliases().values()) {
+			for (MonolingualTextValue alias : aliases) {
+				events.add("ALIAS " + alias);
+			}
+		}
+		for (SiteLink siteLink : document.getSiteLinks().values()) {
+			events.add("sitelink " + siteLink);
+		}
+		int statementIndex = 0;
+		for (StatementGroup group : document.getStatementGroups()) {
+			for (Statement statement : group) {
+				events.add("statement " + statementIndex++ + " "
+						+ statement.getStatementId());
+				if (!visitStatementDetails) {
+					continue;
+				}
+				for (SnakGroup qualifiers : statement.getQualifiers()) {
+					for (int i = 0; i < qualifiers.getSnaks().size(); i++) {
+						events.add("qualifier " + i + " " + qualifiers.getSnaks().get(i));
+					}
+				}
+				int referenceIndex = 0;
+				for (Reference reference : statement.getReferences()) {
+					for (SnakGroup snaks : reference.getSnakGroups()) {
+						for (int i = 0; i < snaks.getSnaks().size(); i++) {
+							events.add("reference " + referenceIndex + " " + i
+									+ " " + snaks.getSnaks().get(i));
+						}
+					}
+					referenceIndex++;
+				}
+			}
+		}
+		return events;
+	}
+
+	@Test
+	public void visitsAllParts() {
+		ItemDocument document = makeItemDocument();
+		RecordingVisitor visitor = new RecordingVisitor();
+		new EntityDocumentWalker().walk(document, visitor);
+
+		assertEquals(getExpectedEvents(document, true), visitor.events);
+		assertEquals(15, visitor.events.size());
+	}
+
+	@Test
+	public void visitsOtherImplementations() {
+		ItemDocument document = new CompactItemDocument(makeItemDocument(),
+				new CompactDictionary());
+		RecordingVisitor visitor = new RecordingVisitor();
+		new EntityDocumentWalker().walk(document, visitor);
+
+		assertEquals(getExpectedEvents(document, true), visitor.events);
+	}
+
+	@Test
+	public void skipsStatementDetails() {
+		ItemDocument document = makeItemDocument();
+		RecordingVisitor visitor = new RecordingVisitor();
+		visitor.visitStatementDetails = false;
+		new EntityDocumentWalker().walk(document, visitor);
+
+		assertEquals(getExpectedEvents(document, false), visitor.events);
+	}
+
+	@Test
+	public void reusesWalker() {
+		EntityDocumentWalker walker = new EntityDocumentWalker();
+		ItemDocument document = makeItemDocument();
+		RecordingVisitor visitor = new RecordingVisitor();
+		walker.walk(document, visitor);
+		walker.walk(document, visitor);
+
+		List<String> expected = getExpectedEvents(document, true);
+		expected.addAll(getExpectedEvents(document, true));
+		assertEquals(expected, visitor.events);
+		assertNull(walker.getDocument());
+		assertNull(walker.getStatement());
+		assertEquals(-1, walker.getStatementIndex());
+	}
+
+	@Test
+	public void visitsPropertyDocuments() {
+		PropertyDocument document = PropertyDocumentBuilder
+				.forPropertyIdAndDatatype(P1, DatatypeIdValue.DT_STRING)
+				.withLabel("property", "en")
+				.withStatement(StatementBuilder.forSubjectAndProperty(P1, P2)
+						.withId("S1")
+						.withValue(Datamodel.makeStringValue("value"))
+						.withQualifierNoValue(P3)
+						.build())
+				.build();
+		RecordingVisitor visitor = new RecordingVisitor();
+		new EntityDocumentWalker().walk(document, visitor);
+
+		assertEquals(Arrays.asList("LABEL " + document.getLabels().get("en"),
+				"statement 0 S1", "qualifier 0 "
+						+ Datamodel.makeNoValueSnak(P3)), visitor.events);
+	}
+
+}
@@ -90,6 +90,66 @@ public class ItemDocumentImplTest {
 		assertNull( ir1.findDescription("ja"));
 	}
 
+	@Test
+	public void findAliases() {
+		assertEquals(aliasList, ir1.findAliases("de"));
+		assertTrue(ir1.findAliases("ja").isEmpty());
+	}
+
+	@Test
+	public void termsAreNotCopied() {
+		assertSame(ir1.getLabels(), ir1.getLabels());
+		assertSame(ir1.getDescriptions(), ir1.getDescriptions());
+		assertSame(ir1.getAliases(), ir1.getAliases());
+		assertSame(ir1.getSiteLinks(), ir1.getSiteLinks());
+	}
+
+	@Test(expected = UnsupportedOperationException.class)
+	public void aliasesAreUnmodifiable() {
+		ir1.getAliases().get("de").add(label);
+	}
+
+	@Test
+	public void unmodifiableAliasesDoNotChangeGivenMap() {
+		List<MonolingualTextValue> list = new ArrayList<>(aliasList);
+		Map<String, List<MonolingualTextValue>> aliases = new HashMap<>();
+		aliases.put("de", list);
+		Map<String, List<MonolingualTextValue>> result = TermedStatementDocumentImpl
+				.makeAliasesUnmodifiable(aliases);
+		assertNotSame(aliases, result);
+		assertSame(list, aliases.get("de"));
+		assertEquals(aliases, result);
+	}
+
+	@Test
+	public void unmodifiableAliasListsAreNotWrappedAgain() {
+		Map<String, List<MonolingualTextValue>> aliases = TermedStatementDocumentImpl
+				.makeAliasesUnmodifiable(ir1.getAliases());
+		assertSame(ir1.getAliases().get("de"), aliases.get("de"));
+	}
+
+	@Test
+	public void compactTerms() throws JsonProcessingException {
+		ItemDocumentImpl item = new ItemDocumentImpl(iid,
+				labelList, descList, Arrays.asList(alias, new TermImpl("de", "alias2")),
+				statementGroups, sitelinks, 1234);
+		ItemDocumentImpl compact = item.withCompactTerms();
+		assertFalse(item.hasCompactTerms());
+		assertTrue(compact.hasCompactTerms());
+		assertSame(compact, compact.withCompactTerms());
+
+		assertEquals(item, compact);
+		assertEquals(compact, item);
+		assertEquals(item.hashCode(), compact.hashCode());
+		assertEquals(item.getLabels(), compact.getLabels());
+		assertEquals(item.getAliases(), compact.getAliases());
+		assertEquals("label", compact.findLabel("en"));
+		assertNull(compact.findLabel("fr"));
+		assertEquals("des", compact.findDescription("fr"));
+		assertEquals(item.findAliases("de"), compact.findAliases("de"));
+		assertEquals(mapper.writeValueAsString(item), mapper.writeValueAsString(compact));
+	}
+
 	@Test
 	public void equalityBasedOnContent() {
 		ItemDocument irDiffLabel = new ItemDocumentImpl(iid,
@@ -227,6 +287,34 @@ public class ItemDocumentImplTest {
 		assertFalse(statements.hasNext());
 	}
 
+	@Test
+	public void findStatements() throws IOException {
+		PropertyIdValue pid = new PropertyIdValueImpl("P42", "http://example.com/entity/");
+		PropertyIdValue otherSitePid = new PropertyIdValueImpl("P42", "http://other.example.com/entity/");
+
+		StatementGroup group = ir1.findStatementGroup("P42");
+		assertEquals(statementGroups.get(0), group);
+		assertSame(group, ir1.findStatementGroup(pid));
+		assertSame(group, ir1.getStatementGroups().get(0));
+		assertNull(ir1.findStatementGroup("P43"));
+		assertNull(ir1.findStatementGroup(otherSitePid));
+
+		assertTrue(ir1.hasStatement("P42"));
+		assertTrue(ir1.hasStatement(pid));
+		assertFalse(ir1.hasStatement("P43"));
+		assertFalse(ir1.hasStatement(otherSitePid));
+		assertEquals(s, ir1.findStatement("P42"));
+		assertEquals(s, ir1.findStatement(pid));
+		assertNull(ir1.findStatement(otherSitePid));
+		assertNull(ir1.findStatementValue("P42"));
+		assertFalse(ir1.hasStatementValue("P42",
+				Collections.singleton(new StringValueImpl("value"))));
+
+		ItemDocument parsed = mapper.readValue(JSON_ITEM_STATEMENTS, ItemDocumentImpl.class);
+		assertEquals(s, parsed.findStatement(pid));
+		assertSame(parsed.findStatementGroup("P42"), parsed.getStatementGroups().get(0));
+	}
+
 	@Test
 	public void testLabelsToJson() throws JsonProcessingException {
 		ItemDocumentImpl document = new ItemDocumentImpl(iid,
@@ -0,0 +1,200 @@
+package org.wikidata.wdtk.datamodel.implementation;
+
+/*
+ * #%L
+ * Wikidata Toolkit Data Model
+ * %%
+ * Copyright (C) 2014 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import static org.junit.Assert.*;
+import static org.wikidata.wdtk.datamodel.implementation.TestDocuments.*;
+
+import java.io.IOException;
+
+import org.junit.Test;
+import org.wikidata.wdtk.datamodel.helpers.Datamodel;
+import org.wikidata.wdtk.datamodel.helpers.DatamodelMapper;
+import org.wikidata.wdtk.datamodel.helpers.ItemDocumentBuilder;
+import org.wikidata.wdtk.datamodel.helpers.PropertyDocumentBuilder;
+import org.wikidata.wdtk.datamodel.interfaces.*;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class JsonEntityDocumentReaderTest {
+
+	private final ObjectMapper mapper = new DatamodelMapper(Datamodel.SITE_WIKIDATA);
+	private final JsonEntityDocumentReader reader = new JsonEntityDocumentReader(Datamodel.SITE_WIKIDATA);
+
+	/**
+	 * Item in the form used in JSON dumps, where the content of data values
+	 * comes before their type.
+	 */
+	private final String JSON_DUMP_ITEM = "{\"type\":\"item\",\"id\":\"Q42\","
+			+ "\"labels\":{\"en\":{\"language\":\"en\",\"value\":\"Douglas Adams\"}},"
+			+ "\"descriptions\":{\"en\":{\"language\":\"en\",\"value\":\"writer\"}},"
+			+ "\"aliases\":{\"en\":[{\"language\":\"en\",\"value\":\"DNA\"}]},"
+			+ "\"claims\":{\"P31\":[{\"mainsnak\":{\"snaktype\":\"value\",\"property\":\"P31\","
+			+ "\"hash\":\"ad7d38a03cdd40cdc373de0dc4e7b7fcbccb31d9\","
+			+ "\"datavalue\":{\"value\":{\"entity-type\":\"item\",\"numeric-id\":5,\"id\":\"Q5\"},"
+			+ "\"type\":\"wikibase-entityid\"},\"datatype\":\"wikibase-item\"},"
+			+ "\"type\":\"statement\",\"qualifiers\":{\"P580\":[{\"snaktype\":\"value\",\"property\":\"P580\","
+			+ "\"datavalue\":{\"value\":{\"time\":\"+1952-03-11T00:00:00Z\",\"timezone\":0,\"before\":0,"
+			+ "\"after\":0,\"precision\":11,\"calendarmodel\":\"http://www.wikidata.org/entity/Q1985727\"},"
+			+ "\"type\":\"time\"},\"datatype\":\"time\"}]},\"qualifiers-order\":[\"P580\"],"
+			+ "\"id\":\"Q42$F078E5B3-F9A8-480E-B7AC-D97778CBBEF9\",\"rank\":\"preferred\","
+			+ "\"references\":[{\"hash\":\"fa278ebfc458360e5aed63d5058cca83c46134f1\","
+			+ "\"snaks\":{\"P143\":[{\"snaktype\":\"value\",\"property\":\"P143\","
+			+ "\"datavalue\":{\"value\":{\"entity-type\":\"item\",\"numeric-id\":328},"
+			+ "\"type\":\"wikibase-entityid\"},\"datatype\":\"wikibase-item\"}],"
+			+ "\"P854\":[{\"snaktype\":\"value\",\"property\":\"P854\","
+			+ "\"datavalue\":{\"value\":\"http://example.org\",\"type\":\"string\"},\"datatype\":\"url\"}]},"
+			+ "\"snaks-order\":[\"P854\",\"P143\"]}]}],"
+			+ "\"P625\":[{\"mainsnak\":{\"snaktype\":\"value\",\"property\":\"P625\","
+			+ "\"datavalue\":{\"value\":{\"latitude\":51.5,\"longitude\":-0.1,\"altitude\":null,"
+			+ "\"precision\":null,\"globe\":\"http://www.wikidata.org/entity/Q2\"},"
+			+ "\"type\":\"globecoordinate\"},\"datatype\":\"globe-coordinate\"},"
+			+ "\"type\":\"statement\",\"id\":\"Q42$1\",\"rank\":\"normal\"}],"
+			+ "\"P1082\":[{\"mainsnak\":{\"snaktype\":\"value\",\"property\":\"P1082\","
+			+ "\"datavalue\":{\"value\":{\"amount\":\"+1234.5\",\"unit\":\"1\",\"upperBound\":\"+1235\","
+			+ "\"lowerBound\":\"+1234\"},\"type\":\"quantity\"},\"datatype\":\"quantity\"},"
+			+ "\"type\":\"statement\",\"id\":\"Q42$2\",\"rank\":\"deprecated\"},"
+			+ "{\"mainsnak\":{\"snaktype\":\"somevalue\",\"property\":\"P1082\"},"
+			+ "\"type\":\"statement\",\"id\":\"Q42$3\",\"rank\":\"normal\"}],"
+			+ "\"P1476\":[{\"mainsnak\":{\"snaktype\":\"value\",\"property\":\"P1476\","
+			+ "\"datavalue\":{\"value\":{\"text\":\"Title\",\"language\":\"en\"},"
+			+ "\"type\":\"monolingualtext\"},\"datatype\":\"monolingualtext\"},"
+			+ "\"type\":\"statement\",\"id\":\"Q42$4\",\"rank\":\"normal\"},"
+			+ "{\"mainsnak\":{\"snaktype\":\"novalue\",\"property\":\"P1476\"},"
+			+ "\"type\":\"statement\",\"id\":\"Q42$5\",\"rank\":\"normal\"}]},"
+			+ "\"sitelinks\":{\"enwiki\":{\"site\":\"enwiki\",\"title\":\"Douglas Adams\","
+			+ "\"badges\":[\"Q17437796\"],\"url\":\"https://en.wikipedia.org/wiki/Douglas_Adams\"}},"
+			+ "\"pageid\":138,\"ns\":0,\"title\":\"Q42\",\"lastrevid\":1234,"
+			+ "\"modified\":\"2017-10-01T12:00:00Z\"}";
+
+	private final String JSON_PROPERTY = "{\"type\":\"property\",\"datatype\":\"wikibase-item\","
+			+ "\"id\":\"P31\",\"labels\":{\"en\":{\"language\":\"en\",\"value\":\"instance of\"}},"
+			+ "\"descriptions\":{},\"aliases\":[],\"claims\":{\"P1\":[{\"mainsnak\":"
+			+ "{\"snaktype\":\"value\",\"property\":\"P1\",\"datavalue\":{\"value\":"
+			+ "{\"entity-type\":\"property\",\"numeric-id\":2,\"id\":\"P2\"},\"type\":\"wikibase-entityid\"},"
+			+ "\"datatype\":\"wikibase-property\"},\"type\":\"statement\",\"id\":\"P31$1\",\"rank\":\"normal\"}]},"
+			+ "\"lastrevid\":42}";
+
+	@Test
+	public void readSerializedItem() throws IOException {
+		ItemDocument document = makeItemDocument();
+		String json = mapper.writeValueAsString(document);
+
+		ItemDocumentImpl result = reader.readItemDocument(json);
+		assertEquals(document, result);
+		assertEquals(mapper.readValue(json, ItemDocumentImpl.class), result);
+		assertEquals(json, mapper.writeValueAsString(result));
+	}
+
+	@Test
+	public void readDumpItem() throws IOException {
+		EntityDocument expected = mapper.readValue(JSON_DUMP_ITEM, TermedStatementDocumentImpl.class);
+		EntityDocument result = reader.readEntityDocument(JSON_DUMP_ITEM);
+
+		assertTrue(result instanceof ItemDocumentImpl);
+		assertEquals(expected, result);
+		assertEquals(mapper.writeValueAsString(expected), mapper.writeValueAsString(result));
+		Statement statement = ((ItemDocument) result).findStatement("P31");
+		assertEquals(StatementRank.PREFERRED, statement.getRank());
+		assertEquals("wikibase-item", ((ValueSnakImpl) statement.getMainSnak()).getDatatype());
+		assertEquals(Datamodel.makeWikidataItemIdValue("Q328"),
+				statement.getReferences().get(0).getSnakGroups().get(1).getSnaks().get(0).getValue());
+	}
+
+	@Test
+	public void readProperty() throws IOException {
+		PropertyDocumentImpl expected = mapper.readValue(JSON_PROPERTY, PropertyDocumentImpl.class);
+		PropertyDocumentImpl result = reader.readPropertyDocument(JSON_PROPERTY);
+
+		assertEquals(expected, result);
+		assertEquals(DatatypeIdValue.DT_ITEM, result.getDatatype().getIri());
+		assertTrue(result.getDescriptions().isEmpty());
+		assertEquals(42, result.getRevisionId());
+
+		PropertyDocument document = PropertyDocumentBuilder
+				.forPropertyIdAndDatatype(P1, DatatypeIdValue.DT_STRING)
+				.withLabel("label", "en").build();
+		assertEquals(document, reader.readPropertyDocument(mapper.writeValueAsString(document)));
+	}
+
+	@Test
+	public void readClaimsBeforeId() throws IOException {
+		String json = "{\"claims\":{\"P1\":[{\"mainsnak\":{\"snaktype\":\"novalue\",\"property\":\"P1\"},"
+				+ "\"type\":\"statement\",\"rank\":\"normal\"}]},\"id\":\"Q42\",\"type\":\"item\"}";
+		ItemDocumentImpl result = reader.readItemDocument(json);
+
+		assertEquals(mapper.readValue(json, ItemDocumentImpl.class), result);
+		assertEquals(Q42, result.findStatement("P1").getSubject());
+	}
+
+	@Test
+	public void readSequenceOfDocuments() throws IOException {
+		String json = "[" + JSON_DUMP_ITEM + ",\n" + JSON_PROPERTY + "]";
+		try (JsonParser parser = new JsonFactory().createParser(json)) {
+			assertTrue(reader.readEntityDocument(parser) instanceof ItemDocument);
+			assertTrue(reader.readEntityDocument(parser) instanceof PropertyDocument);
+			assertEquals(JsonToken.END_ARRAY, parser.nextToken());
+		}
+	}
+
+	@Test
+	public void readEmptyArraysAsMaps() throws IOException {
+		ItemDocumentImpl result = reader.readItemDocument("{\"type\":\"item\",\"id\":\"Q42\","
+				+ "\"labels\":[],\"descriptions\":[],\"aliases\":[],\"claims\":[],\"sitelinks\":[]}");
+
+		assertEquals(ItemDocumentBuilder.forItemId(Q42).build(), result);
+	}
+
+	@Test(expected = JsonMappingException.class)
+	public void readItemAsProperty() throws IOException {
+		reader.readPropertyDocument(JSON_DUMP_ITEM);
+	}
+
+	@Test(expected = JsonMappingException.class)
+	public void typeDoesNotMatchId() throws IOException {
+		reader.readEntityDocument("{\"type\":\"property\",\"id\":\"Q42\"}");
+	}
+
+	@Test(expected = JsonMappingException.class)
+	public void unsupportedEntityValue() throws IOException {
+		reader.readEntityDocument("{\"type\":\"item\",\"id\":\"Q42\",\"claims\":{\"P1\":[{\"mainsnak\":"
+				+ "{\"snaktype\":\"value\",\"property\":\"P1\",\"datavalue\":{\"value\":"
+				+ "{\"entity-type\":\"lexeme\",\"numeric-id\":1,\"id\":\"L1\"},\"type\":\"wikibase-entityid\"}},"
+				+ "\"type\":\"statement\",\"rank\":\"normal\"}]}}");
+	}
+
+	@Test(expected = JsonMappingException.class)
+	public void valueTypeDoesNotMatchContent() throws IOException {
+		reader.readEntityDocument("{\"type\":\"item\",\"id\":\"Q42\",\"claims\":{\"P1\":[{\"mainsnak\":"
+				+ "{\"snaktype\":\"value\",\"property\":\"P1\",\"datavalue\":{\"value\":\"text\","
+				+ "\"type\":\"time\"}},\"type\":\"statement\",\"rank\":\"normal\"}]}}");
+	}
+
+	@Test(expected = JsonMappingException.class)
+	public void invalidData() throws IOException {
+		reader.readEntityDocument("{\"type\":\"item\",\"id\":\"Q42\",\"labels\":{\"en\":{\"language\":\"en\"}}}");
+	}
+
+}
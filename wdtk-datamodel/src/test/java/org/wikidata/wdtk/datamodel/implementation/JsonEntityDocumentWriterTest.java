@@ -0,0 +1,146 @@
+package org.wikidata.wdtk.datamodel.implementation;
+
+/*
+ * #%L
+ * Wikidata Toolkit Data Model
+ * %%
+ * Copyright (C) 2014 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import static org.junit.Assert.*;
+import static org.wikidata.wdtk.datamodel.implementation.TestDocuments.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+import org.wikidata.wdtk.datamodel.helpers.Datamodel;
+import org.wikidata.wdtk.datamodel.helpers.DatamodelMapper;
+import org.wikidata.wdtk.datamodel.helpers.ItemDocumentBuilder;
+import org.wikidata.wdtk.datamodel.helpers.PropertyDocumentBuilder;
+import org.wikidata.wdtk.datamodel.helpers.StatementBuilder;
+import org.wikidata.wdtk.datamodel.implementation.json.JsonComparator;
+import org.wikidata.wdtk.datamodel.interfaces.*;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class JsonEntityDocumentWriterTest {
+
+	private final ObjectMapper mapper = new DatamodelMapper(Datamodel.SITE_WIKIDATA);
+	private final JsonEntityDocumentWriter writer = new JsonEntityDocumentWriter();
+	private final JsonEntityDocumentReader reader = new JsonEntityDocumentReader(Datamodel.SITE_WIKIDATA);
+
+	/**
+	 * Returns the shared test item with a description that needs escaping
+	 * and a deprecated statement.
+	 */
+	private ItemDocument makeItemDocument() {
+		return newItemDocumentBuilder()
+				.withDescription("writer \"with quotes\"", "de")
+				.withStatement(StatementBuilder.forSubjectAndProperty(Q42, P3)
+						.withRank(StatementRank.DEPRECATED)
+						.withValue(Datamodel.makeQuantityValue(new BigDecimal("-3")))
+						.build())
+				.build();
+	}
+
+	@Test
+	public void writeItem() throws IOException {
+		ItemDocument document = makeItemDocument();
+		String json = writer.writeToString(document);
+
+		JsonComparator.compareJsonStrings(mapper.writeValueAsString(document), json);
+		assertEquals(document, reader.readItemDocument(json));
+		assertEquals(document, mapper.readValue(json, ItemDocumentImpl.class));
+	}
+
+	@Test
+	public void writeProperty() throws IOException {
+		PropertyDocument document = PropertyDocumentBuilder
+				.forPropertyIdAndDatatype(P1, DatatypeIdValue.DT_MONOLINGUAL_TEXT)
+				.withLabel("label", "en")
+				.withAlias("alias", "de")
+				.withStatement(StatementBuilder.forSubjectAndProperty(P1, P2)
+						.withValue(Datamodel.makeStringValue("value")).build())
+				.withRevisionId(42)
+				.build();
+		String json = writer.writeToString(document);
+
+		JsonComparator.compareJsonStrings(mapper.writeValueAsString(document), json);
+		assertEquals(document, reader.readPropertyDocument(json));
+	}
+
+	@Test
+	public void writeEmptyDocuments() throws IOException {
+		ItemDocument item = ItemDocumentBuilder.forItemId(Q42).build();
+		PropertyDocument property = PropertyDocumentBuilder
+				.forPropertyIdAndDatatype(P1, DatatypeIdValue.DT_ITEM).build();
+
+		JsonComparator.compareJsonStrings(mapper.writeValueAsString(item), writer.writeToString(item));
+		JsonComparator.compareJsonStrings(mapper.writeValueAsString(property), writer.writeToString(property));
+	}
+
+	@Test
+	public void writeLocalDocument() throws IOException {
+		ItemDocument document = ItemDocumentBuilder.forItemId(ItemIdValue.NULL)
+				.withLabel("new item", "en").build();
+
+		JsonComparator.compareJsonStrings(mapper.writeValueAsString(document), writer.writeToString(document));
+	}
+
+	@Test
+	public void writeOtherImplementation() throws IOException {
+		ItemDocument document = makeItemDocument();
+		CompactItemDocument compact = new CompactItemDocument(document, new CompactDictionary());
+		String json = writer.writeToString(compact);
+
+		JsonComparator.compareJsonStrings(mapper.writeValueAsString(document), json);
+		assertEquals(document, reader.readItemDocument(json));
+	}
+
+	@Test
+	public void writeBytes() throws IOException {
+		ItemDocument document = makeItemDocument();
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		out.write('[');
+		writer.write(document, out);
+		out.write(']');
+
+		byte[] bytes = writer.writeToBytes(document);
+		assertEquals(writer.writeToString(document),
+				new String(bytes, StandardCharsets.UTF_8));
+		assertEquals("[" + new String(bytes, StandardCharsets.UTF_8) + "]",
+				new String(out.toByteArray(), StandardCharsets.UTF_8));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void unsupportedDocument() throws IOException {
+		writer.writeToString(new EntityDocument() {
+			@Override
+			public EntityIdValue getEntityId() {
+				return Q42;
+			}
+
+			@Override
+			public long getRevisionId() {
+				return 0;
+			}
+		});
+	}
+
+}
@@ -128,6 +128,17 @@ public class PropertyDocumentImplTest {
 		assertNotEquals(pd1, this);
 	}
 
+	@Test
+	public void compactTerms() {
+		PropertyDocumentImpl property = (PropertyDocumentImpl) pd1;
+		PropertyDocumentImpl compact = property.withCompactTerms();
+		assertFalse(property.hasCompactTerms());
+		assertTrue(compact.hasCompactTerms());
+		assertSame(compact, compact.withCompactTerms());
+		assertEquals(property, compact);
+		assertEquals(property.getDatatype(), compact.getDatatype());
+	}
+
 	@Test
 	public void hashBasedOnContent() {
 		assertEquals(pd1.hashCode(), pd2.hashCode());
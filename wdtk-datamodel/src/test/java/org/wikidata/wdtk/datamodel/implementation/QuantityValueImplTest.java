@@ -28,6 +28,7 @@ import java.math.BigDecimal;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.Test;
+import org.wikidata.wdtk.datamodel.implementation.json.JacksonInnerQuantity;
 import org.wikidata.wdtk.datamodel.implementation.json.JsonComparator;
 import org.wikidata.wdtk.datamodel.interfaces.QuantityValue;
 
@@ -153,4 +154,56 @@ public class QuantityValueImplTest {
 	public void testUnboundedToJava() throws IOException {
 		assertEquals(q3, mapper.readValue(JSON_UNBOUNDED_QUANTITY_VALUE, ValueImpl.class));
 	}
+
+	@Test
+	public void numbersFromJson() throws IOException {
+		String[] numbers = { "+0", "-0", "+12.50", "-12.5", "+0.000001",
+				"+0.0000001", "-0.00000000", "123456789012345678",
+				"+1234567890123456789", "+1.5E+3", "+.5", "+007", "+0.1" };
+		for (String number : numbers) {
+			BigDecimal expected = new BigDecimal(number);
+			QuantityValueImpl quantity = mapper.readValue(
+					"{\"value\":{\"amount\":\"" + number
+							+ "\",\"unit\":\"1\"},\"type\":\"quantity\"}",
+					QuantityValueImpl.class);
+
+			assertEquals(number, expected, quantity.getNumericValue());
+			assertEquals(number, expected.doubleValue(),
+					quantity.getNumericValueAsDouble(), 0);
+			assertEquals(number, (expected.signum() < 0 ? "" : "+")
+					+ expected.toString(), quantity.getValue()
+					.getAmountAsString());
+			assertEquals(new QuantityValueImpl(expected, null, null, "1"),
+					quantity);
+		}
+	}
+
+	@Test
+	public void boundsFromJson() throws IOException {
+		QuantityValueImpl quantity = mapper.readValue(
+				"{\"value\":{\"amount\":\"+12.5\",\"lowerBound\":\"+12\","
+						+ "\"upperBound\":\"+13.00\",\"unit\":\"1\"},\"type\":\"quantity\"}",
+				QuantityValueImpl.class);
+
+		assertEquals(new BigDecimal("12"), quantity.getLowerBound());
+		assertEquals(new BigDecimal("13.00"), quantity.getUpperBound());
+		assertEquals("+13.00", quantity.getValue().getUpperBoundAsString());
+		assertEquals(new QuantityValueImpl(new BigDecimal("12.5"),
+				new BigDecimal("12"), new BigDecimal("13.00"), "1"), quantity);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void lowerBoundNotGreaterNumValFromStrings() {
+		JacksonInnerQuantity.fromStrings("+12.5", "+12.6", "+13", "1");
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void upperBoundNotSmallerNumValFromStrings() {
+		JacksonInnerQuantity.fromStrings("+12.5", "+12", "+12.49", "1");
+	}
+
+	@Test(expected = NumberFormatException.class)
+	public void invalidNumberFromStrings() {
+		JacksonInnerQuantity.fromStrings("+12,5", null, null, "1");
+	}
 }
@@ -24,6 +24,8 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
+import java.util.Collections;
+
 import org.junit.Test;
 import org.mockito.internal.util.collections.Sets;
 import org.wikidata.wdtk.datamodel.helpers.Datamodel;
@@ -80,6 +82,24 @@ public class StatementDocumentAccessTest {
 		assertEquals(null, id.findStatementValue(p3));
 	}
 
+	@Test
+	public void testFindBestStatements() {
+		Statement s1 = StatementBuilder.forSubjectAndProperty(q1, p1)
+				.withValue(q1).build();
+		Statement s2 = StatementBuilder.forSubjectAndProperty(q1, p1)
+				.withRank(StatementRank.PREFERRED).withValue(q2).build();
+		Statement s3 = StatementBuilder.forSubjectAndProperty(q1, p2)
+				.withRank(StatementRank.DEPRECATED).withValue(q2).build();
+
+		ItemDocument id = ItemDocumentBuilder.forItemId(q1).withStatement(s1)
+				.withStatement(s2).withStatement(s3).build();
+
+		assertEquals(Collections.singletonList(s2), id.findBestStatements(p1));
+		assertEquals(Collections.singletonList(s2), id.findBestStatements("P1"));
+		assertTrue(id.findBestStatements(p2).isEmpty());
+		assertTrue(id.findBestStatements("P3").isEmpty());
+	}
+
 	@Test
 	public void testHasStatementValue() {
 		Statement s1 = StatementBuilder.forSubjectAndProperty(q1, p1)
@@ -23,6 +23,7 @@ package org.wikidata.wdtk.datamodel.implementation;
 import static org.junit.Assert.*;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 
@@ -69,6 +70,17 @@ public class StatementGroupTest {
 				Collections.singletonList(statement1));
 	}
 
+	@Test
+	public void statementListIsNotWrappedAgain() {
+		assertSame(sg1.getStatements(), sg1.getStatements());
+		assertSame(sg1.getStatements(), sg1.getBestStatements());
+	}
+
+	@Test(expected = UnsupportedOperationException.class)
+	public void statementListIsUnmodifiable() {
+		sg1.getStatements().add(statement2);
+	}
+
 	@Test
 	public void propertyIsCorrect() {
 		assertEquals(sg1.getProperty(), property);
@@ -144,4 +156,32 @@ public class StatementGroupTest {
 		new StatementGroupImpl(statements);
 	}
 
+	@Test
+	public void bestRankIsCorrect() {
+		Statement deprecated = new StatementImpl("MyId", StatementRank.DEPRECATED,
+				statement1.getMainSnak(), Collections.emptyList(),
+				Collections.emptyList(), subject);
+		assertEquals(StatementRank.NORMAL, sg1.getBestRank());
+		assertEquals(StatementRank.PREFERRED, new StatementGroupImpl(
+				Arrays.asList(statement1, statement2)).getBestRank());
+		assertNull(new StatementGroupImpl(
+				Collections.singletonList(deprecated)).getBestRank());
+	}
+
+	@Test
+	public void bestStatementsAreCorrect() {
+		Statement deprecated = new StatementImpl("MyId", StatementRank.DEPRECATED,
+				statement1.getMainSnak(), Collections.emptyList(),
+				Collections.emptyList(), subject);
+		assertSame(sg1.getStatements().get(0), sg1.getBestStatements().get(0));
+		assertEquals(Collections.singletonList(statement2),
+				new StatementGroupImpl(Arrays.asList(statement1, statement2,
+						deprecated)).getBestStatements());
+		assertEquals(Collections.singletonList(statement1),
+				new StatementGroupImpl(Arrays.asList(deprecated, statement1))
+						.getBestStatements());
+		assertTrue(new StatementGroupImpl(Collections.singletonList(deprecated))
+				.getBestStatements().isEmpty());
+	}
+
 }
@@ -0,0 +1,95 @@
+package org.wikidata.wdtk.datamodel.implementation;
+
+/*
+ * #%L
+ * Wikidata Toolkit Data Model
+ * %%
+ * Copyright (C) 2014 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.math.BigDecimal;
+
+import org.wikidata.wdtk.datamodel.helpers.Datamodel;
+import org.wikidata.wdtk.datamodel.helpers.ItemDocumentBuilder;
+import org.wikidata.wdtk.datamodel.helpers.ReferenceBuilder;
+import org.wikidata.wdtk.datamodel.helpers.StatementBuilder;
+import org.wikidata.wdtk.datamodel.interfaces.GlobeCoordinatesValue;
+import org.wikidata.wdtk.datamodel.interfaces.ItemDocument;
+import org.wikidata.wdtk.datamodel.interfaces.ItemIdValue;
+import org.wikidata.wdtk.datamodel.interfaces.PropertyIdValue;
+import org.wikidata.wdtk.datamodel.interfaces.StatementRank;
+import org.wikidata.wdtk.datamodel.interfaces.TimeValue;
+
+/**
+ * Entity documents that are shared by several tests of the data model
+ * implementations.
+ */
+class TestDocuments {
+
+	static final ItemIdValue Q42 = Datamodel.makeWikidataItemIdValue("Q42");
+	static final PropertyIdValue P1 = Datamodel.makeWikidataPropertyIdValue("P1");
+	static final PropertyIdValue P2 = Datamodel.makeWikidataPropertyIdValue("P2");
+	static final PropertyIdValue P3 = Datamodel.makeWikidataPropertyIdValue("P3");
+
+	/**
+	 * Returns a builder for an item with terms, site links, and statements
+	 * with values of all common types, qualifiers, and references. Tests can
+	 * add more data before building the item.
+	 */
+	static ItemDocumentBuilder newItemDocumentBuilder() {
+		return ItemDocumentBuilder.forItemId(Q42)
+				.withLabel("Douglas Adams", "en")
+				.withLabel("Douglas Adams", "fr")
+				.withDescription("writer", "en")
+				.withAlias("DNA", "en")
+				.withAlias("Douglas Noël Adams", "en")
+				.withSiteLink("Douglas Adams", "enwiki")
+				.withSiteLink("Douglas Adams", "dewiki", "Q17437796")
+				.withStatement(StatementBuilder.forSubjectAndProperty(Q42, P1)
+						.withId("Q42$1d7d0ea9-412f-8b5b-ba8d-405ab9ecf026")
+						.withValue(Datamodel.makeWikidataItemIdValue("Q5"))
+						.withQualifierValue(P2, Datamodel.makeTimeValue(1952,
+								(byte) 3, (byte) 11, (byte) 0, (byte) 0, (byte) 0,
+								TimeValue.PREC_DAY, 0, 0, 0, TimeValue.CM_GREGORIAN_PRO))
+						.withQualifierNoValue(P3)
+						.withReference(ReferenceBuilder.newInstance()
+								.withPropertyValue(P2, Datamodel.makeStringValue("source"))
+								.withPropertyValue(P3, Datamodel.makeMonolingualTextValue("text", "en"))
+								.build())
+						.build())
+				.withStatement(StatementBuilder.forSubjectAndProperty(Q42, P1)
+						.withId("some other id")
+						.withRank(StatementRank.PREFERRED)
+						.withSomeValue()
+						.build())
+				.withStatement(StatementBuilder.forSubjectAndProperty(Q42, P2)
+						.withValue(Datamodel.makeQuantityValue(new BigDecimal("12345678901234567890.5"),
+								new BigDecimal("1"), new BigDecimal("123456789012345678901"),
+								"http://www.wikidata.org/entity/Q11573"))
+						.withQualifierValue(P1, Datamodel.makeGlobeCoordinatesValue(51.5, -0.1,
+								GlobeCoordinatesValue.PREC_DEGREE, GlobeCoordinatesValue.GLOBE_EARTH))
+						.withQualifierValue(P3, Datamodel.makeWikidataPropertyIdValue("P31"))
+						.build())
+				.withRevisionId(1234);
+	}
+
+	/**
+	 * Returns the item of {@link #newItemDocumentBuilder()}.
+	 */
+	static ItemDocument makeItemDocument() {
+		return newItemDocumentBuilder().build();
+	}
+}
@@ -140,4 +140,41 @@ public class TimeValueImplTest {
 		assertEquals(t1, mapper.readValue(JSON_TIME_VALUE, ValueImpl.class));
 	}
 
+	@Test
+	public void timeStringsOfAllForms() throws IOException {
+		String[] times = { "+2007-05-12T10:45:00Z", "2007-05-12T10:45:00Z",
+				"-0044-03-15T00:00:00Z", "+00000002013-01-00T00:00:00Z",
+				"-13798000000-00-00T00:00:00Z", "+5-1-2T3:4:5Z" };
+		long[][] components = { { 2007, 5, 12, 10, 45, 0 },
+				{ 2007, 5, 12, 10, 45, 0 }, { -44, 3, 15, 0, 0, 0 },
+				{ 2013, 1, 0, 0, 0, 0 }, { -13798000000L, 0, 0, 0, 0, 0 },
+				{ 5, 1, 2, 3, 4, 5 } };
+		for (int i = 0; i < times.length; i++) {
+			TimeValue t = mapper.readValue("{\"value\":{\"time\":\"" + times[i]
+					+ "\",\"timezone\":0,\"before\":0,\"after\":0,\"precision\":11,"
+					+ "\"calendarmodel\":\"" + TimeValue.CM_GREGORIAN_PRO
+					+ "\"},\"type\":\"time\"}", TimeValueImpl.class);
+			assertEquals(times[i], components[i][0], t.getYear());
+			assertEquals(times[i], components[i][1], t.getMonth());
+			assertEquals(times[i], components[i][2], t.getDay());
+			assertEquals(times[i], components[i][3], t.getHour());
+			assertEquals(times[i], components[i][4], t.getMinute());
+			assertEquals(times[i], components[i][5], t.getSecond());
+			// the string is kept as given
+			assertEquals(times[i], ((TimeValueImpl) t).getValue().getTime());
+		}
+	}
+
+	@Test
+	public void composedTimeStrings() {
+		long[] years = { 2007, 5, 0, -44, -13800000000L, 123456789 };
+		for (long year : years) {
+			TimeValueImpl t = new TimeValueImpl(year, (byte) 5, (byte) 12,
+					(byte) 10, (byte) 45, (byte) 0, TimeValue.PREC_SECOND, 0,
+					1, 60, TimeValue.CM_GREGORIAN_PRO);
+			assertEquals(String.format("%+04d-%02d-%02dT%02d:%02d:%02dZ", year,
+					5, 12, 10, 45, 0), t.getValue().getTime());
+		}
+	}
+
 }
@@ -0,0 +1,173 @@
+package org.wikidata.wdtk.dumpfiles;
+
+/*
+ * #%L
+ * Wikidata Toolkit Dump File Handling
+ * %%
+ * Copyright (C) 2014 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reads the lines of an input stream as bytes. The current line is kept in a
+ * buffer that is reused for the following lines, so that reading a line does
+ * not allocate any objects unless the line is longer than all previous lines.
+ * This is useful for processing dumps with one JSON document per line, where
+ * the bytes can be given to a parser directly without decoding them to a
+ * {@link String} first.
+ * <p>
+ * Lines are terminated by '\n', which is not part of the line; a trailing
+ * '\r' is removed as well. Objects of this class are not thread safe.
+ */
+public class ByteLineReader {
+
+	/**
+	 * Size of the buffer for reading from the input stream.
+	 */
+	static final int READ_BUFFER_SIZE = 64 * 1024;
+
+	/**
+	 * Initial size of the buffer for the current line.
+	 */
+	static final int INITIAL_LINE_SIZE = 8 * 1024;
+
+	final InputStream inputStream;
+
+	/**
+	 * Buffer for data read from the input stream.
+	 */
+	final byte[] readBuffer = new byte[READ_BUFFER_SIZE];
+	/**
+	 * Position of the first byte in {@link #readBuffer} that has not been
+	 * consumed yet.
+	 */
+	int readPosition = 0;
+	/**
+	 * Number of valid bytes in {@link #readBuffer}.
+	 */
+	int readLimit = 0;
+
+	/**
+	 * Buffer for the current line, which is grown when needed.
+	 */
+	byte[] line = new byte[INITIAL_LINE_SIZE];
+	/**
+	 * Length of the current line.
+	 */
+	int lineLength = 0;
+
+	/**
+	 * Constructor. The input stream is not closed by this object.
+	 *
+	 * @param inputStream
+	 *            the stream to read from
+	 */
+	public ByteLineReader(InputStream inputStream) {
+		this.inputStream = inputStream;
+	}
+
+	/**
+	 * Reads the next line into the line buffer.
+	 *
+	 * @return true if a line was read, and false if the end of the stream has
+	 *         been reached
+	 * @throws IOException
+	 *             if there was a problem reading the stream
+	 */
+	public boolean readLine() throws IOException {
+		this.lineLength = 0;
+		boolean hasData = false;
+		while (true) {
+			if (this.readPosition >= this.readLimit) {
+				int count = this.inputStream.read(this.readBuffer);
+				if (count < 0) {
+					return hasData;
+				}
+				this.readPosition = 0;
+				this.readLimit = count;
+				continue;
+			}
+			hasData = true;
+
+			int end = this.readPosition;
+			while (end < this.readLimit && this.readBuffer[end] != '\n') {
+				end++;
+			}
+			append(this.readPosition, end);
+			if (end < this.readLimit) {
+				this.readPosition = end + 1;
+				if (this.lineLength > 0
+						&& this.line[this.lineLength - 1] == '\r') {
+					this.lineLength--;
+				}
+				return true;
+			}
+			this.readPosition = end;
+		}
+	}
+
+	/**
+	 * Returns the buffer that holds the current line. The buffer is only valid
+	 * until the next call of {@link #readLine()} and it may be longer than
+	 * the line.
+	 *
+	 * @return buffer with the current line, starting at index 0
+	 */
+	public byte[] getBuffer() {
+		return this.line;
+	}
+
+	/**
+	 * Returns the length of the current line in bytes.
+	 *
+	 * @return length of the line
+	 */
+	public int getLength() {
+		return this.lineLength;
+	}
+
+	/**
+	 * Returns the current line as a string, decoded as UTF-8. This creates a
+	 * new string and should only be used where needed, e.g., for reporting
+	 * errors.
+	 *
+	 * @return the current line
+	 */
+	public String getLineString() {
+		return new String(this.line, 0, this.lineLength,
+				StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Appends the given part of the read buffer to the current line.
+	 */
+	void append(int start, int end) {
+		int count = end - start;
+		if (this.lineLength + count > this.line.length) {
+			byte[] newLine = new byte[Math.max(this.line.length * 2,
+					this.lineLength + count)];
+			System.arraycopy(this.line, 0, newLine, 0, this.lineLength);
+			this.line = newLine;
+		}
+		System.arraycopy(this.readBuffer, start, this.line, this.lineLength,
+				count);
+		this.lineLength += count;
+	}
+
+}
@@ -20,10 +20,8 @@ package org.wikidata.wdtk.dumpfiles;
  * #L%
  */
 
-import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
 
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import org.slf4j.Logger;
@@ -146,7 +144,8 @@ public class JsonDumpFileProcessor implements MwDumpFileProcessor {
 	 * recover from an errors that occurred while processing an input stream,
 	 * which is assumed to contain the JSON serialization of a list of JSON
 	 * entities, with each entity serialization in one line. To recover from the
-	 * previous error, the first line is skipped.
+	 * previous error, the first line is skipped. Lines are parsed from a reused
+	 * byte buffer, without creating a string for each line.
 	 *
 	 * @param inputStream
 	 *            the stream to read from
@@ -158,14 +157,13 @@ public class JsonDumpFileProcessor implements MwDumpFileProcessor {
 		JsonDumpFileProcessor.logger
 				.warn("Entering recovery mode to parse rest of file. This might be slightly slower.");
 
-		BufferedReader br = new BufferedReader(new InputStreamReader(
-				inputStream));
+		ByteLineReader lineReader = new ByteLineReader(inputStream);
 
-		String line = br.readLine();
-		if (line == null) { // can happen if iterator already has consumed all
-							// the stream
+		if (!lineReader.readLine()) { // can happen if iterator already has
+										// consumed all the stream
 			return;
 		}
+		String line = lineReader.getLineString();
 		if (line.length() >= 100) {
 			line = line.substring(0, 100) + "[...]"
 					+ line.substring(line.length() - 50);
@@ -173,25 +171,23 @@ public class JsonDumpFileProcessor implements MwDumpFileProcessor {
 		JsonDumpFileProcessor.logger.warn("Skipping rest of current line: "
 				+ line);
 
-		line = br.readLine();
-		while (line != null && line.length() > 1) {
+		while (lineReader.readLine() && lineReader.getLength() > 1) {
+			byte[] buffer = lineReader.getBuffer();
+			int length = lineReader.getLength();
+			if (buffer[length - 1] == ',') {
+				length--;
+			}
 			try {
-				TermedStatementDocumentImpl document;
-				if (line.charAt(line.length() - 1) == ',') {
-					document = documentReader.readValue(line.substring(0,
-							line.length() - 1));
-				} else {
-					document = documentReader.readValue(line);
-				}
+				TermedStatementDocumentImpl document = documentReader
+						.readValue(buffer, 0, length);
 				handleDocument(document);
 			} catch (JsonProcessingException e) {
 				logJsonProcessingException(e);
+				line = lineReader.getLineString();
 				JsonDumpFileProcessor.logger.error("Problematic line was: "
 						+ line.substring(0, Math.min(50, line.length()))
 						+ "...");
 			}
-
-			line = br.readLine();
 		}
 	}
 }
@@ -22,6 +22,7 @@ package org.wikidata.wdtk.dumpfiles;
 
 import java.io.IOException;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import org.slf4j.Logger;
@@ -35,6 +36,7 @@ import org.wikidata.wdtk.datamodel.interfaces.ItemIdValue;
 import com.fasterxml.jackson.core.JsonParseException;
 import com.fasterxml.jackson.databind.JsonMappingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
 
 /**
  * A revision processor that processes Wikibase entity content from a dump file.
@@ -54,6 +56,12 @@ public class WikibaseRevisionProcessor implements MwRevisionProcessor {
 	 */
 	final String siteIri;
 	final ObjectMapper mapper;
+	/**
+	 * Readers for the types of documents that have been read so far. Readers
+	 * are immutable and can be shared by all threads, so they are only created
+	 * once instead of for each revision.
+	 */
+	final Map<Class<?>, ObjectReader> readers = new ConcurrentHashMap<>();
 	// JsonConverter jsonConverter;
 	// final DataObjectFactory dataObjectFactory;
 	final EntityDocumentProcessor entityDocumentProcessor;
@@ -167,9 +175,24 @@ public class WikibaseRevisionProcessor implements MwRevisionProcessor {
 	}
 
 	public <T> T readValue(String content, Class<T> valueType) throws IOException {
-		return mapper.reader(valueType)
-				.with(DeserializationFeature.ACCEPT_EMPTY_ARRAY_AS_NULL_OBJECT)
-				.readValue(content);
+		return getReader(valueType).readValue(content);
+	}
+
+	/**
+	 * Returns the reader for documents of the given type.
+	 *
+	 * @param valueType
+	 *            the type of documents to read
+	 * @return the reader
+	 */
+	ObjectReader getReader(Class<?> valueType) {
+		ObjectReader reader = this.readers.get(valueType);
+		if (reader == null) {
+			reader = this.mapper.readerFor(valueType).with(
+					DeserializationFeature.ACCEPT_EMPTY_ARRAY_AS_NULL_OBJECT);
+			this.readers.put(valueType, reader);
+		}
+		return reader;
 	}
 
 	@Override
@@ -0,0 +1,105 @@
+package org.wikidata.wdtk.dumpfiles;
+
+/*
+ * #%L
+ * Wikidata Toolkit Dump File Handling
+ * %%
+ * Copyright (C) 2014 - 2015 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+
+public class ByteLineReaderTest {
+
+	private ByteLineReader makeReader(String content) {
+		return new ByteLineReader(new ByteArrayInputStream(
+				content.getBytes(StandardCharsets.UTF_8)));
+	}
+
+	@Test
+	public void testLines() throws IOException {
+		ByteLineReader reader = makeReader("[\n{\"id\":\"Q1\"},\r\n\nÄö\n]");
+
+		assertTrue(reader.readLine());
+		assertEquals("[", reader.getLineString());
+		assertTrue(reader.readLine());
+		assertEquals("{\"id\":\"Q1\"},", reader.getLineString());
+		assertEquals(12, reader.getLength());
+		assertTrue(reader.readLine());
+		assertEquals(0, reader.getLength());
+		assertTrue(reader.readLine());
+		assertEquals("Äö", reader.getLineString());
+		assertEquals(4, reader.getLength());
+		assertTrue(reader.readLine());
+		assertEquals("]", reader.getLineString());
+		assertFalse(reader.readLine());
+		assertFalse(reader.readLine());
+	}
+
+	@Test
+	public void testFinalNewline() throws IOException {
+		ByteLineReader reader = makeReader("a\n");
+
+		assertTrue(reader.readLine());
+		assertEquals("a", reader.getLineString());
+		assertFalse(reader.readLine());
+	}
+
+	@Test
+	public void testEmptyInput() throws IOException {
+		assertFalse(makeReader("").readLine());
+	}
+
+	@Test
+	public void testLongLines() throws IOException {
+		StringBuilder longLine = new StringBuilder();
+		for (int i = 0; i < 3 * ByteLineReader.READ_BUFFER_SIZE; i++) {
+			longLine.append((char) ('a' + i % 26));
+		}
+		ByteLineReader reader = makeReader("short\n" + longLine + "\nshort");
+
+		assertTrue(reader.readLine());
+		byte[] buffer = reader.getBuffer();
+		assertTrue(reader.readLine());
+		assertEquals(longLine.toString(), reader.getLineString());
+		assertTrue(reader.readLine());
+		assertEquals("short", reader.getLineString());
+		assertTrue(buffer.length < reader.getBuffer().length);
+		assertFalse(reader.readLine());
+	}
+
+	@Test
+	public void testBufferIsReused() throws IOException {
+		ByteLineReader reader = makeReader("first line\nsecond line\n");
+
+		assertTrue(reader.readLine());
+		byte[] buffer = reader.getBuffer();
+		assertTrue(reader.readLine());
+		assertSame(buffer, reader.getBuffer());
+		assertEquals("second line", new String(buffer, 0, reader.getLength(),
+				StandardCharsets.UTF_8));
+	}
+
+}
@@ -0,0 +1,207 @@
+package org.wikidata.wdtk.examples;
+
+/*
+ * #%L
+ * Wikidata Toolkit Examples
+ * %%
+ * Copyright (C) 2014 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+
+import org.wikidata.wdtk.util.Timer;
+
+/**
+ * Static helper methods for the benchmark programs in this package. A
+ * benchmark run is repeated a few times to warm up the JVM, and then the
+ * average wall time and the average memory allocated by further runs are
+ * measured.
+ * <p>
+ * Allocations are counted for the current thread, which requires a JVM that
+ * supports {@link com.sun.management.ThreadMXBean}; see
+ * {@link #canMeasureAllocation()}.
+ */
+public class BenchmarkHelpers {
+
+	/**
+	 * Number of synthetic entities that benchmarks process in one run.
+	 */
+	public static final int ITEM_COUNT = 2000;
+
+	/**
+	 * Number of runs that are made before measuring.
+	 */
+	public static final int WARMUP_RUNS = 5;
+
+	/**
+	 * Number of runs that are measured.
+	 */
+	public static final int MEASURED_RUNS = 10;
+
+	/**
+	 * One run of the code that is measured.
+	 */
+	public interface BenchmarkRun {
+		/**
+		 * Performs the measured work once. The result should be computed from
+		 * the work that was done, so that it cannot be optimized away.
+		 *
+		 * @return a number computed by the run
+		 * @throws IOException
+		 *             if the measured code fails
+		 */
+		long run() throws IOException;
+	}
+
+	/**
+	 * The result of measuring a {@link BenchmarkRun}.
+	 */
+	public static class Measurement {
+		final long averageTime;
+		final long averageAllocatedBytes;
+		final long resultSum;
+
+		Measurement(long averageTime, long averageAllocatedBytes,
+				long resultSum) {
+			this.averageTime = averageTime;
+			this.averageAllocatedBytes = averageAllocatedBytes;
+			this.resultSum = resultSum;
+		}
+
+		/**
+		 * Returns the average wall time of one run in nanoseconds.
+		 *
+		 * @return average time
+		 */
+		public long getAverageTime() {
+			return this.averageTime;
+		}
+
+		/**
+		 * Returns the average number of bytes allocated in one run, or -1 if
+		 * this cannot be measured.
+		 *
+		 * @return average number of bytes
+		 */
+		public long getAverageAllocatedBytes() {
+			return this.averageAllocatedBytes;
+		}
+
+		/**
+		 * Returns the sum of the results of all measured runs.
+		 *
+		 * @return sum of results
+		 */
+		public long getResultSum() {
+			return this.resultSum;
+		}
+	}
+
+	/**
+	 * Returns true if the memory allocated by the current thread can be
+	 * measured in this JVM.
+	 *
+	 * @return true if allocations are measured
+	 */
+	public static boolean canMeasureAllocation() {
+		return getAllocationBean() != null;
+	}
+
+	/**
+	 * Makes {@link #WARMUP_RUNS} unmeasured runs and then measures
+	 * {@link #MEASURED_RUNS} further runs.
+	 *
+	 * @param benchmarkRun
+	 *            the run to measure
+	 * @return the measurement
+	 * @throws IOException
+	 *             if the measured code fails
+	 */
+	public static Measurement measure(BenchmarkRun benchmarkRun)
+			throws IOException {
+		for (int i = 0; i < WARMUP_RUNS; i++) {
+			benchmarkRun.run();
+		}
+
+		com.sun.management.ThreadMXBean allocationBean = getAllocationBean();
+		long threadId = Thread.currentThread().getId();
+		long allocatedBefore = allocationBean != null ? allocationBean
+				.getThreadAllocatedBytes(threadId) : 0;
+		Timer timer = new Timer("benchmark", Timer.RECORD_WALLTIME);
+		long resultSum = 0;
+		for (int i = 0; i < MEASURED_RUNS; i++) {
+			timer.start();
+			resultSum += benchmarkRun.run();
+			timer.stop();
+		}
+		long averageAllocatedBytes = -1;
+		if (allocationBean != null) {
+			averageAllocatedBytes = (allocationBean
+					.getThreadAllocatedBytes(threadId) - allocatedBefore)
+					/ MEASURED_RUNS;
+		}
+
+		if (resultSum == 0) { // keep the result alive
+			System.out.println("*** The measured runs computed nothing.");
+		}
+		return new Measurement(timer.getAvgWallTime(), averageAllocatedBytes,
+				resultSum);
+	}
+
+	/**
+	 * Prints some basic documentation about a benchmark program.
+	 *
+	 * @param programName
+	 *            the name of the program
+	 * @param descriptionLines
+	 *            the lines of the description
+	 */
+	public static void printDocumentation(String programName,
+			String... descriptionLines) {
+		System.out
+				.println("********************************************************************");
+		System.out.println("*** Wikidata Toolkit: " + programName);
+		System.out.println("*** ");
+		for (String line : descriptionLines) {
+			System.out.println("*** " + line);
+		}
+		System.out.println("*** It does not need any network access or dump files.");
+		System.out
+				.println("********************************************************************");
+	}
+
+	/**
+	 * Returns the bean for measuring the memory allocated by threads, or null
+	 * if this JVM does not support this.
+	 *
+	 * @return the bean or null
+	 */
+	static com.sun.management.ThreadMXBean getAllocationBean() {
+		java.lang.management.ThreadMXBean threadBean = ManagementFactory
+				.getThreadMXBean();
+		if (!(threadBean instanceof com.sun.management.ThreadMXBean)) {
+			return null;
+		}
+		com.sun.management.ThreadMXBean allocationBean = (com.sun.management.ThreadMXBean) threadBean;
+		if (!allocationBean.isThreadAllocatedMemorySupported()) {
+			return null;
+		}
+		allocationBean.setThreadAllocatedMemoryEnabled(true);
+		return allocationBean;
+	}
+
+}
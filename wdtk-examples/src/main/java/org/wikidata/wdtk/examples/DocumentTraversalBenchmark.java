@@ -0,0 +1,188 @@
+package org.wikidata.wdtk.examples;
+
+/*
+ * #%L
+ * Wikidata Toolkit Examples
+ * %%
+ * Copyright (C) 2014 - 2015 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import static org.wikidata.wdtk.examples.BenchmarkHelpers.ITEM_COUNT;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.List;
+
+import org.wikidata.wdtk.datamodel.helpers.Datamodel;
+import org.wikidata.wdtk.datamodel.helpers.DatamodelMapper;
+import org.wikidata.wdtk.datamodel.implementation.EntityDocumentWalker;
+import org.wikidata.wdtk.datamodel.implementation.ItemDocumentImpl;
+import org.wikidata.wdtk.datamodel.interfaces.EntityDocumentVisitor;
+import org.wikidata.wdtk.datamodel.interfaces.ItemDocument;
+import org.wikidata.wdtk.datamodel.interfaces.Reference;
+import org.wikidata.wdtk.datamodel.interfaces.Snak;
+import org.wikidata.wdtk.datamodel.interfaces.SnakGroup;
+import org.wikidata.wdtk.datamodel.interfaces.Statement;
+import org.wikidata.wdtk.examples.BenchmarkHelpers.Measurement;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+/**
+ * Measures the memory allocated and the time needed for counting the
+ * statements, qualifiers and reference snaks of freshly parsed items, as done
+ * when processing dumps. It compares iterating over
+ * {@link ItemDocument#getAllStatements()}, {@link Statement#getQualifiers()}
+ * and {@link Reference#getSnakGroups()} with visiting the documents with an
+ * {@link EntityDocumentWalker}. The memory used for parsing, which is
+ * measured separately, is subtracted; times are measured for the traversal
+ * only.
+ * <p>
+ * Allocations are measured as described in {@link BenchmarkHelpers}. The
+ * program does not need any network access or dump files.
+ */
+public class DocumentTraversalBenchmark {
+
+	static final int STATEMENT_COUNT = 50;
+
+	static final int MODE_PARSE_ONLY = 0;
+	static final int MODE_ITERATORS = 1;
+	static final int MODE_WALKER = 2;
+
+	static final String[] MODE_NAMES = { "parsing only", "iterators", "walker" };
+
+	/**
+	 * Number of parts counted in the last run, kept to use the result.
+	 */
+	static long count = 0;
+
+	/**
+	 * Visitor that counts all parts of statements.
+	 */
+	static class CountingVisitor implements EntityDocumentVisitor {
+		long count = 0;
+
+		@Override
+		public boolean onStatement(Statement statement, Context context) {
+			this.count++;
+			return true;
+		}
+
+		@Override
+		public void onQualifier(Snak qualifier, Context context) {
+			this.count++;
+		}
+
+		@Override
+		public void onReferenceSnak(Snak snak, Context context) {
+			this.count++;
+		}
+	}
+
+	public static void main(String[] args) throws IOException {
+		ExampleHelpers.configureLogging();
+		BenchmarkHelpers.printDocumentation("DocumentTraversalBenchmark",
+				"This program measures the memory allocated per entity when",
+				"visiting all statements, qualifiers and references of parsed",
+				"items.");
+		if (!BenchmarkHelpers.canMeasureAllocation()) {
+			System.out
+					.println("*** This JVM cannot measure allocated memory. Stopping.");
+			return;
+		}
+
+		ObjectMapper mapper = new DatamodelMapper(Datamodel.SITE_WIKIDATA);
+		ObjectReader reader = mapper.readerFor(ItemDocumentImpl.class);
+		byte[][] documents = new byte[ITEM_COUNT][];
+		for (int i = 0; i < ITEM_COUNT; i++) {
+			documents[i] = mapper.writeValueAsBytes(JsonReadingBenchmark
+					.makeItem(i, STATEMENT_COUNT));
+		}
+
+		long[] allocatedPerMode = new long[MODE_NAMES.length];
+		long[] timePerMode = new long[MODE_NAMES.length];
+		for (int mode = 0; mode < MODE_NAMES.length; mode++) {
+			final int currentMode = mode;
+			Measurement measurement = BenchmarkHelpers.measure(() -> run(
+					documents, currentMode, reader));
+			allocatedPerMode[mode] = measurement.getAverageAllocatedBytes()
+					/ ITEM_COUNT;
+			timePerMode[mode] = measurement.getResultSum()
+					/ BenchmarkHelpers.MEASURED_RUNS;
+		}
+		if (count == 0) {
+			System.out.println("*** No statements found.");
+		}
+
+		for (int mode = MODE_ITERATORS; mode < MODE_NAMES.length; mode++) {
+			System.out.println("*** "
+					+ MODE_NAMES[mode]
+					+ ": "
+					+ (allocatedPerMode[mode] - allocatedPerMode[MODE_PARSE_ONLY])
+					+ " bytes allocated per entity, "
+					+ (timePerMode[mode] / 1000)
+					+ " microseconds per " + ITEM_COUNT + " entities");
+		}
+	}
+
+	/**
+	 * Parses all documents and counts their parts in the given mode. Returns
+	 * the nanoseconds spent on counting, without parsing.
+	 */
+	static long run(byte[][] documents, int mode, ObjectReader reader)
+			throws IOException {
+		long traversalTime = 0;
+		long count = 0;
+		EntityDocumentWalker walker = new EntityDocumentWalker();
+		CountingVisitor visitor = new CountingVisitor();
+		for (byte[] json : documents) {
+			ItemDocument document = reader.readValue(json);
+			long start = System.nanoTime();
+			if (mode == MODE_ITERATORS) {
+				count += countWithIterators(document);
+			} else if (mode == MODE_WALKER) {
+				walker.walk(document, visitor);
+			}
+			traversalTime += System.nanoTime() - start;
+		}
+		DocumentTraversalBenchmark.count = count + visitor.count;
+		return traversalTime;
+	}
+
+	/**
+	 * Counts the statements, qualifiers and reference snaks of a document
+	 * with the iterators and lists of the datamodel.
+	 */
+	static long countWithIterators(ItemDocument document) {
+		long count = 0;
+		Iterator<Statement> statements = document.getAllStatements();
+		while (statements.hasNext()) {
+			Statement statement = statements.next();
+			count++;
+			for (SnakGroup snakGroup : statement.getQualifiers()) {
+				count += snakGroup.getSnaks().size();
+			}
+			for (Reference reference : statement.getReferences()) {
+				List<SnakGroup> snakGroups = reference.getSnakGroups();
+				for (SnakGroup snakGroup : snakGroups) {
+					count += snakGroup.getSnaks().size();
+				}
+			}
+		}
+		return count;
+	}
+
+}
@@ -0,0 +1,155 @@
+package org.wikidata.wdtk.examples;
+
+/*
+ * #%L
+ * Wikidata Toolkit Examples
+ * %%
+ * Copyright (C) 2014 - 2015 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import static org.wikidata.wdtk.examples.BenchmarkHelpers.ITEM_COUNT;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+
+import org.wikidata.wdtk.datamodel.helpers.Datamodel;
+import org.wikidata.wdtk.datamodel.helpers.DatamodelMapper;
+import org.wikidata.wdtk.datamodel.implementation.ItemDocumentImpl;
+import org.wikidata.wdtk.datamodel.implementation.TermedStatementDocumentImpl;
+import org.wikidata.wdtk.dumpfiles.ByteLineReader;
+import org.wikidata.wdtk.examples.BenchmarkHelpers.Measurement;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+/**
+ * Measures how many bytes are allocated per entity when parsing JSON dumps
+ * line by line, as done in the recovery mode of JSON dump processing, and
+ * when parsing the JSON of revisions in XML dumps. It compares reading lines
+ * as strings with reading them into a reused byte buffer with
+ * {@link ByteLineReader}, and creating a new Jackson reader for every
+ * revision with using one shared reader.
+ * <p>
+ * Allocations are measured as described in {@link BenchmarkHelpers}. The
+ * program does not need any network access or dump files.
+ */
+public class DumpParsingAllocationBenchmark {
+
+	static final int STATEMENT_COUNT = 20;
+
+	static final int MODE_STRING_LINES = 0;
+	static final int MODE_BYTE_LINES = 1;
+	static final int MODE_NEW_READER = 2;
+	static final int MODE_SHARED_READER = 3;
+
+	static final String[] MODE_NAMES = { "string lines", "byte lines",
+			"new reader per revision", "shared reader" };
+
+	public static void main(String[] args) throws IOException {
+		ExampleHelpers.configureLogging();
+		BenchmarkHelpers.printDocumentation("DumpParsingAllocationBenchmark",
+				"This program measures the memory allocated per entity when",
+				"parsing the JSON of entities line by line, as in dumps.");
+		if (!BenchmarkHelpers.canMeasureAllocation()) {
+			System.out
+					.println("*** This JVM cannot measure allocated memory. Stopping.");
+			return;
+		}
+
+		ObjectMapper mapper = new DatamodelMapper(Datamodel.SITE_WIKIDATA);
+		ObjectReader reader = mapper.readerFor(
+				TermedStatementDocumentImpl.class).with(
+				DeserializationFeature.ACCEPT_EMPTY_ARRAY_AS_NULL_OBJECT);
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		out.write("[\n".getBytes(StandardCharsets.UTF_8));
+		for (int i = 0; i < ITEM_COUNT; i++) {
+			if (i > 0) {
+				out.write(",\n".getBytes(StandardCharsets.UTF_8));
+			}
+			out.write(mapper.writeValueAsBytes(JsonReadingBenchmark.makeItem(
+					i, STATEMENT_COUNT)));
+		}
+		out.write("\n]".getBytes(StandardCharsets.UTF_8));
+		byte[] dump = out.toByteArray();
+
+		for (int mode = 0; mode < MODE_NAMES.length; mode++) {
+			final int currentMode = mode;
+			Measurement measurement = BenchmarkHelpers.measure(() -> parse(
+					dump, currentMode, mapper, reader));
+			System.out.println("*** " + MODE_NAMES[mode] + ": "
+					+ (measurement.getAverageAllocatedBytes() / ITEM_COUNT)
+					+ " bytes allocated per entity, "
+					+ (measurement.getAverageTime() / 1000000) + " ms per "
+					+ ITEM_COUNT + " entities ("
+					+ (dump.length / ITEM_COUNT) + " bytes per entity)");
+		}
+	}
+
+	/**
+	 * Parses all entities of the given dump in the given mode and returns the
+	 * sum of their revision ids.
+	 */
+	static long parse(byte[] dump, int mode, ObjectMapper mapper,
+			ObjectReader reader) throws IOException {
+		long revisions = 0;
+		if (mode == MODE_BYTE_LINES) {
+			ByteLineReader lineReader = new ByteLineReader(
+					new ByteArrayInputStream(dump));
+			lineReader.readLine(); // skip "["
+			while (lineReader.readLine() && lineReader.getLength() > 1) {
+				byte[] buffer = lineReader.getBuffer();
+				int length = lineReader.getLength();
+				if (buffer[length - 1] == ',') {
+					length--;
+				}
+				TermedStatementDocumentImpl document = reader.readValue(
+						buffer, 0, length);
+				revisions += document.getRevisionId();
+			}
+			return revisions;
+		}
+
+		BufferedReader lineReader = new BufferedReader(new InputStreamReader(
+				new ByteArrayInputStream(dump), StandardCharsets.UTF_8));
+		lineReader.readLine(); // skip "["
+		String line = lineReader.readLine();
+		while (line != null && line.length() > 1) {
+			if (line.charAt(line.length() - 1) == ',') {
+				line = line.substring(0, line.length() - 1);
+			}
+			TermedStatementDocumentImpl document;
+			if (mode == MODE_NEW_READER) {
+				// as formerly done for each revision in XML dumps
+				document = mapper
+						.readerFor(ItemDocumentImpl.class)
+						.with(DeserializationFeature.ACCEPT_EMPTY_ARRAY_AS_NULL_OBJECT)
+						.readValue(line);
+			} else {
+				document = reader.readValue(line);
+			}
+			revisions += document.getRevisionId();
+			line = lineReader.readLine();
+		}
+		return revisions;
+	}
+
+}
@@ -184,17 +184,13 @@ public class GenderRatioProcessor implements EntityDocumentProcessor {
 
 		List<EntityIdValue> genderValues = Collections.emptyList();
 		boolean isHumanWithGender = false;
-		boolean isHuman = false;
 
-		for (StatementGroup statementGroup : itemDocument.getStatementGroups()) {
-			switch (statementGroup.getProperty().getId()) {
-			case "P21": // P21 is "sex or gender"
-				genderValues = getItemIdValueList(statementGroup);
-				break;
-			case "P31": // P31 is "instance of"
-				isHuman = containsValue(statementGroup, filterClass);
-				break;
-			}
+		// P31 is "instance of"
+		boolean isHuman = itemDocument.hasStatementValue("P31", filterClass);
+		// P21 is "sex or gender"
+		StatementGroup genderGroup = itemDocument.findStatementGroup("P21");
+		if (genderGroup != null) {
+			genderValues = getItemIdValueList(genderGroup);
 		}
 
 		if (isHuman && genderValues.size() > 0) {
@@ -389,26 +385,6 @@ public class GenderRatioProcessor implements EntityDocumentProcessor {
 		return result;
 	}
 
-	/**
-	 * Checks if the given group of statements contains the given value as the
-	 * value of a main snak of some statement.
-	 *
-	 * @param statementGroup
-	 *            the statement group to scan
-	 * @param value
-	 *            the value to scan for
-	 * @return true if value was found
-	 */
-	private boolean containsValue(StatementGroup statementGroup, Value value) {
-		for (Statement s : statementGroup) {
-			if (value.equals(s.getValue())) {
-				return true;
-			}
-		}
-
-		return false;
-	}
-
 	/**
 	 * Adds a new gender item and an initial name.
 	 *
@@ -0,0 +1,216 @@
+package org.wikidata.wdtk.examples;
+
+/*
+ * #%L
+ * Wikidata Toolkit Examples
+ * %%
+ * Copyright (C) 2014 - 2015 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import static org.wikidata.wdtk.examples.BenchmarkHelpers.ITEM_COUNT;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.wikidata.wdtk.datamodel.helpers.Datamodel;
+import org.wikidata.wdtk.datamodel.helpers.DatamodelMapper;
+import org.wikidata.wdtk.datamodel.helpers.ItemDocumentBuilder;
+import org.wikidata.wdtk.datamodel.helpers.ReferenceBuilder;
+import org.wikidata.wdtk.datamodel.helpers.StatementBuilder;
+import org.wikidata.wdtk.datamodel.implementation.JsonEntityDocumentReader;
+import org.wikidata.wdtk.datamodel.implementation.TermedStatementDocumentImpl;
+import org.wikidata.wdtk.datamodel.interfaces.EntityDocument;
+import org.wikidata.wdtk.datamodel.interfaces.GlobeCoordinatesValue;
+import org.wikidata.wdtk.datamodel.interfaces.ItemDocument;
+import org.wikidata.wdtk.datamodel.interfaces.ItemIdValue;
+import org.wikidata.wdtk.datamodel.interfaces.PropertyIdValue;
+import org.wikidata.wdtk.datamodel.interfaces.Reference;
+import org.wikidata.wdtk.datamodel.interfaces.TimeValue;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.module.afterburner.AfterburnerModule;
+
+/**
+ * Measures how long it takes to read the JSON of entity documents, comparing
+ * the Jackson data binding that is used for dumps with
+ * {@link JsonEntityDocumentReader}. The documents are synthetic items with
+ * terms, site links, and statements with all common types of values,
+ * qualifiers and references. Both readers are checked to return equal
+ * documents.
+ * <p>
+ * The program does not need any network access or dump files.
+ */
+public class JsonReadingBenchmark {
+
+	static final PropertyIdValue INSTANCE_OF = Datamodel
+			.makeWikidataPropertyIdValue("P31");
+	static final PropertyIdValue DATE_OF_BIRTH = Datamodel
+			.makeWikidataPropertyIdValue("P569");
+	static final PropertyIdValue COORDINATES = Datamodel
+			.makeWikidataPropertyIdValue("P625");
+	static final PropertyIdValue POPULATION = Datamodel
+			.makeWikidataPropertyIdValue("P1082");
+	static final PropertyIdValue TITLE = Datamodel
+			.makeWikidataPropertyIdValue("P1476");
+	static final PropertyIdValue STATED_IN = Datamodel
+			.makeWikidataPropertyIdValue("P248");
+	static final PropertyIdValue REFERENCE_URL = Datamodel
+			.makeWikidataPropertyIdValue("P854");
+
+	static final int[] STATEMENT_COUNTS = { 10, 100 };
+
+	public static void main(String[] args) throws IOException {
+		ExampleHelpers.configureLogging();
+		BenchmarkHelpers.printDocumentation("JsonReadingBenchmark",
+				"This program measures the time needed to read entity documents",
+				"from JSON with Jackson data binding and with the streaming",
+				"JsonEntityDocumentReader.");
+
+		ObjectMapper mapper = new DatamodelMapper(Datamodel.SITE_WIKIDATA);
+		// the same configuration as used for reading JSON dumps
+		ObjectMapper readingMapper = new DatamodelMapper(
+				Datamodel.SITE_WIKIDATA);
+		readingMapper.registerModule(new AfterburnerModule());
+		ObjectReader databindReader = readingMapper.readerFor(
+				TermedStatementDocumentImpl.class).with(
+				DeserializationFeature.ACCEPT_EMPTY_ARRAY_AS_NULL_OBJECT);
+		JsonEntityDocumentReader streamingReader = new JsonEntityDocumentReader(
+				Datamodel.SITE_WIKIDATA);
+
+		for (int statementCount : STATEMENT_COUNTS) {
+			List<String> jsonDocuments = new ArrayList<>(ITEM_COUNT);
+			long bytes = 0;
+			for (int i = 0; i < ITEM_COUNT; i++) {
+				String json = mapper.writeValueAsString(makeItem(i,
+						statementCount));
+				jsonDocuments.add(json);
+				bytes += json.length();
+			}
+			for (String json : jsonDocuments) {
+				if (!databindReader.readValue(json).equals(
+						streamingReader.readEntityDocument(json))) {
+					throw new IllegalStateException(
+							"Readers returned different documents for " + json);
+				}
+			}
+
+			long databindTime = BenchmarkHelpers.measure(
+					() -> read(jsonDocuments, databindReader, null))
+					.getAverageTime();
+			long streamingTime = BenchmarkHelpers.measure(
+					() -> read(jsonDocuments, null, streamingReader))
+					.getAverageTime();
+			System.out.println("*** " + statementCount + " statements ("
+					+ (bytes / ITEM_COUNT) + " bytes per item): "
+					+ (databindTime / 1000000) + " ms with data binding, "
+					+ (streamingTime / 1000000) + " ms with streaming, per "
+					+ ITEM_COUNT + " items");
+		}
+	}
+
+	/**
+	 * Reads all documents and returns the sum of their revision ids.
+	 */
+	static long read(List<String> jsonDocuments, ObjectReader databindReader,
+			JsonEntityDocumentReader streamingReader) throws IOException {
+		long revisions = 0;
+		for (String json : jsonDocuments) {
+			EntityDocument document;
+			if (databindReader != null) {
+				document = databindReader.readValue(json);
+			} else {
+				document = streamingReader.readEntityDocument(json);
+			}
+			revisions += document.getRevisionId();
+		}
+		return revisions;
+	}
+
+	/**
+	 * Creates an item with the given number of statements, which use values
+	 * of different types, qualifiers and references.
+	 */
+	static ItemDocument makeItem(int number, int statementCount) {
+		ItemIdValue subject = Datamodel.makeWikidataItemIdValue("Q"
+				+ (number + 1000));
+		ItemDocumentBuilder builder = ItemDocumentBuilder.forItemId(subject)
+				.withLabel("Item " + number, "en")
+				.withLabel("Element " + number, "de")
+				.withDescription("synthetic item", "en")
+				.withAlias("Alias " + number, "en")
+				.withSiteLink("Page " + number, "enwiki")
+				.withRevisionId(number + 1);
+		Reference reference = ReferenceBuilder
+				.newInstance()
+				.withPropertyValue(STATED_IN,
+						Datamodel.makeWikidataItemIdValue("Q36578"))
+				.withPropertyValue(REFERENCE_URL,
+						Datamodel.makeStringValue("http://example.org/"
+								+ number)).build();
+		for (int i = 0; i < statementCount; i++) {
+			StatementBuilder statement;
+			switch (i % 5) {
+			case 0:
+				statement = StatementBuilder.forSubjectAndProperty(subject,
+						INSTANCE_OF).withValue(
+						Datamodel.makeWikidataItemIdValue("Q" + (i + 5)));
+				break;
+			case 1:
+				statement = StatementBuilder.forSubjectAndProperty(subject,
+						DATE_OF_BIRTH).withValue(
+						Datamodel.makeTimeValue(1900 + i, (byte) 3,
+								(byte) 11, (byte) 0, (byte) 0, (byte) 0,
+								TimeValue.PREC_DAY, 0, 0, 0,
+								TimeValue.CM_GREGORIAN_PRO));
+				break;
+			case 2:
+				statement = StatementBuilder.forSubjectAndProperty(subject,
+						COORDINATES).withValue(
+						Datamodel.makeGlobeCoordinatesValue(51.5, -0.1 * i,
+								GlobeCoordinatesValue.PREC_ARCSECOND,
+								GlobeCoordinatesValue.GLOBE_EARTH));
+				break;
+			case 3:
+				statement = StatementBuilder.forSubjectAndProperty(subject,
+						POPULATION)
+						.withValue(
+								Datamodel.makeQuantityValue(new BigDecimal(
+										1000 * i), "1"))
+						.withQualifierValue(
+								DATE_OF_BIRTH,
+								Datamodel.makeTimeValue(2000 + i / 10,
+										(byte) 1, (byte) 1, (byte) 0,
+										(byte) 0, (byte) 0,
+										TimeValue.PREC_YEAR, 0, 0, 0,
+										TimeValue.CM_GREGORIAN_PRO));
+				break;
+			default:
+				statement = StatementBuilder.forSubjectAndProperty(subject,
+						TITLE).withValue(
+						Datamodel.makeMonolingualTextValue("Title " + i, "en"));
+			}
+			builder.withStatement(statement
+					.withId("Q" + (number + 1000) + "$" + i)
+					.withReference(reference).build());
+		}
+		return builder.build();
+	}
+
+}
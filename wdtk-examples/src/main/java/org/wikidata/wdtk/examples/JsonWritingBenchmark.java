@@ -0,0 +1,117 @@
+package org.wikidata.wdtk.examples;
+
+/*
+ * #%L
+ * Wikidata Toolkit Examples
+ * %%
+ * Copyright (C) 2014 - 2015 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import static org.wikidata.wdtk.examples.BenchmarkHelpers.ITEM_COUNT;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.wikidata.wdtk.datamodel.helpers.Datamodel;
+import org.wikidata.wdtk.datamodel.helpers.DatamodelMapper;
+import org.wikidata.wdtk.datamodel.implementation.JsonEntityDocumentWriter;
+import org.wikidata.wdtk.datamodel.interfaces.EntityDocument;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Measures the throughput of writing entity documents to JSON, comparing
+ * Jackson data binding with {@link JsonEntityDocumentWriter}. The documents
+ * are the synthetic items of {@link JsonReadingBenchmark}. Both ways of
+ * writing are checked to produce the same JSON.
+ * <p>
+ * The program does not need any network access or dump files.
+ */
+public class JsonWritingBenchmark {
+
+	static final int[] STATEMENT_COUNTS = { 10, 100 };
+
+	public static void main(String[] args) throws IOException {
+		ExampleHelpers.configureLogging();
+		BenchmarkHelpers.printDocumentation("JsonWritingBenchmark",
+				"This program measures the time needed to write entity documents",
+				"to JSON with Jackson data binding and with the streaming",
+				"JsonEntityDocumentWriter.");
+
+		ObjectMapper mapper = new DatamodelMapper(Datamodel.SITE_WIKIDATA);
+		mapper.configure(JsonGenerator.Feature.AUTO_CLOSE_TARGET, false);
+		JsonEntityDocumentWriter writer = new JsonEntityDocumentWriter();
+
+		for (int statementCount : STATEMENT_COUNTS) {
+			List<EntityDocument> documents = new ArrayList<>(ITEM_COUNT);
+			for (int i = 0; i < ITEM_COUNT; i++) {
+				documents.add(JsonReadingBenchmark.makeItem(i, statementCount));
+			}
+			for (EntityDocument document : documents) {
+				if (!mapper.readTree(mapper.writeValueAsBytes(document)).equals(
+						mapper.readTree(writer.writeToBytes(document)))) {
+					throw new IllegalStateException(
+							"Writers returned different JSON for " + document);
+				}
+			}
+
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			long bytes = write(documents, mapper, null, out);
+			long databindTime = BenchmarkHelpers.measure(
+					() -> write(documents, mapper, null, out)).getAverageTime();
+			long streamingTime = BenchmarkHelpers.measure(
+					() -> write(documents, null, writer, out)).getAverageTime();
+			System.out.println("*** " + statementCount + " statements ("
+					+ (bytes / ITEM_COUNT) + " bytes per item): "
+					+ (databindTime / 1000000) + " ms ("
+					+ megabytesPerSecond(bytes, databindTime)
+					+ " MB/s) with data binding, "
+					+ (streamingTime / 1000000) + " ms ("
+					+ megabytesPerSecond(bytes, streamingTime)
+					+ " MB/s) with streaming, per " + ITEM_COUNT + " items");
+		}
+	}
+
+	/**
+	 * Writes all documents to the given buffer, as done when writing a dump,
+	 * and returns the number of bytes written.
+	 */
+	static long write(List<EntityDocument> documents, ObjectMapper mapper,
+			JsonEntityDocumentWriter writer, ByteArrayOutputStream out)
+			throws IOException {
+		out.reset();
+		for (EntityDocument document : documents) {
+			if (mapper != null) {
+				mapper.writeValue(out, document);
+			} else {
+				writer.write(document, out);
+			}
+			out.write('\n');
+		}
+		return out.size();
+	}
+
+	/**
+	 * Returns the throughput for the given number of bytes and nanoseconds.
+	 */
+	static long megabytesPerSecond(long bytes, long nanoseconds) {
+		return bytes * 1000 / Math.max(nanoseconds, 1);
+	}
+
+}
@@ -0,0 +1,113 @@
+package org.wikidata.wdtk.examples;
+
+/*
+ * #%L
+ * Wikidata Toolkit Examples
+ * %%
+ * Copyright (C) 2014 - 2015 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.io.IOException;
+import java.math.BigDecimal;
+
+import org.wikidata.wdtk.datamodel.helpers.Datamodel;
+import org.wikidata.wdtk.datamodel.helpers.DatamodelMapper;
+import org.wikidata.wdtk.datamodel.implementation.QuantityValueImpl;
+import org.wikidata.wdtk.datamodel.implementation.TimeValueImpl;
+import org.wikidata.wdtk.datamodel.interfaces.TimeValue;
+import org.wikidata.wdtk.examples.BenchmarkHelpers.Measurement;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+/**
+ * Measures the time needed for simple statistics over quantity and time
+ * values as they are read from JSON: the sum of all amounts, computed with
+ * {@link QuantityValueImpl#getNumericValueAsDouble()} and with
+ * {@link BigDecimal}, and the sum of all years of time values.
+ * <p>
+ * The program does not need any network access or dump files.
+ */
+public class NumericValueBenchmark {
+
+	static final int VALUE_COUNT = 100000;
+
+	public static void main(String[] args) throws IOException {
+		ExampleHelpers.configureLogging();
+		BenchmarkHelpers.printDocumentation("NumericValueBenchmark",
+				"This program measures the time needed to read quantity and time",
+				"values from JSON and to compute sums over them.");
+
+		ObjectMapper mapper = new DatamodelMapper(Datamodel.SITE_WIKIDATA);
+		ObjectReader quantityReader = mapper.readerFor(QuantityValueImpl.class);
+		ObjectReader timeReader = mapper.readerFor(TimeValueImpl.class);
+
+		byte[][] quantities = new byte[VALUE_COUNT][];
+		byte[][] times = new byte[VALUE_COUNT][];
+		for (int i = 0; i < VALUE_COUNT; i++) {
+			quantities[i] = ("{\"value\":{\"amount\":\"+" + (i * 37 % 100000)
+					+ "." + (i % 100) + "\",\"lowerBound\":\"+" + (i * 37 % 100000)
+					+ "\",\"upperBound\":\"+" + (i * 37 % 100000 + 1)
+					+ "\",\"unit\":\"1\"},\"type\":\"quantity\"}").getBytes();
+			times[i] = ("{\"value\":{\"time\":\"+" + (1000 + i % 1000)
+					+ "-0" + (1 + i % 9) + "-1" + (i % 10)
+					+ "T00:00:00Z\",\"timezone\":0,\"before\":0,\"after\":0,"
+					+ "\"precision\":11,\"calendarmodel\":\""
+					+ TimeValue.CM_GREGORIAN_PRO + "\"},\"type\":\"time\"}")
+					.getBytes();
+		}
+
+		String[] modeNames = { "amounts as double", "amounts as BigDecimal",
+				"years" };
+		for (int mode = 0; mode < modeNames.length; mode++) {
+			final int currentMode = mode;
+			Measurement measurement = BenchmarkHelpers.measure(() -> (long) run(
+					currentMode, quantities, times, quantityReader, timeReader));
+			System.out.println("*** " + modeNames[mode] + ": "
+					+ (measurement.getAverageTime() / 1000000) + " ms per "
+					+ VALUE_COUNT + " values (sum "
+					+ measurement.getResultSum()
+					/ BenchmarkHelpers.MEASURED_RUNS + ")");
+		}
+	}
+
+	/**
+	 * Reads all values that are relevant for the given mode and returns the
+	 * sum of their amounts or years.
+	 */
+	static double run(int mode, byte[][] quantities, byte[][] times,
+			ObjectReader quantityReader, ObjectReader timeReader)
+			throws IOException {
+		double sum = 0;
+		if (mode == 2) {
+			for (byte[] time : times) {
+				TimeValue value = timeReader.readValue(time);
+				sum += value.getYear();
+			}
+			return sum;
+		}
+		for (byte[] quantity : quantities) {
+			QuantityValueImpl value = quantityReader.readValue(quantity);
+			if (mode == 0) {
+				sum += value.getNumericValueAsDouble();
+			} else {
+				sum += value.getNumericValue().doubleValue();
+			}
+		}
+		return sum;
+	}
+
+}
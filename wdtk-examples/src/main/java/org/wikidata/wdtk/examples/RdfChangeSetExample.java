@@ -0,0 +1,147 @@
+package org.wikidata.wdtk.examples;
+
+/*
+ * #%L
+ * Wikidata Toolkit Examples
+ * %%
+ * Copyright (C) 2014 - 2015 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import org.apache.commons.compress.compressors.gzip.GzipCompressorOutputStream;
+import org.wikidata.wdtk.datamodel.interfaces.EntityDocumentProcessor;
+import org.wikidata.wdtk.datamodel.interfaces.Sites;
+import org.wikidata.wdtk.dumpfiles.DumpContentType;
+import org.wikidata.wdtk.dumpfiles.DumpProcessingController;
+import org.wikidata.wdtk.dumpfiles.MwLocalDumpFile;
+import org.wikidata.wdtk.rdf.PropertyRegister;
+import org.wikidata.wdtk.rdf.RdfChangeSetWriter;
+import org.wikidata.wdtk.rdf.RdfDumpComparator;
+
+/**
+ * This class shows how to compute the RDF changes between two local JSON
+ * dumps. The triples to delete and to insert are written to two compressed
+ * N-Triples files in the example output directory. A triple store that was
+ * loaded from an RDF export of the previous dump can be brought up to date by
+ * applying the deletions first and the insertions afterwards.
+ * <p>
+ * The paths of the previous and the current dump are given as the two
+ * arguments of the program.
+ */
+public class RdfChangeSetExample {
+
+	public static void main(String[] args) throws IOException {
+		ExampleHelpers.configureLogging();
+		printDocumentation();
+
+		if (args.length != 2) {
+			System.out
+					.println("Usage: RdfChangeSetExample <previous dump> <current dump>");
+			return;
+		}
+		MwLocalDumpFile previousDump = new MwLocalDumpFile(args[0]);
+		previousDump.setDumpContentType(DumpContentType.JSON);
+		MwLocalDumpFile currentDump = new MwLocalDumpFile(args[1]);
+		currentDump.setDumpContentType(DumpContentType.JSON);
+
+		// Sites are only needed to export links to Wikipedia pages
+		DumpProcessingController sitesController = new DumpProcessingController(
+				"wikidatawiki");
+		sitesController.setOfflineMode(ExampleHelpers.OFFLINE_MODE);
+		Sites sites = sitesController.getSitesInformation();
+
+		// The change set writer closes both outputs when it is closed
+		RdfChangeSetWriter changeSetWriter = new RdfChangeSetWriter(
+				openOutput("wikidata-deletions.nt.gz"),
+				openOutput("wikidata-insertions.nt.gz"), sites,
+				PropertyRegister.getWikidataPropertyRegister());
+		RdfDumpComparator comparator = new RdfDumpComparator(changeSetWriter);
+
+		changeSetWriter.open();
+		processDump(previousDump, comparator.getPreviousDigestProcessor());
+		processDump(currentDump, comparator.getInsertionProcessor());
+		processDump(previousDump, comparator.getDeletionProcessor());
+		changeSetWriter.close();
+
+		System.out.println("Unchanged entities: "
+				+ comparator.getUnchangedEntityCount());
+		System.out.println("New entities: " + comparator.getNewEntityCount());
+		System.out.println("Changed entities: "
+				+ comparator.getChangedEntityCount());
+		System.out.println("Deleted entities: "
+				+ comparator.getDeletedEntityCount());
+		System.out.println("Deleted triples: "
+				+ changeSetWriter.getDeletedTripleCount());
+		System.out.println("Inserted triples: "
+				+ changeSetWriter.getInsertedTripleCount());
+	}
+
+	/**
+	 * Sends all current entity documents of the given dump to the given
+	 * processor.
+	 *
+	 * @param dumpFile
+	 *            the dump to process
+	 * @param processor
+	 *            the processor to send documents to
+	 */
+	static void processDump(MwLocalDumpFile dumpFile,
+			EntityDocumentProcessor processor) {
+		DumpProcessingController dumpProcessingController = new DumpProcessingController(
+				"wikidatawiki");
+		dumpProcessingController.registerEntityDocumentProcessor(processor,
+				null, true);
+		dumpProcessingController.processDump(dumpFile);
+	}
+
+	/**
+	 * Opens a compressed output stream for the given file in the example
+	 * output directory.
+	 *
+	 * @param filename
+	 *            name of the file
+	 * @return the output stream
+	 * @throws IOException
+	 *             if the file could not be opened
+	 */
+	static OutputStream openOutput(String filename) throws IOException {
+		return new GzipCompressorOutputStream(new BufferedOutputStream(
+				ExampleHelpers.openExampleFileOuputStream(filename),
+				1024 * 1024 * 5));
+	}
+
+	/**
+	 * Prints some basic documentation about this program.
+	 */
+	public static void printDocumentation() {
+		System.out
+				.println("********************************************************************");
+		System.out.println("*** Wikidata Toolkit: RdfChangeSetExample");
+		System.out.println("*** ");
+		System.out
+				.println("*** This program compares two local JSON dumps and writes the RDF");
+		System.out
+				.println("*** triples to delete and to insert to update an RDF export of the");
+		System.out
+				.println("*** previous dump. Unchanged entities are recognized by digests and");
+		System.out.println("*** are not exported at all.");
+		System.out
+				.println("********************************************************************");
+	}
+}
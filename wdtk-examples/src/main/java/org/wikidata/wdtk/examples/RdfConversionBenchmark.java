@@ -0,0 +1,220 @@
+package org.wikidata.wdtk.examples;
+
+/*
+ * #%L
+ * Wikidata Toolkit Examples
+ * %%
+ * Copyright (C) 2014 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import static org.wikidata.wdtk.examples.BenchmarkHelpers.ITEM_COUNT;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.openrdf.model.Statement;
+import org.openrdf.rio.RDFHandlerException;
+import org.openrdf.rio.helpers.RDFHandlerBase;
+import org.wikidata.wdtk.datamodel.helpers.Datamodel;
+import org.wikidata.wdtk.datamodel.helpers.DatamodelMapper;
+import org.wikidata.wdtk.datamodel.implementation.DatatypeIdImpl;
+import org.wikidata.wdtk.datamodel.implementation.EntityDocumentWalker;
+import org.wikidata.wdtk.datamodel.implementation.SitesImpl;
+import org.wikidata.wdtk.datamodel.implementation.TermedStatementDocumentImpl;
+import org.wikidata.wdtk.datamodel.implementation.ValueSnakImpl;
+import org.wikidata.wdtk.datamodel.interfaces.EntityDocument;
+import org.wikidata.wdtk.datamodel.interfaces.EntityDocumentVisitor;
+import org.wikidata.wdtk.datamodel.interfaces.ItemDocument;
+import org.wikidata.wdtk.datamodel.interfaces.PropertyDocument;
+import org.wikidata.wdtk.datamodel.interfaces.PropertyIdValue;
+import org.wikidata.wdtk.datamodel.interfaces.Snak;
+import org.wikidata.wdtk.rdf.PropertyRegister;
+import org.wikidata.wdtk.rdf.RdfConverter;
+import org.wikidata.wdtk.rdf.RdfSerializer;
+import org.wikidata.wdtk.rdf.RdfWriter;
+import org.wikidata.wdtk.wikibaseapi.ApiConnection;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+/**
+ * Measures how long it takes to convert entity documents from a sample of a
+ * JSON dump to RDF. The sample is a file with one entity per line, as in JSON
+ * dumps, for example the first lines of a dump; its path is the only argument
+ * of the program. Documents are converted over and over until
+ * {@link BenchmarkHelpers#ITEM_COUNT} documents have been converted in each
+ * run. Only statements are converted, since they make up most of the work,
+ * and the triples are counted but not serialized.
+ * <p>
+ * The datatypes of properties are taken from the snaks in the sample, so the
+ * program does not need any network access.
+ */
+public class RdfConversionBenchmark {
+
+	/**
+	 * Handler that only counts triples.
+	 */
+	static class CountingHandler extends RDFHandlerBase {
+		long count = 0;
+
+		@Override
+		public void handleStatement(Statement st) {
+			this.count++;
+		}
+	}
+
+	/**
+	 * Register that only knows the datatypes it has been told about.
+	 */
+	static class OfflinePropertyRegister extends PropertyRegister {
+		OfflinePropertyRegister() {
+			super("P1921", ApiConnection.getWikidataApiConnection(),
+					Datamodel.SITE_WIKIDATA);
+		}
+
+		@Override
+		protected void fetchPropertyInformation(PropertyIdValue property) {
+			// the datatypes of all properties are set in advance
+		}
+	}
+
+	/**
+	 * Visitor that sets the datatypes of all properties used in value snaks.
+	 */
+	static class DatatypeCollector implements EntityDocumentVisitor {
+		final PropertyRegister propertyRegister;
+
+		DatatypeCollector(PropertyRegister propertyRegister) {
+			this.propertyRegister = propertyRegister;
+		}
+
+		@Override
+		public boolean onStatement(
+				org.wikidata.wdtk.datamodel.interfaces.Statement statement,
+				Context context) {
+			setDatatype(statement.getMainSnak());
+			return true;
+		}
+
+		@Override
+		public void onQualifier(Snak qualifier, Context context) {
+			setDatatype(qualifier);
+		}
+
+		@Override
+		public void onReferenceSnak(Snak snak, Context context) {
+			setDatatype(snak);
+		}
+
+		void setDatatype(Snak snak) {
+			if (snak instanceof ValueSnakImpl) {
+				this.propertyRegister.setPropertyType(snak.getPropertyId(),
+						DatatypeIdImpl
+								.getDatatypeIriFromJsonDatatype(((ValueSnakImpl) snak)
+										.getDatatype()));
+			}
+		}
+	}
+
+	public static void main(String[] args) throws IOException {
+		ExampleHelpers.configureLogging();
+		BenchmarkHelpers.printDocumentation("RdfConversionBenchmark",
+				"This program measures the time needed to convert the entities",
+				"of a sample of a JSON dump to RDF.");
+		if (args.length != 1) {
+			System.out.println("Usage: RdfConversionBenchmark <dump sample>");
+			return;
+		}
+
+		List<EntityDocument> documents = readDocuments(args[0]);
+		PropertyRegister propertyRegister = new OfflinePropertyRegister();
+		EntityDocumentWalker walker = new EntityDocumentWalker();
+		DatatypeCollector datatypeCollector = new DatatypeCollector(
+				propertyRegister);
+		for (EntityDocument document : documents) {
+			walker.walk(document, datatypeCollector);
+		}
+
+		CountingHandler handler = new CountingHandler();
+		RdfConverter rdfConverter = new RdfConverter(new RdfWriter(handler),
+				new SitesImpl(), propertyRegister);
+		rdfConverter.setTasks(RdfSerializer.TASK_ALL_ENTITIES
+				| RdfSerializer.TASK_STATEMENTS
+				| RdfSerializer.TASK_SIMPLE_STATEMENTS);
+
+		long time = BenchmarkHelpers.measure(() -> {
+			handler.count = 0;
+			convert(documents, rdfConverter);
+			return handler.count;
+		}).getAverageTime();
+		System.out.println("*** " + (time / 1000000) + " ms per " + ITEM_COUNT
+				+ " entities (" + documents.size()
+				+ " different entities in the sample, " + handler.count
+				+ " triples per run)");
+	}
+
+	/**
+	 * Converts documents from the given list, starting over at its beginning
+	 * until {@link BenchmarkHelpers#ITEM_COUNT} documents have been
+	 * converted.
+	 */
+	static void convert(List<EntityDocument> documents,
+			RdfConverter rdfConverter) throws IOException {
+		try {
+			for (int i = 0; i < ITEM_COUNT; i++) {
+				EntityDocument document = documents.get(i % documents.size());
+				if (document instanceof ItemDocument) {
+					rdfConverter.writeItemDocument((ItemDocument) document);
+				} else if (document instanceof PropertyDocument) {
+					rdfConverter
+							.writePropertyDocument((PropertyDocument) document);
+				}
+			}
+		} catch (RDFHandlerException e) {
+			throw new IOException(e);
+		}
+	}
+
+	/**
+	 * Reads the entities of a JSON dump sample with one entity per line.
+	 */
+	static List<EntityDocument> readDocuments(String path) throws IOException {
+		ObjectReader reader = new DatamodelMapper(Datamodel.SITE_WIKIDATA)
+				.readerFor(TermedStatementDocumentImpl.class).with(
+						DeserializationFeature.ACCEPT_EMPTY_ARRAY_AS_NULL_OBJECT);
+		List<EntityDocument> documents = new ArrayList<>();
+		try (BufferedReader lineReader = Files.newBufferedReader(
+				Paths.get(path), StandardCharsets.UTF_8)) {
+			String line;
+			while ((line = lineReader.readLine()) != null) {
+				line = line.trim();
+				if (line.endsWith(",")) {
+					line = line.substring(0, line.length() - 1);
+				}
+				if (line.length() > 1) { // skip "[" and "]"
+					documents.add(reader.readValue(line));
+				}
+			}
+		}
+		return documents;
+	}
+
+}
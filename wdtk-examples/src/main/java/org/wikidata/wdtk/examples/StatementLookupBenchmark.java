@@ -0,0 +1,165 @@
+package org.wikidata.wdtk.examples;
+
+/*
+ * #%L
+ * Wikidata Toolkit Examples
+ * %%
+ * Copyright (C) 2014 - 2015 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.wikidata.wdtk.datamodel.helpers.Datamodel;
+import org.wikidata.wdtk.datamodel.helpers.ItemDocumentBuilder;
+import org.wikidata.wdtk.datamodel.helpers.StatementBuilder;
+import org.wikidata.wdtk.datamodel.interfaces.EntityIdValue;
+import org.wikidata.wdtk.datamodel.interfaces.ItemDocument;
+import org.wikidata.wdtk.datamodel.interfaces.ItemIdValue;
+import org.wikidata.wdtk.datamodel.interfaces.StatementDocument;
+import org.wikidata.wdtk.datamodel.interfaces.StatementGroup;
+
+/**
+ * Measures how long the statement lookups of {@link StatementDocument} take
+ * for typical access patterns of processors such as
+ * {@link GenderRatioProcessor} and {@link WorldMapProcessor}: a check for a
+ * class in "instance of", the lookup of a group, and the lookup of a unique
+ * value, for properties that the item has and properties that it lacks.
+ * <p>
+ * The lookups are made on the document implementations, which use an index
+ * of statement groups, and on a view of the same documents that only offers
+ * {@link StatementDocument#getStatementGroups()}, so that the default
+ * implementations of the interface are used. The program does not need any
+ * network access or dump files.
+ */
+public class StatementLookupBenchmark {
+
+	static final ItemIdValue HUMAN = Datamodel.makeWikidataItemIdValue("Q5");
+
+	static final int ITEM_COUNT = 10000;
+	static final int[] PROPERTY_COUNTS = { 5, 50, 200 };
+
+	/**
+	 * Wrapper that hides the lookup methods of a document, so that the
+	 * default implementations of {@link StatementDocument} are used.
+	 */
+	static class ScanningDocument implements StatementDocument {
+		final StatementDocument document;
+
+		ScanningDocument(StatementDocument document) {
+			this.document = document;
+		}
+
+		@Override
+		public EntityIdValue getEntityId() {
+			return this.document.getEntityId();
+		}
+
+		@Override
+		public long getRevisionId() {
+			return this.document.getRevisionId();
+		}
+
+		@Override
+		public List<StatementGroup> getStatementGroups() {
+			return this.document.getStatementGroups();
+		}
+	}
+
+	public static void main(String[] args) throws IOException {
+		ExampleHelpers.configureLogging();
+		BenchmarkHelpers.printDocumentation("StatementLookupBenchmark",
+				"This program measures the time needed to look up statements",
+				"in documents with and without the index of statement groups.");
+
+		for (int propertyCount : PROPERTY_COUNTS) {
+			List<StatementDocument> indexed = new ArrayList<>(ITEM_COUNT);
+			List<StatementDocument> scanning = new ArrayList<>(ITEM_COUNT);
+			for (int i = 0; i < ITEM_COUNT; i++) {
+				ItemDocument document = makeItem(i, propertyCount);
+				document.getStatementGroups(); // exclude lazy initialization
+				indexed.add(document);
+				scanning.add(new ScanningDocument(document));
+			}
+
+			long scanTime = BenchmarkHelpers.measure(() -> lookup(scanning))
+					.getAverageTime();
+			long indexTime = BenchmarkHelpers.measure(() -> lookup(indexed))
+					.getAverageTime();
+			System.out.println("*** " + propertyCount + " properties: "
+					+ (scanTime / 1000) + " us with scans, "
+					+ (indexTime / 1000) + " us with index, per "
+					+ ITEM_COUNT + " items");
+		}
+	}
+
+	/**
+	 * Performs the lookups of typical processors on all documents and
+	 * returns the number of successful lookups.
+	 */
+	static int lookup(List<StatementDocument> documents) {
+		int found = 0;
+		for (StatementDocument document : documents) {
+			if (document.hasStatementValue("P31", HUMAN)) { // instance of
+				found++;
+			}
+			if (document.findStatementGroup("P21") != null) { // gender
+				found++;
+			}
+			if (document.findStatementValue("P569") != null) { // birth date
+				found++;
+			}
+			if (document.findStatementGroup("P625") != null) { // coordinates
+				found++;
+			}
+		}
+		return found;
+	}
+
+	/**
+	 * Creates an item with one statement for each of the given number of
+	 * properties. Every other item is human and has a gender; no item has
+	 * coordinates.
+	 */
+	static ItemDocument makeItem(int number, int propertyCount) {
+		ItemIdValue subject = Datamodel.makeWikidataItemIdValue("Q"
+				+ (number + 1000));
+		ItemDocumentBuilder builder = ItemDocumentBuilder.forItemId(subject);
+		builder.withStatement(StatementBuilder
+				.forSubjectAndProperty(subject,
+						Datamodel.makeWikidataPropertyIdValue("P31"))
+				.withValue(number % 2 == 0 ? HUMAN : Datamodel
+						.makeWikidataItemIdValue("Q515")).build());
+		if (number % 2 == 0) {
+			builder.withStatement(StatementBuilder
+					.forSubjectAndProperty(subject,
+							Datamodel.makeWikidataPropertyIdValue("P21"))
+					.withValue(Datamodel.makeWikidataItemIdValue("Q6581097"))
+					.build());
+		}
+		for (int i = 0; i < propertyCount; i++) {
+			builder.withStatement(StatementBuilder
+					.forSubjectAndProperty(subject,
+							Datamodel.makeWikidataPropertyIdValue("P"
+									+ (1000 + i)))
+					.withValue(Datamodel.makeStringValue("value-" + i))
+					.build());
+		}
+		return builder.build();
+	}
+
+}
@@ -0,0 +1,124 @@
+package org.wikidata.wdtk.examples;
+
+/*
+ * #%L
+ * Wikidata Toolkit Examples
+ * %%
+ * Copyright (C) 2014 - 2015 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.wikidata.wdtk.datamodel.helpers.Datamodel;
+import org.wikidata.wdtk.datamodel.helpers.ItemDocumentBuilder;
+import org.wikidata.wdtk.datamodel.helpers.ReferenceBuilder;
+import org.wikidata.wdtk.datamodel.helpers.StatementBuilder;
+import org.wikidata.wdtk.datamodel.interfaces.ItemDocument;
+import org.wikidata.wdtk.datamodel.interfaces.ItemIdValue;
+import org.wikidata.wdtk.datamodel.interfaces.PropertyIdValue;
+import org.wikidata.wdtk.datamodel.interfaces.Reference;
+import org.wikidata.wdtk.datamodel.interfaces.Statement;
+import org.wikidata.wdtk.examples.BenchmarkHelpers.Measurement;
+import org.wikidata.wdtk.wikibaseapi.StatementUpdate;
+
+/**
+ * Measures how long it takes to compute a {@link StatementUpdate} for
+ * synthetic items with many statements, as they occur for properties with
+ * large sets of external identifiers. For each size, every existing statement
+ * is added again with an additional reference, and some new statements are
+ * added, which is the worst case for finding statements that can be merged.
+ * <p>
+ * The program does not need any network access or dump files.
+ */
+public class StatementUpdateBenchmark {
+
+	static final ItemIdValue SUBJECT = Datamodel.makeWikidataItemIdValue("Q1");
+	static final PropertyIdValue EXTERNAL_ID_PROPERTY = Datamodel
+			.makeWikidataPropertyIdValue("P1");
+	static final PropertyIdValue SOURCE_PROPERTY = Datamodel
+			.makeWikidataPropertyIdValue("P2");
+
+	static final int[] SIZES = { 1000, 5000, 20000 };
+
+	public static void main(String[] args) throws IOException {
+		ExampleHelpers.configureLogging();
+		BenchmarkHelpers.printDocumentation("StatementUpdateBenchmark",
+				"This program measures the time needed to compute statement",
+				"updates for items with many statements.");
+
+		for (int size : SIZES) {
+			final ItemDocument currentDocument = makeItem(size);
+			final List<Statement> addStatements = makeAddStatements(size);
+
+			Measurement measurement = BenchmarkHelpers
+					.measure(() -> computeUpdate(currentDocument,
+							addStatements));
+			System.out.println("*** " + size + " statements: "
+					+ (measurement.getAverageTime() / 1000000)
+					+ " ms per update ("
+					+ (measurement.getResultSum() / BenchmarkHelpers.MEASURED_RUNS)
+					+ " statements to write)");
+		}
+	}
+
+	/**
+	 * Computes one update and returns the number of statements that it
+	 * would write.
+	 */
+	static int computeUpdate(ItemDocument currentDocument,
+			List<Statement> addStatements) {
+		StatementUpdate update = new StatementUpdate(currentDocument,
+				addStatements, Collections.<Statement> emptyList());
+		return update.getUpdatedStatements().size();
+	}
+
+	/**
+	 * Creates an item with the given number of external id statements.
+	 */
+	static ItemDocument makeItem(int size) {
+		ItemDocumentBuilder builder = ItemDocumentBuilder.forItemId(SUBJECT);
+		for (int i = 0; i < size; i++) {
+			builder.withStatement(StatementBuilder
+					.forSubjectAndProperty(SUBJECT, EXTERNAL_ID_PROPERTY)
+					.withValue(Datamodel.makeStringValue("id-" + i))
+					.withId("Q1$" + i).build());
+		}
+		return builder.build();
+	}
+
+	/**
+	 * Creates statements that duplicate all existing statements with an
+	 * additional reference, and one new statement for every ten existing
+	 * ones.
+	 */
+	static List<Statement> makeAddStatements(int size) {
+		Reference reference = ReferenceBuilder.newInstance()
+				.withPropertyValue(SOURCE_PROPERTY,
+						Datamodel.makeWikidataItemIdValue("Q2")).build();
+		List<Statement> result = new ArrayList<>();
+		for (int i = 0; i < size + size / 10; i++) {
+			result.add(StatementBuilder
+					.forSubjectAndProperty(SUBJECT, EXTERNAL_ID_PROPERTY)
+					.withValue(Datamodel.makeStringValue("id-" + i))
+					.withReference(reference).build());
+		}
+		return result;
+	}
+
+}
@@ -196,11 +196,10 @@ public class WorldMapProcessor implements EntityDocumentProcessor {
 	@Override
 	public void processItemDocument(ItemDocument itemDocument) {
 
-		for (StatementGroup sg : itemDocument.getStatementGroups()) {
-			if (COORD_PROPERTY.equals(sg.getProperty().getId())) {
-				for (Statement s : sg) {
-					countCoordinateStatement(s, itemDocument);
-				}
+		StatementGroup sg = itemDocument.findStatementGroup(COORD_PROPERTY);
+		if (sg != null) {
+			for (Statement s : sg) {
+				countCoordinateStatement(s, itemDocument);
 			}
 		}
 
@@ -41,11 +41,14 @@ import org.wikidata.wdtk.datamodel.interfaces.PropertyDocument;
 import org.wikidata.wdtk.datamodel.interfaces.PropertyIdValue;
 import org.wikidata.wdtk.datamodel.interfaces.QuantityValue;
 import org.wikidata.wdtk.datamodel.interfaces.Statement;
+import org.wikidata.wdtk.datamodel.interfaces.StatementDocument;
 import org.wikidata.wdtk.datamodel.interfaces.StatementGroup;
 import org.wikidata.wdtk.examples.ExampleHelpers;
 import org.wikidata.wdtk.util.WebResourceFetcherImpl;
 import org.wikidata.wdtk.wikibaseapi.ApiConnection;
+import org.wikidata.wdtk.wikibaseapi.BulkEditQueue;
 import org.wikidata.wdtk.wikibaseapi.LoginFailedException;
+import org.wikidata.wdtk.wikibaseapi.StatementUpdate;
 import org.wikidata.wdtk.wikibaseapi.WikibaseDataEditor;
 import org.wikidata.wdtk.wikibaseapi.WikibaseDataFetcher;
 import org.wikidata.wdtk.wikibaseapi.apierrors.MediaWikiApiErrorException;
@@ -73,6 +76,8 @@ import org.wikidata.wdtk.wikibaseapi.apierrors.MediaWikiApiErrorException;
  * <li>Check the online version of each item before really changing it, and use
  * the online revision id to prevent edit conflicts</li>
  * <li>Update statements while preserving most of their content</li>
+ * <li>Fetch current data and send edits in a pipeline with a
+ * {@link BulkEditQueue}, so that the bot edits at the allowed rate</li>
  * <li>Use basic bot configuration features (login, disable editing for test,
  * limited numbers of test edits)</li>
  * </ul>
@@ -152,6 +157,7 @@ public class FixIntegerQuantityPrecisionsBot implements EntityDocumentProcessor
 	final ApiConnection connection;
 	final WikibaseDataEditor dataEditor;
 	final WikibaseDataFetcher dataFetcher;
+	final BulkEditQueue editQueue;
 
 	/**
 	 * Number of entities modified so far.
@@ -236,6 +242,7 @@ public class FixIntegerQuantityPrecisionsBot implements EntityDocumentProcessor
 		// Do not retrieve data that we don't care about here:
 		dataFetcher.getFilter().excludeAllLanguages();
 		dataFetcher.getFilter().excludeAllSiteLinks();
+		editQueue = new BulkEditQueue(dataEditor, dataFetcher, 1, 1);
 
 		// Initialise array to count
 		for (String propertyId : integerProperties) {
@@ -269,6 +276,10 @@ public class FixIntegerQuantityPrecisionsBot implements EntityDocumentProcessor
 	 * Finishes processing and makes sure that the log file is written.
 	 */
 	public void finish() {
+		this.editQueue.close();
+		for (BulkEditQueue.EditFailure failure : this.editQueue.getFailures()) {
+			System.out.println("*** Edit failed for " + failure);
+		}
 		this.logfile.close();
 		System.out.println("### " + modifiedStatements
 				+ " statements modified: "
@@ -276,8 +287,9 @@ public class FixIntegerQuantityPrecisionsBot implements EntityDocumentProcessor
 	}
 
 	/**
-	 * Fetches the current online data for the given item, and fixes the
-	 * precision of integer quantities if necessary.
+	 * Queues an edit that fixes the precision of integer quantities of the
+	 * given item if necessary. The edit is computed from the current online
+	 * data for the item when it has been fetched.
 	 *
 	 * @param itemIdValue
 	 *            the id of the document to inspect
@@ -286,67 +298,66 @@ public class FixIntegerQuantityPrecisionsBot implements EntityDocumentProcessor
 	 */
 	protected void fixIntegerPrecisions(ItemIdValue itemIdValue,
 			String propertyId) {
+		this.editQueue.submit(itemIdValue,
+				currentDocument -> computeUpdate(currentDocument, propertyId),
+				"Set exact values for [[Property:" + propertyId + "|"
+						+ propertyId + "]] integer quantities (Task MB2)");
+	}
 
-		String qid = itemIdValue.getId();
-
-		try {
-			// Fetch the online version of the item to make sure we edit the
-			// current version:
-			ItemDocument currentItemDocument = (ItemDocument) dataFetcher
-					.getEntityDocument(qid);
-			if (currentItemDocument == null) {
-				System.out.println("*** " + qid
-						+ " could not be fetched. Maybe it has been deleted.");
-				return;
-			}
-
-			// Get the current statements for the property we want to fix:
-			StatementGroup editPropertyStatements = currentItemDocument
-					.findStatementGroup(propertyId);
-			if (editPropertyStatements == null) {
-				System.out.println("*** " + qid
-						+ " no longer has any statements for " + propertyId);
-				return;
-			}
-
-			PropertyIdValue property = Datamodel
-					.makeWikidataPropertyIdValue(propertyId);
-			List<Statement> updateStatements = new ArrayList<>();
-			for (Statement s : editPropertyStatements) {
-				QuantityValue qv = (QuantityValue) s.getValue();
-				if (qv != null && isPlusMinusOneValue(qv)) {
-					QuantityValue exactValue = Datamodel.makeQuantityValue(
-							qv.getNumericValue(), qv.getNumericValue(),
-							qv.getNumericValue());
-					Statement exactStatement = StatementBuilder
-							.forSubjectAndProperty(itemIdValue, property)
-							.withValue(exactValue).withId(s.getStatementId())
-							.withQualifiers(s.getQualifiers())
-							.withReferences(s.getReferences())
-							.withRank(s.getRank()).build();
-					updateStatements.add(exactStatement);
-				}
-			}
+	/**
+	 * Computes the update that fixes the precision of integer quantities in
+	 * the current online version of an item.
+	 *
+	 * @param currentItemDocument
+	 *            the current document of the item
+	 * @param propertyId
+	 *            id of the property to consider
+	 * @return the update, or null if nothing needs to be changed
+	 */
+	protected StatementUpdate computeUpdate(
+			StatementDocument currentItemDocument, String propertyId) {
+		String qid = currentItemDocument.getEntityId().getId();
+
+		// Get the current statements for the property we want to fix:
+		StatementGroup editPropertyStatements = currentItemDocument
+				.findStatementGroup(propertyId);
+		if (editPropertyStatements == null) {
+			System.out.println("*** " + qid
+					+ " no longer has any statements for " + propertyId);
+			return null;
+		}
 
-			if (updateStatements.size() == 0) {
-				System.out.println("*** " + qid + " quantity values for "
-						+ propertyId + " already fixed");
-				return;
+		PropertyIdValue property = Datamodel
+				.makeWikidataPropertyIdValue(propertyId);
+		List<Statement> updateStatements = new ArrayList<>();
+		for (Statement s : editPropertyStatements) {
+			QuantityValue qv = (QuantityValue) s.getValue();
+			if (qv != null && isPlusMinusOneValue(qv)) {
+				QuantityValue exactValue = Datamodel.makeQuantityValue(
+						qv.getNumericValue(), qv.getNumericValue(),
+						qv.getNumericValue());
+				Statement exactStatement = StatementBuilder
+						.forSubjectAndProperty(currentItemDocument.getEntityId(),
+								property).withValue(exactValue)
+						.withId(s.getStatementId())
+						.withQualifiers(s.getQualifiers())
+						.withReferences(s.getReferences())
+						.withRank(s.getRank()).build();
+				updateStatements.add(exactStatement);
 			}
+		}
 
-			logEntityModification(currentItemDocument.getItemId(),
-					updateStatements, propertyId);
+		if (updateStatements.size() == 0) {
+			System.out.println("*** " + qid + " quantity values for "
+					+ propertyId + " already fixed");
+			return null;
+		}
 
-			dataEditor.updateStatements(currentItemDocument, updateStatements,
-					Collections.<Statement> emptyList(),
-					"Set exact values for [[Property:" + propertyId + "|"
-							+ propertyId + "]] integer quantities (Task MB2)");
+		logEntityModification(currentItemDocument.getEntityId(),
+				updateStatements, propertyId);
 
-		} catch (MediaWikiApiErrorException e) {
-			e.printStackTrace();
-		} catch (IOException e) {
-			e.printStackTrace();
-		}
+		return new StatementUpdate(currentItemDocument, updateStatements,
+				Collections.<Statement> emptyList());
 	}
 
 	/**
@@ -357,7 +368,7 @@ public class FixIntegerQuantityPrecisionsBot implements EntityDocumentProcessor
 	 * @param updateStatements
 	 * @param propertyId
 	 */
-	protected void logEntityModification(EntityIdValue entityId,
+	protected synchronized void logEntityModification(EntityIdValue entityId,
 			List<Statement> updateStatements, String propertyId) {
 		modifiedEntities++;
 		modifiedStatements += updateStatements.size();
@@ -0,0 +1,651 @@
+package org.wikidata.wdtk.localapi;
+
+/*
+ * #%L
+ * Wikidata Toolkit Local API
+ * %%
+ * Copyright (C) 2014 - 2015 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+import org.wikidata.wdtk.datamodel.implementation.TermedStatementDocumentImpl;
+import org.wikidata.wdtk.datamodel.interfaces.EntityDocument;
+import org.wikidata.wdtk.datamodel.interfaces.MonolingualTextValue;
+import org.wikidata.wdtk.datamodel.interfaces.TermedDocument;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * Implementation of the API actions that are supported by
+ * {@link LocalApiServer}. Each action takes the request parameters and
+ * returns the JSON response, or throws an {@link ApiError} that is reported
+ * in the format of MediaWiki API errors.
+ */
+class LocalApiActions {
+
+	/**
+	 * Error that is reported to the client as a MediaWiki API error.
+	 */
+	static class ApiError extends Exception {
+
+		private static final long serialVersionUID = 2931406370787582227L;
+
+		final String code;
+
+		ApiError(String code, String info) {
+			super(info);
+			this.code = code;
+		}
+	}
+
+	/**
+	 * Default value of the "props" parameter of wbgetentities.
+	 */
+	static final String DEFAULT_PROPS = "info|sitelinks|aliases|labels|descriptions|claims|datatype";
+
+	/**
+	 * Fields of entities that are returned for props=info.
+	 */
+	static final String[] INFO_FIELDS = { "pageid", "ns", "title",
+			"lastrevid", "modified" };
+
+	static final String[] TERM_FIELDS = { "labels", "descriptions" };
+
+	static final Pattern ENTITY_ID_PATTERN = Pattern.compile("[PQ][1-9][0-9]*");
+
+	/**
+	 * Maximal number of results of one search request.
+	 */
+	static final int MAX_SEARCH_LIMIT = 50;
+
+	static final String CSRF_TOKEN = "localapitoken+\\";
+
+	static final JsonNodeFactory nodes = JsonNodeFactory.instance;
+
+	final LocalEntityStore store;
+	final ObjectMapper mapper = new ObjectMapper();
+
+	LocalApiActions(LocalEntityStore store) {
+		this.store = store;
+	}
+
+	/**
+	 * Executes the action "wbgetentities" for entities given by id or by
+	 * site and title.
+	 */
+	ObjectNode wbGetEntities(Map<String, String> parameters) throws ApiError {
+		List<String> entityIds = new ArrayList<>();
+		List<String> keys = new ArrayList<>();
+		if (parameters.containsKey("ids")) {
+			for (String entityId : split(parameters.get("ids"))) {
+				if (!ENTITY_ID_PATTERN.matcher(entityId).matches()) {
+					throw new ApiError("no-such-entity",
+							"Could not find an entity with the ID \""
+									+ entityId + "\".");
+				}
+				entityIds.add(entityId);
+				keys.add(entityId);
+			}
+		} else if (parameters.containsKey("sites")
+				&& parameters.containsKey("titles")) {
+			String site = parameters.get("sites");
+			for (String title : split(parameters.get("titles"))) {
+				entityIds.add(this.store.getEntityIdForSiteLink(site, title));
+				keys.add(null);
+			}
+		} else {
+			throw new ApiError("param-missing",
+					"Either provide the item \"ids\" or pairs of \"sites\" and \"titles\" for corresponding pages");
+		}
+
+		Set<String> props = new HashSet<>(Arrays.asList(split(getOrDefault(
+				parameters, "props", DEFAULT_PROPS))));
+		Set<String> languages = parameters.containsKey("languages") ? new HashSet<>(
+				Arrays.asList(split(parameters.get("languages")))) : null;
+		Set<String> sites = parameters.containsKey("sitefilter") ? new HashSet<>(
+				Arrays.asList(split(parameters.get("sitefilter")))) : null;
+
+		ObjectNode entities = nodes.objectNode();
+		int missingCount = 0;
+		for (int i = 0; i < entityIds.size(); i++) {
+			String entityId = entityIds.get(i);
+			LocalEntityStore.Entry entry = entityId == null ? null
+					: this.store.getEntry(entityId);
+			if (entry == null) {
+				ObjectNode missing = nodes.objectNode();
+				if (keys.get(i) != null) {
+					missing.put("id", keys.get(i));
+				}
+				missing.put("missing", "");
+				entities.set(keys.get(i) != null ? keys.get(i) : "-"
+						+ (++missingCount), missing);
+			} else {
+				entities.set(entityId,
+						selectFields(entry.json, props, languages, sites));
+			}
+		}
+
+		ObjectNode result = nodes.objectNode();
+		result.set("entities", entities);
+		result.put("success", 1);
+		return result;
+	}
+
+	/**
+	 * Executes the action "wbsearchentities", finding entities by label or
+	 * alias prefix.
+	 */
+	ObjectNode wbSearchEntities(Map<String, String> parameters)
+			throws ApiError {
+		String search = getRequired(parameters, "search");
+		String language = getRequired(parameters, "language");
+		String type = getOrDefault(parameters, "type",
+				TermedStatementDocumentImpl.JSON_TYPE_ITEM);
+		int limit = Math.min(MAX_SEARCH_LIMIT,
+				getInt(parameters, "limit", 7));
+		int offset = getInt(parameters, "continue", 0);
+
+		// request one more match to find out if there are more results
+		List<LocalEntityStore.SearchMatch> matches = this.store.search(search,
+				language, type, offset, limit + 1);
+
+		ArrayNode results = nodes.arrayNode();
+		for (int i = 0; i < matches.size() && i < limit; i++) {
+			LocalEntityStore.SearchMatch match = matches.get(i);
+			EntityDocument document = this.store.getDocument(match.entityId);
+			if (document == null) { // deleted concurrently
+				continue;
+			}
+			ObjectNode result = nodes.objectNode();
+			result.put("id", match.entityId);
+			result.put("concepturi", this.store.getSiteIri() + match.entityId);
+			result.put("title", match.entityId.startsWith("P") ? "Property:"
+					+ match.entityId : match.entityId);
+			result.put("url", "/wiki/" + result.path("title").asText());
+			if (document instanceof TermedDocument) {
+				MonolingualTextValue label = ((TermedDocument) document)
+						.getLabels().get(language);
+				if (label != null) {
+					result.put("label", label.getText());
+				}
+				MonolingualTextValue description = ((TermedDocument) document)
+						.getDescriptions().get(language);
+				if (description != null) {
+					result.put("description", description.getText());
+				}
+			}
+			ObjectNode matchNode = result.putObject("match");
+			matchNode.put("type", match.matchType);
+			matchNode.put("language", match.language);
+			matchNode.put("text", match.text);
+			if ("alias".equals(match.matchType)) {
+				result.putArray("aliases").add(match.text);
+			}
+			results.add(result);
+		}
+
+		ObjectNode result = nodes.objectNode();
+		result.putObject("searchinfo").put("search", search);
+		result.set("search", results);
+		if (matches.size() > limit) {
+			result.put("search-continue", offset + limit);
+		}
+		result.put("success", 1);
+		return result;
+	}
+
+	/**
+	 * Executes the action "wbeditentity", changing or creating an entity. If
+	 * "baserevid" is given and the entity has been changed since that
+	 * revision, the edit is rejected with an edit conflict; unlike Wikibase,
+	 * no attempt is made to merge the changes.
+	 */
+	ObjectNode wbEditEntity(Map<String, String> parameters) throws ApiError {
+		if (!parameters.containsKey("token")) {
+			throw new ApiError("notoken", "The token parameter must be set");
+		}
+		if (!CSRF_TOKEN.equals(parameters.get("token"))) {
+			throw new ApiError("badtoken", "Invalid token");
+		}
+
+		JsonNode data;
+		try {
+			data = this.mapper.readTree(getRequired(parameters, "data"));
+		} catch (IOException e) {
+			throw new ApiError("invalid-json",
+					"Invalid json: " + e.getMessage());
+		}
+		if (!data.isObject()) {
+			throw new ApiError("not-recognized-array",
+					"An array was expected, but not found in the JSON");
+		}
+
+		String entityId;
+		String type;
+		if (parameters.containsKey("new")) {
+			type = parameters.get("new");
+			if (!TermedStatementDocumentImpl.JSON_TYPE_ITEM.equals(type)
+					&& !TermedStatementDocumentImpl.JSON_TYPE_PROPERTY
+							.equals(type)) {
+				throw new ApiError("no-such-entity-type",
+						"There are no entities of type \"" + type + "\".");
+			}
+			entityId = this.store.getNewEntityId(type);
+		} else if (parameters.containsKey("id")) {
+			entityId = parameters.get("id");
+			EntityDocument document = this.store.getDocument(entityId);
+			if (document == null) {
+				throw new ApiError("no-such-entity",
+						"Could not find an entity with the ID \"" + entityId
+								+ "\".");
+			}
+			type = entityId.startsWith("P") ? TermedStatementDocumentImpl.JSON_TYPE_PROPERTY
+					: TermedStatementDocumentImpl.JSON_TYPE_ITEM;
+		} else if (parameters.containsKey("site")
+				&& parameters.containsKey("title")) {
+			entityId = this.store.getEntityIdForSiteLink(
+					parameters.get("site"), parameters.get("title"));
+			if (entityId == null) {
+				throw new ApiError("no-such-entity-link",
+						"No entity found matching site link "
+								+ parameters.get("site") + ":"
+								+ parameters.get("title"));
+			}
+			type = TermedStatementDocumentImpl.JSON_TYPE_ITEM;
+		} else {
+			throw new ApiError("param-missing",
+					"Either provide the item \"id\" or pairs of \"site\" and \"title\" or a \"new\" type for an entity");
+		}
+
+		boolean clear = parameters.containsKey("clear");
+		long baseRevisionId = getLong(parameters, "baserevid", 0);
+		String finalType = type;
+		LocalEntityStore.Entry entry;
+		try {
+			entry = this.store.editJson(entityId, current -> {
+				if (baseRevisionId != 0 && current != null
+						&& current.path("lastrevid").asLong() != baseRevisionId) {
+					throw new IllegalStateException(
+							"Edit conflict: the entity was changed after revision "
+									+ baseRevisionId + ".");
+				}
+				return applyEdit(clear || current == null ? null : current,
+						entityId, finalType, (ObjectNode) data);
+			});
+		} catch (IllegalStateException e) {
+			throw new ApiError("editconflict", e.getMessage());
+		} catch (IllegalArgumentException e) {
+			throw new ApiError("failed-save", e.getMessage());
+		}
+
+		ObjectNode result = nodes.objectNode();
+		result.set("entity", entry.json);
+		result.put("success", 1);
+		return result;
+	}
+
+	/**
+	 * Executes the action "query" for meta=tokens.
+	 */
+	ObjectNode query(Map<String, String> parameters) throws ApiError {
+		if (!"tokens".equals(parameters.get("meta"))) {
+			throw new ApiError("unsupported",
+					"Only meta=tokens is supported by the local API.");
+		}
+		ObjectNode tokens = nodes.objectNode();
+		for (String type : split(getOrDefault(parameters, "type", "csrf"))) {
+			tokens.put(type + "token", CSRF_TOKEN);
+		}
+		ObjectNode result = nodes.objectNode();
+		result.put("batchcomplete", "");
+		result.putObject("query").set("tokens", tokens);
+		return result;
+	}
+
+	/**
+	 * Executes the action "login". Every user name and password is accepted.
+	 */
+	ObjectNode login(Map<String, String> parameters) throws ApiError {
+		ObjectNode login = nodes.objectNode();
+		login.put("result", "Success");
+		login.put("lguserid", 1);
+		login.put("lgusername", getRequired(parameters, "lgname"));
+		ObjectNode result = nodes.objectNode();
+		result.set("login", login);
+		return result;
+	}
+
+	/**
+	 * Applies the changes of wbeditentity to the JSON of an entity.
+	 *
+	 * @param current
+	 *            copy of the current JSON, or null if the entity should be
+	 *            created or cleared
+	 * @param entityId
+	 *            the id of the entity
+	 * @param type
+	 *            the type of the entity
+	 * @param data
+	 *            the changes, in the format of the "data" parameter of
+	 *            wbeditentity
+	 * @return the new JSON
+	 */
+	ObjectNode applyEdit(ObjectNode current, String entityId, String type,
+			ObjectNode data) {
+		ObjectNode result = current;
+		if (result == null) {
+			result = nodes.objectNode();
+			result.put("type", type);
+			result.put("id", entityId);
+			result.putObject("labels");
+			result.putObject("descriptions");
+			result.putObject("aliases");
+			result.putObject("claims");
+			if (TermedStatementDocumentImpl.JSON_TYPE_ITEM.equals(type)) {
+				result.putObject("sitelinks");
+			}
+		}
+		result.put("id", entityId);
+		if (data.has("datatype")) {
+			result.set("datatype", data.get("datatype"));
+		}
+
+		for (String field : TERM_FIELDS) {
+			ObjectNode terms = getOrCreateObject(result, field);
+			for (JsonNode term : getValues(data.path(field))) {
+				String language = term.path("language").asText();
+				if (term.has("remove") || term.path("value").asText().isEmpty()) {
+					terms.remove(language);
+				} else {
+					terms.set(language, makeTerm(language, term));
+				}
+			}
+		}
+		applyAliasEdit(getOrCreateObject(result, "aliases"),
+				data.path("aliases"));
+		if (TermedStatementDocumentImpl.JSON_TYPE_ITEM.equals(type)) {
+			ObjectNode siteLinks = getOrCreateObject(result, "sitelinks");
+			for (JsonNode siteLink : getValues(data.path("sitelinks"))) {
+				String site = siteLink.path("site").asText();
+				if (siteLink.has("remove")
+						|| siteLink.path("title").asText().isEmpty()) {
+					siteLinks.remove(site);
+				} else {
+					ObjectNode newSiteLink = siteLinks.putObject(site);
+					newSiteLink.put("site", site);
+					newSiteLink.put("title", siteLink.path("title").asText());
+					newSiteLink.set("badges",
+							siteLink.has("badges") ? siteLink.get("badges")
+									: nodes.arrayNode());
+				}
+			}
+		}
+		applyClaimEdit(getOrCreateObject(result, "claims"), entityId,
+				data.path("claims"));
+
+		result.put("modified", java.time.Instant.now().toString());
+		return result;
+	}
+
+	/**
+	 * Applies changes of aliases. If aliases are given without "add" or
+	 * "remove" flags, they replace all aliases of their language.
+	 */
+	void applyAliasEdit(ObjectNode aliases, JsonNode changes) {
+		Map<String, List<JsonNode>> changesByLanguage = new LinkedHashMap<>();
+		for (JsonNode alias : getValues(changes)) {
+			if (alias.isArray()) { // {"en": [...]} format
+				for (JsonNode element : alias) {
+					changesByLanguage.computeIfAbsent(
+							element.path("language").asText(),
+							k -> new ArrayList<>()).add(element);
+				}
+			} else {
+				changesByLanguage.computeIfAbsent(
+						alias.path("language").asText(),
+						k -> new ArrayList<>()).add(alias);
+			}
+		}
+
+		for (Map.Entry<String, List<JsonNode>> entry : changesByLanguage
+				.entrySet()) {
+			String language = entry.getKey();
+			boolean incremental = false;
+			for (JsonNode alias : entry.getValue()) {
+				incremental |= alias.has("add") || alias.has("remove");
+			}
+			ArrayNode newAliases = nodes.arrayNode();
+			if (incremental && aliases.has(language)) {
+				newAliases.addAll((ArrayNode) aliases.get(language));
+			}
+			for (JsonNode alias : entry.getValue()) {
+				String value = alias.path("value").asText();
+				removeAlias(newAliases, value);
+				if (!alias.has("remove")) {
+					newAliases.add(makeTerm(language, alias));
+				}
+			}
+			if (newAliases.size() == 0) {
+				aliases.remove(language);
+			} else {
+				aliases.set(language, newAliases);
+			}
+		}
+	}
+
+	/**
+	 * Applies changes of statements. Statements with a "remove" flag are
+	 * deleted, statements with an id replace the statement with this id, and
+	 * statements without id are added with a new id.
+	 */
+	void applyClaimEdit(ObjectNode claims, String entityId, JsonNode changes) {
+		List<JsonNode> statements = new ArrayList<>();
+		for (JsonNode statement : getValues(changes)) {
+			if (statement.isArray()) { // {"P31": [...]} format
+				statement.forEach(statements::add);
+			} else {
+				statements.add(statement);
+			}
+		}
+
+		for (JsonNode statement : statements) {
+			String statementId = statement.path("id").asText();
+			if (!statementId.isEmpty()) {
+				removeStatement(claims, statementId);
+			}
+			if (statement.has("remove")) {
+				continue;
+			}
+			ObjectNode newStatement = ((ObjectNode) statement).deepCopy();
+			if (statementId.isEmpty()) {
+				newStatement.put("id", entityId + "$"
+						+ UUID.randomUUID().toString().toUpperCase());
+			}
+			newStatement.put("type", "statement");
+			if (!newStatement.has("rank")) {
+				newStatement.put("rank", "normal");
+			}
+			String propertyId = newStatement.path("mainsnak")
+					.path("property").asText();
+			JsonNode group = claims.get(propertyId);
+			if (group == null || !group.isArray()) {
+				group = claims.putArray(propertyId);
+			}
+			((ArrayNode) group).add(newStatement);
+		}
+	}
+
+	static void removeStatement(ObjectNode claims, String statementId) {
+		Iterator<Map.Entry<String, JsonNode>> groups = claims.fields();
+		while (groups.hasNext()) {
+			JsonNode group = groups.next().getValue();
+			Iterator<JsonNode> groupStatements = group.elements();
+			while (groupStatements.hasNext()) {
+				if (statementId.equals(groupStatements.next().path("id")
+						.asText())) {
+					groupStatements.remove();
+				}
+			}
+			if (group.size() == 0) {
+				groups.remove();
+			}
+		}
+	}
+
+	static void removeAlias(ArrayNode aliases, String value) {
+		Iterator<JsonNode> elements = aliases.elements();
+		while (elements.hasNext()) {
+			if (value.equals(elements.next().path("value").asText())) {
+				elements.remove();
+			}
+		}
+	}
+
+	static ObjectNode makeTerm(String language, JsonNode term) {
+		ObjectNode result = nodes.objectNode();
+		result.put("language", language);
+		result.put("value", term.path("value").asText());
+		return result;
+	}
+
+	/**
+	 * Returns the elements of a JSON object or array as a list.
+	 */
+	static List<JsonNode> getValues(JsonNode node) {
+		List<JsonNode> result = new ArrayList<>();
+		node.elements().forEachRemaining(result::add);
+		return result;
+	}
+
+	static ObjectNode getOrCreateObject(ObjectNode node, String field) {
+		JsonNode child = node.get(field);
+		if (child instanceof ObjectNode) {
+			return (ObjectNode) child;
+		}
+		return node.putObject(field); // replaces empty arrays like "labels":[]
+	}
+
+	/**
+	 * Returns a copy of the given entity JSON that only contains the
+	 * requested fields, languages, and site links. Nested values are shared,
+	 * not copied.
+	 */
+	static ObjectNode selectFields(ObjectNode json, Set<String> props,
+			Set<String> languages, Set<String> sites) {
+		ObjectNode result = nodes.objectNode();
+		if (props.contains("info")) {
+			for (String field : INFO_FIELDS) {
+				if (json.has(field)) {
+					result.set(field, json.get(field));
+				}
+			}
+		}
+		result.set("type", json.get("type"));
+		result.set("id", json.get("id"));
+		if (props.contains("datatype") && json.has("datatype")) {
+			result.set("datatype", json.get("datatype"));
+		}
+		for (String field : new String[] { "labels", "descriptions", "aliases" }) {
+			if (props.contains(field) && json.has(field)) {
+				result.set(field, filterKeys(json.get(field), languages));
+			}
+		}
+		if (props.contains("claims") && json.has("claims")) {
+			result.set("claims", json.get("claims"));
+		}
+		if (props.contains("sitelinks") && json.has("sitelinks")) {
+			result.set("sitelinks", filterKeys(json.get("sitelinks"), sites));
+		}
+		return result;
+	}
+
+	static JsonNode filterKeys(JsonNode node, Set<String> keys) {
+		if (keys == null || !node.isObject()) {
+			return node;
+		}
+		ObjectNode result = nodes.objectNode();
+		for (String key : keys) {
+			if (node.has(key)) {
+				result.set(key, node.get(key));
+			}
+		}
+		return result;
+	}
+
+	static String[] split(String value) {
+		return value.split("\\|");
+	}
+
+	static String getRequired(Map<String, String> parameters, String name)
+			throws ApiError {
+		String value = parameters.get(name);
+		if (value == null) {
+			throw new ApiError("missingparam", "The \"" + name
+					+ "\" parameter must be set.");
+		}
+		return value;
+	}
+
+	static String getOrDefault(Map<String, String> parameters, String name,
+			String defaultValue) {
+		String value = parameters.get(name);
+		return value == null ? defaultValue : value;
+	}
+
+	static int getInt(Map<String, String> parameters, String name,
+			int defaultValue) throws ApiError {
+		String value = parameters.get(name);
+		if (value == null) {
+			return defaultValue;
+		}
+		try {
+			return Integer.parseInt(value);
+		} catch (NumberFormatException e) {
+			throw new ApiError("badinteger", "Invalid value \"" + value
+					+ "\" for integer parameter \"" + name + "\".");
+		}
+	}
+
+	static long getLong(Map<String, String> parameters, String name,
+			long defaultValue) throws ApiError {
+		String value = parameters.get(name);
+		if (value == null) {
+			return defaultValue;
+		}
+		try {
+			return Long.parseLong(value);
+		} catch (NumberFormatException e) {
+			throw new ApiError("badinteger", "Invalid value \"" + value
+					+ "\" for integer parameter \"" + name + "\".");
+		}
+	}
+
+}
@@ -0,0 +1,348 @@
+package org.wikidata.wdtk.localapi;
+
+/*
+ * #%L
+ * Wikidata Toolkit Local API
+ * %%
+ * Copyright (C) 2014 - 2015 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * HTTP server that imitates the parts of the Wikibase web API that are used
+ * by Wikidata Toolkit, serving the data of a {@link LocalEntityStore}. It can
+ * be used to develop and test bots and tools without network access and
+ * without load on a public site, and to run large read workloads against a
+ * local copy of a dump.
+ * <p>
+ * The following actions are supported:
+ * <ul>
+ * <li>wbgetentities, for ids or site links, with the parameters props,
+ * languages and sitefilter;</li>
+ * <li>wbsearchentities, matching label and alias prefixes, with
+ * continuation;</li>
+ * <li>wbeditentity, creating and changing entities, including statements and
+ * the clear flag;</li>
+ * <li>query with meta=tokens, and login, which accept any user.</li>
+ * </ul>
+ * Responses can be delayed and maxlag errors can be simulated to test the
+ * behavior of clients under load. Edits are only stored in memory.
+ */
+public class LocalApiServer implements AutoCloseable {
+
+	static final Logger logger = LoggerFactory.getLogger(LocalApiServer.class);
+
+	/**
+	 * Path of the API on the server, as on MediaWiki sites.
+	 */
+	public static final String API_PATH = "/w/api.php";
+
+	/**
+	 * Default number of threads that handle requests.
+	 */
+	public static final int DEFAULT_THREAD_COUNT = 8;
+
+	final HttpServer server;
+	final ExecutorService executor;
+	final LocalApiActions actions;
+	final ObjectMapper mapper = new ObjectMapper();
+
+	final Map<String, AtomicLong> requestCounts = new ConcurrentHashMap<>();
+
+	volatile long latency = 0;
+	volatile double simulatedLag = 0;
+
+	/**
+	 * Creates a new server for the given store that listens on a free port
+	 * of the local host. The server is started immediately.
+	 *
+	 * @param store
+	 *            the store that provides the data
+	 * @throws IOException
+	 *             if the server could not be started
+	 */
+	public LocalApiServer(LocalEntityStore store) throws IOException {
+		this(store, new InetSocketAddress("localhost", 0), DEFAULT_THREAD_COUNT);
+	}
+
+	/**
+	 * Creates a new server for the given store. The server is started
+	 * immediately.
+	 *
+	 * @param store
+	 *            the store that provides the data
+	 * @param address
+	 *            the address to listen on; port 0 selects a free port
+	 * @param threadCount
+	 *            number of threads that handle requests
+	 * @throws IOException
+	 *             if the server could not be started
+	 */
+	public LocalApiServer(LocalEntityStore store, InetSocketAddress address,
+			int threadCount) throws IOException {
+		this.actions = new LocalApiActions(store);
+		this.executor = Executors.newFixedThreadPool(threadCount, runnable -> {
+			Thread thread = new Thread(runnable, "local-api-server");
+			thread.setDaemon(true);
+			return thread;
+		});
+		this.server = HttpServer.create(address, 0);
+		this.server.createContext(API_PATH, this::handle);
+		this.server.setExecutor(this.executor);
+		this.server.start();
+	}
+
+	/**
+	 * Returns the URL of the API, which can be used to create an
+	 * ApiConnection.
+	 *
+	 * @return URL of the API
+	 */
+	public String getApiUrl() {
+		return "http://" + this.server.getAddress().getHostString() + ":"
+				+ this.server.getAddress().getPort() + API_PATH;
+	}
+
+	/**
+	 * Returns the store that provides the data.
+	 *
+	 * @return the store
+	 */
+	public LocalEntityStore getStore() {
+		return this.actions.store;
+	}
+
+	/**
+	 * Sets a delay that is added to every response, to simulate the latency
+	 * of a remote site.
+	 *
+	 * @param milliseconds
+	 *            the delay, or 0 to respond immediately
+	 */
+	public void setLatency(long milliseconds) {
+		this.latency = milliseconds;
+	}
+
+	/**
+	 * Sets the replication lag that the server pretends to have. Requests
+	 * with a maxlag parameter that is smaller than this value are answered
+	 * with a maxlag error, as on MediaWiki sites.
+	 *
+	 * @param seconds
+	 *            the simulated lag, or 0 to accept all requests
+	 */
+	public void setSimulatedLag(double seconds) {
+		this.simulatedLag = seconds;
+	}
+
+	/**
+	 * Returns the number of requests that have been received for the given
+	 * action, including the ones that failed.
+	 *
+	 * @param action
+	 *            name of the action, e.g., "wbgetentities"
+	 * @return number of requests
+	 */
+	public long getRequestCount(String action) {
+		AtomicLong count = this.requestCounts.get(action);
+		return count == null ? 0 : count.get();
+	}
+
+	/**
+	 * Stops the server.
+	 */
+	@Override
+	public void close() {
+		this.server.stop(0);
+		this.executor.shutdownNow();
+	}
+
+	/**
+	 * Handles one HTTP request.
+	 *
+	 * @param exchange
+	 *            the request and response
+	 */
+	void handle(HttpExchange exchange) throws IOException {
+		try {
+			Map<String, String> parameters = getParameters(exchange);
+			String action = parameters.getOrDefault("action", "");
+			this.requestCounts.computeIfAbsent(action, k -> new AtomicLong())
+					.incrementAndGet();
+
+			if (this.latency > 0) {
+				try {
+					Thread.sleep(this.latency);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+
+			ObjectNode response;
+			try {
+				checkMaxlag(parameters);
+				response = execute(action, parameters);
+			} catch (LocalApiActions.ApiError e) {
+				response = makeErrorResponse(e);
+			} catch (RuntimeException e) {
+				logger.error("Error when handling API request: " + e, e);
+				response = makeErrorResponse(new LocalApiActions.ApiError(
+						"internal_api_error", e.toString()));
+			}
+			sendResponse(exchange, response);
+		} finally {
+			exchange.close();
+		}
+	}
+
+	ObjectNode execute(String action, Map<String, String> parameters)
+			throws LocalApiActions.ApiError {
+		switch (action) {
+		case "wbgetentities":
+			return this.actions.wbGetEntities(parameters);
+		case "wbsearchentities":
+			return this.actions.wbSearchEntities(parameters);
+		case "wbeditentity":
+			return this.actions.wbEditEntity(parameters);
+		case "query":
+			return this.actions.query(parameters);
+		case "login":
+			return this.actions.login(parameters);
+		default:
+			throw new LocalApiActions.ApiError("unknown_action",
+					"Unrecognized value for parameter \"action\": " + action
+							+ ".");
+		}
+	}
+
+	void checkMaxlag(Map<String, String> parameters)
+			throws LocalApiActions.ApiError {
+		if (this.simulatedLag <= 0 || !parameters.containsKey("maxlag")) {
+			return;
+		}
+		double maxlag;
+		try {
+			maxlag = Double.parseDouble(parameters.get("maxlag"));
+		} catch (NumberFormatException e) {
+			return;
+		}
+		if (this.simulatedLag > maxlag) {
+			throw new LocalApiActions.ApiError("maxlag",
+					"Waiting for localhost: " + this.simulatedLag
+							+ " seconds lagged.");
+		}
+	}
+
+	ObjectNode makeErrorResponse(LocalApiActions.ApiError error) {
+		ObjectNode response = this.mapper.createObjectNode();
+		ObjectNode errorNode = response.putObject("error");
+		errorNode.put("code", error.code);
+		errorNode.put("info", error.getMessage());
+		if ("maxlag".equals(error.code)) {
+			errorNode.put("host", "localhost");
+			errorNode.put("lag", this.simulatedLag);
+		}
+		return response;
+	}
+
+	void sendResponse(HttpExchange exchange, ObjectNode response)
+			throws IOException {
+		byte[] body = this.mapper.writeValueAsBytes(response);
+		exchange.getResponseHeaders().set("Content-Type",
+				"application/json; charset=utf-8");
+		String acceptEncoding = exchange.getRequestHeaders().getFirst(
+				"Accept-Encoding");
+		if (acceptEncoding != null && acceptEncoding.contains("gzip")) {
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			try (GZIPOutputStream gzip = new GZIPOutputStream(bytes)) {
+				gzip.write(body);
+			}
+			body = bytes.toByteArray();
+			exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+		}
+		exchange.sendResponseHeaders(200, body.length);
+		try (OutputStream output = exchange.getResponseBody()) {
+			output.write(body);
+		}
+	}
+
+	/**
+	 * Reads the parameters of a request from the query string and, for POST
+	 * requests, from the form data in the body.
+	 */
+	static Map<String, String> getParameters(HttpExchange exchange)
+			throws IOException {
+		Map<String, String> result = new HashMap<>();
+		parseQueryString(exchange.getRequestURI().getRawQuery(), result);
+		if ("POST".equalsIgnoreCase(exchange.getRequestMethod())) {
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			try (InputStream input = exchange.getRequestBody()) {
+				byte[] buffer = new byte[8192];
+				int read;
+				while ((read = input.read(buffer)) > 0) {
+					bytes.write(buffer, 0, read);
+				}
+			}
+			parseQueryString(
+					new String(bytes.toByteArray(), StandardCharsets.UTF_8),
+					result);
+		}
+		return result;
+	}
+
+	static void parseQueryString(String queryString, Map<String, String> result)
+			throws UnsupportedEncodingException {
+		if (queryString == null || queryString.isEmpty()) {
+			return;
+		}
+		for (String parameter : queryString.split("&")) {
+			int separator = parameter.indexOf('=');
+			if (separator < 0) {
+				result.put(URLDecoder.decode(parameter, "UTF-8"), "");
+			} else {
+				result.put(
+						URLDecoder.decode(parameter.substring(0, separator),
+								"UTF-8"),
+						URLDecoder.decode(parameter.substring(separator + 1),
+								"UTF-8"));
+			}
+		}
+	}
+
+}
@@ -0,0 +1,514 @@
+package org.wikidata.wdtk.localapi;
+
+/*
+ * #%L
+ * Wikidata Toolkit Local API
+ * %%
+ * Copyright (C) 2014 - 2015 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.UnaryOperator;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.wikidata.wdtk.datamodel.helpers.DatamodelMapper;
+import org.wikidata.wdtk.datamodel.implementation.TermedStatementDocumentImpl;
+import org.wikidata.wdtk.datamodel.interfaces.EntityDocument;
+import org.wikidata.wdtk.datamodel.interfaces.EntityDocumentProcessor;
+import org.wikidata.wdtk.datamodel.interfaces.ItemDocument;
+import org.wikidata.wdtk.datamodel.interfaces.MonolingualTextValue;
+import org.wikidata.wdtk.datamodel.interfaces.PropertyDocument;
+import org.wikidata.wdtk.datamodel.interfaces.SiteLink;
+import org.wikidata.wdtk.datamodel.interfaces.TermedDocument;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * Thread-safe in-memory store of entity documents, as used by
+ * {@link LocalApiServer}. Documents are kept together with their JSON
+ * serialization, so that they can be sent without serializing them again.
+ * Labels and aliases are indexed for prefix search.
+ * <p>
+ * The store can be filled from a JSON dump with
+ * {@link #loadJsonDump(InputStream)}, or with any other source of documents
+ * since it is an {@link EntityDocumentProcessor}.
+ */
+public class LocalEntityStore implements EntityDocumentProcessor {
+
+	static final Logger logger = LoggerFactory
+			.getLogger(LocalEntityStore.class);
+
+	/**
+	 * Stored document together with its JSON serialization. Both must not be
+	 * modified once they are stored.
+	 */
+	public static class Entry {
+		final EntityDocument document;
+		final ObjectNode json;
+
+		Entry(EntityDocument document, ObjectNode json) {
+			this.document = document;
+			this.json = json;
+		}
+
+		/**
+		 * Returns the stored document.
+		 *
+		 * @return the document
+		 */
+		public EntityDocument getDocument() {
+			return this.document;
+		}
+
+		/**
+		 * Returns the JSON serialization of the document, as used by the
+		 * API. The result must not be modified.
+		 *
+		 * @return JSON object
+		 */
+		public ObjectNode getJson() {
+			return this.json;
+		}
+	}
+
+	/**
+	 * Term of an entity that matches a search.
+	 */
+	public static class SearchMatch {
+		final String entityId;
+		final String matchType;
+		final String language;
+		final String text;
+
+		SearchMatch(String entityId, String matchType, String language,
+				String text) {
+			this.entityId = entityId;
+			this.matchType = matchType;
+			this.language = language;
+			this.text = text;
+		}
+
+		/**
+		 * Returns the id of the matching entity.
+		 *
+		 * @return entity id
+		 */
+		public String getEntityId() {
+			return this.entityId;
+		}
+
+		/**
+		 * Returns the type of the matching term, "label" or "alias".
+		 *
+		 * @return type of term
+		 */
+		public String getMatchType() {
+			return this.matchType;
+		}
+
+		/**
+		 * Returns the language code of the matching term.
+		 *
+		 * @return language code
+		 */
+		public String getLanguage() {
+			return this.language;
+		}
+
+		/**
+		 * Returns the text of the matching term.
+		 *
+		 * @return text
+		 */
+		public String getText() {
+			return this.text;
+		}
+	}
+
+	/**
+	 * Separator of the parts of search index keys; it is smaller than all
+	 * characters that occur in terms.
+	 */
+	static final char KEY_SEPARATOR = '\u0000';
+
+	final ObjectMapper mapper;
+	final String siteIri;
+
+	final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+	/**
+	 * Index of labels and aliases for prefix search. Keys consist of language
+	 * code, normalized term, and entity id; values are the matches.
+	 */
+	final ConcurrentSkipListMap<String, SearchMatch> searchIndex = new ConcurrentSkipListMap<>();
+
+	/**
+	 * Index of site links. Keys consist of site key and page title; values
+	 * are entity ids.
+	 */
+	final Map<String, String> siteLinkIndex = new ConcurrentHashMap<>();
+
+	final AtomicLong lastRevisionId = new AtomicLong();
+	final AtomicLong lastItemNumber = new AtomicLong();
+	final AtomicLong lastPropertyNumber = new AtomicLong();
+
+	/**
+	 * Creates a new empty store.
+	 *
+	 * @param siteIri
+	 *            the IRI that identifies the site that the data is from
+	 */
+	public LocalEntityStore(String siteIri) {
+		this.siteIri = siteIri;
+		this.mapper = new DatamodelMapper(siteIri);
+	}
+
+	/**
+	 * Returns the IRI of the site that the data is from.
+	 *
+	 * @return site IRI
+	 */
+	public String getSiteIri() {
+		return this.siteIri;
+	}
+
+	/**
+	 * Returns the number of stored documents.
+	 *
+	 * @return number of documents
+	 */
+	public int size() {
+		return this.entries.size();
+	}
+
+	@Override
+	public void processItemDocument(ItemDocument itemDocument) {
+		putDocument(itemDocument);
+	}
+
+	@Override
+	public void processPropertyDocument(PropertyDocument propertyDocument) {
+		putDocument(propertyDocument);
+	}
+
+	/**
+	 * Reads all entities from the given JSON dump and adds them to the store.
+	 * The dump must be in the format of the Wikidata JSON dumps, i.e., a JSON
+	 * array with one entity per line. Entities that cannot be read are
+	 * skipped.
+	 *
+	 * @param input
+	 *            stream of the uncompressed dump
+	 * @return number of entities that were added
+	 * @throws IOException
+	 *             if the dump could not be read
+	 */
+	public int loadJsonDump(InputStream input) throws IOException {
+		int count = 0;
+		BufferedReader reader = new BufferedReader(new InputStreamReader(
+				input, StandardCharsets.UTF_8));
+		String line;
+		while ((line = reader.readLine()) != null) {
+			line = line.trim();
+			if (line.endsWith(",")) {
+				line = line.substring(0, line.length() - 1);
+			}
+			if (line.length() < 2 || line.charAt(0) != '{') {
+				continue; // array brackets or empty lines
+			}
+			try {
+				putJson((ObjectNode) this.mapper.readTree(line));
+				count++;
+			} catch (IOException | RuntimeException e) {
+				logger.error("Could not read entity from dump: "
+						+ e.toString());
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Adds the given document to the store, replacing any previous document
+	 * for the same entity.
+	 *
+	 * @param document
+	 *            the document to add
+	 */
+	public void putDocument(EntityDocument document) {
+		ObjectNode json = this.mapper.valueToTree(document);
+		put(new Entry(document, json));
+	}
+
+	/**
+	 * Adds the document serialized in the given JSON to the store, replacing
+	 * any previous document for the same entity.
+	 *
+	 * @param json
+	 *            the JSON serialization of the document; it must not be
+	 *            modified afterwards
+	 * @return the stored entry
+	 * @throws IOException
+	 *             if the JSON is not a valid document
+	 */
+	public Entry putJson(ObjectNode json) throws IOException {
+		Entry entry = new Entry(toDocument(json), json);
+		put(entry);
+		return entry;
+	}
+
+	/**
+	 * Returns the stored entry for the given entity.
+	 *
+	 * @param entityId
+	 *            the id of the entity, e.g., "Q42"
+	 * @return the entry, or null if the entity is not stored
+	 */
+	public Entry getEntry(String entityId) {
+		return this.entries.get(entityId);
+	}
+
+	/**
+	 * Returns the stored document for the given entity.
+	 *
+	 * @param entityId
+	 *            the id of the entity, e.g., "Q42"
+	 * @return the document, or null if the entity is not stored
+	 */
+	public EntityDocument getDocument(String entityId) {
+		Entry entry = this.entries.get(entityId);
+		return entry == null ? null : entry.document;
+	}
+
+	/**
+	 * Returns the id of the item that links to the given page.
+	 *
+	 * @param siteKey
+	 *            the key of the site, e.g., "enwiki"
+	 * @param title
+	 *            the title of the page
+	 * @return the id of the item, or null if no item links to the page
+	 */
+	public String getEntityIdForSiteLink(String siteKey, String title) {
+		return this.siteLinkIndex.get(siteKey + KEY_SEPARATOR + title);
+	}
+
+	/**
+	 * Changes the JSON of an entity atomically. The given function is called
+	 * with a copy of the current JSON of the entity, or with null if the
+	 * entity does not exist yet, and returns the new JSON. The revision id of
+	 * the result is set to a new value. Edits of different entities can be
+	 * made concurrently.
+	 *
+	 * @param entityId
+	 *            the id of the entity
+	 * @param edit
+	 *            function that computes the new JSON
+	 * @return the stored entry
+	 * @throws IllegalArgumentException
+	 *             if the result is not a valid document
+	 */
+	public Entry editJson(String entityId, UnaryOperator<ObjectNode> edit) {
+		Entry[] result = new Entry[1];
+		this.entries.compute(entityId, (id, entry) -> {
+			ObjectNode json = edit.apply(entry == null ? null : entry.json
+					.deepCopy());
+			json.put("lastrevid", this.lastRevisionId.incrementAndGet());
+			try {
+				result[0] = new Entry(toDocument(json), json);
+			} catch (IOException e) {
+				throw new IllegalArgumentException(
+						"Invalid entity data: " + e.getMessage(), e);
+			}
+			if (entry != null) {
+				unindex(entry.document);
+			}
+			index(result[0].document);
+			return result[0];
+		});
+		return result[0];
+	}
+
+	/**
+	 * Returns a new id for an entity of the given type.
+	 *
+	 * @param type
+	 *            "item" or "property"
+	 * @return new entity id
+	 */
+	public String getNewEntityId(String type) {
+		if (TermedStatementDocumentImpl.JSON_TYPE_PROPERTY.equals(type)) {
+			return "P" + this.lastPropertyNumber.incrementAndGet();
+		}
+		return "Q" + this.lastItemNumber.incrementAndGet();
+	}
+
+	/**
+	 * Searches for entities with labels or aliases that start with the given
+	 * text, ignoring case. Each entity is returned at most once, with the
+	 * first matching term in the order of the index.
+	 *
+	 * @param prefix
+	 *            the text to search for
+	 * @param language
+	 *            the language of the terms
+	 * @param type
+	 *            the type of entities to find, "item" or "property"
+	 * @param offset
+	 *            number of matching entities to skip
+	 * @param limit
+	 *            maximal number of matches to return
+	 * @return list of matches
+	 */
+	public List<SearchMatch> search(String prefix, String language,
+			String type, int offset, int limit) {
+		String keyPrefix = language + KEY_SEPARATOR + normalize(prefix);
+		ConcurrentNavigableMap<String, SearchMatch> candidates = this.searchIndex
+				.subMap(keyPrefix, true, keyPrefix + Character.MAX_VALUE, true);
+		String idPrefix = TermedStatementDocumentImpl.JSON_TYPE_PROPERTY
+				.equals(type) ? "P" : "Q";
+
+		List<SearchMatch> result = new ArrayList<>();
+		Set<String> seen = new HashSet<>();
+		int skipped = 0;
+		for (SearchMatch match : candidates.values()) {
+			if (result.size() >= limit) {
+				break;
+			}
+			if (!match.entityId.startsWith(idPrefix)
+					|| !seen.add(match.entityId)) {
+				continue;
+			}
+			if (skipped < offset) {
+				skipped++;
+			} else {
+				result.add(match);
+			}
+		}
+		return result;
+	}
+
+	void put(Entry entry) {
+		String entityId = entry.document.getEntityId().getId();
+		updateCounters(entityId, entry.document.getRevisionId());
+		this.entries.compute(entityId, (id, previous) -> {
+			if (previous != null) {
+				unindex(previous.document);
+			}
+			index(entry.document);
+			return entry;
+		});
+	}
+
+	EntityDocument toDocument(JsonNode json) throws IOException {
+		return this.mapper.treeToValue(json, TermedStatementDocumentImpl.class);
+	}
+
+	/**
+	 * Makes sure that new revision ids and entity ids do not clash with the
+	 * ones of the given entity.
+	 */
+	void updateCounters(String entityId, long revisionId) {
+		this.lastRevisionId.accumulateAndGet(revisionId, Math::max);
+		try {
+			long number = Long.parseLong(entityId.substring(1));
+			if (entityId.charAt(0) == 'P') {
+				this.lastPropertyNumber.accumulateAndGet(number, Math::max);
+			} else if (entityId.charAt(0) == 'Q') {
+				this.lastItemNumber.accumulateAndGet(number, Math::max);
+			}
+		} catch (NumberFormatException e) {
+			// not a numeric id; nothing to do
+		}
+	}
+
+	void index(EntityDocument document) {
+		for (SearchMatch match : getTerms(document)) {
+			this.searchIndex.put(getSearchKey(match), match);
+		}
+		if (document instanceof ItemDocument) {
+			String entityId = document.getEntityId().getId();
+			for (SiteLink siteLink : ((ItemDocument) document).getSiteLinks()
+					.values()) {
+				this.siteLinkIndex.put(siteLink.getSiteKey() + KEY_SEPARATOR
+						+ siteLink.getPageTitle(), entityId);
+			}
+		}
+	}
+
+	void unindex(EntityDocument document) {
+		for (SearchMatch match : getTerms(document)) {
+			this.searchIndex.remove(getSearchKey(match));
+		}
+		if (document instanceof ItemDocument) {
+			String entityId = document.getEntityId().getId();
+			for (SiteLink siteLink : ((ItemDocument) document).getSiteLinks()
+					.values()) {
+				this.siteLinkIndex.remove(siteLink.getSiteKey() + KEY_SEPARATOR
+						+ siteLink.getPageTitle(), entityId);
+			}
+		}
+	}
+
+	List<SearchMatch> getTerms(EntityDocument document) {
+		if (!(document instanceof TermedDocument)) {
+			return Collections.emptyList();
+		}
+		TermedDocument termedDocument = (TermedDocument) document;
+		String entityId = document.getEntityId().getId();
+		List<SearchMatch> result = new ArrayList<>();
+		for (MonolingualTextValue label : termedDocument.getLabels().values()) {
+			result.add(new SearchMatch(entityId, "label", label
+					.getLanguageCode(), label.getText()));
+		}
+		for (List<MonolingualTextValue> aliases : termedDocument.getAliases()
+				.values()) {
+			for (MonolingualTextValue alias : aliases) {
+				result.add(new SearchMatch(entityId, "alias", alias
+						.getLanguageCode(), alias.getText()));
+			}
+		}
+		return result;
+	}
+
+	static String getSearchKey(SearchMatch match) {
+		return match.language + KEY_SEPARATOR + normalize(match.text)
+				+ KEY_SEPARATOR + match.entityId + KEY_SEPARATOR
+				+ match.matchType;
+	}
+
+	static String normalize(String text) {
+		return text.toLowerCase(Locale.ROOT).replace(KEY_SEPARATOR, ' ');
+	}
+
+}
@@ -0,0 +1,229 @@
+package org.wikidata.wdtk.localapi;
+
+/*
+ * #%L
+ * Wikidata Toolkit Local API
+ * %%
+ * Copyright (C) 2014 - 2015 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.wikidata.wdtk.datamodel.helpers.Datamodel;
+import org.wikidata.wdtk.datamodel.helpers.ItemDocumentBuilder;
+import org.wikidata.wdtk.datamodel.helpers.StatementBuilder;
+import org.wikidata.wdtk.datamodel.interfaces.EntityDocument;
+import org.wikidata.wdtk.datamodel.interfaces.ItemDocument;
+import org.wikidata.wdtk.datamodel.interfaces.ItemIdValue;
+import org.wikidata.wdtk.datamodel.interfaces.Statement;
+import org.wikidata.wdtk.datamodel.interfaces.StatementDocument;
+import org.wikidata.wdtk.wikibaseapi.ApiConnection;
+import org.wikidata.wdtk.wikibaseapi.EditScheduler;
+import org.wikidata.wdtk.wikibaseapi.LoginFailedException;
+import org.wikidata.wdtk.wikibaseapi.WbSearchEntitiesResult;
+import org.wikidata.wdtk.wikibaseapi.WikibaseDataEditor;
+import org.wikidata.wdtk.wikibaseapi.WikibaseDataFetcher;
+import org.wikidata.wdtk.wikibaseapi.apierrors.EditConflictErrorException;
+import org.wikidata.wdtk.wikibaseapi.apierrors.MaxlagErrorException;
+import org.wikidata.wdtk.wikibaseapi.apierrors.MediaWikiApiErrorException;
+import org.wikidata.wdtk.wikibaseapi.apierrors.NoSuchEntityErrorException;
+
+public class LocalApiServerTest {
+
+	LocalApiServer server;
+	ApiConnection connection;
+	WikibaseDataFetcher wdf;
+
+	@Before
+	public void setUp() throws IOException {
+		LocalEntityStore store = new LocalEntityStore(Datamodel.SITE_WIKIDATA);
+		try (InputStream input = this.getClass().getResourceAsStream(
+				"/dump-small.json")) {
+			store.loadJsonDump(input);
+		}
+		this.server = new LocalApiServer(store);
+		this.connection = new ApiConnection(this.server.getApiUrl());
+		this.wdf = new WikibaseDataFetcher(this.connection,
+				Datamodel.SITE_WIKIDATA);
+	}
+
+	@After
+	public void tearDown() {
+		this.server.close();
+	}
+
+	@Test
+	public void testGetEntityDocuments() throws IOException,
+			MediaWikiApiErrorException {
+		Map<String, EntityDocument> results = this.wdf.getEntityDocuments(
+				"Q1", "Q42", "P31", "Q12345");
+		assertEquals(3, results.size());
+		assertEquals(this.server.getStore().getDocument("Q42"),
+				results.get("Q42"));
+		assertEquals(this.server.getStore().getDocument("P31"),
+				results.get("P31"));
+		assertEquals(1, this.server.getRequestCount("wbgetentities"));
+	}
+
+	@Test
+	public void testGetEntityDocumentsFiltered() throws IOException,
+			MediaWikiApiErrorException {
+		this.wdf.getFilter().setLanguageFilter(Collections.singleton("de"));
+		this.wdf.getFilter().setPropertyFilter(Collections.emptySet());
+		ItemDocument document = (ItemDocument) this.wdf.getEntityDocument("Q1");
+		assertEquals(1, document.getLabels().size());
+		assertEquals("Universum", document.getLabels().get("de").getText());
+		assertTrue(document.getDescriptions().isEmpty());
+		assertTrue(document.getStatementGroups().isEmpty());
+	}
+
+	@Test(expected = NoSuchEntityErrorException.class)
+	public void testGetInvalidEntityId() throws IOException,
+			MediaWikiApiErrorException {
+		this.wdf.getEntityDocument("bogus");
+	}
+
+	@Test
+	public void testGetEntityDocumentByTitle() throws IOException,
+			MediaWikiApiErrorException {
+		EntityDocument document = this.wdf.getEntityDocumentByTitle("enwiki",
+				"Universe");
+		assertEquals("Q1", document.getEntityId().getId());
+		assertNull(this.wdf.getEntityDocumentByTitle("enwiki", "Nowhere"));
+	}
+
+	@Test
+	public void testSearchEntities() throws IOException,
+			MediaWikiApiErrorException {
+		List<WbSearchEntitiesResult> results = this.wdf.searchEntities("doug",
+				"en");
+		assertEquals(Arrays.asList("Q42", "Q43"), results.stream()
+				.map(WbSearchEntitiesResult::getEntityId)
+				.collect(Collectors.toList()));
+		assertEquals("British author and humorist", results.get(0)
+				.getDescription());
+
+		List<String> streamed = this.wdf.streamSearchEntities("u", "en", 10)
+				.map(WbSearchEntitiesResult::getEntityId)
+				.collect(Collectors.toList());
+		assertEquals(Collections.singletonList("Q1"), streamed);
+	}
+
+	@Test
+	public void testEditItem() throws IOException,
+			MediaWikiApiErrorException, LoginFailedException {
+		WikibaseDataEditor editor = new WikibaseDataEditor(this.connection,
+				Datamodel.SITE_WIKIDATA);
+		editor.setEditScheduler(new EditScheduler(0, 1));
+		this.connection.login("user", "password");
+
+		ItemDocument created = editor.createItemDocument(ItemDocumentBuilder
+				.forItemId(ItemIdValue.NULL).withLabel("Arthur Dent", "en")
+				.build(), "new item");
+		assertEquals("Q44", created.getEntityId().getId());
+		assertEquals(201, created.getRevisionId());
+
+		Statement statement = StatementBuilder
+				.forSubjectAndProperty(created.getEntityId(),
+						Datamodel.makeWikidataPropertyIdValue("P31"))
+				.withValue(Datamodel.makeWikidataItemIdValue("Q5")).build();
+		ItemDocument edited = editor.updateStatements(created.getItemId(),
+				Collections.singletonList(statement),
+				Collections.<Statement> emptyList(), "add statement");
+		assertEquals(202, edited.getRevisionId());
+		assertEquals(1, edited.findStatementGroup("P31").size());
+		String statementId = edited.findStatementGroup("P31").getStatements()
+				.get(0).getStatementId();
+		assertTrue(statementId.startsWith("Q44$"));
+
+		StatementDocument stored = (StatementDocument) this.server.getStore()
+				.getDocument("Q44");
+		assertEquals(edited, stored);
+		assertEquals("Q44", this.server.getStore()
+				.search("arthur", "en", "item", 0, 1).get(0).getEntityId());
+
+		edited = editor.updateStatements(created.getItemId(),
+				Collections.<Statement> emptyList(),
+				edited.findStatementGroup("P31").getStatements(), "remove");
+		assertNull(edited.findStatementGroup("P31"));
+	}
+
+	@Test
+	public void testEditConflict() throws IOException,
+			MediaWikiApiErrorException {
+		long revisionId = this.server.getStore().getDocument("Q42")
+				.getRevisionId();
+		Map<String, String> parameters = new HashMap<>();
+		parameters.put("action", "wbeditentity");
+		parameters.put("id", "Q42");
+		parameters.put("token", LocalApiActions.CSRF_TOKEN);
+		parameters.put("data",
+				"{\"labels\":{\"en\":{\"language\":\"en\",\"value\":\"Douglas\"}}}");
+		parameters.put("baserevid", Long.toString(revisionId));
+		this.connection.sendJsonRequest("POST", new HashMap<>(parameters));
+		long editedRevisionId = this.server.getStore().getDocument("Q42")
+				.getRevisionId();
+
+		try {
+			this.connection.sendJsonRequest("POST", parameters);
+		} catch (EditConflictErrorException e) {
+			assertEquals(editedRevisionId, this.server.getStore()
+					.getDocument("Q42").getRevisionId());
+			return;
+		}
+		fail("Expected an edit conflict");
+	}
+
+	@Test(expected = MaxlagErrorException.class)
+	public void testSimulatedLag() throws IOException,
+			MediaWikiApiErrorException {
+		this.server.setSimulatedLag(10);
+		Map<String, String> parameters = new HashMap<>();
+		parameters.put("action", "wbgetentities");
+		parameters.put("ids", "Q42");
+		parameters.put("maxlag", "5");
+		this.connection.sendJsonRequest("POST", parameters);
+	}
+
+	@Test
+	public void testUnknownAction() throws IOException {
+		Map<String, String> parameters = new HashMap<>();
+		parameters.put("action", "parse");
+		try {
+			this.connection.sendJsonRequest("POST", parameters);
+		} catch (MediaWikiApiErrorException e) {
+			assertEquals("unknown_action", e.getErrorCode());
+			return;
+		}
+		fail("Expected an API error");
+	}
+
+}
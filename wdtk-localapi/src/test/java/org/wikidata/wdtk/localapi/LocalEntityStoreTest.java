@@ -0,0 +1,133 @@
+package org.wikidata.wdtk.localapi;
+
+/*
+ * #%L
+ * Wikidata Toolkit Local API
+ * %%
+ * Copyright (C) 2014 - 2015 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.wikidata.wdtk.datamodel.helpers.Datamodel;
+import org.wikidata.wdtk.datamodel.helpers.ItemDocumentBuilder;
+import org.wikidata.wdtk.datamodel.interfaces.ItemDocument;
+import org.wikidata.wdtk.datamodel.interfaces.TermedDocument;
+
+public class LocalEntityStoreTest {
+
+	LocalEntityStore store;
+
+	@Before
+	public void setUp() throws IOException {
+		this.store = new LocalEntityStore(Datamodel.SITE_WIKIDATA);
+		try (InputStream input = this.getClass().getResourceAsStream(
+				"/dump-small.json")) {
+			assertEquals(4, this.store.loadJsonDump(input));
+		}
+	}
+
+	static List<String> getIds(List<LocalEntityStore.SearchMatch> matches) {
+		return matches.stream().map(LocalEntityStore.SearchMatch::getEntityId)
+				.collect(Collectors.toList());
+	}
+
+	@Test
+	public void testLoadDump() {
+		assertEquals(4, this.store.size());
+		assertEquals(200, this.store.getDocument("Q42").getRevisionId());
+		assertEquals("instance of", ((TermedDocument) this.store
+				.getDocument("P31")).getLabels().get("en").getText());
+		assertEquals("Q42",
+				this.store.getEntityIdForSiteLink("enwiki", "Douglas Adams"));
+		assertNull(this.store.getDocument("Q2"));
+	}
+
+	@Test
+	public void testSearch() {
+		List<LocalEntityStore.SearchMatch> matches = this.store.search("DOUG",
+				"en", "item", 0, 10);
+		assertEquals(2, matches.size());
+		assertEquals("Q42", matches.get(0).getEntityId());
+		assertEquals("Douglas Adams", matches.get(0).getText());
+		assertEquals("Q43", matches.get(1).getEntityId());
+
+		assertEquals("Q43", getIds(this.store.search("doug", "en", "item", 1,
+				10)).get(0));
+		assertEquals("alias", this.store.search("cosm", "en", "item", 0, 10)
+				.get(0).getMatchType());
+		assertEquals("Q1", getIds(this.store.search("univ", "de", "item", 0,
+				10)).get(0));
+		assertTrue(this.store.search("is a", "en", "item", 0, 10).isEmpty());
+		assertEquals("P31", getIds(this.store.search("is a", "en", "property",
+				0, 10)).get(0));
+	}
+
+	@Test
+	public void testEditJson() {
+		LocalEntityStore.Entry entry = this.store.editJson("Q43", json -> {
+			json.with("labels").with("en").put("value", "Pseudotsuga");
+			return json;
+		});
+		assertEquals(201, entry.getDocument().getRevisionId());
+		assertEquals(201, entry.getJson().path("lastrevid").asLong());
+		assertEquals("Pseudotsuga", ((TermedDocument) this.store
+				.getDocument("Q43")).getLabels().get("en").getText());
+		assertEquals(1, this.store.search("doug", "en", "item", 0, 10).size());
+		assertEquals("Q43", getIds(this.store.search("pseudo", "en", "item",
+				0, 10)).get(0));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testEditJsonInvalid() {
+		this.store.editJson("Q43", json -> {
+			json.put("labels", "not a map");
+			return json;
+		});
+	}
+
+	@Test
+	public void testPutDocumentReplacesIndex() {
+		ItemDocument document = ItemDocumentBuilder
+				.forItemId(Datamodel.makeWikidataItemIdValue("Q42"))
+				.withLabel("Adams", "en").withRevisionId(300).build();
+		this.store.putDocument(document);
+
+		assertEquals(300, this.store.getDocument("Q42").getRevisionId());
+		assertEquals("Q43", getIds(this.store.search("doug", "en", "item", 0,
+				10)).get(0));
+		assertEquals("Q42", getIds(this.store.search("adams", "en", "item", 0,
+				10)).get(0));
+		assertNull(this.store.getEntityIdForSiteLink("enwiki", "Douglas Adams"));
+	}
+
+	@Test
+	public void testGetNewEntityId() {
+		assertEquals("Q44", this.store.getNewEntityId("item"));
+		assertEquals("Q45", this.store.getNewEntityId("item"));
+		assertEquals("P32", this.store.getNewEntityId("property"));
+	}
+
+}
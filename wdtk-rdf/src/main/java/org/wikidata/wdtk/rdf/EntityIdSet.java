@@ -0,0 +1,177 @@
+package org.wikidata.wdtk.rdf;
+
+/*
+ * #%L
+ * Wikidata Toolkit RDF
+ * %%
+ * Copyright (C) 2014 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.wikidata.wdtk.datamodel.interfaces.EntityIdValue;
+import org.wikidata.wdtk.storage.datastructures.BitVector;
+import org.wikidata.wdtk.storage.datastructures.BitVectorImpl;
+
+/**
+ * Compact set of {@link EntityIdValue} objects. Ids of the usual form, i.e.,
+ * an upper case letter followed by a number (such as "Q42" or "P31"), are
+ * stored as bits in a {@link BitVector} for each site and letter, so that the
+ * memory needed does not depend on the number of elements but only on the
+ * largest numeric id. Other ids are stored as strings.
+ */
+class EntityIdSet {
+
+	/**
+	 * Largest number of digits that is stored in bit vectors.
+	 */
+	static final int MAX_DIGITS = 10;
+
+	/**
+	 * Largest numeric id that is stored in bit vectors. Larger ids are stored
+	 * as strings to bound the size of the bit vectors.
+	 */
+	static final long MAX_NUMERIC_ID = Integer.MAX_VALUE;
+
+	/**
+	 * Bit vectors for each site IRI, indexed by the first letter of the id.
+	 */
+	final Map<String, BitVector[]> bitVectors = new HashMap<>();
+
+	/**
+	 * Ids that cannot be stored in bit vectors, as pairs of site IRI and id.
+	 */
+	final Set<String> otherIds = new HashSet<>();
+
+	/**
+	 * Site IRI of the most recent lookup, used to avoid map lookups.
+	 */
+	String lastSiteIri = null;
+	BitVector[] lastBitVectors = null;
+
+	/**
+	 * Adds the given entity id to the set.
+	 *
+	 * @param entityIdValue
+	 *            the id to add
+	 * @return true if the id was not contained in the set before
+	 */
+	public boolean add(EntityIdValue entityIdValue) {
+		String id = entityIdValue.getId();
+		long number = getNumericId(id);
+		if (number < 0) {
+			return this.otherIds.add(entityIdValue.getSiteIri() + " " + id);
+		}
+
+		BitVector[] siteBitVectors = getBitVectors(
+				entityIdValue.getSiteIri(), true);
+		int letter = id.charAt(0) - 'A';
+		if (siteBitVectors[letter] == null) {
+			siteBitVectors[letter] = new BitVectorImpl();
+		}
+		if (siteBitVectors[letter].getBit(number)) {
+			return false;
+		}
+		siteBitVectors[letter].setBit(number, true);
+		return true;
+	}
+
+	/**
+	 * Checks if the given entity id is contained in the set.
+	 *
+	 * @param entityIdValue
+	 *            the id to look for
+	 * @return true if the id is in the set
+	 */
+	public boolean contains(EntityIdValue entityIdValue) {
+		String id = entityIdValue.getId();
+		long number = getNumericId(id);
+		if (number < 0) {
+			return this.otherIds.contains(entityIdValue.getSiteIri() + " "
+					+ id);
+		}
+
+		BitVector[] siteBitVectors = getBitVectors(
+				entityIdValue.getSiteIri(), false);
+		if (siteBitVectors == null) {
+			return false;
+		}
+		BitVector bitVector = siteBitVectors[id.charAt(0) - 'A'];
+		return bitVector != null && bitVector.getBit(number);
+	}
+
+	/**
+	 * Returns the bit vectors for the given site IRI.
+	 *
+	 * @param siteIri
+	 *            the site IRI
+	 * @param create
+	 *            if true, missing bit vector arrays will be created
+	 * @return the array of bit vectors, or null if create is false and there
+	 *         is no array yet
+	 */
+	BitVector[] getBitVectors(String siteIri, boolean create) {
+		if (siteIri.equals(this.lastSiteIri)) {
+			return this.lastBitVectors;
+		}
+		BitVector[] result = this.bitVectors.get(siteIri);
+		if (result == null) {
+			if (!create) {
+				return null;
+			}
+			result = new BitVector[26];
+			this.bitVectors.put(siteIri, result);
+		}
+		this.lastSiteIri = siteIri;
+		this.lastBitVectors = result;
+		return result;
+	}
+
+	/**
+	 * Returns the numeric part of ids that consist of an upper case letter
+	 * followed by a number without leading zeros, or -1 for other ids.
+	 *
+	 * @param id
+	 *            the id string
+	 * @return the number in the id, or -1
+	 */
+	static long getNumericId(String id) {
+		int length = id.length();
+		if (length < 2 || length > MAX_DIGITS + 1) {
+			return -1;
+		}
+		char letter = id.charAt(0);
+		if (letter < 'A' || letter > 'Z') {
+			return -1;
+		}
+		if (id.charAt(1) == '0' && length > 2) {
+			return -1;
+		}
+		long result = 0;
+		for (int i = 1; i < length; i++) {
+			char c = id.charAt(i);
+			if (c < '0' || c > '9') {
+				return -1;
+			}
+			result = 10 * result + (c - '0');
+		}
+		return result <= MAX_NUMERIC_ID ? result : -1;
+	}
+
+}
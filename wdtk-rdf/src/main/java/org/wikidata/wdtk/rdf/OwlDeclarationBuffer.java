@@ -36,6 +36,14 @@ import org.wikidata.wdtk.datamodel.interfaces.PropertyIdValue;
  * are ordered by subject, (2) to avoid some duplicate triples for things that
  * are needed in many places. Due to memory constraints, this class does not
  * provide perfect duplicate elimination.
+ * <p>
+ * Declared properties and classes are recorded in an {@link EntityIdSet},
+ * whose size only depends on the largest entity id, so that memory use stays
+ * flat even when millions of classes are declared. Declared property URIs are
+ * kept in a hash set that can be bounded using
+ * {@link #setMaxDeclaredPropertyUris(int)}. When the bound is exceeded, the
+ * set is cleared, so that some declarations may be written again. This is
+ * harmless since repeated triples do not change the RDF graph.
  *
  * @author Markus Kroetzsch
  *
@@ -46,20 +54,42 @@ public class OwlDeclarationBuffer {
 	final List<PropertyIdValue> datatypePropertyQueue;
 	final List<URI> objectPropertyUriQueue;
 	final List<URI> datatypePropertyUriQueue;
-	final HashSet<PropertyIdValue> declaredProperties;
+	final EntityIdSet declaredProperties;
 	final HashSet<URI> declaredPropertyUris;
 	final List<EntityIdValue> classEntityQueue;
-	final HashSet<EntityIdValue> declaredClassEntities;
+	final EntityIdSet declaredClassEntities;
+
+	/**
+	 * Maximal number of property URIs to remember, or 0 if there is no limit.
+	 */
+	int maxDeclaredPropertyUris = 0;
 
 	public OwlDeclarationBuffer() {
 		this.objectPropertyQueue = new ArrayList<PropertyIdValue>();
 		this.datatypePropertyQueue = new ArrayList<PropertyIdValue>();
 		this.objectPropertyUriQueue = new ArrayList<URI>();
 		this.datatypePropertyUriQueue = new ArrayList<URI>();
-		this.declaredProperties = new HashSet<PropertyIdValue>();
+		this.declaredProperties = new EntityIdSet();
 		this.declaredPropertyUris = new HashSet<URI>();
 		this.classEntityQueue = new ArrayList<EntityIdValue>();
-		this.declaredClassEntities = new HashSet<EntityIdValue>();
+		this.declaredClassEntities = new EntityIdSet();
+	}
+
+	/**
+	 * Sets the maximal number of declared property URIs that are remembered
+	 * to avoid duplicate declarations. If more URIs are declared, the stored
+	 * URIs are forgotten and may be declared again later. The default value 0
+	 * means that all declared URIs are remembered.
+	 *
+	 * @param maxDeclaredPropertyUris
+	 *            the maximal number of URIs to remember, or 0 for no limit
+	 */
+	public void setMaxDeclaredPropertyUris(int maxDeclaredPropertyUris) {
+		if (maxDeclaredPropertyUris < 0) {
+			throw new IllegalArgumentException(
+					"The number of URIs must not be negative.");
+		}
+		this.maxDeclaredPropertyUris = maxDeclaredPropertyUris;
 	}
 
 	/**
@@ -238,7 +268,7 @@ public class OwlDeclarationBuffer {
 		this.datatypePropertyQueue.clear();
 
 		for (URI propertyUri : this.objectPropertyUriQueue) {
-			if (!this.declaredPropertyUris.add(propertyUri)) {
+			if (!addDeclaredPropertyUri(propertyUri)) {
 				continue;
 			}
 			rdfWriter.writeTripleValueObject(propertyUri, RdfWriter.RDF_TYPE,
@@ -247,7 +277,7 @@ public class OwlDeclarationBuffer {
 		this.objectPropertyUriQueue.clear();
 
 		for (URI propertyUri : this.datatypePropertyUriQueue) {
-			if (!this.declaredPropertyUris.add(propertyUri)) {
+			if (!addDeclaredPropertyUri(propertyUri)) {
 				continue;
 			}
 			rdfWriter.writeTripleValueObject(propertyUri, RdfWriter.RDF_TYPE,
@@ -278,6 +308,26 @@ public class OwlDeclarationBuffer {
 		this.classEntityQueue.clear();
 	}
 
+	/**
+	 * Records the given property URI as declared, clearing all recorded URIs
+	 * first if the maximal number of URIs has been reached.
+	 *
+	 * @param propertyUri
+	 *            the URI to record
+	 * @return true if the URI has not been recorded before
+	 */
+	boolean addDeclaredPropertyUri(URI propertyUri) {
+		if (this.declaredPropertyUris.contains(propertyUri)) {
+			return false;
+		}
+		if (this.maxDeclaredPropertyUris > 0
+				&& this.declaredPropertyUris.size() >= this.maxDeclaredPropertyUris) {
+			this.declaredPropertyUris.clear();
+		}
+		this.declaredPropertyUris.add(propertyUri);
+		return true;
+	}
+
 	/**
 	 * Writes no-value restriction.
 	 *
@@ -295,7 +345,8 @@ public class OwlDeclarationBuffer {
 	void writeNoValueRestriction(RdfWriter rdfWriter, String propertyUri,
 			String rangeUri, String subject) throws RDFHandlerException {
 
-		Resource bnodeSome = rdfWriter.getFreshBNode();
+		Resource bnodeSome = rdfWriter.getSomeValuesRestrictionNode(
+				propertyUri, rangeUri);
 		rdfWriter.writeTripleValueObject(subject, RdfWriter.RDF_TYPE,
 				RdfWriter.OWL_CLASS);
 		rdfWriter.writeTripleValueObject(subject, RdfWriter.OWL_COMPLEMENT_OF,
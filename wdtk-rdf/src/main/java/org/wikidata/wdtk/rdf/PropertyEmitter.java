@@ -0,0 +1,133 @@
+package org.wikidata.wdtk.rdf;
+
+/*
+ * #%L
+ * Wikidata Toolkit RDF
+ * %%
+ * Copyright (C) 2014 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.openrdf.model.URI;
+import org.openrdf.model.Value;
+import org.wikidata.wdtk.datamodel.interfaces.PropertyIdValue;
+import org.wikidata.wdtk.rdf.values.AnyValueConverter;
+import org.wikidata.wdtk.rdf.values.ResolvedValueConverter;
+
+/**
+ * Precompiled information for exporting snaks of one property. When a
+ * property is first seen by the {@link SnakRdfConverter}, an emitter is
+ * created that holds the predicate URIs for all {@link PropertyContext}
+ * values, so that converting snaks does not need to build URI strings or
+ * create new URI objects again. The datatype of the property is remembered as
+ * soon as it has been found in the {@link PropertyRegister}, and the value
+ * converter for the property is resolved with the first value, so that
+ * further values are converted without dispatching on their type.
+ */
+class PropertyEmitter {
+
+	static final PropertyContext[] CONTEXTS = PropertyContext.values();
+
+	final PropertyIdValue propertyIdValue;
+
+	/**
+	 * Predicate URIs, indexed by the ordinal of their {@link PropertyContext}.
+	 */
+	final URI[] uris;
+
+	/**
+	 * The datatype of the property, or null if it is not known yet.
+	 */
+	String datatype;
+
+	/**
+	 * The converter for values of the property, or null if no value has been
+	 * converted yet.
+	 */
+	ResolvedValueConverter<?> valueConverter;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param propertyIdValue
+	 *            the property to create the emitter for
+	 * @param rdfWriter
+	 *            the writer used to create URIs
+	 */
+	PropertyEmitter(PropertyIdValue propertyIdValue, RdfWriter rdfWriter) {
+		this.propertyIdValue = propertyIdValue;
+		this.uris = new URI[CONTEXTS.length];
+		for (PropertyContext context : CONTEXTS) {
+			this.uris[context.ordinal()] = rdfWriter.getUri(Vocabulary
+					.getPropertyUri(propertyIdValue, context));
+		}
+	}
+
+	/**
+	 * Returns the URI that represents the property in the given context.
+	 *
+	 * @param propertyContext
+	 *            the context in which the property is used
+	 * @return the URI of the property
+	 */
+	URI getUri(PropertyContext propertyContext) {
+		return this.uris[propertyContext.ordinal()];
+	}
+
+	/**
+	 * Returns the datatype of the property. The register is only asked until
+	 * the datatype has been found once.
+	 *
+	 * @param propertyRegister
+	 *            the register used to find the datatype
+	 * @return the datatype IRI, or null if it could not be determined
+	 */
+	String getDatatype(PropertyRegister propertyRegister) {
+		if (this.datatype == null) {
+			this.datatype = propertyRegister
+					.getPropertyType(this.propertyIdValue);
+		}
+		return this.datatype;
+	}
+
+	/**
+	 * Returns the RDF value that represents the given value of the property.
+	 * Values that do not have the type (or, for entity ids, the entity type) of
+	 * the first value of the property are converted with the given
+	 * {@link AnyValueConverter} as usual.
+	 *
+	 * @param value
+	 *            the value to convert
+	 * @param simple
+	 *            if true, use a simplified conversion to RDF
+	 * @param anyValueConverter
+	 *            the converter used to resolve the converter of the property
+	 * @return the RDF value, or null if the value could not be converted
+	 */
+	Value getRdfValue(org.wikidata.wdtk.datamodel.interfaces.Value value,
+			boolean simple, AnyValueConverter anyValueConverter) {
+		if (this.valueConverter == null) {
+			this.valueConverter = anyValueConverter.resolveValueConverter(
+					value, this.propertyIdValue);
+		}
+		if (this.valueConverter != null && this.valueConverter.accepts(value)) {
+			return this.valueConverter.getRdfValue(value,
+					this.propertyIdValue, simple);
+		}
+		return anyValueConverter.getRdfValue(value, this.propertyIdValue,
+				simple);
+	}
+
+}
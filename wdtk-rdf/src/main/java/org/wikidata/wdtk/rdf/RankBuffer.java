@@ -25,6 +25,7 @@ import java.util.Set;
 
 import org.openrdf.model.Resource;
 import org.wikidata.wdtk.datamodel.interfaces.EntityDocument;
+import org.wikidata.wdtk.datamodel.interfaces.StatementGroup;
 import org.wikidata.wdtk.datamodel.interfaces.StatementRank;
 
 /**
@@ -33,8 +34,12 @@ import org.wikidata.wdtk.datamodel.interfaces.StatementRank;
  * Ignores deprecated statements
  *
  * @author Michael Guenther
- *
+ * @deprecated {@link RdfConverter} no longer uses this class. Use
+ *             {@link StatementGroup#getBestRank()} to find the best rank of
+ *             the statements for one property. This class will be removed in
+ *             a future release.
  */
+@Deprecated
 public class RankBuffer {
 
 	/**
@@ -0,0 +1,373 @@
+package org.wikidata.wdtk.rdf;
+
+/*
+ * #%L
+ * Wikidata Toolkit RDF
+ * %%
+ * Copyright (C) 2014 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.openrdf.model.Resource;
+import org.openrdf.model.Statement;
+import org.openrdf.rio.RDFFormat;
+import org.openrdf.rio.RDFHandlerException;
+import org.openrdf.rio.RDFWriter;
+import org.openrdf.rio.Rio;
+import org.openrdf.rio.helpers.RDFHandlerBase;
+import org.wikidata.wdtk.datamodel.implementation.json.JsonSerializer;
+import org.wikidata.wdtk.datamodel.interfaces.EntityDocument;
+import org.wikidata.wdtk.datamodel.interfaces.EntityIdValue;
+import org.wikidata.wdtk.datamodel.interfaces.ItemDocument;
+import org.wikidata.wdtk.datamodel.interfaces.PropertyDocument;
+import org.wikidata.wdtk.datamodel.interfaces.Sites;
+
+/**
+ * Writes RDF change sets that transform the RDF export of one version of an
+ * entity into the export of another version. Deleted and inserted triples are
+ * written to two separate outputs, so that a triple store that was loaded
+ * from a full export can be updated incrementally.
+ * <p>
+ * Only triples that belong to an entity are ever deleted: triples about the
+ * entity itself, about its statements, and about the articles it is linked
+ * to. Triples about references and values are shared between entities, since
+ * their URIs are based on content hashes; they are inserted when they occur
+ * in the new version but not in the old one, but never deleted. The same
+ * holds for OWL declarations. Triples that are only exported for the previous
+ * version are assumed to be in the triple store already.
+ * <p>
+ * OWL restrictions, which are otherwise written as blank nodes, are identified
+ * by URIs that only depend on their content, so that both versions of an
+ * entity are exported with the same nodes. A triple store that is updated with
+ * change sets should therefore be loaded from an export that was created with
+ * {@link RdfSerializer#setSkolemizeRestrictions(boolean)} enabled.
+ * <p>
+ * To detect unchanged entities cheaply, the writer compares revision ids and
+ * then per-entity digests of the documents, see
+ * {@link #getDigest(EntityDocument)}, before any RDF is exported. To compare
+ * two complete dumps, use {@link RdfDumpComparator}.
+ */
+public class RdfChangeSetWriter {
+
+	/**
+	 * Handler that collects triples into a set that can be exchanged.
+	 */
+	static class TripleCollector extends RDFHandlerBase {
+		Set<Statement> triples;
+
+		@Override
+		public void handleStatement(Statement st) {
+			this.triples.add(st);
+		}
+	}
+
+	final RDFWriter deletionWriter;
+	final RDFWriter insertionWriter;
+	final OutputStream deletionOutput;
+	final OutputStream insertionOutput;
+
+	final TripleCollector collector;
+	final RdfConverter rdfConverter;
+
+	final MessageDigest md;
+
+	long changedEntityCount = 0;
+	long deletedTripleCount = 0;
+	long insertedTripleCount = 0;
+
+	/**
+	 * Creates a new change set writer that writes N-Triples to the given
+	 * outputs.
+	 *
+	 * @param deletionOutput
+	 *            stream to write deleted triples to
+	 * @param insertionOutput
+	 *            stream to write inserted triples to
+	 * @param sites
+	 *            information about site links
+	 * @param propertyRegister
+	 *            register to look up property datatypes
+	 */
+	public RdfChangeSetWriter(OutputStream deletionOutput,
+			OutputStream insertionOutput, Sites sites,
+			PropertyRegister propertyRegister) {
+		this.deletionOutput = deletionOutput;
+		this.insertionOutput = insertionOutput;
+		this.deletionWriter = Rio.createWriter(RDFFormat.NTRIPLES,
+				deletionOutput);
+		this.insertionWriter = Rio.createWriter(RDFFormat.NTRIPLES,
+				insertionOutput);
+		this.collector = new TripleCollector();
+		RdfWriter rdfWriter = new RdfWriter(this.collector);
+		rdfWriter.setSkolemizeRestrictions(true);
+		this.rdfConverter = new RdfConverter(rdfWriter, sites,
+				propertyRegister);
+		try {
+			this.md = MessageDigest.getInstance("MD5");
+		} catch (NoSuchAlgorithmException e) {
+			throw new RuntimeException(
+					"Your Java does not support MD5 hashes. You should be concerned.");
+		}
+	}
+
+	/**
+	 * Sets the tasks that should be performed during export. The value should
+	 * be a combination of flags such as {@link RdfSerializer#TASK_STATEMENTS}.
+	 *
+	 * @param tasks
+	 *            the tasks to be performed
+	 */
+	public void setTasks(int tasks) {
+		this.rdfConverter.setTasks(tasks);
+	}
+
+	/**
+	 * Returns the tasks that should be performed during export.
+	 *
+	 * @return tasks to be performed
+	 */
+	public int getTasks() {
+		return this.rdfConverter.getTasks();
+	}
+
+	/**
+	 * Returns the number of entities for which changes have been written.
+	 *
+	 * @return number of changed entities
+	 */
+	public long getChangedEntityCount() {
+		return this.changedEntityCount;
+	}
+
+	/**
+	 * Returns the number of triples that have been written as deletions.
+	 *
+	 * @return number of deleted triples
+	 */
+	public long getDeletedTripleCount() {
+		return this.deletedTripleCount;
+	}
+
+	/**
+	 * Returns the number of triples that have been written as insertions.
+	 *
+	 * @return number of inserted triples
+	 */
+	public long getInsertedTripleCount() {
+		return this.insertedTripleCount;
+	}
+
+	/**
+	 * Starts writing. Must be called before any changes are written.
+	 */
+	public void open() {
+		try {
+			this.deletionWriter.startRDF();
+			this.insertionWriter.startRDF();
+		} catch (RDFHandlerException e) { // we cannot recover here
+			throw new RuntimeException(e.toString(), e);
+		}
+	}
+
+	/**
+	 * Writes the triples that need to be deleted and inserted to transform
+	 * the export of the previous version of an entity into the export of its
+	 * current version. If the entity was created or deleted, the respective
+	 * document is null.
+	 *
+	 * @param previous
+	 *            the previous version of the entity, or null if it did not
+	 *            exist
+	 * @param current
+	 *            the current version of the entity, or null if it has been
+	 *            deleted
+	 * @return true if any triples have been written
+	 */
+	public boolean writeChanges(EntityDocument previous,
+			EntityDocument current) {
+		if (previous == null && current == null) {
+			return false;
+		}
+		if (previous != null && current != null) {
+			if (!previous.getEntityId().equals(current.getEntityId())) {
+				throw new IllegalArgumentException(
+						"Cannot compute changes between different entities "
+								+ previous.getEntityId() + " and "
+								+ current.getEntityId());
+			}
+			if (previous.getRevisionId() > 0
+					&& previous.getRevisionId() == current.getRevisionId()) {
+				return false;
+			}
+			if (getDigest(previous) == getDigest(current)) {
+				return false;
+			}
+		}
+
+		EntityIdValue entityId = previous != null ? previous.getEntityId()
+				: current.getEntityId();
+		Set<Statement> previousTriples = getTriples(previous);
+		Set<Statement> currentTriples = getTriples(current);
+		Set<Statement> previousOwned = getOwnedTriples(entityId,
+				previousTriples);
+		Set<Statement> currentOwned = getOwnedTriples(entityId,
+				currentTriples);
+
+		long deletedTripleCount = this.deletedTripleCount;
+		long insertedTripleCount = this.insertedTripleCount;
+		try {
+			for (Statement triple : previousOwned) {
+				if (!currentOwned.contains(triple)) {
+					this.deletionWriter.handleStatement(triple);
+					this.deletedTripleCount++;
+				}
+			}
+			for (Statement triple : currentTriples) {
+				if (!previousTriples.contains(triple)) {
+					this.insertionWriter.handleStatement(triple);
+					this.insertedTripleCount++;
+				}
+			}
+		} catch (RDFHandlerException e) { // we cannot recover here
+			throw new RuntimeException(e.toString(), e);
+		}
+		if (deletedTripleCount == this.deletedTripleCount
+				&& insertedTripleCount == this.insertedTripleCount) {
+			return false;
+		}
+		this.changedEntityCount++;
+		return true;
+	}
+
+	/**
+	 * Finishes writing and closes the outputs.
+	 */
+	public void close() {
+		try {
+			this.deletionWriter.endRDF();
+			this.insertionWriter.endRDF();
+		} catch (RDFHandlerException e) { // we cannot recover here
+			throw new RuntimeException(e.toString(), e);
+		}
+		try {
+			this.deletionOutput.close();
+			this.insertionOutput.close();
+		} catch (IOException e) {
+			throw new RuntimeException(e.toString(), e);
+		}
+	}
+
+	/**
+	 * Computes a digest of the given entity document. Two documents with the
+	 * same digest are equal with very high probability, so the digest can be
+	 * stored instead of a document to detect unchanged entities later on. The
+	 * digest is based on the JSON serialization of the document and is only
+	 * meant to be compared with digests computed by the same program run.
+	 *
+	 * @param document
+	 *            the document to compute a digest for
+	 * @return the digest
+	 */
+	public long getDigest(EntityDocument document) {
+		String json;
+		if (document instanceof ItemDocument) {
+			json = JsonSerializer.getJsonString((ItemDocument) document);
+		} else if (document instanceof PropertyDocument) {
+			json = JsonSerializer.getJsonString((PropertyDocument) document);
+		} else {
+			throw new IllegalArgumentException(
+					"Cannot compute digest for documents of type "
+							+ document.getClass());
+		}
+		this.md.reset();
+		byte[] digest = this.md.digest(json.getBytes(StandardCharsets.UTF_8));
+		long result = 0;
+		for (int i = 0; i < 8; i++) {
+			result = (result << 8) | (digest[i] & 0xFF);
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the triples that are exported for the given document.
+	 *
+	 * @param document
+	 *            the document to export, or null
+	 * @return set of triples, empty if the document is null
+	 */
+	Set<Statement> getTriples(EntityDocument document) {
+		Set<Statement> result = new HashSet<>();
+		if (document == null) {
+			return result;
+		}
+		this.collector.triples = result;
+		try {
+			if (document instanceof ItemDocument) {
+				this.rdfConverter.writeItemDocument((ItemDocument) document);
+			} else if (document instanceof PropertyDocument) {
+				this.rdfConverter
+						.writePropertyDocument((PropertyDocument) document);
+			}
+		} catch (RDFHandlerException e) { // we cannot recover here
+			throw new RuntimeException(e.toString(), e);
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the triples that belong to the given entity, i.e., the triples
+	 * about the entity, its statements, and the articles it is linked to.
+	 *
+	 * @param entityId
+	 *            the entity
+	 * @param triples
+	 *            all triples exported for the entity
+	 * @return the triples that belong to the entity
+	 */
+	Set<Statement> getOwnedTriples(EntityIdValue entityId,
+			Set<Statement> triples) {
+		String entityIri = entityId.getIri();
+		String statementPrefix = Vocabulary.PREFIX_WIKIDATA_STATEMENT
+				+ entityId.getId() + "-";
+
+		Set<Resource> articles = new HashSet<>();
+		for (Statement triple : triples) {
+			if (RdfWriter.SCHEMA_ABOUT.equals(triple.getPredicate())
+					&& entityIri.equals(triple.getObject().stringValue())) {
+				articles.add(triple.getSubject());
+			}
+		}
+
+		Set<Statement> result = new HashSet<>();
+		for (Statement triple : triples) {
+			String subject = triple.getSubject().stringValue();
+			if (subject.equals(entityIri)
+					|| subject.startsWith(statementPrefix)
+					|| articles.contains(triple.getSubject())) {
+				result.add(triple);
+			}
+		}
+		return result;
+	}
+
+}
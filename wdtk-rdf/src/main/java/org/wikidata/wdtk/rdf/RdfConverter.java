@@ -68,7 +68,6 @@ public class RdfConverter {
 	final ReferenceRdfConverter referenceRdfConverter;
 	final PropertyRegister propertyRegister;
 	final Sites sites;
-	final RankBuffer rankBuffer;
 
 	int tasks = RdfSerializer.TASK_ALL_ENTITIES
 			| RdfSerializer.TASK_ALL_EXACT_DATA;
@@ -87,7 +86,6 @@ public class RdfConverter {
 				this.valueRdfConverter);
 		this.referenceRdfConverter = new ReferenceRdfConverter(rdfWriter,
 				this.snakRdfConverter, this.propertyRegister.siteUri);
-		this.rankBuffer = new RankBuffer();
 	}
 
 	/**
@@ -303,8 +301,8 @@ public class RdfConverter {
 			throws RDFHandlerException {
 		for (StatementGroup statementGroup : statementDocument
 				.getStatementGroups()) {
-			URI property = this.rdfWriter.getUri(Vocabulary.getPropertyUri(
-					statementGroup.getProperty(), PropertyContext.STATEMENT));
+			URI property = this.snakRdfConverter.getPropertyUri(
+					statementGroup.getProperty(), PropertyContext.STATEMENT);
 			for (Statement statement : statementGroup) {
 				this.rdfWriter.writeTripleUriObject(subject, property,
 						Vocabulary.getStatementUri(statement));
@@ -313,10 +311,13 @@ public class RdfConverter {
 
 		for (StatementGroup statementGroup : statementDocument
 				.getStatementGroups()) {
+			StatementRank bestRank = statementGroup.getBestRank();
 			for (Statement statement : statementGroup) {
-				writeStatement(statement);
+				Resource statementResource = writeStatement(statement);
+				if (statement.getRank() == bestRank) {
+					writeBestRankTriple(statementResource);
+				}
 			}
-			writeBestRankTriples();
 		}
 	}
 
@@ -509,29 +510,38 @@ public class RdfConverter {
 		try {
 			this.rdfWriter.writeTripleUriObject(subject, RdfWriter.WB_RANK,
 					getUriStringForRank(rank));
-			this.rankBuffer.add(rank, subject);
-
 		} catch (RDFHandlerException e) {
 			throw new RuntimeException(e.getMessage(), e);
 		}
 	}
 
 	/**
-	 * Writes triples to determine the statements with the highest rank.
+	 * Writes a triple to mark a statement as one of the statements with the
+	 * best rank in its statement group.
+	 *
+	 * @param subject
+	 *            the resource that refers to the statement
 	 */
-	void writeBestRankTriples() {
-		for (Resource resource : this.rankBuffer.getBestRankedStatements()) {
-			try {
-				this.rdfWriter.writeTripleUriObject(resource,
-						RdfWriter.RDF_TYPE, RdfWriter.WB_BEST_RANK.toString());
-			} catch (RDFHandlerException e) {
-				throw new RuntimeException(e.getMessage(), e);
-			}
+	void writeBestRankTriple(Resource subject) {
+		try {
+			this.rdfWriter.writeTripleValueObject(subject, RdfWriter.RDF_TYPE,
+					RdfWriter.WB_BEST_RANK);
+		} catch (RDFHandlerException e) {
+			throw new RuntimeException(e.getMessage(), e);
 		}
-		this.rankBuffer.clear();
 	}
 
-	void writeStatement(Statement statement) throws RDFHandlerException {
+	/**
+	 * Writes the triples of the given statement, except for the triple that
+	 * marks it as having the best rank.
+	 *
+	 * @param statement
+	 *            the statement to write
+	 * @return the resource that refers to the statement
+	 * @throws RDFHandlerException
+	 *             if there was a problem writing the triples
+	 */
+	Resource writeStatement(Statement statement) throws RDFHandlerException {
 		String statementUri = Vocabulary.getStatementUri(statement);
 		Resource statementResource = this.rdfWriter.getUri(statementUri);
 
@@ -542,7 +552,7 @@ public class RdfConverter {
 		writeReferences(statementResource, statement.getReferences());
 
 		writeStatementRankTriple(statementResource, statement.getRank());
-
+		return statementResource;
 	}
 
 	void writeReferences(Resource statementResource,
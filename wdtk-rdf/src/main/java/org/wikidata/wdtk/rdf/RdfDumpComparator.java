@@ -0,0 +1,211 @@
+package org.wikidata.wdtk.rdf;
+
+/*
+ * #%L
+ * Wikidata Toolkit RDF
+ * %%
+ * Copyright (C) 2014 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.wikidata.wdtk.datamodel.interfaces.EntityDocument;
+import org.wikidata.wdtk.datamodel.interfaces.EntityDocumentProcessor;
+import org.wikidata.wdtk.datamodel.interfaces.ItemDocument;
+import org.wikidata.wdtk.datamodel.interfaces.PropertyDocument;
+
+/**
+ * Writes the RDF change set between two complete dumps using an
+ * {@link RdfChangeSetWriter}. The dumps are not expected to be sorted, so they
+ * are read in three passes:
+ * <ol>
+ * <li>the previous dump is read to store the digest of every entity,</li>
+ * <li>the current dump is read to skip unchanged entities and to write the
+ * insertions for new and changed ones,</li>
+ * <li>the previous dump is read again to write the deletions for deleted and
+ * changed entities.</li>
+ * </ol>
+ * Each pass is done by feeding all documents of the respective dump to the
+ * processor returned by {@link #getPreviousDigestProcessor()},
+ * {@link #getInsertionProcessor()}, and {@link #getDeletionProcessor()},
+ * respectively. Unchanged entities are recognized by their digests and are
+ * never exported to RDF. Only one digest per entity is kept in memory.
+ * <p>
+ * Since the two versions of a changed entity are never in memory at the same
+ * time, all triples that belong to its previous version are deleted and all
+ * triples of its current version are inserted. The deletions must therefore
+ * be applied before the insertions. To get minimal changes for entities of
+ * which both versions are available, e.g., when applying daily dumps, use
+ * {@link RdfChangeSetWriter#writeChanges(EntityDocument, EntityDocument)}
+ * directly.
+ */
+public class RdfDumpComparator {
+
+	final RdfChangeSetWriter changeSetWriter;
+
+	/**
+	 * Digests of the entities in the previous dump, by entity id. After the
+	 * current dump was processed, only deleted and changed entities are left,
+	 * where changed entities are mapped to null.
+	 */
+	final Map<String, Long> previousDigests = new HashMap<>();
+
+	long unchangedEntityCount = 0;
+	long newEntityCount = 0;
+	long changedEntityCount = 0;
+	long deletedEntityCount = 0;
+
+	/**
+	 * Creates a new comparator that writes changes to the given change set
+	 * writer. The writer should be opened before the first insertion or
+	 * deletion is written, and closed afterwards.
+	 *
+	 * @param changeSetWriter
+	 *            the writer for the change set
+	 */
+	public RdfDumpComparator(RdfChangeSetWriter changeSetWriter) {
+		this.changeSetWriter = changeSetWriter;
+	}
+
+	/**
+	 * Returns the processor for the first pass, which should receive all
+	 * documents of the previous dump.
+	 *
+	 * @return processor that stores the digests of previous documents
+	 */
+	public EntityDocumentProcessor getPreviousDigestProcessor() {
+		return new DocumentProcessor() {
+			@Override
+			void processDocument(EntityDocument document) {
+				previousDigests.put(document.getEntityId().getId(),
+						changeSetWriter.getDigest(document));
+			}
+		};
+	}
+
+	/**
+	 * Returns the processor for the second pass, which should receive all
+	 * documents of the current dump.
+	 *
+	 * @return processor that writes insertions for new and changed documents
+	 */
+	public EntityDocumentProcessor getInsertionProcessor() {
+		return new DocumentProcessor() {
+			@Override
+			void processDocument(EntityDocument document) {
+				String id = document.getEntityId().getId();
+				Long previousDigest = previousDigests.get(id);
+				if (previousDigest == null) {
+					newEntityCount++;
+				} else if (previousDigest == changeSetWriter
+						.getDigest(document)) {
+					previousDigests.remove(id);
+					unchangedEntityCount++;
+					return;
+				} else {
+					previousDigests.put(id, null);
+					changedEntityCount++;
+				}
+				changeSetWriter.writeChanges(null, document);
+			}
+		};
+	}
+
+	/**
+	 * Returns the processor for the third pass, which should receive all
+	 * documents of the previous dump again.
+	 *
+	 * @return processor that writes deletions for deleted and changed
+	 *         documents
+	 */
+	public EntityDocumentProcessor getDeletionProcessor() {
+		return new DocumentProcessor() {
+			@Override
+			void processDocument(EntityDocument document) {
+				String id = document.getEntityId().getId();
+				if (!previousDigests.containsKey(id)) {
+					return;
+				}
+				if (previousDigests.remove(id) != null) {
+					deletedEntityCount++;
+				}
+				changeSetWriter.writeChanges(document, null);
+			}
+		};
+	}
+
+	/**
+	 * Returns the number of entities that are the same in both dumps. Only
+	 * meaningful after the second pass.
+	 *
+	 * @return number of unchanged entities
+	 */
+	public long getUnchangedEntityCount() {
+		return this.unchangedEntityCount;
+	}
+
+	/**
+	 * Returns the number of entities that only occur in the current dump.
+	 * Only meaningful after the second pass.
+	 *
+	 * @return number of new entities
+	 */
+	public long getNewEntityCount() {
+		return this.newEntityCount;
+	}
+
+	/**
+	 * Returns the number of entities that differ between the dumps. Only
+	 * meaningful after the second pass.
+	 *
+	 * @return number of changed entities
+	 */
+	public long getChangedEntityCount() {
+		return this.changedEntityCount;
+	}
+
+	/**
+	 * Returns the number of entities that only occur in the previous dump.
+	 * Only meaningful after the third pass.
+	 *
+	 * @return number of deleted entities
+	 */
+	public long getDeletedEntityCount() {
+		return this.deletedEntityCount;
+	}
+
+	/**
+	 * Processor that handles items and properties in the same way.
+	 */
+	static abstract class DocumentProcessor implements
+			EntityDocumentProcessor {
+
+		abstract void processDocument(EntityDocument document);
+
+		@Override
+		public void processItemDocument(ItemDocument itemDocument) {
+			processDocument(itemDocument);
+		}
+
+		@Override
+		public void processPropertyDocument(
+				PropertyDocument propertyDocument) {
+			processDocument(propertyDocument);
+		}
+	}
+
+}
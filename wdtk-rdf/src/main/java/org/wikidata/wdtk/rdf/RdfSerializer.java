@@ -109,6 +109,34 @@ public class RdfSerializer implements EntityDocumentDumpProcessor {
 		return this.rdfConverter.getTasks();
 	}
 
+	/**
+	 * Sets the maximal number of property URIs that are remembered to avoid
+	 * duplicate OWL declarations. This can be used to bound the memory needed
+	 * for exports that use many property URIs.
+	 *
+	 * @param maxDeclaredPropertyUris
+	 *            the maximal number of URIs to remember, or 0 for no limit
+	 * @see OwlDeclarationBuffer#setMaxDeclaredPropertyUris(int)
+	 */
+	public void setMaxDeclaredPropertyUris(int maxDeclaredPropertyUris) {
+		this.rdfConverter.owlDeclarationBuffer
+				.setMaxDeclaredPropertyUris(maxDeclaredPropertyUris);
+	}
+
+	/**
+	 * Sets whether OWL restrictions should be identified by URIs that only
+	 * depend on their content rather than by fresh blank nodes. This should be
+	 * enabled for exports that are later updated with the change sets of
+	 * {@link RdfChangeSetWriter}.
+	 *
+	 * @param skolemizeRestrictions
+	 *            true if restrictions should be identified by URIs
+	 * @see RdfWriter#setSkolemizeRestrictions(boolean)
+	 */
+	public void setSkolemizeRestrictions(boolean skolemizeRestrictions) {
+		this.rdfWriter.setSkolemizeRestrictions(skolemizeRestrictions);
+	}
+
 	/**
 	 * Returns the number of triples that have been written so far.
 	 *
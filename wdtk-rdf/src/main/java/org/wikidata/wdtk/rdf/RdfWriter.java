@@ -30,8 +30,8 @@ import org.openrdf.model.Value;
 import org.openrdf.model.ValueFactory;
 import org.openrdf.model.impl.ValueFactoryImpl;
 import org.openrdf.rio.RDFFormat;
+import org.openrdf.rio.RDFHandler;
 import org.openrdf.rio.RDFHandlerException;
-import org.openrdf.rio.RDFWriter;
 import org.openrdf.rio.Rio;
 import org.openrdf.rio.UnsupportedRDFormatException;
 
@@ -142,15 +142,29 @@ public class RdfWriter {
 	public static final URI WB_BEST_RANK = factory
 			.createURI(Vocabulary.WB_BEST_RANK);
 
-	RDFWriter writer;
+	RDFHandler writer;
 
 	long tripleCount = 0;
 
+	boolean skolemizeRestrictions = false;
+
 	public RdfWriter(RDFFormat format, OutputStream output)
 			throws UnsupportedRDFormatException {
 		this.writer = Rio.createWriter(format, output);
 	}
 
+	/**
+	 * Creates a new writer that sends all triples to the given handler instead
+	 * of serializing them. This can be used to process the generated triples
+	 * in memory.
+	 *
+	 * @param handler
+	 *            the handler to send triples to
+	 */
+	public RdfWriter(RDFHandler handler) {
+		this.writer = handler;
+	}
+
 	public long getTripleCount() {
 		return this.tripleCount;
 	}
@@ -168,6 +182,51 @@ public class RdfWriter {
 		return factory.createBNode();
 	}
 
+	/**
+	 * Sets whether OWL restrictions should be written with URIs that are
+	 * derived from their content instead of with fresh blank nodes. This makes
+	 * the output for a given entity the same every time it is exported, which
+	 * is needed when comparing or updating exports.
+	 *
+	 * @param skolemizeRestrictions
+	 *            true if restrictions should be identified by URIs
+	 * @see Vocabulary#getSomeValuesRestrictionUri(String, String)
+	 */
+	public void setSkolemizeRestrictions(boolean skolemizeRestrictions) {
+		this.skolemizeRestrictions = skolemizeRestrictions;
+	}
+
+	/**
+	 * Returns true if OWL restrictions are written with URIs that are derived
+	 * from their content.
+	 *
+	 * @return true if restrictions are identified by URIs
+	 */
+	public boolean getSkolemizeRestrictions() {
+		return this.skolemizeRestrictions;
+	}
+
+	/**
+	 * Returns the node to use for the OWL restriction that states that the
+	 * given property has some value in the given range. This is a fresh blank
+	 * node unless {@link #setSkolemizeRestrictions(boolean)} was enabled.
+	 *
+	 * @param propertyUri
+	 *            URI of the property to which the restriction applies
+	 * @param rangeUri
+	 *            URI of the class or datatype to which the restriction applies
+	 * @return the node representing the restriction
+	 */
+	public Resource getSomeValuesRestrictionNode(String propertyUri,
+			String rangeUri) {
+		if (this.skolemizeRestrictions) {
+			return factory.createURI(Vocabulary.getSomeValuesRestrictionUri(
+					propertyUri, rangeUri));
+		} else {
+			return factory.createBNode();
+		}
+	}
+
 	/**
 	 * Creates a URI object for the given URI string. Callers who use this with
 	 * user-provided data should check for exceptions.
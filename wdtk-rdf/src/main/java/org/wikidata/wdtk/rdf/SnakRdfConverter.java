@@ -20,7 +20,9 @@ package org.wikidata.wdtk.rdf;
  * #L%
  */
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.openrdf.model.Resource;
 import org.openrdf.model.URI;
@@ -47,6 +49,9 @@ import org.wikidata.wdtk.rdf.values.AnyValueConverter;
  * might be used with {@link ValueSnak}. In such cases, the class stores the
  * values to a buffer. Methods for writing additional triples for these buffered
  * values can be called later.
+ * <p>
+ * Property URIs are created only once per property and converter; see
+ * {@link PropertyEmitter}.
  *
  * @author Markus Kroetzsch
  *
@@ -85,6 +90,11 @@ public class SnakRdfConverter implements SnakVisitor<Void> {
 
 	final List<PropertyRestriction> someValuesQueue;
 
+	/**
+	 * Map from property ids to the emitters that store their URIs.
+	 */
+	final Map<PropertyIdValue, PropertyEmitter> propertyEmitters;
+
 	Resource currentSubject;
 	PropertyContext currentPropertyContext;
 	boolean simple;
@@ -103,6 +113,22 @@ public class SnakRdfConverter implements SnakVisitor<Void> {
 				.registerWikidataExportExtensions(this.exportExtensions);
 
 		this.someValuesQueue = new ArrayList<PropertyRestriction>();
+		this.propertyEmitters = new HashMap<>();
+	}
+
+	/**
+	 * Returns the URI that represents the given property in the given
+	 * context. The URIs of each property are only created once.
+	 *
+	 * @param propertyIdValue
+	 *            the property
+	 * @param propertyContext
+	 *            the context in which the property is used
+	 * @return the URI of the property
+	 */
+	public URI getPropertyUri(PropertyIdValue propertyIdValue,
+			PropertyContext propertyContext) {
+		return getPropertyEmitter(propertyIdValue).getUri(propertyContext);
 	}
 
 	/**
@@ -150,11 +176,10 @@ public class SnakRdfConverter implements SnakVisitor<Void> {
 
 	@Override
 	public Void visit(ValueSnak snak) {
-		String propertyUri = Vocabulary.getPropertyUri(snak.getPropertyId(),
-				this.currentPropertyContext);
-		URI property = this.rdfWriter.getUri(propertyUri);
-		Value value = valueRdfConverter.getRdfValue(snak.getValue(),
-				snak.getPropertyId(), this.simple);
+		PropertyEmitter emitter = getPropertyEmitter(snak.getPropertyId());
+		URI property = emitter.getUri(this.currentPropertyContext);
+		Value value = emitter.getRdfValue(snak.getValue(), this.simple,
+				this.valueRdfConverter);
 		if (value == null) { // TODO: could also be null if there is no complex
 								// representation but simple = false
 			logger.error("Could not serialize snak: missing value (Snak: "
@@ -177,16 +202,18 @@ public class SnakRdfConverter implements SnakVisitor<Void> {
 
 	@Override
 	public Void visit(SomeValueSnak snak) {
-		String rangeUri = getRangeUri(snak.getPropertyId());
+		PropertyEmitter emitter = getPropertyEmitter(snak.getPropertyId());
+		String rangeUri = getRangeUri(emitter);
 		if (rangeUri == null) {
 			logger.error("Count not export SomeValueSnak for property "
 					+ snak.getPropertyId().getId() + ": OWL range not known.");
 			return null;
 		}
 
-		String propertyUri = Vocabulary.getPropertyUri(snak.getPropertyId(),
-				this.currentPropertyContext);
-		Resource bnode = this.rdfWriter.getFreshBNode();
+		String propertyUri = emitter.getUri(this.currentPropertyContext)
+				.stringValue();
+		Resource bnode = this.rdfWriter.getSomeValuesRestrictionNode(
+				propertyUri, rangeUri);
 		addSomeValuesRestriction(bnode, propertyUri, rangeUri);
 		try {
 			this.rdfWriter.writeTripleValueObject(this.currentSubject,
@@ -201,7 +228,8 @@ public class SnakRdfConverter implements SnakVisitor<Void> {
 	@Override
 	public Void visit(NoValueSnak snak) {
 		if (simple) {
-			String rangeUri = getRangeUri(snak.getPropertyId());
+			PropertyEmitter emitter = getPropertyEmitter(snak.getPropertyId());
+			String rangeUri = getRangeUri(emitter);
 			if (rangeUri == null) {
 				logger.error("Count not export NoValueSnak for property "
 						+ snak.getPropertyId().getId()
@@ -211,18 +239,17 @@ public class SnakRdfConverter implements SnakVisitor<Void> {
 				rangeUri = Vocabulary.RDFS_LITERAL;
 			}
 
-			String noValueClass;
+			URI noValueClass;
 			if ((this.currentPropertyContext == PropertyContext.QUALIFIER)
 					|| (this.currentPropertyContext == PropertyContext.QUALIFIER_SIMPLE)) {
-				noValueClass = Vocabulary.getPropertyUri(snak.getPropertyId(),
-						PropertyContext.NO_QUALIFIER_VALUE);
+				noValueClass = emitter
+						.getUri(PropertyContext.NO_QUALIFIER_VALUE);
 			} else {
-				noValueClass = Vocabulary.getPropertyUri(snak.getPropertyId(),
-						PropertyContext.NO_VALUE);
+				noValueClass = emitter.getUri(PropertyContext.NO_VALUE);
 			}
 			// TODO add restrictions
 			try {
-				this.rdfWriter.writeTripleUriObject(this.currentSubject,
+				this.rdfWriter.writeTripleValueObject(this.currentSubject,
 						RdfWriter.RDF_TYPE, noValueClass);
 			} catch (RDFHandlerException e) {
 				throw new RuntimeException(e.toString(), e);
@@ -279,8 +306,20 @@ public class SnakRdfConverter implements SnakVisitor<Void> {
 	 * @return the range URI or null if the datatype could not be identified.
 	 */
 	String getRangeUri(PropertyIdValue propertyIdValue) {
-		String datatype = this.propertyRegister
-				.getPropertyType(propertyIdValue);
+		return getRangeUri(getPropertyEmitter(propertyIdValue));
+	}
+
+	/**
+	 * Returns the class of datatype URI that best characterizes the range of
+	 * the property of the given emitter.
+	 *
+	 * @param emitter
+	 *            the emitter of the property for which to get a range
+	 * @return the range URI or null if the datatype could not be identified.
+	 */
+	String getRangeUri(PropertyEmitter emitter) {
+		PropertyIdValue propertyIdValue = emitter.propertyIdValue;
+		String datatype = emitter.getDatatype(this.propertyRegister);
 
 		if (datatype == null)
 			return null;
@@ -305,6 +344,23 @@ public class SnakRdfConverter implements SnakVisitor<Void> {
 		}
 	}
 
+	/**
+	 * Returns the emitter for the given property, creating it when the
+	 * property is seen for the first time.
+	 *
+	 * @param propertyIdValue
+	 *            the property
+	 * @return the emitter of the property
+	 */
+	PropertyEmitter getPropertyEmitter(PropertyIdValue propertyIdValue) {
+		PropertyEmitter emitter = this.propertyEmitters.get(propertyIdValue);
+		if (emitter == null) {
+			emitter = new PropertyEmitter(propertyIdValue, this.rdfWriter);
+			this.propertyEmitters.put(propertyIdValue, emitter);
+		}
+		return emitter;
+	}
+
 	/**
 	 * Adds the given some-value restriction to the list of restrictions that
 	 * should still be serialized. The given resource will be used as a subject.
@@ -76,6 +76,8 @@ public class Vocabulary {
 
 	public static final String PREFIX_WIKIDATA_NO_QUALIFIER_VALUE = "http://www.wikidata.org/prop/noqualifiervalue/";
 
+	public static final String PREFIX_WIKIDATA_SKOLEM = "http://www.wikidata.org/.well-known/genid/";
+
 	public static final String PREFIX_WBONTO = "http://wikiba.se/ontology#";
 	public static final String PREFIX_RDF = "http://www.w3.org/1999/02/22-rdf-syntax-ns#";
 	public static final String PREFIX_RDFS = "http://www.w3.org/2000/01/rdf-schema#";
@@ -595,6 +597,28 @@ public class Vocabulary {
 		return uriPrefix + VALUE_PREFIX_QUANTITY + bytesToHex(md.digest());
 	}
 
+	/**
+	 * Returns a URI for the OWL restriction that states that the given
+	 * property has some value in the given range. The URI only depends on the
+	 * property and the range, so it can be used instead of a blank node when
+	 * exports of different versions of an entity need to agree on the node.
+	 *
+	 * @param propertyUri
+	 *            URI of the property to which the restriction applies
+	 * @param rangeUri
+	 *            URI of the class or datatype to which the restriction applies
+	 * @return the URI of the restriction
+	 */
+	public static String getSomeValuesRestrictionUri(String propertyUri,
+			String rangeUri) {
+		md.reset();
+		updateMessageDigestWithString(md, propertyUri);
+		md.update((byte) 0);
+		updateMessageDigestWithString(md, rangeUri);
+
+		return PREFIX_WIKIDATA_SKOLEM + bytesToHex(md.digest());
+	}
+
 	static ByteBuffer longByteBuffer = ByteBuffer.allocate(Long.SIZE / 8);
 
 	static void updateMessageDigestWithLong(MessageDigest md, long x) {
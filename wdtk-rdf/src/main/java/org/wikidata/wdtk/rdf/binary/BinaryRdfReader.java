@@ -0,0 +1,398 @@
+package org.wikidata.wdtk.rdf.binary;
+
+/*
+ * #%L
+ * Wikidata Toolkit RDF
+ * %%
+ * Copyright (C) 2014 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+import org.openrdf.model.Resource;
+import org.openrdf.model.Statement;
+import org.openrdf.model.URI;
+import org.openrdf.model.Value;
+import org.openrdf.model.ValueFactory;
+import org.openrdf.model.impl.ValueFactoryImpl;
+import org.openrdf.rio.RDFHandler;
+import org.openrdf.rio.RDFHandlerException;
+
+/**
+ * Reader for files written by {@link BinaryRdfWriter}. Only the indexes of
+ * the dictionary and of the triple blocks are loaded when the file is opened.
+ * Dictionary blocks and triple blocks are read and decompressed when needed,
+ * and a limited number of decoded dictionary blocks is cached. Since triples
+ * are sorted by subject across the whole file, looking up the triples of a
+ * single subject only touches the blocks whose subject range contains this
+ * subject, which is usually a single block.
+ */
+public class BinaryRdfReader implements Closeable {
+
+	static final ValueFactory factory = ValueFactoryImpl.getInstance();
+
+	/**
+	 * Maximal number of decoded dictionary blocks that are kept in memory.
+	 */
+	static final int DICTIONARY_CACHE_SIZE = 256;
+
+	final RandomAccessFile file;
+	final Inflater inflater = new Inflater();
+
+	final int termCount;
+	final long[] dictionaryOffsets;
+	final int[] dictionaryLengths;
+	/**
+	 * Encoding of the first term in each dictionary block.
+	 */
+	final byte[][] dictionaryFirstKeys;
+
+	final long[] blockOffsets;
+	final int[] blockLengths;
+	final int[] blockTripleCounts;
+	final int[] blockMinSubjects;
+	final int[] blockMaxSubjects;
+
+	/**
+	 * Recently used dictionary blocks, each given as the array of the
+	 * encodings of its terms.
+	 */
+	final Map<Integer, byte[][]> dictionaryCache = new LinkedHashMap<Integer, byte[][]>(
+			16, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Integer, byte[][]> eldest) {
+			return size() > DICTIONARY_CACHE_SIZE;
+		}
+	};
+
+	/**
+	 * Opens the given binary RDF file and reads its indexes.
+	 *
+	 * @param file
+	 *            the file to read
+	 * @throws IOException
+	 *             if the file could not be read or is not in the expected
+	 *             format
+	 */
+	public BinaryRdfReader(File file) throws IOException {
+		this.file = new RandomAccessFile(file, "r");
+		try {
+			byte[] magic = new byte[BinaryRdfWriter.MAGIC.length];
+			this.file.readFully(magic);
+			if (!Arrays.equals(magic, BinaryRdfWriter.MAGIC)) {
+				throw new IOException("Not a binary RDF file: " + file);
+			}
+			int version = this.file.readInt();
+			if (version != BinaryRdfWriter.VERSION) {
+				throw new IOException("Unsupported binary RDF version "
+						+ version);
+			}
+
+			long trailerOffset = this.file.length() - 16
+					- BinaryRdfWriter.MAGIC.length;
+			this.file.seek(trailerOffset);
+			long dictionaryIndexOffset = this.file.readLong();
+			long tripleIndexOffset = this.file.readLong();
+			this.file.readFully(magic);
+			if (!Arrays.equals(magic, BinaryRdfWriter.MAGIC)) {
+				throw new IOException("Incomplete binary RDF file: " + file);
+			}
+
+			byte[] dictionaryIndex = new byte[(int) (tripleIndexOffset - dictionaryIndexOffset)];
+			this.file.seek(dictionaryIndexOffset);
+			this.file.readFully(dictionaryIndex);
+			DataInputStream input = new DataInputStream(
+					new ByteArrayInputStream(dictionaryIndex));
+			this.termCount = input.readInt();
+			int dictionaryBlockCount = input.readInt();
+			this.dictionaryOffsets = new long[dictionaryBlockCount];
+			this.dictionaryLengths = new int[dictionaryBlockCount];
+			this.dictionaryFirstKeys = new byte[dictionaryBlockCount][];
+			for (int i = 0; i < dictionaryBlockCount; i++) {
+				this.dictionaryOffsets[i] = input.readLong();
+				this.dictionaryLengths[i] = input.readInt();
+				this.dictionaryFirstKeys[i] = new byte[TermDictionary
+						.readVarInt(input)];
+				input.readFully(this.dictionaryFirstKeys[i]);
+			}
+
+			this.file.seek(tripleIndexOffset);
+			int blockCount = this.file.readInt();
+			this.blockOffsets = new long[blockCount];
+			this.blockLengths = new int[blockCount];
+			this.blockTripleCounts = new int[blockCount];
+			this.blockMinSubjects = new int[blockCount];
+			this.blockMaxSubjects = new int[blockCount];
+			for (int i = 0; i < blockCount; i++) {
+				this.blockOffsets[i] = this.file.readLong();
+				this.blockLengths[i] = this.file.readInt();
+				this.blockTripleCounts[i] = this.file.readInt();
+				this.blockMinSubjects[i] = this.file.readInt();
+				this.blockMaxSubjects[i] = this.file.readInt();
+			}
+		} catch (IOException e) {
+			this.inflater.end();
+			this.file.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Returns the number of terms in the dictionary.
+	 *
+	 * @return number of terms
+	 */
+	public int getTermCount() {
+		return this.termCount;
+	}
+
+	/**
+	 * Returns the term with the given id.
+	 *
+	 * @param id
+	 *            the id of the term
+	 * @return the term
+	 * @throws IndexOutOfBoundsException
+	 *             if there is no term with this id
+	 * @throws IOException
+	 *             if there was a problem reading the file
+	 */
+	public Value getTerm(int id) throws IOException {
+		if (id <= 0 || id > this.termCount) {
+			throw new IndexOutOfBoundsException("No term with id " + id);
+		}
+		byte[][] keys = getDictionaryBlock((id - 1)
+				/ TermDictionary.TERMS_PER_BLOCK);
+		return TermDictionary.decodeKey(keys[(id - 1)
+				% TermDictionary.TERMS_PER_BLOCK], factory);
+	}
+
+	/**
+	 * Returns the id of the given term, or 0 if the term does not occur in the
+	 * file. The dictionary block that may contain the term is found by a
+	 * binary search over the first terms of all blocks.
+	 *
+	 * @param term
+	 *            the term to look up
+	 * @return the id of the term or 0
+	 * @throws IOException
+	 *             if there was a problem reading the file
+	 */
+	public int getTermId(Value term) throws IOException {
+		byte[] key = TermDictionary.getKey(term);
+		int low = 0;
+		int high = this.dictionaryFirstKeys.length - 1;
+		// find the last block whose first term is not greater than the key
+		while (low <= high) {
+			int middle = (low + high) >>> 1;
+			if (TermDictionary.compareKeys(this.dictionaryFirstKeys[middle],
+					key) <= 0) {
+				low = middle + 1;
+			} else {
+				high = middle - 1;
+			}
+		}
+		if (high < 0) {
+			return 0;
+		}
+		byte[][] keys = getDictionaryBlock(high);
+		for (int i = 0; i < keys.length; i++) {
+			if (TermDictionary.compareKeys(keys[i], key) == 0) {
+				return high * TermDictionary.TERMS_PER_BLOCK + i + 1;
+			}
+		}
+		return 0;
+	}
+
+	/**
+	 * Returns the number of triple blocks in the file.
+	 *
+	 * @return number of blocks
+	 */
+	public int getBlockCount() {
+		return this.blockOffsets.length;
+	}
+
+	/**
+	 * Returns the total number of triples in the file.
+	 *
+	 * @return number of triples
+	 */
+	public long getTripleCount() {
+		long result = 0;
+		for (int count : this.blockTripleCounts) {
+			result += count;
+		}
+		return result;
+	}
+
+	/**
+	 * Returns all triples with the given subject. Only blocks whose subject
+	 * range contains the subject are decompressed.
+	 *
+	 * @param subject
+	 *            the subject to look for
+	 * @return list of triples with this subject
+	 * @throws IOException
+	 *             if there was a problem reading the file
+	 */
+	public List<Statement> getTriples(Resource subject) throws IOException {
+		List<Statement> result = new ArrayList<>();
+		int subjectId = getTermId(subject);
+		if (subjectId == 0) {
+			return result;
+		}
+
+		// find the first block that may contain the subject
+		int low = 0;
+		int high = this.blockMaxSubjects.length;
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if (this.blockMaxSubjects[middle] < subjectId) {
+				low = middle + 1;
+			} else {
+				high = middle;
+			}
+		}
+
+		for (int block = low; block < this.blockOffsets.length
+				&& this.blockMinSubjects[block] <= subjectId; block++) {
+			DataInputStream input = openBlock(block);
+			TripleCoder coder = new TripleCoder();
+			for (int i = 0; i < this.blockTripleCounts[block]; i++) {
+				coder.read(input);
+				if (coder.subject == subjectId) {
+					result.add(factory.createStatement(subject,
+							(URI) getTerm(coder.predicate),
+							getTerm(coder.object)));
+				} else if (coder.subject > subjectId) {
+					break;
+				}
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Sends all triples in the file to the given handler, sorted by subject.
+	 * Namespaces are not reported.
+	 *
+	 * @param handler
+	 *            the handler to process the triples
+	 * @throws IOException
+	 *             if there was a problem reading the file
+	 * @throws RDFHandlerException
+	 *             if the handler reported a problem
+	 */
+	public void processTriples(RDFHandler handler) throws IOException,
+			RDFHandlerException {
+		handler.startRDF();
+		for (int block = 0; block < this.blockOffsets.length; block++) {
+			DataInputStream input = openBlock(block);
+			TripleCoder coder = new TripleCoder();
+			for (int i = 0; i < this.blockTripleCounts[block]; i++) {
+				coder.read(input);
+				handler.handleStatement(factory.createStatement(
+						(Resource) getTerm(coder.subject),
+						(URI) getTerm(coder.predicate),
+						getTerm(coder.object)));
+			}
+		}
+		handler.endRDF();
+	}
+
+	@Override
+	public void close() throws IOException {
+		this.inflater.end();
+		this.file.close();
+	}
+
+	/**
+	 * Returns the encodings of all terms in the given dictionary block.
+	 */
+	byte[][] getDictionaryBlock(int block) throws IOException {
+		byte[][] keys = this.dictionaryCache.get(block);
+		if (keys != null) {
+			return keys;
+		}
+
+		int count = Math.min(TermDictionary.TERMS_PER_BLOCK, this.termCount
+				- block * TermDictionary.TERMS_PER_BLOCK);
+		keys = new byte[count][];
+		DataInputStream input = openSection(this.dictionaryOffsets[block],
+				this.dictionaryLengths[block]);
+		byte[] previous = null;
+		for (int i = 0; i < count; i++) {
+			int shared = TermDictionary.readVarInt(input);
+			int remaining = TermDictionary.readVarInt(input);
+			byte[] key = new byte[shared + remaining];
+			if (shared > 0) {
+				System.arraycopy(previous, 0, key, 0, shared);
+			}
+			input.readFully(key, shared, remaining);
+			keys[i] = key;
+			previous = key;
+		}
+		this.dictionaryCache.put(block, keys);
+		return keys;
+	}
+
+	DataInputStream openBlock(int block) throws IOException {
+		return openSection(this.blockOffsets[block], this.blockLengths[block]);
+	}
+
+	/**
+	 * Reads and decompresses the given section of the file.
+	 */
+	DataInputStream openSection(long offset, int length) throws IOException {
+		byte[] bytes = new byte[length];
+		this.file.seek(offset);
+		this.file.readFully(bytes);
+
+		this.inflater.reset();
+		this.inflater.setInput(bytes);
+		ByteArrayOutputStream result = new ByteArrayOutputStream(4 * length);
+		byte[] buffer = new byte[8192];
+		try {
+			while (!this.inflater.finished()) {
+				int count = this.inflater.inflate(buffer);
+				if (count == 0 && this.inflater.needsInput()) {
+					throw new IOException("Truncated block in binary RDF file.");
+				}
+				result.write(buffer, 0, count);
+			}
+		} catch (DataFormatException e) {
+			throw new IOException(e);
+		}
+		return new DataInputStream(new ByteArrayInputStream(
+				result.toByteArray()));
+	}
+
+}
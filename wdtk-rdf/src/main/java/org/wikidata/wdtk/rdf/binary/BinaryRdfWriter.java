@@ -0,0 +1,584 @@
+package org.wikidata.wdtk.rdf.binary;
+
+/*
+ * #%L
+ * Wikidata Toolkit RDF
+ * %%
+ * Copyright (C) 2014 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.zip.Deflater;
+
+import org.openrdf.model.Statement;
+import org.openrdf.rio.RDFFormat;
+import org.openrdf.rio.RDFHandlerException;
+import org.openrdf.rio.helpers.RDFWriterBase;
+
+/**
+ * RDF writer for a compact binary format that is similar in spirit to HDT.
+ * All RDF terms are stored once in a sorted dictionary, while triples are
+ * stored as triples of term ids. The triples of the whole file are sorted by
+ * subject, predicate and object, and split into blocks that are
+ * delta-encoded and compressed individually. Since the blocks cover
+ * consecutive ranges of subjects, {@link BinaryRdfReader} can find the
+ * triples of a subject by decompressing only the one or two blocks whose
+ * range contains it.
+ * <p>
+ * The file layout is as follows: a header (magic bytes and version), the
+ * compressed dictionary blocks, the compressed triple blocks, the index of
+ * dictionary blocks, the index of triple blocks with their subject ranges,
+ * and finally a trailer that records the positions of the two indexes.
+ * <p>
+ * Neither the dictionary nor the triples are kept in memory. Triples are
+ * written to a temporary file with provisional term ids (see
+ * {@link TermDictionary}). When {@link #endRDF()} is called, they are mapped
+ * to their final ids, sorted in chunks, and merged into the output. All
+ * temporary files are deleted afterwards. Namespace declarations are not
+ * needed, since common URI prefixes are compressed in the dictionary blocks.
+ * <p>
+ * Since the format can only be written to byte streams, {@link #FORMAT} is
+ * registered with Sesame through {@link BinaryRdfWriterFactory}, so that it
+ * can be used with {@link org.wikidata.wdtk.rdf.RdfSerializer} like any other
+ * {@link RDFFormat}.
+ */
+public class BinaryRdfWriter extends RDFWriterBase {
+
+	/**
+	 * The binary RDF format written by this class.
+	 */
+	public static final RDFFormat FORMAT = new RDFFormat("WDTK Binary RDF",
+			"application/x-wdtk-binary-rdf", null, "wbrdf",
+			RDFFormat.NO_NAMESPACES, RDFFormat.NO_CONTEXTS);
+
+	static final byte[] MAGIC = "WDTKBRDF".getBytes(StandardCharsets.US_ASCII);
+	static final int VERSION = 2;
+
+	/**
+	 * Default number of triples that are stored in one block.
+	 */
+	public static final int DEFAULT_BLOCK_SIZE = 64 * 1024;
+
+	/**
+	 * Default number of terms that are kept in memory while writing.
+	 */
+	public static final int DEFAULT_CACHE_SIZE = 1000000;
+
+	/**
+	 * Number of blocks of triples that are sorted in memory at once.
+	 */
+	static final int SORT_CHUNK_BLOCKS = 16;
+
+	/**
+	 * Maximal number of temporary files that are merged at once.
+	 */
+	static final int MAX_MERGE_FAN_IN = 64;
+
+	final DataOutputStream output;
+	final int blockSize;
+	final int cacheSize;
+	final File temporaryParentDirectory;
+
+	File temporaryDirectory = null;
+	TermDictionary dictionary = null;
+
+	/**
+	 * Temporary file with all triples in the order they were written, using
+	 * provisional term ids.
+	 */
+	File tripleFile = null;
+	DataOutputStream tripleOutput = null;
+	long tripleCount = 0;
+
+	/**
+	 * Buffer for the triples of the current block, storing subject, predicate
+	 * and object id of each triple in consecutive positions.
+	 */
+	final int[] buffer;
+	int bufferedTriples = 0;
+	int lastSubject = 0;
+	int lastPredicate = 0;
+	int lastObject = 0;
+
+	final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+	final List<BlockIndexEntry> blockIndex = new ArrayList<>();
+
+	/**
+	 * Number of bytes written so far.
+	 */
+	long position = 0;
+
+	/**
+	 * Stores the location and subject range of one block of triples.
+	 */
+	static class BlockIndexEntry {
+		long offset;
+		int length;
+		int tripleCount;
+		int minSubject;
+		int maxSubject;
+	}
+
+	/**
+	 * Creates a new writer that writes to the given output stream, using the
+	 * default block size.
+	 *
+	 * @param output
+	 *            the stream to write to
+	 */
+	public BinaryRdfWriter(OutputStream output) {
+		this(output, DEFAULT_BLOCK_SIZE);
+	}
+
+	/**
+	 * Creates a new writer that writes to the given output stream, using the
+	 * default term cache size and the default directory for temporary files.
+	 *
+	 * @param output
+	 *            the stream to write to
+	 * @param blockSize
+	 *            maximal number of triples per compressed block; smaller
+	 *            blocks make subject lookups faster but compress less well
+	 */
+	public BinaryRdfWriter(OutputStream output, int blockSize) {
+		this(output, blockSize, DEFAULT_CACHE_SIZE, null);
+	}
+
+	/**
+	 * Creates a new writer that writes to the given output stream.
+	 *
+	 * @param output
+	 *            the stream to write to
+	 * @param blockSize
+	 *            maximal number of triples per compressed block; smaller
+	 *            blocks make subject lookups faster but compress less well
+	 * @param cacheSize
+	 *            maximal number of terms that are kept in memory while
+	 *            writing; larger caches need more memory but fewer temporary
+	 *            files
+	 * @param temporaryDirectory
+	 *            directory in which temporary files are created, or null to
+	 *            use the default directory for temporary files
+	 */
+	public BinaryRdfWriter(OutputStream output, int blockSize, int cacheSize,
+			File temporaryDirectory) {
+		if (blockSize <= 0) {
+			throw new IllegalArgumentException(
+					"Block size must be positive.");
+		}
+		if (cacheSize <= 0) {
+			throw new IllegalArgumentException(
+					"Term cache size must be positive.");
+		}
+		this.output = new DataOutputStream(output);
+		this.blockSize = blockSize;
+		this.cacheSize = cacheSize;
+		this.temporaryParentDirectory = temporaryDirectory;
+		this.buffer = new int[3 * blockSize];
+	}
+
+	@Override
+	public RDFFormat getRDFFormat() {
+		return FORMAT;
+	}
+
+	@Override
+	public void startRDF() throws RDFHandlerException {
+		try {
+			if (this.temporaryParentDirectory == null) {
+				this.temporaryDirectory = Files.createTempDirectory(
+						"wdtk-binary-rdf").toFile();
+			} else {
+				this.temporaryDirectory = Files.createTempDirectory(
+						this.temporaryParentDirectory.toPath(),
+						"wdtk-binary-rdf").toFile();
+			}
+			this.dictionary = new TermDictionary(this.temporaryDirectory,
+					this.cacheSize);
+			this.tripleFile = new File(this.temporaryDirectory, "triples.bin");
+			this.tripleOutput = TermDictionary
+					.openTemporaryOutput(this.tripleFile);
+
+			this.output.write(MAGIC);
+			this.output.writeInt(VERSION);
+			this.position = MAGIC.length + 4;
+		} catch (IOException e) {
+			throw new RDFHandlerException(e);
+		}
+	}
+
+	@Override
+	public void handleNamespace(String prefix, String uri) {
+		// namespaces are not needed, see class documentation
+	}
+
+	@Override
+	public void handleStatement(Statement st) throws RDFHandlerException {
+		try {
+			TermDictionary.writeVarInt(this.tripleOutput,
+					this.dictionary.getOrAddId(st.getSubject()));
+			TermDictionary.writeVarInt(this.tripleOutput,
+					this.dictionary.getOrAddId(st.getPredicate()));
+			TermDictionary.writeVarInt(this.tripleOutput,
+					this.dictionary.getOrAddId(st.getObject()));
+		} catch (IOException e) {
+			throw new RDFHandlerException(e);
+		}
+		this.tripleCount++;
+	}
+
+	@Override
+	public void handleComment(String comment) {
+		// comments are not preserved in the binary format
+	}
+
+	@Override
+	public void endRDF() throws RDFHandlerException {
+		try {
+			this.tripleOutput.close();
+			this.position += this.dictionary.writeTerms(this.output,
+					this.position);
+
+			List<File> runs = reduceRuns(writeSortedRuns());
+			mergeRuns(runs, this::addTriple);
+			writeBlock();
+
+			long dictionaryIndexOffset = this.position;
+			this.position += this.dictionary.writeIndex(this.output);
+
+			long tripleIndexOffset = this.position;
+			this.output.writeInt(this.blockIndex.size());
+			for (BlockIndexEntry entry : this.blockIndex) {
+				this.output.writeLong(entry.offset);
+				this.output.writeInt(entry.length);
+				this.output.writeInt(entry.tripleCount);
+				this.output.writeInt(entry.minSubject);
+				this.output.writeInt(entry.maxSubject);
+			}
+
+			this.output.writeLong(dictionaryIndexOffset);
+			this.output.writeLong(tripleIndexOffset);
+			this.output.write(MAGIC);
+			this.output.flush();
+		} catch (IOException e) {
+			throw new RDFHandlerException(e);
+		} finally {
+			this.deflater.end();
+			deleteTemporaryFiles();
+		}
+	}
+
+	/**
+	 * Returns the number of distinct terms written. The number is only known
+	 * after {@link #endRDF()} has been called.
+	 *
+	 * @return number of terms in the dictionary
+	 */
+	public int getTermCount() {
+		return this.dictionary == null ? 0 : this.dictionary.getTermCount();
+	}
+
+	/**
+	 * Reads the triples of the temporary triple file, replaces their
+	 * provisional ids by final ids, and writes them to sorted runs of
+	 * {@link #SORT_CHUNK_BLOCKS} blocks each.
+	 *
+	 * @return list of files with the sorted runs
+	 * @throws IOException
+	 *             if there was a problem with the temporary files
+	 */
+	List<File> writeSortedRuns() throws IOException {
+		List<File> runs = new ArrayList<>();
+		int chunkSize = (int) Math.min((long) SORT_CHUNK_BLOCKS
+				* this.blockSize, Integer.MAX_VALUE / 3);
+		int[] chunk = new int[3 * (int) Math.min(chunkSize, this.tripleCount)];
+		try (DataInputStream input = TermDictionary
+				.openTemporaryInput(this.tripleFile)) {
+			long remaining = this.tripleCount;
+			while (remaining > 0) {
+				int count = (int) Math.min(remaining, chunkSize);
+				for (int i = 0; i < 3 * count; i++) {
+					chunk[i] = this.dictionary.getFinalId(TermDictionary
+							.readVarInt(input));
+				}
+				sortTriples(chunk, 0, count - 1);
+
+				File run = File.createTempFile("triples", ".run",
+						this.temporaryDirectory);
+				try (DataOutputStream runOutput = TermDictionary
+						.openTemporaryOutput(run)) {
+					TripleCoder coder = new TripleCoder();
+					for (int i = 0; i < 3 * count; i += 3) {
+						coder.write(runOutput, chunk[i], chunk[i + 1],
+								chunk[i + 2]);
+					}
+					coder.writeEnd(runOutput);
+				}
+				runs.add(run);
+				remaining -= count;
+			}
+		}
+		Files.delete(this.tripleFile.toPath());
+		return runs;
+	}
+
+	/**
+	 * Merges the given runs until there are at most
+	 * {@link #MAX_MERGE_FAN_IN} of them.
+	 */
+	List<File> reduceRuns(List<File> runs) throws IOException {
+		while (runs.size() > MAX_MERGE_FAN_IN) {
+			List<File> merged = new ArrayList<>();
+			for (int i = 0; i < runs.size(); i += MAX_MERGE_FAN_IN) {
+				List<File> group = runs.subList(i,
+						Math.min(i + MAX_MERGE_FAN_IN, runs.size()));
+				File run = File.createTempFile("triples", ".run",
+						this.temporaryDirectory);
+				try (DataOutputStream runOutput = TermDictionary
+						.openTemporaryOutput(run)) {
+					TripleCoder coder = new TripleCoder();
+					mergeRuns(group, (s, p, o) -> coder.write(runOutput, s, p, o));
+					coder.writeEnd(runOutput);
+				}
+				for (File file : group) {
+					Files.delete(file.toPath());
+				}
+				merged.add(run);
+			}
+			runs = merged;
+		}
+		return runs;
+	}
+
+	/**
+	 * Receives the triples of merged runs in sorted order.
+	 */
+	interface TripleSink {
+		void add(int s, int p, int o) throws IOException;
+	}
+
+	/**
+	 * Merges the given sorted runs and passes all triples to the given sink.
+	 * Triples that occur in several runs are passed several times.
+	 */
+	static void mergeRuns(List<File> runs, TripleSink sink) throws IOException {
+		PriorityQueue<TripleRunReader> queue = new PriorityQueue<>(Math.max(
+				1, runs.size()));
+		List<TripleRunReader> readers = new ArrayList<>(runs.size());
+		try {
+			for (File run : runs) {
+				TripleRunReader reader = new TripleRunReader(run);
+				readers.add(reader);
+				if (reader.next()) {
+					queue.add(reader);
+				}
+			}
+			while (!queue.isEmpty()) {
+				TripleRunReader reader = queue.poll();
+				sink.add(reader.coder.subject, reader.coder.predicate,
+						reader.coder.object);
+				if (reader.next()) {
+					queue.add(reader);
+				}
+			}
+		} finally {
+			for (TripleRunReader reader : readers) {
+				reader.input.close();
+			}
+		}
+	}
+
+	/**
+	 * Reads the triples of a sorted run.
+	 */
+	static class TripleRunReader implements Comparable<TripleRunReader> {
+		final DataInputStream input;
+		final TripleCoder coder = new TripleCoder();
+
+		TripleRunReader(File file) throws IOException {
+			this.input = TermDictionary.openTemporaryInput(file);
+		}
+
+		boolean next() throws IOException {
+			return this.coder.read(this.input);
+		}
+
+		@Override
+		public int compareTo(TripleRunReader other) {
+			int result = Integer.compare(this.coder.subject,
+					other.coder.subject);
+			if (result == 0) {
+				result = Integer.compare(this.coder.predicate,
+						other.coder.predicate);
+				if (result == 0) {
+					result = Integer.compare(this.coder.object,
+							other.coder.object);
+				}
+			}
+			return result;
+		}
+	}
+
+	/**
+	 * Adds a triple to the current block, writing the block when it is full.
+	 * Triples must be added in sorted order; duplicates are ignored.
+	 */
+	void addTriple(int s, int p, int o) throws IOException {
+		if (s == this.lastSubject && p == this.lastPredicate
+				&& o == this.lastObject) {
+			return;
+		}
+		int i = 3 * this.bufferedTriples;
+		this.buffer[i] = s;
+		this.buffer[i + 1] = p;
+		this.buffer[i + 2] = o;
+		this.bufferedTriples++;
+		this.lastSubject = s;
+		this.lastPredicate = p;
+		this.lastObject = o;
+		if (this.bufferedTriples == this.blockSize) {
+			writeBlock();
+		}
+	}
+
+	/**
+	 * Encodes and compresses the currently buffered triples and writes them as
+	 * a new block.
+	 *
+	 * @throws IOException
+	 *             if there was a problem writing the data
+	 */
+	void writeBlock() throws IOException {
+		if (this.bufferedTriples == 0) {
+			return;
+		}
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream blockOutput = new DataOutputStream(bytes);
+		TripleCoder coder = new TripleCoder();
+		for (int i = 0; i < 3 * this.bufferedTriples; i += 3) {
+			coder.write(blockOutput, this.buffer[i], this.buffer[i + 1],
+					this.buffer[i + 2]);
+		}
+		byte[] compressed = TermDictionary.compress(bytes.toByteArray(),
+				bytes.size(), this.deflater);
+
+		BlockIndexEntry entry = new BlockIndexEntry();
+		entry.offset = this.position;
+		entry.length = compressed.length;
+		entry.tripleCount = this.bufferedTriples;
+		entry.minSubject = this.buffer[0];
+		entry.maxSubject = this.buffer[3 * (this.bufferedTriples - 1)];
+		this.blockIndex.add(entry);
+
+		this.output.write(compressed);
+		this.position += compressed.length;
+		this.bufferedTriples = 0;
+	}
+
+	/**
+	 * Deletes the temporary directory and all files in it.
+	 */
+	void deleteTemporaryFiles() {
+		if (this.temporaryDirectory == null) {
+			return;
+		}
+		try {
+			this.tripleOutput.close();
+			this.dictionary.close();
+		} catch (IOException e) {
+			// the files are deleted anyway
+		}
+		File[] files = this.temporaryDirectory.listFiles();
+		if (files != null) {
+			for (File file : files) {
+				file.delete();
+			}
+		}
+		this.temporaryDirectory.delete();
+		this.temporaryDirectory = null;
+	}
+
+	/**
+	 * Sorts the triples stored in the given array segment in lexicographic
+	 * order of subject, predicate, object, without allocating any objects.
+	 *
+	 * @param triples
+	 *            array of triples, three ids per triple
+	 * @param low
+	 *            index of the first triple to sort
+	 * @param high
+	 *            index of the last triple to sort
+	 */
+	static void sortTriples(int[] triples, int low, int high) {
+		while (low < high) {
+			int pivot = (low + high) >>> 1;
+			int ps = triples[3 * pivot], pp = triples[3 * pivot + 1], po = triples[3 * pivot + 2];
+			int i = low, j = high;
+			while (i <= j) {
+				while (compareTriple(triples, i, ps, pp, po) < 0) {
+					i++;
+				}
+				while (compareTriple(triples, j, ps, pp, po) > 0) {
+					j--;
+				}
+				if (i <= j) {
+					swapTriples(triples, i, j);
+					i++;
+					j--;
+				}
+			}
+			// recurse into the smaller part to bound the stack depth
+			if (j - low < high - i) {
+				sortTriples(triples, low, j);
+				low = i;
+			} else {
+				sortTriples(triples, i, high);
+				high = j;
+			}
+		}
+	}
+
+	static int compareTriple(int[] triples, int index, int s, int p, int o) {
+		int k = 3 * index;
+		int result = Integer.compare(triples[k], s);
+		if (result == 0) {
+			result = Integer.compare(triples[k + 1], p);
+			if (result == 0) {
+				result = Integer.compare(triples[k + 2], o);
+			}
+		}
+		return result;
+	}
+
+	static void swapTriples(int[] triples, int i, int j) {
+		for (int k = 0; k < 3; k++) {
+			int tmp = triples[3 * i + k];
+			triples[3 * i + k] = triples[3 * j + k];
+			triples[3 * j + k] = tmp;
+		}
+	}
+
+}
@@ -0,0 +1,60 @@
+package org.wikidata.wdtk.rdf.binary;
+
+/*
+ * #%L
+ * Wikidata Toolkit RDF
+ * %%
+ * Copyright (C) 2014 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.io.OutputStream;
+import java.io.Writer;
+
+import org.openrdf.rio.RDFFormat;
+import org.openrdf.rio.RDFWriter;
+import org.openrdf.rio.RDFWriterFactory;
+
+/**
+ * Factory for {@link BinaryRdfWriter} objects. The factory is registered as
+ * a service, so that Sesame's {@link org.openrdf.rio.Rio} can create writers
+ * for {@link BinaryRdfWriter#FORMAT}.
+ */
+public class BinaryRdfWriterFactory implements RDFWriterFactory {
+
+	@Override
+	public RDFFormat getRDFFormat() {
+		return BinaryRdfWriter.FORMAT;
+	}
+
+	@Override
+	public RDFWriter getWriter(OutputStream out) {
+		return new BinaryRdfWriter(out);
+	}
+
+	/**
+	 * Not supported, since the binary format cannot be written to a character
+	 * stream.
+	 *
+	 * @throws UnsupportedOperationException
+	 *             always
+	 */
+	@Override
+	public RDFWriter getWriter(Writer writer) {
+		throw new UnsupportedOperationException(
+				"Binary RDF can only be written to byte streams.");
+	}
+
+}
@@ -0,0 +1,90 @@
+package org.wikidata.wdtk.rdf.binary;
+
+/*
+ * #%L
+ * Wikidata Toolkit RDF
+ * %%
+ * Copyright (C) 2014 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Array of integers that is stored in a memory-mapped file rather than on the
+ * heap. The file is mapped in segments, so that the array can be larger than
+ * a single {@link MappedByteBuffer}. All values are initially 0.
+ */
+class MappedIntArray implements Closeable {
+
+	/**
+	 * Number of bits of an index that address an entry within a segment.
+	 */
+	static final int SEGMENT_BITS = 27;
+	static final int SEGMENT_SIZE = 1 << SEGMENT_BITS;
+	static final int SEGMENT_MASK = SEGMENT_SIZE - 1;
+
+	final RandomAccessFile file;
+	final MappedByteBuffer[] segments;
+
+	/**
+	 * Creates a new array of the given size, backed by the given file. The
+	 * file is overwritten.
+	 *
+	 * @param file
+	 *            the file to store the array in
+	 * @param size
+	 *            the number of entries
+	 * @throws IOException
+	 *             if the file could not be created or mapped
+	 */
+	MappedIntArray(File file, int size) throws IOException {
+		this.file = new RandomAccessFile(file, "rw");
+		try {
+			this.file.setLength(4L * size);
+			FileChannel channel = this.file.getChannel();
+			this.segments = new MappedByteBuffer[(size + SEGMENT_MASK) >>> SEGMENT_BITS];
+			for (int i = 0; i < this.segments.length; i++) {
+				long start = (long) i << SEGMENT_BITS;
+				long length = Math.min(SEGMENT_SIZE, size - start);
+				this.segments[i] = channel.map(FileChannel.MapMode.READ_WRITE,
+						4 * start, 4 * length);
+			}
+		} catch (IOException e) {
+			this.file.close();
+			throw e;
+		}
+	}
+
+	int get(int index) {
+		return this.segments[index >>> SEGMENT_BITS]
+				.getInt((index & SEGMENT_MASK) << 2);
+	}
+
+	void set(int index, int value) {
+		this.segments[index >>> SEGMENT_BITS].putInt(
+				(index & SEGMENT_MASK) << 2, value);
+	}
+
+	@Override
+	public void close() throws IOException {
+		this.file.close();
+	}
+
+}
@@ -0,0 +1,648 @@
+package org.wikidata.wdtk.rdf.binary;
+
+/*
+ * #%L
+ * Wikidata Toolkit RDF
+ * %%
+ * Copyright (C) 2014 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.PriorityQueue;
+import java.util.zip.Deflater;
+
+import org.openrdf.model.BNode;
+import org.openrdf.model.Literal;
+import org.openrdf.model.URI;
+import org.openrdf.model.Value;
+import org.openrdf.model.ValueFactory;
+
+/**
+ * Dictionary of the RDF terms (URIs, blank nodes and literals) of a binary RDF
+ * file, which is built on disk so that its size is not bounded by the heap.
+ * <p>
+ * While triples are written, every term gets a provisional id. Only a bounded
+ * number of terms is kept in memory to reuse their ids; when this cache is
+ * full, its terms are sorted and written to a temporary run file, and the
+ * cache is cleared. Terms that are seen again later get a new provisional id.
+ * In the end, {@link #writeTerms(DataOutputStream, long)} merges all runs,
+ * assigns final ids to the distinct terms in the order of their sorted
+ * encoding, and records the final id of each provisional id in a
+ * memory-mapped {@link MappedIntArray}.
+ * <p>
+ * The sorted terms are written in compressed blocks of
+ * {@link #TERMS_PER_BLOCK} terms, where each term only stores the part that
+ * differs from the previous term. Since terms with the same URI prefix are
+ * adjacent in the sorted order, this stores common prefixes, such as the
+ * namespaces of {@link org.wikidata.wdtk.rdf.Vocabulary}, about once per
+ * block. An index with the first term of each block allows
+ * {@link BinaryRdfReader} to find terms and ids without loading the whole
+ * dictionary.
+ */
+class TermDictionary implements Closeable {
+
+	static final byte TERM_URI = 0;
+	static final byte TERM_BNODE = 1;
+	static final byte TERM_LITERAL = 2;
+	static final byte TERM_LANGUAGE_LITERAL = 3;
+	static final byte TERM_TYPED_LITERAL = 4;
+
+	/**
+	 * Number of terms that are stored in one block of the dictionary.
+	 */
+	static final int TERMS_PER_BLOCK = 512;
+
+	/**
+	 * Directory for temporary files.
+	 */
+	final File directory;
+
+	/**
+	 * Maximal number of terms in {@link #cache}.
+	 */
+	final int cacheSize;
+
+	/**
+	 * Map from recently used terms to their provisional ids.
+	 */
+	final Map<Value, Integer> cache = new HashMap<>();
+
+	/**
+	 * Files with sorted runs of terms and their provisional ids.
+	 */
+	List<File> runs = new ArrayList<>();
+
+	/**
+	 * Number of provisional ids assigned so far.
+	 */
+	int provisionalIdCount = 0;
+
+	/**
+	 * Number of distinct terms, known after the terms have been written.
+	 */
+	int termCount = 0;
+
+	/**
+	 * Number of dictionary blocks written so far.
+	 */
+	int blockCount = 0;
+
+	/**
+	 * Final ids of all provisional ids, known after the terms have been
+	 * written.
+	 */
+	MappedIntArray finalIds = null;
+
+	/**
+	 * File with the index of the dictionary blocks.
+	 */
+	File indexFile = null;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param directory
+	 *            existing directory to store temporary files in
+	 * @param cacheSize
+	 *            maximal number of terms that are kept in memory
+	 */
+	TermDictionary(File directory, int cacheSize) {
+		if (cacheSize <= 0) {
+			throw new IllegalArgumentException(
+					"Term cache size must be positive.");
+		}
+		this.directory = directory;
+		this.cacheSize = cacheSize;
+	}
+
+	/**
+	 * Returns a provisional id for the given term. The same term usually gets
+	 * the same id, but it may get a new id after the term cache has been
+	 * written to disk.
+	 *
+	 * @param term
+	 *            the term to look up
+	 * @return provisional id of the term, greater than 0
+	 * @throws IOException
+	 *             if there was a problem writing temporary files
+	 */
+	int getOrAddId(Value term) throws IOException {
+		Integer id = this.cache.get(term);
+		if (id != null) {
+			return id;
+		}
+		if (this.provisionalIdCount == Integer.MAX_VALUE - 1) {
+			throw new IllegalStateException(
+					"Too many terms for a single binary RDF dictionary.");
+		}
+		if (this.cache.size() >= this.cacheSize) {
+			spillCache();
+		}
+		id = ++this.provisionalIdCount;
+		this.cache.put(term, id);
+		return id;
+	}
+
+	/**
+	 * Returns the final id for the given provisional id. Can only be used
+	 * after {@link #writeTerms(DataOutputStream, long)}.
+	 *
+	 * @param provisionalId
+	 *            id returned by {@link #getOrAddId(Value)}
+	 * @return final id of the term
+	 */
+	int getFinalId(int provisionalId) {
+		return this.finalIds.get(provisionalId);
+	}
+
+	/**
+	 * Returns the number of distinct terms. Can only be used after
+	 * {@link #writeTerms(DataOutputStream, long)}.
+	 *
+	 * @return number of terms
+	 */
+	int getTermCount() {
+		return this.termCount;
+	}
+
+	/**
+	 * Sorts all terms, assigns their final ids and writes the compressed
+	 * dictionary blocks to the given output.
+	 *
+	 * @param output
+	 *            the output to write to
+	 * @param position
+	 *            the position of the output in the file, which is recorded in
+	 *            the index of blocks
+	 * @return number of bytes written
+	 * @throws IOException
+	 *             if there was a problem writing the data
+	 */
+	long writeTerms(DataOutputStream output, long position) throws IOException {
+		spillCache();
+		this.runs = reduceRuns(this.runs);
+		this.finalIds = new MappedIntArray(File.createTempFile("ids", ".bin",
+				this.directory), this.provisionalIdCount + 1);
+		this.indexFile = File.createTempFile("index", ".bin", this.directory);
+		try (DictionaryBuilder builder = new DictionaryBuilder(output,
+				position, this.indexFile)) {
+			mergeRuns(this.runs, builder);
+			builder.flushBlock();
+			return builder.position - position;
+		}
+	}
+
+	/**
+	 * Writes the index of dictionary blocks. Can only be used after
+	 * {@link #writeTerms(DataOutputStream, long)}.
+	 *
+	 * @param output
+	 *            the output to write to
+	 * @return number of bytes written
+	 * @throws IOException
+	 *             if there was a problem writing the data
+	 */
+	long writeIndex(DataOutputStream output) throws IOException {
+		output.writeInt(this.termCount);
+		output.writeInt(this.blockCount);
+		Files.copy(this.indexFile.toPath(), output);
+		return 8 + this.indexFile.length();
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (this.finalIds != null) {
+			this.finalIds.close();
+		}
+	}
+
+	/**
+	 * Writes the sorted terms of the cache to a new run and clears the cache.
+	 */
+	void spillCache() throws IOException {
+		if (this.cache.isEmpty()) {
+			return;
+		}
+		TermEntry[] entries = new TermEntry[this.cache.size()];
+		int i = 0;
+		for (Entry<Value, Integer> entry : this.cache.entrySet()) {
+			entries[i++] = new TermEntry(getKey(entry.getKey()),
+					entry.getValue());
+		}
+		Arrays.sort(entries);
+
+		File run = File.createTempFile("terms", ".run", this.directory);
+		try (DataOutputStream output = openTemporaryOutput(run)) {
+			for (TermEntry entry : entries) {
+				writeTermEntry(output, entry.key, entry.id);
+			}
+			writeVarInt(output, 0);
+		}
+		this.runs.add(run);
+		this.cache.clear();
+	}
+
+	/**
+	 * Merges the given runs until there are at most
+	 * {@link BinaryRdfWriter#MAX_MERGE_FAN_IN} of them.
+	 */
+	List<File> reduceRuns(List<File> runs) throws IOException {
+		while (runs.size() > BinaryRdfWriter.MAX_MERGE_FAN_IN) {
+			List<File> merged = new ArrayList<>();
+			for (int i = 0; i < runs.size(); i += BinaryRdfWriter.MAX_MERGE_FAN_IN) {
+				List<File> group = runs.subList(i, Math.min(i
+						+ BinaryRdfWriter.MAX_MERGE_FAN_IN, runs.size()));
+				File run = File.createTempFile("terms", ".run", this.directory);
+				try (DataOutputStream output = openTemporaryOutput(run)) {
+					mergeRuns(group, (key, id) -> writeTermEntry(output, key, id));
+					writeVarInt(output, 0);
+				}
+				for (File file : group) {
+					Files.delete(file.toPath());
+				}
+				merged.add(run);
+			}
+			runs = merged;
+		}
+		return runs;
+	}
+
+	/**
+	 * Receives the entries of merged runs in sorted order.
+	 */
+	interface TermSink {
+		void add(byte[] key, int id) throws IOException;
+	}
+
+	/**
+	 * Merges the given sorted runs and passes all entries to the given sink.
+	 */
+	static void mergeRuns(List<File> runs, TermSink sink) throws IOException {
+		PriorityQueue<TermRunReader> queue = new PriorityQueue<>(Math.max(
+				1, runs.size()));
+		List<TermRunReader> readers = new ArrayList<>(runs.size());
+		try {
+			for (File run : runs) {
+				TermRunReader reader = new TermRunReader(run);
+				readers.add(reader);
+				if (reader.next()) {
+					queue.add(reader);
+				}
+			}
+			while (!queue.isEmpty()) {
+				TermRunReader reader = queue.poll();
+				sink.add(reader.key, reader.id);
+				if (reader.next()) {
+					queue.add(reader);
+				}
+			}
+		} finally {
+			for (TermRunReader reader : readers) {
+				reader.close();
+			}
+		}
+	}
+
+	static void writeTermEntry(DataOutput output, byte[] key, int id)
+			throws IOException {
+		writeVarInt(output, key.length);
+		output.write(key);
+		writeVarInt(output, id);
+	}
+
+	/**
+	 * A term with its provisional id.
+	 */
+	static class TermEntry implements Comparable<TermEntry> {
+		final byte[] key;
+		final int id;
+
+		TermEntry(byte[] key, int id) {
+			this.key = key;
+			this.id = id;
+		}
+
+		@Override
+		public int compareTo(TermEntry other) {
+			return compareKeys(this.key, other.key);
+		}
+	}
+
+	/**
+	 * Reads the entries of a run of terms. A run is a sequence of terms, each
+	 * given by the length of its key, the key and its provisional id, which
+	 * ends with a key of length 0.
+	 */
+	static class TermRunReader implements Comparable<TermRunReader>, Closeable {
+		final DataInputStream input;
+		byte[] key;
+		int id;
+
+		TermRunReader(File file) throws IOException {
+			this.input = openTemporaryInput(file);
+		}
+
+		/**
+		 * Reads the next entry, and returns false if the run has ended.
+		 */
+		boolean next() throws IOException {
+			int length = readVarInt(this.input);
+			if (length == 0) {
+				return false;
+			}
+			this.key = new byte[length];
+			this.input.readFully(this.key);
+			this.id = readVarInt(this.input);
+			return true;
+		}
+
+		@Override
+		public int compareTo(TermRunReader other) {
+			return compareKeys(this.key, other.key);
+		}
+
+		@Override
+		public void close() throws IOException {
+			this.input.close();
+		}
+	}
+
+	/**
+	 * Assigns final ids to the merged terms and writes them in blocks, where
+	 * each term is stored as the length of the prefix that it shares with the
+	 * previous term in the block, followed by the remaining bytes.
+	 */
+	class DictionaryBuilder implements TermSink, Closeable {
+
+		final DataOutputStream output;
+		final DataOutputStream index;
+		final Deflater deflater = new Deflater();
+		final ByteArrayOutputStream block = new ByteArrayOutputStream();
+		final DataOutputStream blockOutput = new DataOutputStream(this.block);
+
+		long position;
+		byte[] previousKey = null;
+		byte[] firstKey = null;
+		int termsInBlock = 0;
+
+		DictionaryBuilder(DataOutputStream output, long position,
+				File indexFile) throws IOException {
+			this.output = output;
+			this.position = position;
+			this.index = openTemporaryOutput(indexFile);
+		}
+
+		@Override
+		public void add(byte[] key, int provisionalId) throws IOException {
+			if (this.previousKey == null
+					|| compareKeys(key, this.previousKey) != 0) {
+				if (this.termsInBlock == TERMS_PER_BLOCK) {
+					flushBlock();
+				}
+				int shared = 0;
+				if (this.termsInBlock == 0) {
+					this.firstKey = key;
+				} else {
+					int limit = Math.min(key.length, this.previousKey.length);
+					while (shared < limit
+							&& key[shared] == this.previousKey[shared]) {
+						shared++;
+					}
+				}
+				writeVarInt(this.blockOutput, shared);
+				writeVarInt(this.blockOutput, key.length - shared);
+				this.blockOutput.write(key, shared, key.length - shared);
+				this.termsInBlock++;
+				termCount++;
+				this.previousKey = key;
+			}
+			finalIds.set(provisionalId, termCount);
+		}
+
+		/**
+		 * Compresses and writes the current block and adds it to the index.
+		 */
+		void flushBlock() throws IOException {
+			if (this.termsInBlock == 0) {
+				return;
+			}
+			byte[] compressed = compress(this.block.toByteArray(),
+					this.block.size(), this.deflater);
+			this.output.write(compressed);
+			this.index.writeLong(this.position);
+			this.index.writeInt(compressed.length);
+			writeVarInt(this.index, this.firstKey.length);
+			this.index.write(this.firstKey);
+			this.position += compressed.length;
+			blockCount++;
+			this.block.reset();
+			this.termsInBlock = 0;
+		}
+
+		@Override
+		public void close() throws IOException {
+			this.deflater.end();
+			this.index.close();
+		}
+	}
+
+	/**
+	 * Returns the binary encoding of the given term. The encoding starts with
+	 * a byte for the type of the term. For language-tagged and typed
+	 * literals, the language or datatype follows, preceded by its length, and
+	 * the label comes last. Two terms are equal if and only if their
+	 * encodings are equal.
+	 *
+	 * @param term
+	 *            the term to encode
+	 * @return the encoding of the term
+	 */
+	static byte[] getKey(Value term) {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		if (term instanceof URI) {
+			bytes.write(TERM_URI);
+			appendString(bytes, term.stringValue());
+		} else if (term instanceof BNode) {
+			bytes.write(TERM_BNODE);
+			appendString(bytes, ((BNode) term).getID());
+		} else {
+			Literal literal = (Literal) term;
+			if (literal.getLanguage() != null) {
+				bytes.write(TERM_LANGUAGE_LITERAL);
+				appendLengthAndString(bytes, literal.getLanguage());
+			} else if (literal.getDatatype() != null) {
+				bytes.write(TERM_TYPED_LITERAL);
+				appendLengthAndString(bytes, literal.getDatatype()
+						.stringValue());
+			} else {
+				bytes.write(TERM_LITERAL);
+			}
+			appendString(bytes, literal.getLabel());
+		}
+		return bytes.toByteArray();
+	}
+
+	/**
+	 * Creates the term for the given encoding, as returned by
+	 * {@link #getKey(Value)}.
+	 *
+	 * @param key
+	 *            the encoding of the term
+	 * @param factory
+	 *            the factory used to create RDF terms
+	 * @return the term
+	 * @throws IOException
+	 *             if the encoding is not valid
+	 */
+	static Value decodeKey(byte[] key, ValueFactory factory) throws IOException {
+		switch (key[0]) {
+		case TERM_URI:
+			return factory.createURI(decodeString(key, 1));
+		case TERM_BNODE:
+			return factory.createBNode(decodeString(key, 1));
+		case TERM_LITERAL:
+			return factory.createLiteral(decodeString(key, 1));
+		case TERM_LANGUAGE_LITERAL:
+		case TERM_TYPED_LITERAL:
+			int length = 0;
+			int shift = 0;
+			int position = 1;
+			byte b;
+			do {
+				b = key[position++];
+				length |= (b & 0x7F) << shift;
+				shift += 7;
+			} while ((b & 0x80) != 0);
+			String annotation = new String(key, position, length,
+					StandardCharsets.UTF_8);
+			String label = decodeString(key, position + length);
+			if (key[0] == TERM_LANGUAGE_LITERAL) {
+				return factory.createLiteral(label, annotation);
+			} else {
+				return factory.createLiteral(label,
+						factory.createURI(annotation));
+			}
+		default:
+			throw new IOException("Unknown term type " + key[0]
+					+ " in binary RDF dictionary.");
+		}
+	}
+
+	/**
+	 * Compares two term encodings lexicographically as unsigned bytes.
+	 */
+	static int compareKeys(byte[] key1, byte[] key2) {
+		int limit = Math.min(key1.length, key2.length);
+		for (int i = 0; i < limit; i++) {
+			int result = Integer.compare(key1[i] & 0xFF, key2[i] & 0xFF);
+			if (result != 0) {
+				return result;
+			}
+		}
+		return Integer.compare(key1.length, key2.length);
+	}
+
+	/**
+	 * Compresses the first bytes of the given array.
+	 */
+	static byte[] compress(byte[] data, int length, Deflater deflater) {
+		deflater.reset();
+		deflater.setInput(data, 0, length);
+		deflater.finish();
+		ByteArrayOutputStream result = new ByteArrayOutputStream(
+				length / 2 + 64);
+		byte[] buffer = new byte[8192];
+		while (!deflater.finished()) {
+			int count = deflater.deflate(buffer);
+			result.write(buffer, 0, count);
+		}
+		return result.toByteArray();
+	}
+
+	static DataOutputStream openTemporaryOutput(File file) throws IOException {
+		return new DataOutputStream(new BufferedOutputStream(
+				new FileOutputStream(file), 64 * 1024));
+	}
+
+	static DataInputStream openTemporaryInput(File file) throws IOException {
+		return new DataInputStream(new BufferedInputStream(
+				new FileInputStream(file), 64 * 1024));
+	}
+
+	static void appendString(ByteArrayOutputStream bytes, String s) {
+		byte[] encoded = s.getBytes(StandardCharsets.UTF_8);
+		bytes.write(encoded, 0, encoded.length);
+	}
+
+	static void appendLengthAndString(ByteArrayOutputStream bytes, String s) {
+		byte[] encoded = s.getBytes(StandardCharsets.UTF_8);
+		int value = encoded.length;
+		while ((value & ~0x7F) != 0) {
+			bytes.write((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		bytes.write(value);
+		bytes.write(encoded, 0, encoded.length);
+	}
+
+	static String decodeString(byte[] key, int start) {
+		return new String(key, start, key.length - start,
+				StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Writes a non-negative integer using a variable number of bytes, seven
+	 * bits per byte.
+	 */
+	static void writeVarInt(DataOutput output, int value) throws IOException {
+		while ((value & ~0x7F) != 0) {
+			output.writeByte((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		output.writeByte(value);
+	}
+
+	static int readVarInt(DataInput input) throws IOException {
+		int result = 0;
+		int shift = 0;
+		byte b;
+		do {
+			b = input.readByte();
+			result |= (b & 0x7F) << shift;
+			shift += 7;
+		} while ((b & 0x80) != 0);
+		return result;
+	}
+
+}
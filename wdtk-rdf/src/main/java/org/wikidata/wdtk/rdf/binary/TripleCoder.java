@@ -0,0 +1,101 @@
+package org.wikidata.wdtk.rdf.binary;
+
+/*
+ * #%L
+ * Wikidata Toolkit RDF
+ * %%
+ * Copyright (C) 2014 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Delta encoding for sequences of triples of term ids that are sorted by
+ * subject, predicate and object. The subject is stored as the difference to
+ * the previous subject. The predicate is stored as the difference to the
+ * previous predicate if the subject did not change, and as it is otherwise;
+ * the object is stored in the same way. An object of this class keeps the
+ * last triple that was written or read.
+ * <p>
+ * Since a triple is never written twice in a row, three differences of 0 can
+ * be used to mark the end of a sequence.
+ */
+class TripleCoder {
+
+	int subject = 0;
+	int predicate = 0;
+	int object = 0;
+
+	/**
+	 * Writes the given triple, which must not be smaller than the previous
+	 * triple. Nothing is written if the triple is equal to the previous one.
+	 *
+	 * @return true if the triple was written
+	 */
+	boolean write(DataOutput output, int s, int p, int o) throws IOException {
+		if (s == this.subject && p == this.predicate && o == this.object) {
+			return false;
+		}
+		if (s != this.subject) {
+			this.predicate = 0;
+			this.object = 0;
+		} else if (p != this.predicate) {
+			this.object = 0;
+		}
+		TermDictionary.writeVarInt(output, s - this.subject);
+		TermDictionary.writeVarInt(output, p - this.predicate);
+		TermDictionary.writeVarInt(output, o - this.object);
+		this.subject = s;
+		this.predicate = p;
+		this.object = o;
+		return true;
+	}
+
+	/**
+	 * Marks the end of a sequence of triples.
+	 */
+	void writeEnd(DataOutput output) throws IOException {
+		output.writeByte(0);
+		output.writeByte(0);
+		output.writeByte(0);
+	}
+
+	/**
+	 * Reads the next triple into the fields of this object.
+	 *
+	 * @return false if the end of the sequence was reached instead
+	 */
+	boolean read(DataInput input) throws IOException {
+		int ds = TermDictionary.readVarInt(input);
+		int dp = TermDictionary.readVarInt(input);
+		int dopt = TermDictionary.readVarInt(input);
+		if (ds == 0 && dp == 0 && dopt == 0) {
+			return false;
+		}
+		if (ds != 0) {
+			this.predicate = 0;
+			this.object = 0;
+		} else if (dp != 0) {
+			this.object = 0;
+		}
+		this.subject += ds;
+		this.predicate += dp;
+		this.object += dopt;
+		return true;
+	}
+
+}
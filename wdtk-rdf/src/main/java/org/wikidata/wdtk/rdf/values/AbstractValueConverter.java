@@ -20,6 +20,7 @@ package org.wikidata.wdtk.rdf.values;
  * #L%
  */
 
+import org.openrdf.model.Value;
 import org.openrdf.rio.RDFHandlerException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -45,6 +46,27 @@ public abstract class AbstractValueConverter<V extends org.wikidata.wdtk.datamod
 		this.rdfConversionBuffer = rdfConversionBuffer;
 	}
 
+	/**
+	 * Returns an RDF value that should be used to represent the given Wikibase
+	 * data value in RDF, for a property of which the datatype is already
+	 * known. In contrast to
+	 * {@link #getRdfValue(org.wikidata.wdtk.datamodel.interfaces.Value, PropertyIdValue, boolean)},
+	 * this does not consult the {@link PropertyRegister}.
+	 *
+	 * @param value
+	 *            the value to convert
+	 * @param propertyIdValue
+	 *            the property for which this value was used
+	 * @param datatype
+	 *            the datatype IRI of the property
+	 * @param simple
+	 *            if true, use a simplified conversion to RDF and do not convert
+	 *            values that are inherently complex
+	 * @return the RDF value to use for representing the data value in RDF
+	 */
+	public abstract Value getRdfValue(V value,
+			PropertyIdValue propertyIdValue, String datatype, boolean simple);
+
 	@Override
 	public void writeAuxiliaryTriples() throws RDFHandlerException {
 		// default implementation: no auxiliary triples
@@ -57,6 +57,8 @@ public class AnyValueConverter implements
 	final QuantityValueConverter quantityValueConverter;
 	final MonolingualTextValueConverter monolingualTextValueConverter;
 
+	final PropertyRegister propertyRegister;
+
 	PropertyIdValue currentPropertyIdValue;
 	boolean simple;
 
@@ -66,6 +68,7 @@ public class AnyValueConverter implements
 	public AnyValueConverter(RdfWriter rdfWriter,
 			OwlDeclarationBuffer rdfConversionBuffer,
 			PropertyRegister propertyRegister) {
+		this.propertyRegister = propertyRegister;
 
 		this.entityIdValueConverter = new EntityIdValueConverter(rdfWriter,
 				propertyRegister, rdfConversionBuffer);
@@ -90,6 +93,62 @@ public class AnyValueConverter implements
 		return value.accept(this);
 	}
 
+	/**
+	 * Returns the converter for values of the given property that have the
+	 * same type as the given value, together with the datatype of the
+	 * property. The datatype is determined as when converting the given value
+	 * with {@link #getRdfValue(org.wikidata.wdtk.datamodel.interfaces.Value, PropertyIdValue, boolean)}.
+	 *
+	 * @param value
+	 *            a value of the property
+	 * @param propertyIdValue
+	 *            the property
+	 * @return the resolved converter, or null if values of this type cannot
+	 *         be converted directly
+	 */
+	public ResolvedValueConverter<?> resolveValueConverter(
+			org.wikidata.wdtk.datamodel.interfaces.Value value,
+			PropertyIdValue propertyIdValue) {
+		if (value instanceof EntityIdValue) {
+			return new ResolvedValueConverter<>(EntityIdValue.class,
+					this.entityIdValueConverter,
+					this.propertyRegister.setPropertyTypeFromEntityIdValue(
+							propertyIdValue, (EntityIdValue) value),
+					((EntityIdValue) value).getEntityType());
+		} else if (value instanceof StringValue) {
+			return new ResolvedValueConverter<>(StringValue.class,
+					this.stringValueConverter,
+					this.propertyRegister.setPropertyTypeFromStringValue(
+							propertyIdValue, (StringValue) value));
+		} else if (value instanceof TimeValue) {
+			return new ResolvedValueConverter<>(TimeValue.class,
+					this.timeValueConverter,
+					this.propertyRegister.setPropertyTypeFromTimeValue(
+							propertyIdValue, (TimeValue) value));
+		} else if (value instanceof GlobeCoordinatesValue) {
+			return new ResolvedValueConverter<>(GlobeCoordinatesValue.class,
+					this.globeCoordinatesValueConverter,
+					this.propertyRegister
+							.setPropertyTypeFromGlobeCoordinatesValue(
+									propertyIdValue,
+									(GlobeCoordinatesValue) value));
+		} else if (value instanceof QuantityValue) {
+			return new ResolvedValueConverter<>(QuantityValue.class,
+					this.quantityValueConverter,
+					this.propertyRegister.setPropertyTypeFromQuantityValue(
+							propertyIdValue, (QuantityValue) value));
+		} else if (value instanceof MonolingualTextValue) {
+			return new ResolvedValueConverter<>(MonolingualTextValue.class,
+					this.monolingualTextValueConverter,
+					this.propertyRegister
+							.setPropertyTypeFromMonolingualTextValue(
+									propertyIdValue,
+									(MonolingualTextValue) value));
+		} else {
+			return null;
+		}
+	}
+
 	@Override
 	public Value visit(DatatypeIdValue value) {
 		throw new RuntimeException(
@@ -40,8 +40,13 @@ public class EntityIdValueConverter extends
 	@Override
 	public Value getRdfValue(EntityIdValue value,
 			PropertyIdValue propertyIdValue, boolean simple) {
-		String datatype = this.propertyRegister
-				.setPropertyTypeFromEntityIdValue(propertyIdValue, value);
+		return getRdfValue(value, propertyIdValue, this.propertyRegister
+				.setPropertyTypeFromEntityIdValue(propertyIdValue, value), simple);
+	}
+
+	@Override
+	public Value getRdfValue(EntityIdValue value,
+			PropertyIdValue propertyIdValue, String datatype, boolean simple) {
 
 		switch (datatype) {
 		case DatatypeIdValue.DT_ITEM:
@@ -45,9 +45,13 @@ public class GlobeCoordinatesValueConverter extends
 	@Override
 	public Value getRdfValue(GlobeCoordinatesValue value,
 			PropertyIdValue propertyIdValue, boolean simple) {
-		String datatype = this.propertyRegister
-				.setPropertyTypeFromGlobeCoordinatesValue(propertyIdValue,
-						value);
+		return getRdfValue(value, propertyIdValue, this.propertyRegister
+				.setPropertyTypeFromGlobeCoordinatesValue(propertyIdValue, value), simple);
+	}
+
+	@Override
+	public Value getRdfValue(GlobeCoordinatesValue value,
+			PropertyIdValue propertyIdValue, String datatype, boolean simple) {
 		switch (datatype) {
 		case DatatypeIdValue.DT_GLOBE_COORDINATES:
 			if (simple) {
@@ -41,8 +41,13 @@ public class MonolingualTextValueConverter extends
 	@Override
 	public Value getRdfValue(MonolingualTextValue value,
 			PropertyIdValue propertyIdValue, boolean simple) {
-		String datatype = this.propertyRegister
-				.setPropertyTypeFromMonolingualTextValue(propertyIdValue, value);
+		return getRdfValue(value, propertyIdValue, this.propertyRegister
+				.setPropertyTypeFromMonolingualTextValue(propertyIdValue, value), simple);
+	}
+
+	@Override
+	public Value getRdfValue(MonolingualTextValue value,
+			PropertyIdValue propertyIdValue, String datatype, boolean simple) {
 
 		switch (datatype) {
 		case DatatypeIdValue.DT_MONOLINGUAL_TEXT:
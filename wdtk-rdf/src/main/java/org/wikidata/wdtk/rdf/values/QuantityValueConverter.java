@@ -44,8 +44,13 @@ public class QuantityValueConverter extends
 	@Override
 	public Value getRdfValue(QuantityValue value,
 			PropertyIdValue propertyIdValue, boolean simple) {
-		String datatype = this.propertyRegister
-				.setPropertyTypeFromQuantityValue(propertyIdValue, value);
+		return getRdfValue(value, propertyIdValue, this.propertyRegister
+				.setPropertyTypeFromQuantityValue(propertyIdValue, value), simple);
+	}
+
+	@Override
+	public Value getRdfValue(QuantityValue value,
+			PropertyIdValue propertyIdValue, String datatype, boolean simple) {
 
 		switch (datatype) {
 		case DatatypeIdValue.DT_QUANTITY:
@@ -0,0 +1,114 @@
+package org.wikidata.wdtk.rdf.values;
+
+/*
+ * #%L
+ * Wikidata Toolkit RDF
+ * %%
+ * Copyright (C) 2014 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.openrdf.model.Value;
+import org.wikidata.wdtk.datamodel.interfaces.EntityIdValue;
+import org.wikidata.wdtk.datamodel.interfaces.PropertyIdValue;
+
+/**
+ * A value converter together with the datatype of the property that it is
+ * used for. It is obtained from
+ * {@link AnyValueConverter#resolveValueConverter(org.wikidata.wdtk.datamodel.interfaces.Value, PropertyIdValue)}
+ * once per property, so that further values of the property can be converted
+ * without dispatching on their type and without consulting the
+ * {@link org.wikidata.wdtk.rdf.PropertyRegister}.
+ *
+ * @param <V>
+ *            the type of Wikibase value converted by this class
+ */
+public class ResolvedValueConverter<V extends org.wikidata.wdtk.datamodel.interfaces.Value> {
+
+	final Class<V> valueClass;
+	final AbstractValueConverter<V> valueConverter;
+	final String datatype;
+
+	/**
+	 * The entity type of the values that this converter was resolved for, or
+	 * null if the values are not {@link EntityIdValue} objects. The datatype
+	 * of entity id values depends on their entity type, so values of other
+	 * entity types are not accepted.
+	 */
+	final String entityType;
+
+	ResolvedValueConverter(Class<V> valueClass,
+			AbstractValueConverter<V> valueConverter, String datatype) {
+		this(valueClass, valueConverter, datatype, null);
+	}
+
+	ResolvedValueConverter(Class<V> valueClass,
+			AbstractValueConverter<V> valueConverter, String datatype,
+			String entityType) {
+		this.valueClass = valueClass;
+		this.valueConverter = valueConverter;
+		this.datatype = datatype;
+		this.entityType = entityType;
+	}
+
+	/**
+	 * Returns the datatype that the values are converted for.
+	 *
+	 * @return the datatype IRI
+	 */
+	public String getDatatype() {
+		return this.datatype;
+	}
+
+	/**
+	 * Returns true if the given value has the type that this converter was
+	 * resolved for. For entity ids, the entity type must match as well. Other
+	 * values must be converted with the {@link AnyValueConverter}.
+	 *
+	 * @param value
+	 *            the value to check
+	 * @return true if the value can be converted
+	 */
+	public boolean accepts(org.wikidata.wdtk.datamodel.interfaces.Value value) {
+		if (!this.valueClass.isInstance(value)) {
+			return false;
+		}
+		return this.entityType == null
+				|| this.entityType.equals(((EntityIdValue) value)
+						.getEntityType());
+	}
+
+	/**
+	 * Returns an RDF value that should be used to represent the given Wikibase
+	 * data value in RDF. The value must be accepted by this converter, see
+	 * {@link #accepts(org.wikidata.wdtk.datamodel.interfaces.Value)}.
+	 *
+	 * @param value
+	 *            the value to convert
+	 * @param propertyIdValue
+	 *            the property for which this value was used
+	 * @param simple
+	 *            if true, use a simplified conversion to RDF and do not convert
+	 *            values that are inherently complex
+	 * @return the RDF value to use for representing the data value in RDF
+	 */
+	public Value getRdfValue(
+			org.wikidata.wdtk.datamodel.interfaces.Value value,
+			PropertyIdValue propertyIdValue, boolean simple) {
+		return this.valueConverter.getRdfValue(this.valueClass.cast(value),
+				propertyIdValue, this.datatype, simple);
+	}
+
+}
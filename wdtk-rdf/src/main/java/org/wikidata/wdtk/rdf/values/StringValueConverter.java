@@ -39,8 +39,13 @@ public class StringValueConverter extends AbstractValueConverter<StringValue> {
 	@Override
 	public Value getRdfValue(StringValue value,
 			PropertyIdValue propertyIdValue, boolean simple) {
-		String datatype = this.propertyRegister.setPropertyTypeFromStringValue(
-				propertyIdValue, value);
+		return getRdfValue(value, propertyIdValue, this.propertyRegister
+				.setPropertyTypeFromStringValue(propertyIdValue, value), simple);
+	}
+
+	@Override
+	public Value getRdfValue(StringValue value,
+			PropertyIdValue propertyIdValue, String datatype, boolean simple) {
 
 		String valueUriString = null;
 		switch (datatype) {
@@ -42,12 +42,15 @@ public class TimeValueConverter extends BufferedValueConverter<TimeValue> {
 	}
 
 	@Override
-	public Value getRdfValue(TimeValue value, PropertyIdValue propertyIdValue,
-			boolean simple) {
-
-		String datatype = this.propertyRegister.setPropertyTypeFromTimeValue(
-				propertyIdValue, value);
+	public Value getRdfValue(TimeValue value,
+			PropertyIdValue propertyIdValue, boolean simple) {
+		return getRdfValue(value, propertyIdValue, this.propertyRegister
+				.setPropertyTypeFromTimeValue(propertyIdValue, value), simple);
+	}
 
+	@Override
+	public Value getRdfValue(TimeValue value,
+			PropertyIdValue propertyIdValue, String datatype, boolean simple) {
 		switch (datatype) {
 		case DatatypeIdValue.DT_TIME:
 			if (simple) {
@@ -0,0 +1,61 @@
+package org.wikidata.wdtk.rdf;
+
+/*
+ * #%L
+ * Wikidata Toolkit RDF
+ * %%
+ * Copyright (C) 2014 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.wikidata.wdtk.datamodel.helpers.Datamodel;
+import org.wikidata.wdtk.datamodel.interfaces.EntityIdValue;
+
+public class EntityIdSetTest {
+
+	@Test
+	public void testNumericIds() {
+		EntityIdSet set = new EntityIdSet();
+		EntityIdValue q42 = Datamodel.makeWikidataItemIdValue("Q42");
+		EntityIdValue p42 = Datamodel.makeWikidataPropertyIdValue("P42");
+
+		assertFalse(set.contains(q42));
+		assertTrue(set.add(q42));
+		assertFalse(set.add(q42));
+		assertTrue(set.contains(q42));
+		assertTrue(set.contains(Datamodel.makeWikidataItemIdValue("Q42")));
+		assertFalse(set.contains(p42));
+		assertFalse(set.contains(Datamodel.makeItemIdValue("Q42",
+				"http://example.org/entity/")));
+		assertTrue(set.add(p42));
+		assertTrue(set.otherIds.isEmpty());
+	}
+
+	@Test
+	public void testGetNumericId() {
+		assertEquals(42, EntityIdSet.getNumericId("Q42"));
+		assertEquals(0, EntityIdSet.getNumericId("P0"));
+		assertEquals(-1, EntityIdSet.getNumericId("Q042"));
+		assertEquals(-1, EntityIdSet.getNumericId("L1-F1"));
+		assertEquals(-1, EntityIdSet.getNumericId("Q"));
+		assertEquals(-1, EntityIdSet.getNumericId("Q9999999999"));
+	}
+
+}
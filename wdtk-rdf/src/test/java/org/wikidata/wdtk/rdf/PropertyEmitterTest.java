@@ -0,0 +1,170 @@
+package org.wikidata.wdtk.rdf;
+
+/*
+ * #%L
+ * Wikidata Toolkit RDF
+ * %%
+ * Copyright (C) 2014 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+
+import org.junit.Test;
+import org.openrdf.model.Value;
+import org.openrdf.rio.RDFFormat;
+import org.wikidata.wdtk.datamodel.helpers.Datamodel;
+import org.wikidata.wdtk.datamodel.interfaces.DatatypeIdValue;
+import org.wikidata.wdtk.datamodel.interfaces.PropertyIdValue;
+import org.wikidata.wdtk.rdf.values.AnyValueConverter;
+import org.wikidata.wdtk.rdf.values.ResolvedValueConverter;
+
+public class PropertyEmitterTest {
+
+	final RdfWriter rdfWriter = new RdfWriter(RDFFormat.NTRIPLES,
+			new ByteArrayOutputStream());
+
+	@Test
+	public void testUrisForAllContexts() {
+		PropertyIdValue p31 = Datamodel.makeWikidataPropertyIdValue("P31");
+		PropertyEmitter emitter = new PropertyEmitter(p31, this.rdfWriter);
+		for (PropertyContext context : PropertyContext.values()) {
+			assertEquals(Vocabulary.getPropertyUri(p31, context), emitter
+					.getUri(context).stringValue());
+		}
+	}
+
+	@Test
+	public void testDatatypeIsCached() {
+		PropertyIdValue p31 = Datamodel.makeWikidataPropertyIdValue("P31");
+		PropertyEmitter emitter = new PropertyEmitter(p31, this.rdfWriter);
+		MockPropertyRegister propertyRegister = new MockPropertyRegister();
+		assertEquals(DatatypeIdValue.DT_ITEM,
+				emitter.getDatatype(propertyRegister));
+		propertyRegister.setPropertyType(p31, DatatypeIdValue.DT_STRING);
+		assertEquals(DatatypeIdValue.DT_ITEM,
+				emitter.getDatatype(propertyRegister));
+	}
+
+	@Test
+	public void testConverterReusesEmitters() {
+		PropertyRegister propertyRegister = new MockPropertyRegister();
+		OwlDeclarationBuffer owlDeclarationBuffer = new OwlDeclarationBuffer();
+		SnakRdfConverter converter = new SnakRdfConverter(this.rdfWriter,
+				owlDeclarationBuffer, propertyRegister, new AnyValueConverter(
+						this.rdfWriter, owlDeclarationBuffer, propertyRegister));
+
+		PropertyIdValue p31 = Datamodel.makeWikidataPropertyIdValue("P31");
+		assertSame(converter.getPropertyUri(p31, PropertyContext.DIRECT),
+				converter.getPropertyUri(
+						Datamodel.makeWikidataPropertyIdValue("P31"),
+						PropertyContext.DIRECT));
+		assertEquals(Vocabulary.OWL_THING, converter.getRangeUri(p31));
+		assertEquals(1, converter.propertyEmitters.size());
+	}
+
+	@Test
+	public void testValueConverterIsResolvedOnce() {
+		PropertyRegister propertyRegister = new MockPropertyRegister();
+		OwlDeclarationBuffer owlDeclarationBuffer = new OwlDeclarationBuffer();
+		AnyValueConverter anyValueConverter = new AnyValueConverter(
+				this.rdfWriter, owlDeclarationBuffer, propertyRegister);
+		PropertyIdValue p31 = Datamodel.makeWikidataPropertyIdValue("P31");
+		PropertyEmitter emitter = new PropertyEmitter(p31, this.rdfWriter);
+
+		Value q5 = emitter.getRdfValue(
+				Datamodel.makeWikidataItemIdValue("Q5"), true,
+				anyValueConverter);
+		ResolvedValueConverter<?> valueConverter = emitter.valueConverter;
+		assertEquals(DatatypeIdValue.DT_ITEM, valueConverter.getDatatype());
+		assertEquals(anyValueConverter.getRdfValue(
+				Datamodel.makeWikidataItemIdValue("Q5"), p31, true), q5);
+
+		assertEquals(this.rdfWriter.getUri(Datamodel.makeWikidataItemIdValue(
+				"Q6").getIri()), emitter.getRdfValue(
+				Datamodel.makeWikidataItemIdValue("Q6"), true,
+				anyValueConverter));
+		assertSame(valueConverter, emitter.valueConverter);
+	}
+
+	@Test
+	public void testValueOfOtherTypeUsesAnyValueConverter() {
+		PropertyRegister propertyRegister = new MockPropertyRegister();
+		OwlDeclarationBuffer owlDeclarationBuffer = new OwlDeclarationBuffer();
+		AnyValueConverter anyValueConverter = new AnyValueConverter(
+				this.rdfWriter, owlDeclarationBuffer, propertyRegister);
+		PropertyIdValue p31 = Datamodel.makeWikidataPropertyIdValue("P31");
+		PropertyEmitter emitter = new PropertyEmitter(p31, this.rdfWriter);
+
+		emitter.getRdfValue(Datamodel.makeWikidataItemIdValue("Q5"), true,
+				anyValueConverter);
+		assertNull(emitter.getRdfValue(Datamodel.makeStringValue("string"),
+				true, anyValueConverter));
+		assertEquals(DatatypeIdValue.DT_ITEM,
+				emitter.valueConverter.getDatatype());
+	}
+
+	@Test
+	public void testEntityIdOfOtherEntityTypeUsesAnyValueConverter() {
+		PropertyRegister propertyRegister = new MockPropertyRegister();
+		OwlDeclarationBuffer owlDeclarationBuffer = new OwlDeclarationBuffer();
+		AnyValueConverter anyValueConverter = new AnyValueConverter(
+				this.rdfWriter, owlDeclarationBuffer, propertyRegister);
+		PropertyIdValue p1000 = Datamodel
+				.makeWikidataPropertyIdValue("P1000");
+		PropertyEmitter emitter = new PropertyEmitter(p1000, this.rdfWriter);
+
+		emitter.getRdfValue(Datamodel.makeWikidataItemIdValue("Q5"), true,
+				anyValueConverter);
+		assertEquals(anyValueConverter.getRdfValue(
+				Datamodel.makeWikidataPropertyIdValue("P31"), p1000, true),
+				emitter.getRdfValue(
+						Datamodel.makeWikidataPropertyIdValue("P31"), true,
+						anyValueConverter));
+		assertEquals(DatatypeIdValue.DT_ITEM,
+				emitter.valueConverter.getDatatype());
+		assertTrue(emitter.valueConverter.accepts(Datamodel
+				.makeWikidataItemIdValue("Q6")));
+		assertFalse(emitter.valueConverter.accepts(Datamodel
+				.makeWikidataPropertyIdValue("P31")));
+	}
+
+	@Test
+	public void testEmittersAreKeyedBySite() {
+		PropertyRegister propertyRegister = new MockPropertyRegister();
+		OwlDeclarationBuffer owlDeclarationBuffer = new OwlDeclarationBuffer();
+		SnakRdfConverter converter = new SnakRdfConverter(this.rdfWriter,
+				owlDeclarationBuffer, propertyRegister, new AnyValueConverter(
+						this.rdfWriter, owlDeclarationBuffer, propertyRegister));
+
+		PropertyIdValue p31 = Datamodel.makeWikidataPropertyIdValue("P31");
+		PropertyIdValue otherP31 = Datamodel.makePropertyIdValue("P31",
+				"http://example.org/entity/");
+		assertEquals(Vocabulary.getPropertyUri(otherP31,
+				PropertyContext.DIRECT), converter.getPropertyUri(otherP31,
+				PropertyContext.DIRECT).stringValue());
+		assertEquals(Vocabulary.getPropertyUri(p31, PropertyContext.DIRECT),
+				converter.getPropertyUri(p31, PropertyContext.DIRECT)
+						.stringValue());
+		assertEquals(2, converter.propertyEmitters.size());
+	}
+
+}
@@ -0,0 +1,168 @@
+package org.wikidata.wdtk.rdf;
+
+/*
+ * #%L
+ * Wikidata Toolkit RDF
+ * %%
+ * Copyright (C) 2014 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.wikidata.wdtk.datamodel.helpers.Datamodel;
+import org.wikidata.wdtk.datamodel.implementation.SitesImpl;
+import org.wikidata.wdtk.datamodel.interfaces.ItemDocument;
+import org.wikidata.wdtk.datamodel.interfaces.ItemIdValue;
+import org.wikidata.wdtk.datamodel.interfaces.MonolingualTextValue;
+import org.wikidata.wdtk.datamodel.interfaces.Reference;
+import org.wikidata.wdtk.datamodel.interfaces.SiteLink;
+import org.wikidata.wdtk.datamodel.interfaces.SnakGroup;
+import org.wikidata.wdtk.datamodel.interfaces.Statement;
+import org.wikidata.wdtk.datamodel.interfaces.StatementGroup;
+import org.wikidata.wdtk.datamodel.interfaces.StatementRank;
+
+public class RdfChangeSetWriterTest {
+
+	final TestObjectFactory objectFactory = new TestObjectFactory();
+
+	ByteArrayOutputStream deletions;
+	ByteArrayOutputStream insertions;
+	RdfChangeSetWriter changeSetWriter;
+
+	@Before
+	public void setUp() {
+		this.deletions = new ByteArrayOutputStream();
+		this.insertions = new ByteArrayOutputStream();
+		this.changeSetWriter = new RdfChangeSetWriter(this.deletions,
+				this.insertions, new SitesImpl(), new MockPropertyRegister());
+		this.changeSetWriter.open();
+	}
+
+	@Test
+	public void testUnchangedDocument() throws IOException {
+		ItemDocument document = this.objectFactory.createItemDocument();
+		assertFalse(this.changeSetWriter.writeChanges(document,
+				this.objectFactory.createItemDocument()));
+		this.changeSetWriter.close();
+
+		assertEquals(0, this.changeSetWriter.getChangedEntityCount());
+		assertEquals("", this.deletions.toString());
+		assertEquals("", this.insertions.toString());
+	}
+
+	@Test
+	public void testChangedDocument() throws IOException {
+		ItemDocument previous = this.objectFactory.createItemDocument();
+		List<StatementGroup> statementGroups = new ArrayList<>(
+				previous.getStatementGroups());
+		statementGroups.remove(statementGroups.size() - 1);
+		ItemDocument current = Datamodel.makeItemDocument(
+				previous.getItemId(),
+				Collections.singletonList(Datamodel.makeMonolingualTextValue(
+						"new label", "en")),
+				Collections.<MonolingualTextValue> emptyList(),
+				Collections.<MonolingualTextValue> emptyList(),
+				statementGroups, Collections.<String, SiteLink> emptyMap(), 2);
+
+		assertTrue(this.changeSetWriter.writeChanges(previous, current));
+		this.changeSetWriter.close();
+
+		String deleted = this.deletions.toString();
+		String inserted = this.insertions.toString();
+		assertTrue(deleted.contains("none3"));
+		assertFalse(deleted.contains("none2"));
+		assertTrue(inserted.contains("\"new label\"@en"));
+		assertFalse(inserted.contains("none2"));
+		assertEquals(1, this.changeSetWriter.getChangedEntityCount());
+	}
+
+	@Test
+	public void testDeletedDocument() throws IOException {
+		ItemDocument previous = this.objectFactory.createItemDocument();
+		assertTrue(this.changeSetWriter.writeChanges(previous, null));
+		this.changeSetWriter.close();
+
+		assertTrue(this.deletions.toString().contains(
+				"<http://www.wikidata.org/Q10>"));
+		assertEquals("", this.insertions.toString());
+	}
+
+	@Test
+	public void testSomeValueSnakIsStable() throws IOException {
+		ItemIdValue itemId = Datamodel.makeWikidataItemIdValue("Q10");
+		Statement statement = Datamodel.makeStatement(
+				Datamodel.makeClaim(itemId, Datamodel
+						.makeSomeValueSnak(Datamodel
+								.makeWikidataPropertyIdValue("P10")),
+						Collections.<SnakGroup> emptyList()),
+				Collections.<Reference> emptyList(), StatementRank.NORMAL,
+				"Q10$some");
+		ItemDocument previous = makeItemDocument(itemId, "old label",
+				statement, 1);
+		ItemDocument current = makeItemDocument(itemId, "new label",
+				statement, 2);
+
+		assertTrue(this.changeSetWriter.writeChanges(previous, current));
+		this.changeSetWriter.close();
+
+		String deleted = this.deletions.toString();
+		String inserted = this.insertions.toString();
+		assertTrue(deleted.contains("\"old label\"@en"));
+		assertFalse(deleted.contains("Q10-some"));
+		assertFalse(inserted.contains("Q10-some"));
+		assertFalse(deleted.contains("_:"));
+		assertFalse(inserted.contains("_:"));
+	}
+
+	@Test
+	public void testDigest() {
+		ItemDocument document = this.objectFactory.createItemDocument();
+		assertEquals(this.changeSetWriter.getDigest(document),
+				this.changeSetWriter.getDigest(this.objectFactory
+						.createItemDocument()));
+		assertNotEquals(this.changeSetWriter.getDigest(document),
+				this.changeSetWriter.getDigest(Datamodel.makeItemDocument(
+						document.getItemId(),
+						Collections.<MonolingualTextValue> emptyList(),
+						Collections.<MonolingualTextValue> emptyList(),
+						Collections.<MonolingualTextValue> emptyList(),
+						document.getStatementGroups(),
+						document.getSiteLinks(), 0)));
+	}
+
+	static ItemDocument makeItemDocument(ItemIdValue itemId, String label,
+			Statement statement, long revisionId) {
+		return Datamodel.makeItemDocument(itemId, Collections
+				.singletonList(Datamodel.makeMonolingualTextValue(label, "en")),
+				Collections.<MonolingualTextValue> emptyList(), Collections
+						.<MonolingualTextValue> emptyList(), Collections
+						.singletonList(Datamodel.makeStatementGroup(Collections
+								.singletonList(statement))), Collections
+						.<String, SiteLink> emptyMap(), revisionId);
+	}
+
+}
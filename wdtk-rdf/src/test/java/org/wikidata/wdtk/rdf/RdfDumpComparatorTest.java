@@ -0,0 +1,98 @@
+package org.wikidata.wdtk.rdf;
+
+/*
+ * #%L
+ * Wikidata Toolkit RDF
+ * %%
+ * Copyright (C) 2014 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+import org.wikidata.wdtk.datamodel.helpers.Datamodel;
+import org.wikidata.wdtk.datamodel.implementation.SitesImpl;
+import org.wikidata.wdtk.datamodel.interfaces.EntityDocumentProcessor;
+import org.wikidata.wdtk.datamodel.interfaces.ItemDocument;
+import org.wikidata.wdtk.datamodel.interfaces.MonolingualTextValue;
+import org.wikidata.wdtk.datamodel.interfaces.SiteLink;
+import org.wikidata.wdtk.datamodel.interfaces.StatementGroup;
+
+public class RdfDumpComparatorTest {
+
+	@Test
+	public void testCompareDumps() {
+		List<ItemDocument> previousDump = Arrays.asList(
+				makeItemDocument("Q1", "unchanged"),
+				makeItemDocument("Q2", "old label"),
+				makeItemDocument("Q3", "deleted"));
+		List<ItemDocument> currentDump = Arrays.asList(
+				makeItemDocument("Q4", "new"),
+				makeItemDocument("Q2", "new label"),
+				makeItemDocument("Q1", "unchanged"));
+
+		ByteArrayOutputStream deletions = new ByteArrayOutputStream();
+		ByteArrayOutputStream insertions = new ByteArrayOutputStream();
+		RdfChangeSetWriter changeSetWriter = new RdfChangeSetWriter(deletions,
+				insertions, new SitesImpl(), new MockPropertyRegister());
+		RdfDumpComparator comparator = new RdfDumpComparator(changeSetWriter);
+
+		changeSetWriter.open();
+		processDump(previousDump, comparator.getPreviousDigestProcessor());
+		processDump(currentDump, comparator.getInsertionProcessor());
+		processDump(previousDump, comparator.getDeletionProcessor());
+		changeSetWriter.close();
+
+		assertEquals(1, comparator.getUnchangedEntityCount());
+		assertEquals(1, comparator.getNewEntityCount());
+		assertEquals(1, comparator.getChangedEntityCount());
+		assertEquals(1, comparator.getDeletedEntityCount());
+
+		String deleted = deletions.toString();
+		String inserted = insertions.toString();
+		assertFalse(deleted.contains("Q1>"));
+		assertFalse(inserted.contains("Q1>"));
+		assertTrue(deleted.contains("\"old label\"@en"));
+		assertTrue(inserted.contains("\"new label\"@en"));
+		assertTrue(deleted.contains("\"deleted\"@en"));
+		assertTrue(inserted.contains("\"new\"@en"));
+	}
+
+	static void processDump(List<ItemDocument> dump,
+			EntityDocumentProcessor processor) {
+		for (ItemDocument document : dump) {
+			processor.processItemDocument(document);
+		}
+	}
+
+	static ItemDocument makeItemDocument(String id, String label) {
+		return Datamodel.makeItemDocument(Datamodel
+				.makeWikidataItemIdValue(id), Collections
+				.singletonList(Datamodel.makeMonolingualTextValue(label, "en")),
+				Collections.<MonolingualTextValue> emptyList(), Collections
+						.<MonolingualTextValue> emptyList(), Collections
+						.<StatementGroup> emptyList(), Collections
+						.<String, SiteLink> emptyMap(), 0);
+	}
+
+}
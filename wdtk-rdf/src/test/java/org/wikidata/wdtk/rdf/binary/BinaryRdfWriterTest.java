@@ -0,0 +1,198 @@
+package org.wikidata.wdtk.rdf.binary;
+
+/*
+ * #%L
+ * Wikidata Toolkit RDF
+ * %%
+ * Copyright (C) 2014 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Random;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.openrdf.model.Model;
+import org.openrdf.model.Resource;
+import org.openrdf.model.Statement;
+import org.openrdf.model.URI;
+import org.openrdf.model.Value;
+import org.openrdf.model.impl.LinkedHashModel;
+import org.openrdf.model.impl.ValueFactoryImpl;
+import org.openrdf.rio.RDFHandlerException;
+import org.openrdf.rio.RDFParseException;
+import org.openrdf.rio.helpers.StatementCollector;
+import org.wikidata.wdtk.datamodel.implementation.SitesImpl;
+import org.wikidata.wdtk.rdf.MockPropertyRegister;
+import org.wikidata.wdtk.rdf.RdfSerializer;
+import org.wikidata.wdtk.rdf.RdfTestHelpers;
+import org.wikidata.wdtk.rdf.RdfWriter;
+import org.wikidata.wdtk.rdf.TestObjectFactory;
+
+public class BinaryRdfWriterTest {
+
+	final TestObjectFactory objectFactory = new TestObjectFactory();
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void testSerializerRoundTrip() throws IOException,
+			RDFParseException, RDFHandlerException {
+		File file = this.folder.newFile("test.wbrdf");
+		try (OutputStream out = new FileOutputStream(file)) {
+			RdfSerializer rdfSerializer = new RdfSerializer(
+					BinaryRdfWriter.FORMAT, out, new SitesImpl(),
+					new MockPropertyRegister());
+			rdfSerializer.open();
+			rdfSerializer.processItemDocument(this.objectFactory
+					.createItemDocument());
+			rdfSerializer.close();
+		}
+
+		Model model = new LinkedHashModel();
+		try (BinaryRdfReader reader = new BinaryRdfReader(file)) {
+			reader.processTriples(new StatementCollector(model));
+		}
+		assertEquals(RdfTestHelpers.parseRdf(RdfTestHelpers
+				.getResourceFromFile("completeRDFDocument.rdf")), model);
+	}
+
+	@Test
+	public void testSubjectLookupAcrossBlocks() throws IOException,
+			RDFHandlerException {
+		ValueFactoryImpl factory = ValueFactoryImpl.getInstance();
+		URI q1 = factory.createURI("http://www.wikidata.org/entity/Q1");
+		URI q2 = factory.createURI("http://www.wikidata.org/entity/Q2");
+
+		File file = this.folder.newFile("blocks.wbrdf");
+		try (OutputStream out = new FileOutputStream(file)) {
+			BinaryRdfWriter writer = new BinaryRdfWriter(out, 2);
+			writer.startRDF();
+			writer.handleNamespace("id", "http://www.wikidata.org/entity/");
+			writer.handleStatement(factory.createStatement(q2,
+					RdfWriter.RDFS_LABEL, factory.createLiteral("two", "en")));
+			writer.handleStatement(factory.createStatement(q1,
+					RdfWriter.RDF_TYPE, RdfWriter.WB_ITEM));
+			writer.handleStatement(factory.createStatement(q1,
+					RdfWriter.RDFS_LABEL, factory.createLiteral("one", "en")));
+			writer.handleStatement(factory.createStatement(q1,
+					RdfWriter.RDF_TYPE, RdfWriter.WB_ITEM));
+			writer.handleStatement(factory.createStatement(q2,
+					RdfWriter.WB_QUANTITY_AMOUNT, factory.createLiteral("42",
+							RdfWriter.XSD_DECIMAL)));
+			writer.endRDF();
+		}
+
+		try (BinaryRdfReader reader = new BinaryRdfReader(file)) {
+			assertEquals(2, reader.getBlockCount());
+			assertEquals(4, reader.getTripleCount());
+			Model q1Triples = new LinkedHashModel(reader.getTriples(q1));
+			assertEquals(2, q1Triples.size());
+			assertTrue(q1Triples.contains(q1, RdfWriter.RDF_TYPE,
+					RdfWriter.WB_ITEM));
+
+			Model q2Triples = new LinkedHashModel(reader.getTriples(q2));
+			assertEquals(2, q2Triples.size());
+			assertTrue(q2Triples.contains(q2, RdfWriter.WB_QUANTITY_AMOUNT,
+					factory.createLiteral("42", RdfWriter.XSD_DECIMAL)));
+
+			assertEquals(0, reader.getTriples(
+					factory.createURI("http://www.wikidata.org/entity/Q3"))
+					.size());
+			for (Statement statement : reader.getTriples(q2)) {
+				assertEquals(q2, statement.getSubject());
+			}
+		}
+	}
+
+	@Test
+	public void testManySubjectsWithSmallCache() throws IOException,
+			RDFHandlerException {
+		ValueFactoryImpl factory = ValueFactoryImpl.getInstance();
+		Random random = new Random(42);
+		Model expected = new LinkedHashModel();
+		for (int i = 0; i < 3000; i++) {
+			URI subject = factory.createURI("http://www.wikidata.org/entity/Q"
+					+ random.nextInt(500));
+			URI predicate = factory.createURI("http://www.wikidata.org/prop/direct/P"
+					+ random.nextInt(20));
+			Value object;
+			if (i % 3 == 0) {
+				object = factory.createLiteral("label " + random.nextInt(1000),
+						"en");
+			} else if (i % 3 == 1) {
+				object = factory.createLiteral(Integer.toString(random
+						.nextInt(100)), RdfWriter.XSD_DECIMAL);
+			} else {
+				object = factory.createURI("http://www.wikidata.org/entity/Q"
+						+ random.nextInt(500));
+			}
+			expected.add(subject, predicate, object);
+		}
+
+		File file = this.folder.newFile("many.wbrdf");
+		try (OutputStream out = new FileOutputStream(file)) {
+			BinaryRdfWriter writer = new BinaryRdfWriter(out, 4, 10,
+					this.folder.getRoot());
+			writer.startRDF();
+			for (Statement statement : expected) {
+				writer.handleStatement(statement);
+				// duplicates must only be stored once
+				writer.handleStatement(statement);
+			}
+			writer.endRDF();
+		}
+		// only the output file is left
+		assertEquals(1, this.folder.getRoot().listFiles().length);
+
+		try (BinaryRdfReader reader = new BinaryRdfReader(file)) {
+			assertEquals(expected.size(), reader.getTripleCount());
+			for (int i = 1; i < reader.getBlockCount(); i++) {
+				assertTrue(reader.blockMinSubjects[i] >= reader.blockMaxSubjects[i - 1]);
+			}
+			for (int id = 1; id <= reader.getTermCount(); id++) {
+				assertEquals(id, reader.getTermId(reader.getTerm(id)));
+			}
+			for (Resource subject : expected.subjects()) {
+				assertEquals(expected.filter(subject, null, null),
+						new LinkedHashModel(reader.getTriples(subject)));
+			}
+
+			Model model = new LinkedHashModel();
+			reader.processTriples(new StatementCollector(model));
+			assertEquals(expected, model);
+		}
+	}
+
+	@Test
+	public void testSortTriples() {
+		int[] triples = { 3, 1, 2, 1, 2, 3, 1, 1, 5, 2, 0, 0, 1, 1, 4 };
+		BinaryRdfWriter.sortTriples(triples, 0, 4);
+		int[] expected = { 1, 1, 4, 1, 1, 5, 1, 2, 3, 2, 0, 0, 3, 1, 2 };
+		for (int i = 0; i < expected.length; i++) {
+			assertEquals(expected[i], triples[i]);
+		}
+	}
+
+}
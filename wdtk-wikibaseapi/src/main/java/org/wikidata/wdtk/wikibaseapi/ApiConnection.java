@@ -22,11 +22,12 @@ package org.wikidata.wdtk.wikibaseapi;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.OutputStreamWriter;
 import java.io.UnsupportedEncodingException;
-import java.net.HttpURLConnection;
-import java.net.URL;
 import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
@@ -34,10 +35,11 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.wikidata.wdtk.util.WebResourceFetcherImpl;
+import org.wikidata.wdtk.wikibaseapi.apierrors.MaxlagErrorException;
 import org.wikidata.wdtk.wikibaseapi.apierrors.MediaWikiApiErrorException;
 import org.wikidata.wdtk.wikibaseapi.apierrors.MediaWikiApiErrorHandler;
 
@@ -101,6 +103,12 @@ public class ApiConnection {
 	 */
 	final static String HEADER_FIELD_SET_COOKIE = "Set-Cookie";
 
+	/**
+	 * Name of the HTTP response header field that tells clients how long to
+	 * wait before retrying.
+	 */
+	final static String HEADER_FIELD_RETRY_AFTER = "Retry-After";
+
 	/**
 	 * String value in the result field of the JSON response if the login was
 	 * successful.
@@ -182,7 +190,8 @@ public class ApiConnection {
 	String password = "";
 
 	/**
-	 * Map of cookies that are currently set.
+	 * Map of cookies that are currently set. The map is concurrent, since
+	 * requests may be sent from several threads at once.
 	 */
 	final Map<String, String> cookies;
 
@@ -191,6 +200,11 @@ public class ApiConnection {
 	 */
 	final ObjectMapper mapper = new ObjectMapper();
 
+	/**
+	 * Transport used to send HTTP requests.
+	 */
+	HttpTransport transport = new UrlConnectionHttpTransport();
+
 	/**
 	 * Creates an object to manage a connection to the Web API of a Wikibase
 	 * site.
@@ -201,7 +215,7 @@ public class ApiConnection {
 	 */
 	public ApiConnection(String apiBaseUrl) {
 		this.apiBaseUrl = apiBaseUrl;
-		this.cookies = new HashMap<>();
+		this.cookies = new ConcurrentHashMap<>();
 	}
 	
 	/**
@@ -222,10 +236,33 @@ public class ApiConnection {
 			@JsonProperty("loggedIn") boolean loggedIn) {
 		this.apiBaseUrl = apiBaseUrl;
 		this.username = username;
-		this.cookies = cookies;
+		this.cookies = new ConcurrentHashMap<>(cookies);
 		this.loggedIn = loggedIn;
 	}
 
+	/**
+	 * Returns the {@link HttpTransport} that is used to send requests.
+	 *
+	 * @return the HTTP transport
+	 */
+	@JsonIgnore
+	public HttpTransport getHttpTransport() {
+		return this.transport;
+	}
+
+	/**
+	 * Sets the {@link HttpTransport} that is used to send requests. By
+	 * default, a {@link UrlConnectionHttpTransport} is used. Cookies and
+	 * tokens are managed by this object independently of the transport.
+	 *
+	 * @param transport
+	 *            the HTTP transport to use
+	 */
+	@JsonIgnore
+	public void setHttpTransport(HttpTransport transport) {
+		this.transport = transport;
+	}
+
 	/**
 	 * Creates an API connection to wikidata.org.
 	 *
@@ -399,12 +436,27 @@ public class ApiConnection {
 		parameters.put(ApiConnection.PARAM_FORMAT, "json");
 		try (InputStream response = sendRequest(requestMethod, parameters)) {
 			JsonNode root = this.mapper.readTree(response);
-			this.checkErrors(root);
-			this.logWarnings(root);
+			handleErrorsAndWarnings(root);
 			return root;
 		}
 	}
 
+	/**
+	 * Throws a suitable exception if an API response contains an error, and
+	 * logs any warnings that it contains otherwise. Responses that are read
+	 * with {@link #sendRequest(String, Map)} can be passed here in parts.
+	 *
+	 * @param root
+	 *            root node of the JSON result
+	 * @throws MediaWikiApiErrorException
+	 *             if the API returned an error
+	 */
+	void handleErrorsAndWarnings(JsonNode root)
+			throws MediaWikiApiErrorException {
+		this.checkErrors(root);
+		this.logWarnings(root);
+	}
+
 	/**
 	 * Sends a request to the API with the given parameters and the given
 	 * request method and returns the result string. It automatically fills the
@@ -425,25 +477,58 @@ public class ApiConnection {
 	public InputStream sendRequest(String requestMethod,
 			Map<String, String> parameters) throws IOException {
 		String queryString = getQueryString(parameters);
-		URL url = new URL(this.apiBaseUrl);
-		HttpURLConnection connection = (HttpURLConnection) WebResourceFetcherImpl
-				.getUrlConnection(url);
-
-		setupConnection(requestMethod, queryString, connection);
-		OutputStreamWriter writer = new OutputStreamWriter(
-				connection.getOutputStream());
-		writer.write(queryString);
-		writer.flush();
-		writer.close();
-
-		int rc = connection.getResponseCode();
-		if (rc != 200) {
+		HttpTransport.Response response = this.transport.sendRequest(
+				this.apiBaseUrl, requestMethod, getRequestHeaders(),
+				queryString.getBytes(StandardCharsets.UTF_8));
+
+		int rc = response.getStatusCode();
+		if (rc >= 400) {
+			response.getBody().close();
+			String message = "Server returned HTTP response code: " + rc
+					+ " for URL: " + this.apiBaseUrl;
+			if (rc == 429 || rc == 503) {
+				throw new RequestThrottledException(rc,
+						getRetryAfter(response.getHeaders()), message);
+			}
+			throw new IOException(message);
+		} else if (rc != 200) {
 			logger.warn("Error: API request returned response code " + rc);
 		}
 
-		InputStream iStream = connection.getInputStream();
-		fillCookies(connection.getHeaderFields());
-		return iStream;
+		fillCookies(response.getHeaders());
+		return response.getBody();
+	}
+
+	/**
+	 * Returns the time that a client should wait before retrying, as given in
+	 * the Retry-After header field of a response.
+	 *
+	 * @param headerFields
+	 *            the header fields of the response
+	 * @return time in milliseconds, or -1 if not given
+	 */
+	static long getRetryAfter(Map<String, List<String>> headerFields) {
+		for (Entry<String, List<String>> headerField : headerFields.entrySet()) {
+			if (!HEADER_FIELD_RETRY_AFTER.equalsIgnoreCase(headerField.getKey())
+					|| headerField.getValue().isEmpty()) {
+				continue;
+			}
+			String value = headerField.getValue().get(0).trim();
+			try {
+				return Math.max(0, Long.parseLong(value) * 1000);
+			} catch (NumberFormatException e) {
+				// the value may also be an HTTP date
+			}
+			try {
+				ZonedDateTime date = ZonedDateTime.parse(value,
+						DateTimeFormatter.RFC_1123_DATE_TIME);
+				return Math.max(0, date.toInstant().toEpochMilli()
+						- System.currentTimeMillis());
+			} catch (DateTimeParseException e) {
+				logger.warn("Could not parse Retry-After header: " + value);
+			}
+		}
+		return -1;
 	}
 
 	/**
@@ -459,9 +544,14 @@ public class ApiConnection {
 	public void checkErrors(JsonNode root) throws MediaWikiApiErrorException {
 		if (root.has("error")) {
 			JsonNode errorNode = root.path("error");
-			MediaWikiApiErrorHandler.throwMediaWikiApiErrorException(errorNode
-					.path("code").asText("UNKNOWN"), errorNode.path("info")
-					.asText("No details provided"));
+			String code = errorNode.path("code").asText("UNKNOWN");
+			String info = errorNode.path("info").asText("No details provided");
+			if (MediaWikiApiErrorHandler.ERROR_MAXLAG.equals(code)) {
+				throw new MaxlagErrorException(info, errorNode.path("lag")
+						.asDouble(-1));
+			}
+			MediaWikiApiErrorHandler.throwMediaWikiApiErrorException(code,
+					info);
 		}
 	}
 
@@ -612,10 +702,13 @@ public class ApiConnection {
 	 * API connection with it.
 	 */
 	void fillCookies(Map<String, List<String>> headerFields) {
-		List<String> headerCookies = headerFields
-				.get(ApiConnection.HEADER_FIELD_SET_COOKIE);
-		if (headerCookies != null) {
-			for (String cookie : headerCookies) {
+		for (Entry<String, List<String>> headerField : headerFields.entrySet()) {
+			// header names are case-insensitive; HTTP/2 uses lower case
+			if (!ApiConnection.HEADER_FIELD_SET_COOKIE
+					.equalsIgnoreCase(headerField.getKey())) {
+				continue;
+			}
+			for (String cookie : headerField.getValue()) {
 				String[] cookieResponse = cookie.split(";\\p{Space}??");
 				for (String cookieLine : cookieResponse) {
 					String[] entry = cookieLine.split("=");
@@ -684,28 +777,16 @@ public class ApiConnection {
 	}
 
 	/**
-	 * Configures a given {@link HttpURLConnection} object to send requests.
-	 * Takes the request method (either "POST" or "GET") and query string.
+	 * Returns the header fields that are sent with each request, including the
+	 * current cookies.
 	 *
-	 * @param requestMethod
-	 *            either "POST" or "GET"
-	 * @param queryString
-	 *            the query string to submit
-	 * @param connection
-	 *            the connection to configure
-	 * @throws IOException
-	 *             if the given protocol is not valid
-	 */
-	void setupConnection(String requestMethod, String queryString,
-			HttpURLConnection connection) throws IOException {
-		connection.setRequestMethod(requestMethod);
-		connection.setDoInput(true);
-		connection.setDoOutput(true);
-		connection.setUseCaches(false);
-		connection.setRequestProperty("Content-Type",
-				"application/x-www-form-urlencoded");
-		connection.setRequestProperty(ApiConnection.PARAM_COOKIE,
-				getCookieString());
+	 * @return map from header names to values
+	 */
+	Map<String, String> getRequestHeaders() {
+		Map<String, String> headers = new HashMap<>();
+		headers.put("Content-Type", "application/x-www-form-urlencoded");
+		headers.put(ApiConnection.PARAM_COOKIE, getCookieString());
+		return headers;
 	}
 
 }
@@ -0,0 +1,543 @@
+package org.wikidata.wdtk.wikibaseapi;
+
+/*
+ * #%L
+ * Wikidata Toolkit Wikibase API
+ * %%
+ * Copyright (C) 2014 - 2015 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.wikidata.wdtk.datamodel.interfaces.EntityDocument;
+import org.wikidata.wdtk.datamodel.interfaces.EntityIdValue;
+import org.wikidata.wdtk.datamodel.interfaces.Statement;
+import org.wikidata.wdtk.datamodel.interfaces.StatementDocument;
+import org.wikidata.wdtk.wikibaseapi.apierrors.NoSuchEntityErrorException;
+
+/**
+ * Queue for making many edits efficiently, e.g., in bots. Edits are
+ * processed in a pipeline of three stages that run concurrently:
+ * <ol>
+ * <li>The current documents of the entities to edit are fetched in batches
+ * of up to {@link #DEFAULT_BATCH_SIZE} entities, using one API request per
+ * batch.</li>
+ * <li>Worker threads compute the updates based on the current
+ * documents.</li>
+ * <li>The resulting edits are passed through a bounded queue to sender
+ * threads, which make the edits at the speed allowed by the
+ * {@link EditScheduler} of the {@link WikibaseDataEditor}.</li>
+ * </ol>
+ * This way, the speed of editing is not limited by waiting for one request
+ * after the other. Each edit that is submitted returns a future that is
+ * completed when the edit has been made; edits that failed are also recorded
+ * in a list of failures for later inspection.
+ * <p>
+ * Edits for the same entity are made in the order of submission; an edit is
+ * only computed after the previous edit of the same entity has been made, so
+ * that it is based on the current revision. The number of edits that are
+ * waiting in the queue is limited, and {@link #submit} blocks when the limit
+ * is reached.
+ */
+public class BulkEditQueue implements AutoCloseable {
+
+	static final Logger logger = LoggerFactory.getLogger(BulkEditQueue.class);
+
+	/**
+	 * Maximal number of entities fetched in one request.
+	 */
+	public static final int DEFAULT_BATCH_SIZE = 50;
+
+	/**
+	 * Maximal time in milliseconds that the fetcher waits for more edits to
+	 * fill a batch.
+	 */
+	static long BATCH_DELAY = 200;
+
+	/**
+	 * Record of an edit that could not be made.
+	 */
+	public static class EditFailure {
+
+		final EntityIdValue entityId;
+		final Exception exception;
+
+		EditFailure(EntityIdValue entityId, Exception exception) {
+			this.entityId = entityId;
+			this.exception = exception;
+		}
+
+		/**
+		 * Returns the id of the entity that should have been edited.
+		 *
+		 * @return entity id
+		 */
+		public EntityIdValue getEntityId() {
+			return this.entityId;
+		}
+
+		/**
+		 * Returns the exception that caused the edit to fail.
+		 *
+		 * @return the exception
+		 */
+		public Exception getException() {
+			return this.exception;
+		}
+
+		@Override
+		public String toString() {
+			return this.entityId.getId() + ": " + this.exception.toString();
+		}
+	}
+
+	/**
+	 * Edit as submitted, together with its future.
+	 */
+	static class PendingEdit {
+		final EntityIdValue entityId;
+		final Function<StatementDocument, StatementUpdate> computation;
+		final String summary;
+		final CompletableFuture<EntityDocument> future = new CompletableFuture<>();
+
+		StatementDocument currentDocument;
+		StatementUpdate update;
+
+		PendingEdit(EntityIdValue entityId,
+				Function<StatementDocument, StatementUpdate> computation,
+				String summary) {
+			this.entityId = entityId;
+			this.computation = computation;
+			this.summary = summary;
+		}
+	}
+
+	/**
+	 * Marker that tells threads to stop.
+	 */
+	static final PendingEdit STOP = new PendingEdit(null, null, null);
+
+	final WikibaseDataEditor editor;
+	final WikibaseDataFetcher fetcher;
+	final int maxPendingEdits;
+
+	/**
+	 * Permits for submitting edits; one permit is held by each edit that has
+	 * been submitted but not completed.
+	 */
+	final Semaphore pendingPermits;
+
+	/**
+	 * Edits whose documents need to be fetched.
+	 */
+	final BlockingQueue<PendingEdit> fetchQueue = new LinkedBlockingQueue<>();
+
+	/**
+	 * Edits that are ready to be sent.
+	 */
+	final BlockingQueue<PendingEdit> sendQueue;
+
+	/**
+	 * Latest submitted edit for each entity that has edits in the queue.
+	 */
+	final Map<String, PendingEdit> latestEdits = new HashMap<>();
+
+	final List<EditFailure> failures = Collections
+			.synchronizedList(new ArrayList<>());
+
+	final AtomicLong completedEdits = new AtomicLong();
+	final AtomicLong skippedEdits = new AtomicLong();
+
+	final ExecutorService fetchExecutor;
+	final ExecutorService workerExecutor;
+	final ExecutorService senderExecutor;
+	final int senderThreads;
+
+	boolean closed = false;
+
+	/**
+	 * Creates a new queue that fetches documents with the fetcher of the
+	 * given editor, using one worker thread and one sender thread.
+	 *
+	 * @param editor
+	 *            the editor used to make edits
+	 */
+	public BulkEditQueue(WikibaseDataEditor editor) {
+		this(editor, editor.wikibaseDataFetcher, 1, 1);
+	}
+
+	/**
+	 * Creates a new queue.
+	 *
+	 * @param editor
+	 *            the editor used to make edits
+	 * @param fetcher
+	 *            the fetcher used to get the current documents; its filter
+	 *            can be used to avoid fetching data that is not needed for
+	 *            computing updates
+	 * @param workerThreads
+	 *            number of threads that compute updates
+	 * @param senderThreads
+	 *            number of threads that send edits; more than one thread is
+	 *            only useful if the allowed edit rate is faster than the time
+	 *            a single edit request takes
+	 */
+	public BulkEditQueue(WikibaseDataEditor editor,
+			WikibaseDataFetcher fetcher, int workerThreads, int senderThreads) {
+		if (workerThreads < 1 || senderThreads < 1) {
+			throw new IllegalArgumentException(
+					"At least one worker and one sender thread are needed.");
+		}
+		this.editor = editor;
+		this.fetcher = fetcher;
+		this.senderThreads = senderThreads;
+		this.maxPendingEdits = 2 * DEFAULT_BATCH_SIZE;
+		this.pendingPermits = new Semaphore(this.maxPendingEdits);
+		this.sendQueue = new LinkedBlockingQueue<>(DEFAULT_BATCH_SIZE);
+
+		this.fetchExecutor = Executors.newSingleThreadExecutor(
+				runnable -> newThread(runnable, "bulk-edit-fetcher"));
+		this.workerExecutor = Executors.newFixedThreadPool(workerThreads,
+				runnable -> newThread(runnable, "bulk-edit-worker"));
+		this.senderExecutor = Executors.newFixedThreadPool(senderThreads,
+				runnable -> newThread(runnable, "bulk-edit-sender"));
+
+		this.fetchExecutor.execute(this::runFetcher);
+		for (int i = 0; i < senderThreads; i++) {
+			this.senderExecutor.execute(this::runSender);
+		}
+	}
+
+	/**
+	 * Submits an edit that adds and deletes statements, in the same way as
+	 * {@link WikibaseDataEditor#updateStatements(StatementDocument, List, List, String)}.
+	 * The update is computed with respect to the current document when it
+	 * has been fetched.
+	 *
+	 * @param entityId
+	 *            id of the entity to edit
+	 * @param addStatements
+	 *            the list of statements to be added or updated
+	 * @param deleteStatements
+	 *            the list of statements to be deleted
+	 * @param summary
+	 *            short edit summary
+	 * @return future for the edited document
+	 */
+	public CompletableFuture<EntityDocument> submitStatementUpdate(
+			EntityIdValue entityId, List<Statement> addStatements,
+			List<Statement> deleteStatements, String summary) {
+		return submit(entityId, document -> new StatementUpdate(document,
+				addStatements, deleteStatements), summary);
+	}
+
+	/**
+	 * Submits an edit. The given function computes the update from the
+	 * current document of the entity; it is called on a worker thread and
+	 * therefore must be thread-safe. If the function returns null or an
+	 * update that does not change anything, no edit is made and the future
+	 * is completed with the current document. Otherwise, the future is
+	 * completed with the edited document that is returned by the API, or
+	 * with null if editing is disabled in the editor.
+	 * <p>
+	 * This method blocks if too many edits are waiting to be made.
+	 *
+	 * @param entityId
+	 *            id of the entity to edit
+	 * @param computation
+	 *            function that computes the update from the current document
+	 * @param summary
+	 *            short edit summary
+	 * @return future for the edited document
+	 */
+	public CompletableFuture<EntityDocument> submit(EntityIdValue entityId,
+			Function<StatementDocument, StatementUpdate> computation,
+			String summary) {
+		PendingEdit edit = new PendingEdit(entityId, computation, summary);
+		try {
+			this.pendingPermits.acquire();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			edit.future.completeExceptionally(e);
+			return edit.future;
+		}
+
+		PendingEdit previous;
+		synchronized (this) {
+			if (this.closed) {
+				this.pendingPermits.release();
+				throw new IllegalStateException("The edit queue is closed.");
+			}
+			previous = this.latestEdits.put(entityId.getId(), edit);
+		}
+		if (previous == null) {
+			this.fetchQueue.add(edit);
+		} else {
+			previous.future.whenComplete((document, exception) -> this.fetchQueue
+					.add(edit));
+		}
+		return edit.future;
+	}
+
+	/**
+	 * Returns the edits that failed so far.
+	 *
+	 * @return list of failures
+	 */
+	public List<EditFailure> getFailures() {
+		synchronized (this.failures) {
+			return new ArrayList<>(this.failures);
+		}
+	}
+
+	/**
+	 * Returns the number of edits that have been made so far.
+	 *
+	 * @return number of edits
+	 */
+	public long getCompletedEditCount() {
+		return this.completedEdits.get();
+	}
+
+	/**
+	 * Returns the number of submitted edits that did not need to be made,
+	 * since they would not have changed anything.
+	 *
+	 * @return number of skipped edits
+	 */
+	public long getSkippedEditCount() {
+		return this.skippedEdits.get();
+	}
+
+	/**
+	 * Returns the number of edits that have been submitted but not completed
+	 * yet.
+	 *
+	 * @return number of pending edits
+	 */
+	public int getPendingEditCount() {
+		return this.maxPendingEdits - this.pendingPermits.availablePermits();
+	}
+
+	/**
+	 * Waits until all submitted edits have been completed.
+	 *
+	 * @throws InterruptedException
+	 *             if the thread was interrupted while waiting
+	 */
+	public void awaitCompletion() throws InterruptedException {
+		this.pendingPermits.acquire(this.maxPendingEdits);
+		this.pendingPermits.release(this.maxPendingEdits);
+	}
+
+	/**
+	 * Waits until all submitted edits have been completed and stops the
+	 * threads of this queue. No edits can be submitted afterwards.
+	 */
+	@Override
+	public void close() {
+		synchronized (this) {
+			if (this.closed) {
+				return;
+			}
+			this.closed = true;
+		}
+		try {
+			awaitCompletion();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		this.fetchQueue.add(STOP);
+		for (int i = 0; i < this.senderThreads; i++) {
+			this.sendQueue.add(STOP);
+		}
+		this.fetchExecutor.shutdown();
+		this.workerExecutor.shutdown();
+		this.senderExecutor.shutdown();
+	}
+
+	/**
+	 * Collects edits into batches and fetches their current documents.
+	 */
+	void runFetcher() {
+		List<PendingEdit> batch = new ArrayList<>();
+		try {
+			while (true) {
+				PendingEdit edit = this.fetchQueue.take();
+				if (edit == STOP) {
+					return;
+				}
+				batch.add(edit);
+				long deadline = System.nanoTime()
+						+ TimeUnit.MILLISECONDS.toNanos(BATCH_DELAY);
+				while (batch.size() < DEFAULT_BATCH_SIZE) {
+					edit = this.fetchQueue.poll(deadline - System.nanoTime(),
+							TimeUnit.NANOSECONDS);
+					if (edit == null) {
+						break;
+					} else if (edit == STOP) {
+						this.fetchQueue.add(STOP);
+						break;
+					}
+					batch.add(edit);
+				}
+				fetchDocuments(batch);
+				batch.clear();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Fetches the current documents for the given edits and hands the edits
+	 * over to the workers.
+	 *
+	 * @param batch
+	 *            the edits to fetch documents for
+	 */
+	void fetchDocuments(List<PendingEdit> batch) {
+		Set<String> entityIds = new LinkedHashSet<>();
+		for (PendingEdit edit : batch) {
+			entityIds.add(edit.entityId.getId());
+		}
+
+		Map<String, EntityDocument> documents;
+		try {
+			documents = this.fetcher.getEntityDocuments(new ArrayList<>(
+					entityIds));
+		} catch (Exception e) {
+			for (PendingEdit edit : batch) {
+				fail(edit, e);
+			}
+			return;
+		}
+
+		for (PendingEdit edit : batch) {
+			EntityDocument document = documents.get(edit.entityId.getId());
+			if (document instanceof StatementDocument) {
+				edit.currentDocument = (StatementDocument) document;
+				this.workerExecutor.execute(() -> computeUpdate(edit));
+			} else {
+				fail(edit, new NoSuchEntityErrorException("Entity "
+						+ edit.entityId.getId() + " could not be fetched."));
+			}
+		}
+	}
+
+	/**
+	 * Computes the update for the given edit and puts it into the queue of
+	 * edits to be sent.
+	 *
+	 * @param edit
+	 *            the edit with its current document
+	 */
+	void computeUpdate(PendingEdit edit) {
+		try {
+			edit.update = edit.computation.apply(edit.currentDocument);
+		} catch (RuntimeException e) {
+			fail(edit, e);
+			return;
+		}
+
+		if (edit.update == null || edit.update.isEmptyEdit()) {
+			this.skippedEdits.incrementAndGet();
+			complete(edit, edit.currentDocument);
+			return;
+		}
+
+		try {
+			this.sendQueue.put(edit);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			fail(edit, e);
+		}
+	}
+
+	/**
+	 * Sends edits from the queue until it is told to stop.
+	 */
+	void runSender() {
+		try {
+			while (true) {
+				PendingEdit edit = this.sendQueue.take();
+				if (edit == STOP) {
+					return;
+				}
+				try {
+					EntityDocument result = this.editor.performUpdate(
+							edit.currentDocument, edit.update, edit.summary);
+					this.completedEdits.incrementAndGet();
+					complete(edit, result);
+				} catch (Exception e) {
+					fail(edit, e);
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	void complete(PendingEdit edit, EntityDocument result) {
+		edit.future.complete(result);
+		release(edit);
+	}
+
+	void fail(PendingEdit edit, Exception exception) {
+		logger.error("Could not edit " + edit.entityId.getId() + ": "
+				+ exception.toString());
+		this.failures.add(new EditFailure(edit.entityId, exception));
+		edit.future.completeExceptionally(exception);
+		release(edit);
+	}
+
+	/**
+	 * Releases the resources held by an edit that is done.
+	 *
+	 * @param edit
+	 *            the edit
+	 */
+	void release(PendingEdit edit) {
+		synchronized (this) {
+			this.latestEdits.remove(edit.entityId.getId(), edit);
+		}
+		this.pendingPermits.release();
+	}
+
+	static Thread newThread(Runnable runnable, String name) {
+		Thread thread = new Thread(runnable, name);
+		thread.setDaemon(true);
+		return thread;
+	}
+
+}
@@ -0,0 +1,379 @@
+package org.wikidata.wdtk.wikibaseapi;
+
+/*
+ * #%L
+ * Wikidata Toolkit Wikibase API
+ * %%
+ * Copyright (C) 2014 - 2015 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.wikidata.wdtk.datamodel.interfaces.EntityDocument;
+import org.wikidata.wdtk.wikibaseapi.apierrors.MediaWikiApiErrorException;
+import org.wikidata.wdtk.wikibaseapi.apierrors.NoSuchEntityErrorException;
+
+/**
+ * Fetcher for entity documents that merges lookups from many threads into
+ * few API requests. This is useful in services where many threads ask for
+ * single entities or small, overlapping sets of entities at the same time.
+ * <p>
+ * Two techniques are combined:
+ * <ul>
+ * <li>Lookups for an entity that is already being fetched do not cause
+ * another request, but share the result of the request that is in
+ * flight.</li>
+ * <li>Lookups that arrive within a short time window (see
+ * {@link #DEFAULT_BATCH_DELAY}) are collected and fetched together in
+ * requests of up to {@link #DEFAULT_BATCH_SIZE} entities. A batch is sent
+ * as soon as it is full.</li>
+ * </ul>
+ * Requests are made with the given {@link WikibaseDataFetcher}, so that its
+ * filter, cache, rate limiter and maximal number of concurrent requests
+ * apply.
+ * <p>
+ * The fetcher uses a timer thread to send batches after the delay. It
+ * should be closed when it is no longer needed, which sends the remaining
+ * lookups and stops the thread.
+ */
+public class CoalescingEntityFetcher implements AutoCloseable {
+
+	/**
+	 * Maximal number of entities fetched in one request.
+	 */
+	public static final int DEFAULT_BATCH_SIZE = 50;
+
+	/**
+	 * Default time in milliseconds that lookups wait for other lookups to
+	 * fill a batch.
+	 */
+	public static final long DEFAULT_BATCH_DELAY = 10;
+
+	final WikibaseDataFetcher fetcher;
+	final int batchSize;
+	final long batchDelay;
+
+	/**
+	 * Futures of all entities that are waiting to be fetched or are being
+	 * fetched, by entity id.
+	 */
+	final Map<String, CompletableFuture<EntityDocument>> inFlight = new HashMap<>();
+
+	/**
+	 * Ids of entities that have not been sent yet.
+	 */
+	List<String> pendingIds = new ArrayList<>();
+
+	/**
+	 * Scheduled sending of the pending batch, or null if nothing is
+	 * scheduled.
+	 */
+	ScheduledFuture<?> scheduledFlush = null;
+
+	/**
+	 * True if the fetcher has been closed. Lookups are then sent immediately.
+	 */
+	boolean closed = false;
+
+	final ScheduledExecutorService timer;
+
+	final AtomicLong lookups = new AtomicLong();
+	final AtomicLong coalescedLookups = new AtomicLong();
+	final AtomicLong batches = new AtomicLong();
+
+	/**
+	 * Creates a new fetcher with the default batch size and delay.
+	 *
+	 * @param fetcher
+	 *            the fetcher used to make requests
+	 */
+	public CoalescingEntityFetcher(WikibaseDataFetcher fetcher) {
+		this(fetcher, DEFAULT_BATCH_SIZE, DEFAULT_BATCH_DELAY);
+	}
+
+	/**
+	 * Creates a new fetcher.
+	 *
+	 * @param fetcher
+	 *            the fetcher used to make requests
+	 * @param batchSize
+	 *            maximal number of entities fetched in one request; larger
+	 *            values are reduced to the number of entities that the
+	 *            fetcher gets in one request, usually 50
+	 * @param batchDelay
+	 *            time in milliseconds that lookups wait for other lookups to
+	 *            fill a batch; if 0, lookups are sent immediately, but are
+	 *            still shared with other lookups for the same entity
+	 */
+	public CoalescingEntityFetcher(WikibaseDataFetcher fetcher, int batchSize,
+			long batchDelay) {
+		if (batchSize < 1) {
+			throw new IllegalArgumentException("Batch size must be positive.");
+		}
+		this.fetcher = fetcher;
+		// Larger batches would be split into requests on the executor of
+		// the fetcher, which could deadlock while batches wait on it.
+		this.batchSize = Math.min(batchSize, fetcher.maxListSize);
+		this.batchDelay = batchDelay;
+		this.timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "coalescing-entity-fetcher");
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	/**
+	 * Returns the number of entities that have been looked up.
+	 *
+	 * @return number of lookups
+	 */
+	public long getLookupCount() {
+		return this.lookups.get();
+	}
+
+	/**
+	 * Returns the number of lookups that did not cause a new fetch, since
+	 * the entity was already being fetched.
+	 *
+	 * @return number of shared lookups
+	 */
+	public long getCoalescedLookupCount() {
+		return this.coalescedLookups.get();
+	}
+
+	/**
+	 * Returns the number of batches that have been sent.
+	 *
+	 * @return number of batches
+	 */
+	public long getBatchCount() {
+		return this.batches.get();
+	}
+
+	/**
+	 * Fetches the document for the entity of the given string ID,
+	 * asynchronously. The future is completed with null if the entity does
+	 * not exist, or exceptionally with a {@link MediaWikiApiErrorException}
+	 * if the request failed.
+	 *
+	 * @param entityId
+	 *            string IDs (e.g., "P31" or "Q42") of requested entity
+	 * @return future for the document
+	 */
+	public CompletableFuture<EntityDocument> getEntityDocumentAsync(
+			String entityId) {
+		this.lookups.incrementAndGet();
+		List<String> batch = null;
+		CompletableFuture<EntityDocument> future;
+		synchronized (this) {
+			future = this.inFlight.get(entityId);
+			if (future != null) {
+				this.coalescedLookups.incrementAndGet();
+				return future;
+			}
+			future = new CompletableFuture<>();
+			this.inFlight.put(entityId, future);
+			this.pendingIds.add(entityId);
+			if (this.pendingIds.size() >= this.batchSize
+					|| this.batchDelay <= 0 || this.closed) {
+				batch = takePendingIds();
+			} else if (this.scheduledFlush == null) {
+				this.scheduledFlush = this.timer.schedule(this::flush,
+						this.batchDelay, TimeUnit.MILLISECONDS);
+			}
+		}
+		if (batch != null) {
+			sendBatch(batch);
+		}
+		return future;
+	}
+
+	/**
+	 * Fetches the document for the entity of the given string ID, waiting
+	 * for the result.
+	 *
+	 * @param entityId
+	 *            string IDs (e.g., "P31" or "Q42") of requested entity
+	 * @return retrieved entity document or null
+	 * @throws MediaWikiApiErrorException
+	 */
+	public EntityDocument getEntityDocument(String entityId)
+			throws MediaWikiApiErrorException {
+		return join(getEntityDocumentAsync(entityId));
+	}
+
+	/**
+	 * Fetches the documents for the entities of the given string IDs, waiting
+	 * for the result. The entities are fetched together with entities that
+	 * are requested by other threads at the same time.
+	 *
+	 * @param entityIds
+	 *            list of string IDs (e.g., "P31", "Q42") of requested entities
+	 * @return map from IDs for which data could be found to the documents
+	 * @throws MediaWikiApiErrorException
+	 */
+	public Map<String, EntityDocument> getEntityDocuments(
+			List<String> entityIds) throws MediaWikiApiErrorException {
+		Map<String, CompletableFuture<EntityDocument>> futures = new HashMap<>();
+		for (String entityId : entityIds) {
+			if (!futures.containsKey(entityId)) {
+				futures.put(entityId, getEntityDocumentAsync(entityId));
+			}
+		}
+		flush();
+
+		Map<String, EntityDocument> result = new HashMap<>();
+		for (Map.Entry<String, CompletableFuture<EntityDocument>> entry : futures
+				.entrySet()) {
+			EntityDocument document = join(entry.getValue());
+			if (document != null) {
+				result.put(entry.getKey(), document);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Sends all lookups that are waiting for their batch to fill up.
+	 */
+	public void flush() {
+		List<String> batch;
+		synchronized (this) {
+			if (this.pendingIds.isEmpty()) {
+				return;
+			}
+			batch = takePendingIds();
+		}
+		sendBatch(batch);
+	}
+
+	/**
+	 * Sends all lookups that are waiting for their batch to fill up and stops
+	 * the timer thread. Lookups made after closing the fetcher are sent
+	 * without waiting for other lookups.
+	 */
+	@Override
+	public void close() {
+		synchronized (this) {
+			this.closed = true;
+		}
+		flush();
+		this.timer.shutdown();
+	}
+
+	/**
+	 * Removes and returns the pending ids. Must be called while holding the
+	 * lock of this object.
+	 *
+	 * @return list of pending ids
+	 */
+	List<String> takePendingIds() {
+		List<String> batch = this.pendingIds;
+		this.pendingIds = new ArrayList<>();
+		if (this.scheduledFlush != null) {
+			this.scheduledFlush.cancel(false);
+			this.scheduledFlush = null;
+		}
+		return batch;
+	}
+
+	/**
+	 * Fetches the given entities with the executor of the fetcher and
+	 * completes their futures.
+	 *
+	 * @param batch
+	 *            ids of the entities to fetch
+	 */
+	void sendBatch(List<String> batch) {
+		this.batches.incrementAndGet();
+		this.fetcher.getExecutor().execute(() -> {
+			Map<String, EntityDocument> documents;
+			try {
+				documents = fetchBatch(batch);
+			} catch (MediaWikiApiErrorException | RuntimeException e) {
+				for (CompletableFuture<EntityDocument> future : removeInFlight(batch)
+						.values()) {
+					future.completeExceptionally(e);
+				}
+				return;
+			}
+			for (Map.Entry<String, CompletableFuture<EntityDocument>> entry : removeInFlight(
+					batch).entrySet()) {
+				entry.getValue().complete(documents.get(entry.getKey()));
+			}
+		});
+	}
+
+	/**
+	 * Fetches the documents of the given entities. If the site reports that
+	 * one of the entities does not exist, the entities are fetched one by one
+	 * instead, so that one bad id does not spoil the lookups of other
+	 * threads.
+	 *
+	 * @param batch
+	 *            ids of the entities to fetch
+	 * @return map from IDs for which data could be found to the documents
+	 * @throws MediaWikiApiErrorException
+	 */
+	Map<String, EntityDocument> fetchBatch(List<String> batch)
+			throws MediaWikiApiErrorException {
+		try {
+			return this.fetcher.getEntityDocuments(batch);
+		} catch (NoSuchEntityErrorException e) {
+			if (batch.size() == 1) {
+				return Collections.emptyMap();
+			}
+		}
+		Map<String, EntityDocument> result = new HashMap<>();
+		for (String entityId : batch) {
+			result.putAll(fetchBatch(Collections.singletonList(entityId)));
+		}
+		return result;
+	}
+
+	synchronized Map<String, CompletableFuture<EntityDocument>> removeInFlight(
+			List<String> batch) {
+		Map<String, CompletableFuture<EntityDocument>> result = new HashMap<>();
+		for (String entityId : batch) {
+			result.put(entityId, this.inFlight.remove(entityId));
+		}
+		return result;
+	}
+
+	static EntityDocument join(CompletableFuture<EntityDocument> future)
+			throws MediaWikiApiErrorException {
+		try {
+			return future.join();
+		} catch (CompletionException e) {
+			if (e.getCause() instanceof MediaWikiApiErrorException) {
+				throw (MediaWikiApiErrorException) e.getCause();
+			}
+			throw e;
+		}
+	}
+
+}
@@ -0,0 +1,299 @@
+package org.wikidata.wdtk.wikibaseapi;
+
+/*
+ * #%L
+ * Wikidata Toolkit Wikibase API
+ * %%
+ * Copyright (C) 2014 - 2015 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Schedules edits so that the combined editing speed of all editors that use
+ * the scheduler stays within a given limit. The scheduler works like a token
+ * bucket: on average, one edit can be made per configured time interval, but
+ * short bursts of several edits are allowed.
+ * <p>
+ * The rate adapts to the load of the site. When an edit fails because of
+ * replication lag or because the server asked clients to retry later, the
+ * rate is halved and all edits are paused for a while. The pause grows
+ * exponentially with the number of consecutive failures, and a random
+ * jitter is added so that several clients do not retry at the same moment.
+ * Each successful edit brings the rate closer to the configured maximum
+ * again.
+ * <p>
+ * By default, all editors that edit through the same API share one
+ * scheduler, see {@link #getSharedScheduler(String)}, so that all bots in
+ * one JVM pause when the site reports lag. The shared scheduler does not
+ * limit the combined speed of editing unless an average time per edit is
+ * set for it. The scheduler is safe to use from several threads.
+ */
+public class EditScheduler {
+
+	/**
+	 * Default average time per edit in milliseconds.
+	 */
+	public static final int DEFAULT_MSECS_PER_EDIT = 2000;
+
+	/**
+	 * Default number of edits that can be made in a burst. Wikidata.org seems
+	 * to block fast editors after 9 edits, so this size seems to make sense.
+	 */
+	public static final int DEFAULT_BURST_SIZE = 9;
+
+	/**
+	 * Longest pause after repeated lag reports, in milliseconds.
+	 */
+	static final long MAX_BACKOFF_MSECS = 300000;
+
+	/**
+	 * Factor by which the time per edit can at most grow due to lag.
+	 */
+	static final int MAX_SLOWDOWN = 16;
+
+	static final Map<String, EditScheduler> sharedSchedulers = new ConcurrentHashMap<>();
+
+	/**
+	 * Configured time between two edits in nanoseconds.
+	 */
+	long baseIntervalNanos;
+
+	/**
+	 * Current time between two edits in nanoseconds, adapted to the lag of
+	 * the site.
+	 */
+	long intervalNanos;
+
+	/**
+	 * Number of edits that can be made in a burst.
+	 */
+	final int burstSize;
+
+	/**
+	 * Time (as given by {@link System#nanoTime()}) at which the next edit
+	 * would be due if edits were made at the current rate without bursts.
+	 */
+	long nextEditTime;
+
+	/**
+	 * Time before which no edit will be started.
+	 */
+	long pausedUntil;
+
+	int consecutiveLagReports = 0;
+	double lastLag = -1;
+	long editCount = 0;
+	long lagReportCount = 0;
+
+	final AtomicInteger queuedEdits = new AtomicInteger();
+
+	/**
+	 * Returns the scheduler that is shared by all editors for the API at the
+	 * given URL. It is created when it is first requested, without a limit
+	 * on the speed of editing, so that it only pauses editing when lag is
+	 * reported. A limit can be set with {@link #setAverageTimePerEdit(int)}.
+	 *
+	 * @param apiBaseUrl
+	 *            URL of the API, see {@link ApiConnection}
+	 * @return the shared scheduler
+	 */
+	public static EditScheduler getSharedScheduler(String apiBaseUrl) {
+		return sharedSchedulers.computeIfAbsent(apiBaseUrl,
+				url -> new EditScheduler(0, DEFAULT_BURST_SIZE));
+	}
+
+	/**
+	 * Creates a new scheduler.
+	 *
+	 * @param averageMsecsPerEdit
+	 *            average time per edit in milliseconds; if zero or negative,
+	 *            edits are only delayed after lag was reported
+	 * @param burstSize
+	 *            number of edits that can be made without delay after a
+	 *            period without edits
+	 */
+	public EditScheduler(int averageMsecsPerEdit, int burstSize) {
+		if (burstSize < 1) {
+			throw new IllegalArgumentException(
+					"Burst size must be at least 1.");
+		}
+		this.burstSize = burstSize;
+		this.baseIntervalNanos = Math.max(0, averageMsecsPerEdit) * 1000000L;
+		this.intervalNanos = this.baseIntervalNanos;
+		this.nextEditTime = System.nanoTime();
+		this.pausedUntil = this.nextEditTime;
+	}
+
+	/**
+	 * Returns the average time per edit that the scheduler aims at if there
+	 * is no lag.
+	 *
+	 * @return average time per edit in milliseconds
+	 */
+	public synchronized int getAverageTimePerEdit() {
+		return (int) (this.baseIntervalNanos / 1000000);
+	}
+
+	/**
+	 * Sets the average time per edit that the scheduler aims at if there is
+	 * no lag. This affects all editors that use this scheduler.
+	 *
+	 * @param milliseconds
+	 *            average time per edit in milliseconds; if zero or negative,
+	 *            edits are only delayed after lag was reported
+	 */
+	public synchronized void setAverageTimePerEdit(int milliseconds) {
+		this.baseIntervalNanos = Math.max(0, milliseconds) * 1000000L;
+		this.intervalNanos = this.baseIntervalNanos;
+	}
+
+	/**
+	 * Waits until the next edit may be made. The time slot for the edit is
+	 * reserved immediately, so that concurrent callers are served in the
+	 * order in which they arrive.
+	 */
+	public void acquire() {
+		long waitNanos;
+		synchronized (this) {
+			long now = System.nanoTime();
+			long burstTolerance = (this.burstSize - 1) * this.intervalNanos;
+			long start = this.nextEditTime - burstTolerance;
+			if (start - now < 0) {
+				start = now;
+			}
+			if (start - this.pausedUntil < 0) {
+				start = this.pausedUntil;
+			}
+			this.nextEditTime = (this.nextEditTime - start > 0 ? this.nextEditTime
+					: start) + this.intervalNanos;
+			this.editCount++;
+			waitNanos = start - now;
+		}
+		if (waitNanos > 0) {
+			this.queuedEdits.incrementAndGet();
+			try {
+				Thread.sleep(waitNanos / 1000000, (int) (waitNanos % 1000000));
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			} finally {
+				this.queuedEdits.decrementAndGet();
+			}
+		}
+	}
+
+	/**
+	 * Reports that an edit was successful. This speeds up editing again if
+	 * it was slowed down due to lag.
+	 */
+	public synchronized void reportSuccess() {
+		this.consecutiveLagReports = 0;
+		if (this.intervalNanos > this.baseIntervalNanos) {
+			this.intervalNanos = Math.max(this.baseIntervalNanos,
+					this.intervalNanos - this.intervalNanos / 8);
+		}
+	}
+
+	/**
+	 * Reports that an edit failed since the site is lagging or busy. Editing
+	 * is slowed down, and all edits are paused for a time that grows
+	 * exponentially with the number of consecutive reports.
+	 *
+	 * @param lag
+	 *            the lag reported by the site in seconds, or a negative value
+	 *            if unknown
+	 * @param minDelayMillis
+	 *            the minimal time to pause in milliseconds, e.g., as requested
+	 *            by the server
+	 * @return the time in milliseconds for which edits are paused
+	 */
+	public synchronized long reportLag(double lag, long minDelayMillis) {
+		this.lagReportCount++;
+		if (lag >= 0) {
+			this.lastLag = lag;
+		}
+		this.intervalNanos = Math.min(this.baseIntervalNanos * MAX_SLOWDOWN,
+				this.intervalNanos * 2);
+
+		long delay = Math.min(MAX_BACKOFF_MSECS, Math.max(0, minDelayMillis));
+		delay = Math.min(MAX_BACKOFF_MSECS,
+				delay << Math.min(this.consecutiveLagReports, 10));
+		this.consecutiveLagReports++;
+		if (delay > 0) {
+			delay += ThreadLocalRandom.current().nextLong(delay / 2 + 1);
+		}
+
+		long resumeTime = System.nanoTime() + delay * 1000000;
+		if (resumeTime - this.pausedUntil > 0) {
+			this.pausedUntil = resumeTime;
+		}
+		return delay;
+	}
+
+	/**
+	 * Returns the number of edits that are currently waiting to be made.
+	 *
+	 * @return number of waiting edits
+	 */
+	public int getQueuedEdits() {
+		return this.queuedEdits.get();
+	}
+
+	/**
+	 * Returns the current number of edits per second, taking lag into
+	 * account. Bursts of edits can be faster.
+	 *
+	 * @return edits per second, or {@link Double#POSITIVE_INFINITY} if
+	 *         editing is not limited
+	 */
+	public synchronized double getCurrentRate() {
+		if (this.intervalNanos == 0) {
+			return Double.POSITIVE_INFINITY;
+		}
+		return 1000000000.0 / this.intervalNanos;
+	}
+
+	/**
+	 * Returns the most recent lag reported by the site.
+	 *
+	 * @return lag in seconds, or -1 if no lag was reported yet
+	 */
+	public synchronized double getLastLag() {
+		return this.lastLag;
+	}
+
+	/**
+	 * Returns the number of edits that have been scheduled so far.
+	 *
+	 * @return number of edits
+	 */
+	public synchronized long getEditCount() {
+		return this.editCount;
+	}
+
+	/**
+	 * Returns the number of times that lag has been reported so far.
+	 *
+	 * @return number of lag reports
+	 */
+	public synchronized long getLagReportCount() {
+		return this.lagReportCount;
+	}
+
+}
@@ -0,0 +1,527 @@
+package org.wikidata.wdtk.wikibaseapi;
+
+/*
+ * #%L
+ * Wikidata Toolkit Wikibase API
+ * %%
+ * Copyright (C) 2014 - 2015 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.wikidata.wdtk.datamodel.helpers.DatamodelConverter;
+import org.wikidata.wdtk.datamodel.helpers.DatamodelMapper;
+import org.wikidata.wdtk.datamodel.implementation.DataObjectFactoryImpl;
+import org.wikidata.wdtk.datamodel.implementation.TermedStatementDocumentImpl;
+import org.wikidata.wdtk.datamodel.interfaces.DocumentDataFilter;
+import org.wikidata.wdtk.datamodel.interfaces.EntityDocument;
+import org.wikidata.wdtk.datamodel.interfaces.EntityDocumentProcessor;
+import org.wikidata.wdtk.datamodel.interfaces.ItemDocument;
+import org.wikidata.wdtk.datamodel.interfaces.PropertyDocument;
+import org.wikidata.wdtk.datamodel.interfaces.PropertyIdValue;
+import org.wikidata.wdtk.util.CompressionType;
+import org.wikidata.wdtk.util.DirectoryManager;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Cache for entity documents fetched by a {@link WikibaseDataFetcher}, see
+ * {@link WikibaseDataFetcher#setCache(EntityDocumentCache)}. The cache keeps
+ * a bounded number of recently used documents in memory. Optionally, all
+ * documents are also stored on disk, so that they can be reused after a
+ * restart.
+ * <p>
+ * Documents are cached together with their revision id. Documents that have
+ * been checked against the site more than {@link #getMaxAge()} milliseconds
+ * ago, and all documents that are read from disk, are revalidated before
+ * use. Revalidation only needs the current revision ids, which the fetcher
+ * requests for many entities at once without fetching their content.
+ * Documents that have changed are fetched again.
+ * <p>
+ * Entries are stored separately for each {@link DocumentDataFilter}, so that
+ * filtered and unfiltered documents do not get mixed up. The cache is also an
+ * {@link EntityDocumentProcessor}: when it processes a (more recent) dump,
+ * cached documents are replaced by the newer versions found in the dump,
+ * filtered as needed.
+ */
+public class EntityDocumentCache implements EntityDocumentProcessor {
+
+	static final Logger logger = LoggerFactory
+			.getLogger(EntityDocumentCache.class);
+
+	/**
+	 * Default number of documents kept in memory.
+	 */
+	public static final int DEFAULT_MAX_ENTRIES = 10000;
+
+	/**
+	 * Default time in milliseconds after which documents are revalidated.
+	 */
+	public static final long DEFAULT_MAX_AGE = 60000;
+
+	/**
+	 * Cached document with the time of its last validation.
+	 */
+	static class Entry {
+		final EntityDocument document;
+		long validationTime;
+
+		Entry(EntityDocument document, long validationTime) {
+			this.document = document;
+			this.validationTime = validationTime;
+		}
+	}
+
+	/**
+	 * Documents in memory, by filter key and entity id, in access order.
+	 */
+	final LinkedHashMap<String, Entry> entries;
+
+	/**
+	 * Filters for which documents have been cached, by filter key.
+	 */
+	final Map<String, DocumentDataFilter> filters = new HashMap<>();
+
+	final int maxEntries;
+	final DirectoryManager directoryManager;
+	final ObjectMapper mapper;
+
+	long maxAge = DEFAULT_MAX_AGE;
+
+	final AtomicLong hits = new AtomicLong();
+	final AtomicLong diskHits = new AtomicLong();
+	final AtomicLong misses = new AtomicLong();
+	final AtomicLong revalidations = new AtomicLong();
+	final AtomicLong staleEntries = new AtomicLong();
+
+	/**
+	 * Creates a cache that only keeps documents in memory, using the default
+	 * size.
+	 *
+	 * @param siteIri
+	 *            the IRI that identifies the site that the data is from, as
+	 *            used by the fetcher
+	 */
+	public EntityDocumentCache(String siteIri) {
+		this(siteIri, DEFAULT_MAX_ENTRIES, null);
+	}
+
+	/**
+	 * Creates a cache.
+	 *
+	 * @param siteIri
+	 *            the IRI that identifies the site that the data is from, as
+	 *            used by the fetcher
+	 * @param maxEntries
+	 *            maximal number of documents kept in memory
+	 * @param directoryManager
+	 *            manager for the directory where documents are stored on
+	 *            disk, or null if documents should only be kept in memory
+	 */
+	public EntityDocumentCache(String siteIri, int maxEntries,
+			DirectoryManager directoryManager) {
+		this.maxEntries = maxEntries;
+		this.directoryManager = directoryManager;
+		this.mapper = new DatamodelMapper(siteIri);
+		this.entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+				return size() > EntityDocumentCache.this.maxEntries;
+			}
+		};
+	}
+
+	/**
+	 * Returns the time after which cached documents are revalidated.
+	 *
+	 * @return time in milliseconds, or a negative value if documents are
+	 *         never revalidated
+	 */
+	public long getMaxAge() {
+		return this.maxAge;
+	}
+
+	/**
+	 * Sets the time after which cached documents are revalidated. If set to
+	 * 0, documents are revalidated whenever they are requested; if negative,
+	 * documents in memory are never revalidated.
+	 *
+	 * @param maxAge
+	 *            time in milliseconds
+	 */
+	public void setMaxAge(long maxAge) {
+		this.maxAge = maxAge;
+	}
+
+	/**
+	 * Returns the number of requests that were answered from memory.
+	 *
+	 * @return number of hits
+	 */
+	public long getHitCount() {
+		return this.hits.get();
+	}
+
+	/**
+	 * Returns the number of requests that were answered from disk.
+	 *
+	 * @return number of disk hits
+	 */
+	public long getDiskHitCount() {
+		return this.diskHits.get();
+	}
+
+	/**
+	 * Returns the number of requests for documents that were not cached.
+	 *
+	 * @return number of misses
+	 */
+	public long getMissCount() {
+		return this.misses.get();
+	}
+
+	/**
+	 * Returns the number of cached documents that were found to be current
+	 * when revalidating them.
+	 *
+	 * @return number of successful revalidations
+	 */
+	public long getRevalidationCount() {
+		return this.revalidations.get();
+	}
+
+	/**
+	 * Returns the number of cached documents that were found to be outdated
+	 * when revalidating them.
+	 *
+	 * @return number of outdated documents
+	 */
+	public long getStaleCount() {
+		return this.staleEntries.get();
+	}
+
+	/**
+	 * Returns the number of documents in memory.
+	 *
+	 * @return number of documents
+	 */
+	public synchronized int size() {
+		return this.entries.size();
+	}
+
+	/**
+	 * Removes all documents from memory. Documents on disk are kept, but
+	 * they are revalidated before use.
+	 */
+	public synchronized void clear() {
+		this.entries.clear();
+	}
+
+	/**
+	 * Removes all documents for the given entity from memory, e.g., since it
+	 * is known to have changed. Documents on disk are kept, but they are
+	 * revalidated before use.
+	 *
+	 * @param entityId
+	 *            the id of the entity
+	 */
+	public synchronized void invalidate(String entityId) {
+		for (String filterKey : this.filters.keySet()) {
+			this.entries.remove(filterKey + "/" + entityId);
+		}
+	}
+
+	@Override
+	public void processItemDocument(ItemDocument itemDocument) {
+		refresh(itemDocument);
+	}
+
+	@Override
+	public void processPropertyDocument(PropertyDocument propertyDocument) {
+		refresh(propertyDocument);
+	}
+
+	/**
+	 * Replaces cached versions of the given document if they are older. The
+	 * document must be complete, i.e., not filtered; filtered copies are
+	 * created as needed.
+	 *
+	 * @param document
+	 *            the current document of an entity
+	 */
+	public void refresh(EntityDocument document) {
+		String entityId = document.getEntityId().getId();
+		Map<String, DocumentDataFilter> currentFilters;
+		synchronized (this) {
+			currentFilters = new HashMap<>(this.filters);
+		}
+		for (Map.Entry<String, DocumentDataFilter> filter : currentFilters
+				.entrySet()) {
+			String filterKey = filter.getKey();
+			Entry entry;
+			synchronized (this) {
+				entry = this.entries.get(filterKey + "/" + entityId);
+			}
+			if (entry == null && !hasDiskEntry(filterKey, entityId)) {
+				continue;
+			}
+			if (entry != null
+					&& entry.document.getRevisionId() >= document
+							.getRevisionId()) {
+				continue;
+			}
+			// the dump may be older than the site: revalidate before use
+			store(filterKey, applyFilter(document, filter.getValue()), 0);
+		}
+	}
+
+	/**
+	 * Returns a string that identifies the given filter settings. Filters
+	 * with the same settings have the same key.
+	 *
+	 * @param filter
+	 *            the filter
+	 * @return key of the filter
+	 */
+	static String getFilterKey(DocumentDataFilter filter) {
+		StringBuilder builder = new StringBuilder();
+		appendFilterSet(builder, "languages", filter.getLanguageFilter());
+		Set<String> propertyIds = null;
+		if (filter.getPropertyFilter() != null) {
+			propertyIds = new TreeSet<>();
+			for (PropertyIdValue propertyIdValue : filter.getPropertyFilter()) {
+				propertyIds.add(propertyIdValue.getId());
+			}
+		}
+		appendFilterSet(builder, "properties", propertyIds);
+		appendFilterSet(builder, "sitelinks", filter.getSiteLinkFilter());
+
+		try {
+			MessageDigest md = MessageDigest.getInstance("MD5");
+			byte[] digest = md.digest(builder.toString().getBytes(
+					StandardCharsets.UTF_8));
+			StringBuilder key = new StringBuilder();
+			for (int i = 0; i < 8; i++) {
+				key.append(String.format("%02x", digest[i]));
+			}
+			return key.toString();
+		} catch (NoSuchAlgorithmException e) {
+			throw new RuntimeException(
+					"Your Java does not support MD5 hashes. You should be concerned.");
+		}
+	}
+
+	static void appendFilterSet(StringBuilder builder, String name,
+			Set<String> values) {
+		builder.append(name).append(':');
+		if (values == null) {
+			builder.append('*');
+		} else {
+			builder.append(String.join(",", new TreeSet<>(values)));
+		}
+		builder.append(';');
+	}
+
+	/**
+	 * Returns the cached entry for the given entity, looking in memory first
+	 * and on disk second.
+	 *
+	 * @param filterKey
+	 *            the key of the filter used for fetching
+	 * @param entityId
+	 *            the id of the entity
+	 * @return the entry, or null if the entity is not cached
+	 */
+	Entry lookup(String filterKey, String entityId) {
+		Entry entry;
+		synchronized (this) {
+			entry = this.entries.get(filterKey + "/" + entityId);
+		}
+		if (entry != null) {
+			this.hits.incrementAndGet();
+			return entry;
+		}
+
+		EntityDocument document = readDiskEntry(filterKey, entityId);
+		if (document != null) {
+			this.diskHits.incrementAndGet();
+			entry = new Entry(document, 0);
+			synchronized (this) {
+				this.entries.put(filterKey + "/" + entityId, entry);
+			}
+			return entry;
+		}
+
+		this.misses.incrementAndGet();
+		return null;
+	}
+
+	/**
+	 * Returns true if the given entry has been validated recently enough.
+	 *
+	 * @param entry
+	 *            the entry
+	 * @return true if the entry can be used without revalidation
+	 */
+	boolean isFresh(Entry entry) {
+		if (this.maxAge < 0) {
+			return entry.validationTime > 0;
+		}
+		return System.currentTimeMillis() - entry.validationTime < this.maxAge;
+	}
+
+	/**
+	 * Records that the given entry has been found to be current.
+	 *
+	 * @param entry
+	 *            the entry
+	 */
+	void markValidated(Entry entry) {
+		this.revalidations.incrementAndGet();
+		synchronized (this) {
+			entry.validationTime = System.currentTimeMillis();
+		}
+	}
+
+	/**
+	 * Records that the given entry has been found to be outdated.
+	 */
+	void markStale() {
+		this.staleEntries.incrementAndGet();
+	}
+
+	/**
+	 * Adds a document that has just been fetched to the cache.
+	 *
+	 * @param filter
+	 *            the filter that was used for fetching the document
+	 * @param document
+	 *            the document
+	 */
+	void put(DocumentDataFilter filter, EntityDocument document) {
+		String filterKey = getFilterKey(filter);
+		synchronized (this) {
+			if (!this.filters.containsKey(filterKey)) {
+				this.filters.put(filterKey, copyFilter(filter));
+			}
+		}
+		store(filterKey, document, System.currentTimeMillis());
+	}
+
+	void store(String filterKey, EntityDocument document, long validationTime) {
+		String entityId = document.getEntityId().getId();
+		synchronized (this) {
+			this.entries.put(filterKey + "/" + entityId, new Entry(document,
+					validationTime));
+		}
+		writeDiskEntry(filterKey, document);
+	}
+
+	boolean hasDiskEntry(String filterKey, String entityId) {
+		if (this.directoryManager == null
+				|| !this.directoryManager.hasSubdirectory(filterKey)) {
+			return false;
+		}
+		try {
+			return this.directoryManager.getSubdirectoryManager(filterKey)
+					.hasFile(getFileName(entityId));
+		} catch (IOException e) {
+			return false;
+		}
+	}
+
+	EntityDocument readDiskEntry(String filterKey, String entityId) {
+		if (!hasDiskEntry(filterKey, entityId)) {
+			return null;
+		}
+		try (InputStream in = this.directoryManager.getSubdirectoryManager(
+				filterKey).getInputStreamForFile(getFileName(entityId),
+				CompressionType.NONE)) {
+			return this.mapper.readValue(in, TermedStatementDocumentImpl.class);
+		} catch (IOException e) {
+			logger.warn("Could not read cached document for " + entityId
+					+ ": " + e.toString());
+			return null;
+		}
+	}
+
+	void writeDiskEntry(String filterKey, EntityDocument document) {
+		if (this.directoryManager == null) {
+			return;
+		}
+		String entityId = document.getEntityId().getId();
+		try (OutputStream out = this.directoryManager.getSubdirectoryManager(
+				filterKey).getOutputStreamForFile(getFileName(entityId))) {
+			this.mapper.writeValue(out, document);
+		} catch (IOException e) {
+			logger.warn("Could not write cached document for " + entityId
+					+ ": " + e.toString());
+		}
+	}
+
+	static String getFileName(String entityId) {
+		return entityId + ".json";
+	}
+
+	static DocumentDataFilter copyFilter(DocumentDataFilter filter) {
+		DocumentDataFilter result = new DocumentDataFilter();
+		if (filter.getLanguageFilter() != null) {
+			result.setLanguageFilter(new HashSet<>(filter.getLanguageFilter()));
+		}
+		if (filter.getPropertyFilter() != null) {
+			result.setPropertyFilter(new HashSet<>(filter.getPropertyFilter()));
+		}
+		if (filter.getSiteLinkFilter() != null) {
+			result.setSiteLinkFilter(new HashSet<>(filter.getSiteLinkFilter()));
+		}
+		return result;
+	}
+
+	static EntityDocument applyFilter(EntityDocument document,
+			DocumentDataFilter filter) {
+		if (filter.getLanguageFilter() == null
+				&& filter.getPropertyFilter() == null
+				&& filter.getSiteLinkFilter() == null) {
+			return document;
+		}
+		DatamodelConverter converter = new DatamodelConverter(
+				new DataObjectFactoryImpl());
+		converter.setOptionFilter(filter);
+		if (document instanceof ItemDocument) {
+			return converter.copy((ItemDocument) document);
+		} else if (document instanceof PropertyDocument) {
+			return converter.copy((PropertyDocument) document);
+		}
+		return document;
+	}
+
+}
@@ -0,0 +1,117 @@
+package org.wikidata.wdtk.wikibaseapi;
+
+/*
+ * #%L
+ * Wikidata Toolkit Wikibase API
+ * %%
+ * Copyright (C) 2014 - 2015 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Interface for classes that send HTTP requests on behalf of an
+ * {@link ApiConnection}. The API connection builds the request (including
+ * cookies) and processes the response headers, so that implementations only
+ * need to care about moving bytes. This makes it possible to use other HTTP
+ * clients, e.g., clients that support HTTP/2 or that are configured for a
+ * specific environment. The default implementation is
+ * {@link UrlConnectionHttpTransport}.
+ * <p>
+ * Implementations must be safe for use by several threads at once.
+ */
+public interface HttpTransport {
+
+	/**
+	 * Response to an HTTP request.
+	 */
+	final class Response {
+
+		final int statusCode;
+		final Map<String, List<String>> headers;
+		final InputStream body;
+
+		/**
+		 * Constructor.
+		 *
+		 * @param statusCode
+		 *            the HTTP status code
+		 * @param headers
+		 *            the response header fields
+		 * @param body
+		 *            the (decompressed) response body
+		 */
+		public Response(int statusCode, Map<String, List<String>> headers,
+				InputStream body) {
+			this.statusCode = statusCode;
+			this.headers = headers;
+			this.body = body;
+		}
+
+		/**
+		 * Returns the HTTP status code of the response.
+		 *
+		 * @return status code
+		 */
+		public int getStatusCode() {
+			return this.statusCode;
+		}
+
+		/**
+		 * Returns the header fields of the response.
+		 *
+		 * @return map from header names to values
+		 */
+		public Map<String, List<String>> getHeaders() {
+			return this.headers;
+		}
+
+		/**
+		 * Returns the body of the response. Any content encoding used for
+		 * transfer, such as gzip, has already been removed. The stream should
+		 * be closed after use, so that the underlying connection can be
+		 * reused.
+		 *
+		 * @return stream of the response body
+		 */
+		public InputStream getBody() {
+			return this.body;
+		}
+	}
+
+	/**
+	 * Sends a request with the given body to the given URL.
+	 *
+	 * @param url
+	 *            the URL to send the request to
+	 * @param requestMethod
+	 *            either "POST" or "GET"
+	 * @param headers
+	 *            request header fields to set
+	 * @param body
+	 *            the request body
+	 * @return the response, also if it has an error status code
+	 * @throws IOException
+	 *             if the request could not be sent or the response could not
+	 *             be received
+	 */
+	Response sendRequest(String url, String requestMethod,
+			Map<String, String> headers, byte[] body) throws IOException;
+
+}
@@ -0,0 +1,105 @@
+package org.wikidata.wdtk.wikibaseapi;
+
+/*
+ * #%L
+ * Wikidata Toolkit Wikibase API
+ * %%
+ * Copyright (C) 2014 - 2015 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+/**
+ * Limits the rate at which requests are sent to a Web API. A limiter can be
+ * shared by several objects and threads, so that the combined request rate
+ * stays below the limit. Besides keeping a minimal interval between requests,
+ * the limiter can be paused, e.g., when the server reports a maxlag error, so
+ * that all threads that use it back off together.
+ */
+public class RequestRateLimiter {
+
+	/**
+	 * Minimal time between two requests in nanoseconds.
+	 */
+	final long minIntervalNanos;
+
+	/**
+	 * Time in nanoseconds (as given by {@link System#nanoTime()}) at which the
+	 * next request may be sent.
+	 */
+	long nextRequestTime;
+
+	/**
+	 * Creates a new limiter.
+	 *
+	 * @param maxRequestsPerSecond
+	 *            maximal number of requests per second; if zero or negative,
+	 *            requests are only delayed when the limiter is paused
+	 */
+	public RequestRateLimiter(double maxRequestsPerSecond) {
+		if (maxRequestsPerSecond > 0) {
+			this.minIntervalNanos = (long) (1000000000 / maxRequestsPerSecond);
+		} else {
+			this.minIntervalNanos = 0;
+		}
+		this.nextRequestTime = System.nanoTime();
+	}
+
+	/**
+	 * Waits until the next request may be sent. The time slot for this
+	 * request is reserved immediately, so that concurrent callers are served
+	 * one after the other.
+	 */
+	public void acquire() {
+		long waitNanos;
+		synchronized (this) {
+			long now = System.nanoTime();
+			long start = (now - this.nextRequestTime > 0) ? now
+					: this.nextRequestTime;
+			this.nextRequestTime = start + this.minIntervalNanos;
+			waitNanos = start - now;
+		}
+		if (waitNanos > 0) {
+			try {
+				Thread.sleep(waitNanos / 1000000, (int) (waitNanos % 1000000));
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	/**
+	 * Delays all requests that have not been started yet until the given time
+	 * has passed.
+	 *
+	 * @param milliseconds
+	 *            time to pause in milliseconds
+	 */
+	public synchronized void pause(long milliseconds) {
+		long resumeTime = System.nanoTime() + milliseconds * 1000000;
+		if (resumeTime - this.nextRequestTime > 0) {
+			this.nextRequestTime = resumeTime;
+		}
+	}
+
+	/**
+	 * Returns the minimal time between two requests.
+	 *
+	 * @return interval in nanoseconds
+	 */
+	public long getMinIntervalNanos() {
+		return this.minIntervalNanos;
+	}
+
+}
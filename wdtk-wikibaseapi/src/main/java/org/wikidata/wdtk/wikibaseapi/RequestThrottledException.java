@@ -0,0 +1,74 @@
+package org.wikidata.wdtk.wikibaseapi;
+
+/*
+ * #%L
+ * Wikidata Toolkit Wikibase API
+ * %%
+ * Copyright (C) 2014 - 2015 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.io.IOException;
+
+/**
+ * Exception to indicate that the server did not process a request since it
+ * is overloaded or since the client sent too many requests (HTTP status 503
+ * or 429). The server may specify how long clients should wait before
+ * retrying.
+ */
+public class RequestThrottledException extends IOException {
+
+	private static final long serialVersionUID = -3640839404839251442L;
+
+	final int statusCode;
+	final long retryAfter;
+
+	/**
+	 * Creates a new exception.
+	 *
+	 * @param statusCode
+	 *            the HTTP status code of the response
+	 * @param retryAfter
+	 *            time in milliseconds that the client should wait before
+	 *            retrying, or -1 if not specified by the server
+	 * @param message
+	 *            message describing the error
+	 */
+	public RequestThrottledException(int statusCode, long retryAfter,
+			String message) {
+		super(message);
+		this.statusCode = statusCode;
+		this.retryAfter = retryAfter;
+	}
+
+	/**
+	 * Returns the HTTP status code of the response.
+	 *
+	 * @return status code
+	 */
+	public int getStatusCode() {
+		return this.statusCode;
+	}
+
+	/**
+	 * Returns the time that the client should wait before retrying.
+	 *
+	 * @return time in milliseconds, or -1 if not specified by the server
+	 */
+	public long getRetryAfter() {
+		return this.retryAfter;
+	}
+
+}
@@ -23,7 +23,9 @@ package org.wikidata.wdtk.wikibaseapi;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -41,6 +43,12 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 
 /**
  * Class to plan a statement update operation.
+ * <p>
+ * To find statements that can be merged without comparing all statements of
+ * a property with each other, statements are indexed by a fingerprint of
+ * their claims, see {@link #getClaimFingerprint(Claim)}, and by their ids.
+ * This keeps the computation of updates fast for items with thousands of
+ * statements.
  *
  * @author Markus Kroetzsch
  *
@@ -66,6 +74,22 @@ public class StatementUpdate {
 			this.write = write;
 		}
 	}
+
+	/**
+	 * Helper class to find statements in the list of statements to be kept
+	 * for one property.
+	 */
+	static class StatementIndex {
+		/**
+		 * Positions of statements in the list, by claim fingerprint; each
+		 * list of positions is in ascending order.
+		 */
+		final HashMap<Integer, List<Integer>> byFingerprint = new HashMap<>();
+		/**
+		 * Positions of statements with non-empty ids in the list, by id.
+		 */
+		final HashMap<String, Integer> byId = new HashMap<>();
+	}
 	
 	/**
 	 * Helper class to ease serialization of deleted statements. Jackson will
@@ -145,7 +169,9 @@ public class StatementUpdate {
 	@JsonIgnore
 	final HashMap<PropertyIdValue, List<StatementWithUpdate>> toKeep;
 	@JsonIgnore
-	final List<String> toDelete;
+	final Set<String> toDelete;
+	@JsonIgnore
+	final HashMap<PropertyIdValue, StatementIndex> toKeepIndex;
 
 	/**
 	 * Constructor. Marks the given lists of statements for being added to or
@@ -164,7 +190,8 @@ public class StatementUpdate {
 	public StatementUpdate(StatementDocument currentDocument,
 			List<Statement> addStatements, List<Statement> deleteStatements) {
 		this.toKeep = new HashMap<>();
-		this.toDelete = new ArrayList<>();
+		this.toDelete = new LinkedHashSet<>();
+		this.toKeepIndex = new HashMap<>();
 		markStatementsForUpdate(currentDocument, addStatements,
 				deleteStatements);
 	}
@@ -213,7 +240,17 @@ public class StatementUpdate {
 	 */
 	@JsonIgnore
 	public boolean isEmptyEdit() {
-		return getUpdatedStatements().isEmpty();
+		if (!this.toDelete.isEmpty()) {
+			return false;
+		}
+		for (List<StatementWithUpdate> swus : this.toKeep.values()) {
+			for (StatementWithUpdate swu : swus) {
+				if (swu.write) {
+					return false;
+				}
+			}
+		}
+		return true;
 	}
 
 	/**
@@ -249,24 +286,35 @@ public class StatementUpdate {
 	 */
 	protected void markStatementsForDeletion(StatementDocument currentDocument,
 			List<Statement> deleteStatements) {
-		for (Statement statement : deleteStatements) {
-			boolean found = false;
-			for (StatementGroup sg : currentDocument.getStatementGroups()) {
-				if (!sg.getProperty().equals(statement.getMainSnak().getPropertyId())) {
-					continue;
-				}
+		if (deleteStatements.isEmpty()) {
+			return;
+		}
 
+		HashMap<PropertyIdValue, HashMap<String, Statement>> existingStatements = new HashMap<>();
+		for (StatementGroup sg : currentDocument.getStatementGroups()) {
+			HashMap<String, Statement> statementsById = new HashMap<>();
+			for (Statement existingStatement : sg) {
+				// (we assume all existing statement ids to be nonempty here)
+				statementsById.putIfAbsent(existingStatement.getStatementId(),
+						existingStatement);
+			}
+			existingStatements.put(sg.getProperty(), statementsById);
+		}
+
+		for (Statement statement : deleteStatements) {
+			HashMap<String, Statement> statementsById = existingStatements
+					.get(statement.getMainSnak().getPropertyId());
+			if (statementsById != null) {
+				boolean found = false;
 				Statement changedStatement = null;
-				for (Statement existingStatement : sg) {
+				Statement existingStatement = statementsById.get(statement
+						.getStatementId());
+				if (existingStatement != null) {
 					if (existingStatement.equals(statement)) {
 						found = true;
 						toDelete.add(statement.getStatementId());
-					} else if (existingStatement.getStatementId().equals(
-							statement.getStatementId())) {
-						// (we assume all existing statement ids to be nonempty
-						// here)
+					} else {
 						changedStatement = existingStatement;
-						break;
 					}
 				}
 
@@ -339,19 +387,29 @@ public class StatementUpdate {
 		// same statement id
 		// (2) the toKeep structure does not contain two statements that can
 		// be merged
+		// The indexes are used to find the first statement in the list that
+		// has the same id or that can be merged, if any.
 		if (this.toKeep.containsKey(pid)) {
 			List<StatementWithUpdate> statements = this.toKeep.get(pid);
-			for (int i = 0; i < statements.size(); i++) {
-				Statement currentStatement = statements.get(i).statement;
-				boolean currentIsNew = statements.get(i).write;
+			StatementIndex index = this.toKeepIndex.get(pid);
 
-				if (!"".equals(currentStatement.getStatementId())
-						&& currentStatement.getStatementId().equals(
-								statement.getStatementId())) {
-					// Same, non-empty id: ignore existing statement as if
-					// deleted
-					return;
+			int sameIdPosition = Integer.MAX_VALUE;
+			if (!"".equals(statement.getStatementId())) {
+				Integer position = index.byId.get(statement.getStatementId());
+				if (position != null) {
+					sameIdPosition = position;
 				}
+			}
+
+			List<Integer> candidates = index.byFingerprint
+					.get(getClaimFingerprint(statement.getClaim()));
+			for (int k = 0; candidates != null && k < candidates.size(); k++) {
+				int i = candidates.get(k);
+				if (i >= sameIdPosition) {
+					break;
+				}
+				Statement currentStatement = statements.get(i).statement;
+				boolean currentIsNew = statements.get(i).write;
 
 				Statement newStatement = mergeStatements(statement,
 						currentStatement);
@@ -367,6 +425,13 @@ public class StatementUpdate {
 
 					statements.set(i, new StatementWithUpdate(newStatement,
 							writeNewStatement));
+					if (!newStatement.getStatementId().equals(
+							currentStatement.getStatementId())) {
+						index.byId.remove(currentStatement.getStatementId());
+						if (!"".equals(newStatement.getStatementId())) {
+							index.byId.put(newStatement.getStatementId(), i);
+						}
+					}
 
 					// Impossible with default merge code:
 					// Kept here for future extensions that may choose to not
@@ -385,11 +450,41 @@ public class StatementUpdate {
 				}
 			}
 
+			if (sameIdPosition != Integer.MAX_VALUE) {
+				// Same, non-empty id: ignore existing statement as if
+				// deleted
+				return;
+			}
+
+			addToIndex(index, statement, statements.size());
 			statements.add(new StatementWithUpdate(statement, isNew));
 		} else {
 			List<StatementWithUpdate> statements = new ArrayList<>();
+			StatementIndex index = new StatementIndex();
+			addToIndex(index, statement, 0);
 			statements.add(new StatementWithUpdate(statement, isNew));
 			this.toKeep.put(pid, statements);
+			this.toKeepIndex.put(pid, index);
+		}
+	}
+
+	/**
+	 * Records the position of a statement that is added to the end of the
+	 * list of statements to be kept for its property.
+	 *
+	 * @param index
+	 *            the index of the statements of the property
+	 * @param statement
+	 *            the statement that is added
+	 * @param position
+	 *            the position of the statement in the list
+	 */
+	void addToIndex(StatementIndex index, Statement statement, int position) {
+		index.byFingerprint.computeIfAbsent(
+				getClaimFingerprint(statement.getClaim()),
+				k -> new ArrayList<>(1)).add(position);
+		if (!"".equals(statement.getStatementId())) {
+			index.byId.put(statement.getStatementId(), position);
 		}
 	}
 
@@ -481,6 +576,27 @@ public class StatementUpdate {
 						claim2.getAllQualifiers());
 	}
 
+	/**
+	 * Returns a hash code of the given claim that does not depend on the order
+	 * of its qualifiers. It is based on the hash codes of the snaks, as
+	 * computed by {@link org.wikidata.wdtk.datamodel.helpers.Hash}. Claims
+	 * that are equivalent in the sense of
+	 * {@link #equivalentClaims(Claim, Claim)} must have the same fingerprint,
+	 * so subclasses that change one of these methods must change the other
+	 * accordingly.
+	 *
+	 * @param claim
+	 * @return fingerprint of the claim
+	 */
+	protected int getClaimFingerprint(Claim claim) {
+		int qualifierHash = 0;
+		Iterator<Snak> qualifiers = claim.getAllQualifiers();
+		while (qualifiers.hasNext()) {
+			qualifierHash += qualifiers.next().hashCode();
+		}
+		return 31 * claim.getMainSnak().hashCode() + qualifierHash;
+	}
+
 	/**
 	 * Compares two sets of snaks, given by iterators. The method is optimised
 	 * for short lists of snaks, as they are typically found in claims and
@@ -0,0 +1,150 @@
+package org.wikidata.wdtk.wikibaseapi;
+
+/*
+ * #%L
+ * Wikidata Toolkit Wikibase API
+ * %%
+ * Copyright (C) 2014 - 2015 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+import org.wikidata.wdtk.util.WebResourceFetcherImpl;
+
+/**
+ * {@link HttpTransport} based on Java's {@link HttpURLConnection}. Java keeps
+ * connections to the same host alive and reuses them for later requests,
+ * provided that response streams are read and closed. This class takes care
+ * that this also happens for error responses, which are returned like other
+ * responses rather than thrown as exceptions. Responses are requested with
+ * gzip compression, which reduces the size of typical API responses a lot.
+ * <p>
+ * Proxy settings and the user agent are taken from
+ * {@link WebResourceFetcherImpl}. The number of idle connections that are
+ * kept per host can be configured with the system property
+ * "http.maxConnections".
+ */
+public class UrlConnectionHttpTransport implements HttpTransport {
+
+	/**
+	 * Name of the HTTP request header to ask for compressed responses.
+	 */
+	final static String HEADER_ACCEPT_ENCODING = "Accept-Encoding";
+
+	final boolean compression;
+
+	/**
+	 * Creates a transport that asks for gzip-compressed responses.
+	 */
+	public UrlConnectionHttpTransport() {
+		this(true);
+	}
+
+	/**
+	 * Creates a transport.
+	 *
+	 * @param compression
+	 *            if true, gzip-compressed responses are requested
+	 */
+	public UrlConnectionHttpTransport(boolean compression) {
+		this.compression = compression;
+	}
+
+	@Override
+	public Response sendRequest(String url, String requestMethod,
+			Map<String, String> headers, byte[] body) throws IOException {
+		HttpURLConnection connection = (HttpURLConnection) WebResourceFetcherImpl
+				.getUrlConnection(new URL(url));
+		setupConnection(requestMethod, headers, connection);
+		connection.setFixedLengthStreamingMode(body.length);
+		try (OutputStream out = connection.getOutputStream()) {
+			out.write(body);
+		}
+
+		int rc = connection.getResponseCode();
+		InputStream iStream;
+		if (rc >= 400) {
+			// read the error right away so that the connection can be reused
+			iStream = new ByteArrayInputStream(
+					readFully(connection.getErrorStream()));
+		} else {
+			iStream = connection.getInputStream();
+		}
+		if ("gzip".equalsIgnoreCase(connection.getContentEncoding())) {
+			iStream = new GZIPInputStream(iStream);
+		}
+		return new Response(rc, connection.getHeaderFields(), iStream);
+	}
+
+	/**
+	 * Configures a given {@link HttpURLConnection} object to send requests.
+	 *
+	 * @param requestMethod
+	 *            either "POST" or "GET"
+	 * @param headers
+	 *            request header fields to set
+	 * @param connection
+	 *            the connection to configure
+	 * @throws IOException
+	 *             if the given protocol is not valid
+	 */
+	void setupConnection(String requestMethod, Map<String, String> headers,
+			HttpURLConnection connection) throws IOException {
+		connection.setRequestMethod(requestMethod);
+		connection.setDoInput(true);
+		connection.setDoOutput(true);
+		connection.setUseCaches(false);
+		for (Map.Entry<String, String> header : headers.entrySet()) {
+			connection.setRequestProperty(header.getKey(), header.getValue());
+		}
+		if (this.compression) {
+			connection.setRequestProperty(HEADER_ACCEPT_ENCODING, "gzip");
+		}
+	}
+
+	/**
+	 * Reads and closes the given stream.
+	 *
+	 * @param stream
+	 *            the stream to read, or null
+	 * @return the bytes read from the stream
+	 * @throws IOException
+	 *             if the stream could not be read
+	 */
+	byte[] readFully(InputStream stream) throws IOException {
+		ByteArrayOutputStream result = new ByteArrayOutputStream();
+		if (stream == null) {
+			return result.toByteArray();
+		}
+		try (InputStream in = stream) {
+			byte[] buffer = new byte[4096];
+			int length;
+			while ((length = in.read(buffer)) != -1) {
+				result.write(buffer, 0, length);
+			}
+		}
+		return result.toByteArray();
+	}
+
+}
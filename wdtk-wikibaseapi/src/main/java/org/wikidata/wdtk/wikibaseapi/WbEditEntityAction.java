@@ -82,28 +82,19 @@ public class WbEditEntityAction {
 	int maxLag = 5;
 
 	/**
-	 * Number of recent editing times to monitor in order to avoid editing too
-	 * fast. Wikidata.org seems to block fast editors after 9 edits, so this
-	 * size seems to make sense.
+	 * Scheduler that pauses editing when the site reports lag. By default, it
+	 * is shared with all other editors that use the same API, and it does not
+	 * limit the speed of editing otherwise.
 	 */
-	final static int editTimeWindow = 9;
+	EditScheduler editScheduler;
 
 	/**
-	 * Average time to wait after each edit. Individual edits can be faster than
-	 * this, but it is ensured that this time will be taken per edit in the long
-	 * run.
+	 * Scheduler that limits the speed of the edits of this object. It is used
+	 * in addition to {@link #editScheduler}.
 	 */
-	int averageMsecsPerEdit = 2000;
-
-	/**
-	 * Times of the last {@link #editTimeWindow} edits. Used in a loop. Most
-	 * recent edit time is at {@link #curEditTimeSlot}.
-	 */
-	final long[] recentEditTimes = new long[editTimeWindow];
-	/**
-	 * @see #recentEditTimes
-	 */
-	int curEditTimeSlot = 0;
+	final EditScheduler ownEditScheduler = new EditScheduler(
+			EditScheduler.DEFAULT_MSECS_PER_EDIT,
+			EditScheduler.DEFAULT_BURST_SIZE);
 
 	/**
 	 * Number of edits that will be performed before the object enters
@@ -127,6 +118,8 @@ public class WbEditEntityAction {
 		this.connection = connection;
 		this.siteIri = siteIri;
 		this.mapper = new DatamodelMapper(siteIri);
+		this.editScheduler = EditScheduler
+				.getSharedScheduler(connection.apiBaseUrl);
 	}
 
 	/**
@@ -190,11 +183,16 @@ public class WbEditEntityAction {
 	 * This means that it will only wait as long as necessary. If your program
 	 * takes time between edits for other reasons, there will be no additional
 	 * delay caused by this feature.
+	 * <p>
+	 * This time only applies to the edits of this object. When the site
+	 * reports lag, editing is slowed down temporarily, and all editors that
+	 * share the {@link EditScheduler} returned by {@link #getEditScheduler()}
+	 * pause for a while.
 	 *
 	 * @return average time per edit in milliseconds
 	 */
 	public int getAverageTimePerEdit() {
-		return this.averageMsecsPerEdit;
+		return this.ownEditScheduler.getAverageTimePerEdit();
 	}
 
 	/**
@@ -205,7 +203,34 @@ public class WbEditEntityAction {
 	 *            the new value in milliseconds
 	 */
 	public void setAverageTimePerEdit(int milliseconds) {
-		this.averageMsecsPerEdit = milliseconds;
+		this.ownEditScheduler.setAverageTimePerEdit(milliseconds);
+	}
+
+	/**
+	 * Returns the {@link EditScheduler} that pauses editing when the site
+	 * reports lag. By default, this is the scheduler that is shared by all
+	 * editors for the same API, see
+	 * {@link EditScheduler#getSharedScheduler(String)}. It does not limit the
+	 * speed of editing unless an average time per edit is set for it, which
+	 * then applies to the combined edits of all these editors.
+	 *
+	 * @return the edit scheduler
+	 */
+	public EditScheduler getEditScheduler() {
+		return this.editScheduler;
+	}
+
+	/**
+	 * Sets the {@link EditScheduler} that pauses editing when the site reports
+	 * lag. This can be used to keep this object from pausing for other
+	 * editors, or to share pauses and limits between editors of different
+	 * APIs.
+	 *
+	 * @param editScheduler
+	 *            the edit scheduler to use
+	 */
+	public void setEditScheduler(EditScheduler editScheduler) {
+		this.editScheduler = editScheduler;
 	}
 
 	/**
@@ -334,35 +359,47 @@ public class WbEditEntityAction {
 		parameters.put("maxlag", Integer.toString(this.maxLag));
 		parameters.put("token", getCsrfToken());
 
-		if (this.remainingEdits > 0) {
-			this.remainingEdits--;
-		} else if (this.remainingEdits == 0) {
-			logger.info("Not editing entity (simulation mode). Request parameters were: "
-					+ parameters.toString());
-			return null;
+		synchronized (this) { // edits may be made from several threads
+			if (this.remainingEdits > 0) {
+				this.remainingEdits--;
+			} else if (this.remainingEdits == 0) {
+				logger.info("Not editing entity (simulation mode). Request parameters were: "
+						+ parameters.toString());
+				return null;
+			}
 		}
 
-		checkEditSpeed();
+		this.ownEditScheduler.acquire();
 
 		EntityDocument result = null;
 		int retry = 5;
-		MediaWikiApiErrorException lastException = null;
+		Exception lastException = null;
 		while (retry > 0) {
+			this.editScheduler.acquire();
 			try {
 				result = doWbEditEntity(parameters);
+				this.editScheduler.reportSuccess();
+				this.ownEditScheduler.reportSuccess();
+				lastException = null;
 				break;
 			} catch (TokenErrorException e) { // try again with a fresh token
 				lastException = e;
 				refreshCsrfToken();
 				parameters.put("token", getCsrfToken());
-			} catch (MaxlagErrorException e) { // wait for 5 seconds
+			} catch (MaxlagErrorException e) { // slow down and wait
+				lastException = e;
+				this.ownEditScheduler.reportLag(e.getLag(), 0);
+				long delay = this.editScheduler.reportLag(e.getLag(),
+						MAXLAG_SLEEP_TIME);
+				logger.warn(e.getMessage() + " -- pausing for " + delay
+						+ " milliseconds.");
+			} catch (RequestThrottledException e) { // wait as requested
 				lastException = e;
-				logger.warn(e.getMessage() + " -- pausing for 5 seconds.");
-				try {
-					Thread.sleep(MAXLAG_SLEEP_TIME);
-				} catch (InterruptedException ex) {
-					Thread.currentThread().interrupt();
-				}
+				this.ownEditScheduler.reportLag(-1, 0);
+				long delay = this.editScheduler.reportLag(-1,
+						Math.max(e.getRetryAfter(), MAXLAG_SLEEP_TIME));
+				logger.warn(e.getMessage() + " -- pausing for " + delay
+						+ " milliseconds.");
 			}
 			retry--;
 		}
@@ -370,7 +407,10 @@ public class WbEditEntityAction {
 		if (lastException != null) {
 			logger.error("Gave up after several retries. Last error was: "
 					+ lastException.toString());
-			throw lastException;
+			if (lastException instanceof MediaWikiApiErrorException) {
+				throw (MediaWikiApiErrorException) lastException;
+			}
+			throw (IOException) lastException;
 		}
 
 		return result;
@@ -487,33 +527,4 @@ public class WbEditEntityAction {
 		}
 	}
 
-	/**
-	 * Makes sure that we are not editing too fast. The method stores the last
-	 * {@link WbEditEntityAction#editTimeWindow} time points when an edit was
-	 * made. If the time since the oldest edit in this window is shorter than
-	 * {@link #averageMsecsPerEdit} milliseconds, then the method will pause the
-	 * thread for the remaining time.
-	 */
-	private void checkEditSpeed() {
-		long currentTime = System.nanoTime();
-		int nextIndex = (this.curEditTimeSlot + 1) % editTimeWindow;
-		if (this.recentEditTimes[nextIndex] != 0
-				&& (currentTime - this.recentEditTimes[nextIndex]) / 1000000 < this.averageMsecsPerEdit
-						* editTimeWindow) {
-			long sleepTime = this.averageMsecsPerEdit * editTimeWindow
-					- (currentTime - this.recentEditTimes[nextIndex]) / 1000000;
-			logger.info("We are editing too fast. Pausing for " + sleepTime
-					+ " milliseconds.");
-			try {
-				Thread.sleep(sleepTime);
-			} catch (InterruptedException ex) {
-				Thread.currentThread().interrupt();
-			}
-			currentTime = System.nanoTime();
-		}
-
-		this.recentEditTimes[nextIndex] = currentTime;
-		this.curEditTimeSlot = nextIndex;
-	}
-
 }
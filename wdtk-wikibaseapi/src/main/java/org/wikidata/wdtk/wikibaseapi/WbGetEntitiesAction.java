@@ -23,9 +23,8 @@ package org.wikidata.wdtk.wikibaseapi;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.HashMap;
-import java.util.Iterator;
 import java.util.Map;
-import java.util.Map.Entry;
+import java.util.function.BiConsumer;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -35,9 +34,15 @@ import org.wikidata.wdtk.datamodel.implementation.TermedStatementDocumentImpl;
 import org.wikidata.wdtk.datamodel.interfaces.EntityDocument;
 import org.wikidata.wdtk.wikibaseapi.apierrors.MediaWikiApiErrorException;
 
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.core.JsonStreamContext;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.util.JsonParserSequence;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
 
 /**
  * Java implementation of the wbgetentities action.
@@ -99,7 +104,7 @@ public class WbGetEntitiesAction {
 			throws MediaWikiApiErrorException {
 		return wbGetEntities(properties.ids, properties.sites,
 				properties.titles, properties.props, properties.languages,
-				properties.sitefilter);
+				properties.sitefilter, properties.maxlag);
 	}
 
 	/**
@@ -151,6 +156,92 @@ public class WbGetEntitiesAction {
 	public Map<String, EntityDocument> wbGetEntities(String ids, String sites,
 			String titles, String props, String languages, String sitefilter)
 			throws MediaWikiApiErrorException {
+		return wbGetEntities(ids, sites, titles, props, languages, sitefilter,
+				null);
+	}
+
+	/**
+	 * Creates a map of identifiers or page titles to documents retrieved via
+	 * the API, using the given value for MediaWiki's maxlag parameter. If the
+	 * replication lag of the server exceeds this value, the request is refused
+	 * with a {@link org.wikidata.wdtk.wikibaseapi.apierrors.MaxlagErrorException}.
+	 * See
+	 * {@link #wbGetEntities(String, String, String, String, String, String)}
+	 * for the other parameters.
+	 *
+	 * @param ids
+	 *            list of ids of entities for which data should be retrieved
+	 * @param sites
+	 *            site key (e.g. "enwiki"); used together with parameters
+	 *            "titles"
+	 * @param titles
+	 *            list of titles of the page corresponding to the requested
+	 *            entities on the given site
+	 * @param props
+	 *            list of strings that specifies what kind of data should be
+	 *            retrieved for each entity
+	 * @param languages
+	 *            list of language codes to return labels, aliases or
+	 *            descriptions for
+	 * @param sitefilter
+	 *            list of site keys to return sitelinks for
+	 * @param maxlag
+	 *            maximal lag in seconds, or null if no limit should be set
+	 * @return map of document identifiers or titles to documents retrieved via
+	 *         the API URL
+	 * @throws MediaWikiApiErrorException
+	 *             if the API returns an error
+	 * @throws IllegalArgumentException
+	 *             if the given combination of parameters does not make sense
+	 */
+	public Map<String, EntityDocument> wbGetEntities(String ids, String sites,
+			String titles, String props, String languages, String sitefilter,
+			String maxlag) throws MediaWikiApiErrorException {
+
+		Map<String, EntityDocument> result = new HashMap<String, EntityDocument>();
+		wbGetEntities(ids, sites, titles, props, languages, sitefilter, maxlag,
+				result::put);
+		return result;
+	}
+
+	/**
+	 * Retrieves documents via the API and passes them to the given consumer
+	 * one at a time. The response is decoded while it is read, and each
+	 * entity is bound to a document directly, so that the complete response
+	 * never needs to be kept in memory. The consumer receives the same keys
+	 * as the map returned by {@link #wbGetEntities(WbGetEntitiesActionData)}.
+	 * <p>
+	 * If errors occur (e.g., exceptions trying to access the Web API), then the
+	 * errors will be logged and the remaining entities will be skipped. If the
+	 * API reports an error, the exception is only thrown when the error is
+	 * read, so entities that come before it in the response have already been
+	 * passed to the consumer. Callers that retry the request should therefore
+	 * ignore entities that they have received before.
+	 *
+	 * @param properties
+	 *            parameter setting for wbgetentities
+	 * @param consumer
+	 *            receives the identifier or title and the document of each
+	 *            entity that was found
+	 * @throws MediaWikiApiErrorException
+	 *             if the API returns an error
+	 */
+	public void wbGetEntities(WbGetEntitiesActionData properties,
+			BiConsumer<String, EntityDocument> consumer)
+			throws MediaWikiApiErrorException {
+		wbGetEntities(properties.ids, properties.sites, properties.titles,
+				properties.props, properties.languages, properties.sitefilter,
+				properties.maxlag, consumer);
+	}
+
+	/**
+	 * Retrieves documents via the API and passes them to the given consumer.
+	 * See {@link #wbGetEntities(WbGetEntitiesActionData, BiConsumer)}.
+	 */
+	void wbGetEntities(String ids, String sites, String titles, String props,
+			String languages, String sitefilter, String maxlag,
+			BiConsumer<String, EntityDocument> consumer)
+			throws MediaWikiApiErrorException {
 
 		Map<String, String> parameters = new HashMap<String, String>();
 		parameters.put(ApiConnection.PARAM_ACTION, "wbgetentities");
@@ -183,48 +274,133 @@ public class WbGetEntitiesAction {
 		if (sitefilter != null) {
 			parameters.put("sitefilter", sitefilter);
 		}
+		if (maxlag != null) {
+			parameters.put("maxlag", maxlag);
+		}
 
-		Map<String, EntityDocument> result = new HashMap<String, EntityDocument>();
+		parameters.put(ApiConnection.PARAM_FORMAT, "json");
 
-		try {
-			JsonNode root = this.connection.sendJsonRequest("POST", parameters);
-
-			JsonNode entities = root.path("entities");
-			Iterator<Entry<String,JsonNode>> entitiesIterator = entities.fields();
-			while(entitiesIterator.hasNext()) {
-				Entry<String,JsonNode> entry = entitiesIterator.next();
-				JsonNode entityNode = entry.getValue();
-				if (!entityNode.has("missing")) {
-					try {
-						TermedStatementDocumentImpl ed = mapper.treeToValue(
-								entityNode,
-								TermedStatementDocumentImpl.class);
-
-						if (titles == null) {
-							// We use the JSON key rather than the id of the value
-							// so that retrieving redirected entities works.
-							result.put(entry.getKey(), ed);
-						} else {
-							if (ed instanceof ItemDocumentImpl
-									&& ((ItemDocumentImpl) ed)
-											.getSiteLinks().containsKey(sites)) {
-								result.put(((ItemDocumentImpl) ed)
-										.getSiteLinks().get(sites)
-										.getPageTitle(), ed);
-							}
-						}
-					} catch (JsonProcessingException e) {
-						logger.error("Error when reading JSON for entity "
-								+ entityNode.path("id").asText("UNKNOWN")
-								+ ": " + e.toString());
-					}
+		try (InputStream response = this.connection.sendRequest("POST",
+				parameters);
+				JsonParser parser = this.mapper.getFactory().createParser(
+						response)) {
+			if (parser.nextToken() != JsonToken.START_OBJECT) {
+				throw new JsonParseException(parser,
+						"API response is not a JSON object");
+			}
+			while (parser.nextToken() == JsonToken.FIELD_NAME) {
+				String field = parser.getCurrentName();
+				parser.nextToken();
+				switch (field) {
+				case "entities":
+					readEntities(parser, titles, sites, consumer);
+					break;
+				case "error":
+				case "warnings":
+					ObjectNode root = this.mapper.createObjectNode();
+					root.set(field, this.mapper.readTree(parser));
+					this.connection.handleErrorsAndWarnings(root);
+					break;
+				default:
+					parser.skipChildren();
 				}
 			}
 		} catch (IOException e) {
 			logger.error("Could not retrive data: " + e.toString());
 		}
+	}
 
-		return result;
+	/**
+	 * Reads the "entities" object of a wbgetentities response and passes the
+	 * documents to the consumer. Entities that cannot be read are logged and
+	 * skipped.
+	 *
+	 * @param parser
+	 *            parser positioned at the start of the "entities" object
+	 * @param titles
+	 *            the titles that were requested, or null if ids were used
+	 * @param sites
+	 *            the site key used with titles
+	 * @param consumer
+	 *            receives the documents
+	 * @throws IOException
+	 *             if the JSON could not be read
+	 */
+	void readEntities(JsonParser parser, String titles, String sites,
+			BiConsumer<String, EntityDocument> consumer) throws IOException {
+		if (parser.currentToken() != JsonToken.START_OBJECT) {
+			parser.skipChildren();
+			return;
+		}
+		JsonStreamContext entitiesContext = parser.getParsingContext();
+		while (parser.nextToken() == JsonToken.FIELD_NAME) {
+			String key = parser.getCurrentName();
+			parser.nextToken();
+			TermedStatementDocumentImpl ed;
+			try {
+				ed = readEntity(parser);
+			} catch (JsonProcessingException e) {
+				logger.error("Error when reading JSON for entity " + key
+						+ ": " + e.toString());
+				// skip the rest of the entity
+				while (parser.getParsingContext() != entitiesContext
+						&& parser.nextToken() != null) {
+				}
+				continue;
+			}
+			if (ed == null) {
+				continue;
+			}
+
+			if (titles == null) {
+				// We use the JSON key rather than the id of the value
+				// so that retrieving redirected entities works.
+				consumer.accept(key, ed);
+			} else {
+				if (ed instanceof ItemDocumentImpl
+						&& ((ItemDocumentImpl) ed)
+								.getSiteLinks().containsKey(sites)) {
+					consumer.accept(((ItemDocumentImpl) ed)
+							.getSiteLinks().get(sites)
+							.getPageTitle(), ed);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Binds the JSON object of one entity to a document. Fields before the
+	 * "type" field (usually only a few short ones) are buffered; the rest of
+	 * the entity is read directly from the parser. Entities without a type,
+	 * such as missing entities, are skipped.
+	 *
+	 * @param parser
+	 *            parser positioned at the start of the entity object
+	 * @return the document, or null if the entity has no type
+	 * @throws IOException
+	 *             if the JSON could not be read
+	 */
+	TermedStatementDocumentImpl readEntity(JsonParser parser)
+			throws IOException {
+		if (parser.currentToken() != JsonToken.START_OBJECT) {
+			parser.skipChildren();
+			return null;
+		}
+		TokenBuffer header = new TokenBuffer(parser);
+		header.writeStartObject();
+		while (parser.nextToken() == JsonToken.FIELD_NAME) {
+			String field = parser.getCurrentName();
+			header.writeFieldName(field);
+			if ("type".equals(field)) {
+				JsonParser entityParser = JsonParserSequence.createFlattened(
+						false, header.asParser(parser), parser);
+				return this.mapper.readValue(entityParser,
+						TermedStatementDocumentImpl.class);
+			}
+			parser.nextToken();
+			header.copyCurrentStructure(parser);
+		}
+		return null;
 	}
 
 }
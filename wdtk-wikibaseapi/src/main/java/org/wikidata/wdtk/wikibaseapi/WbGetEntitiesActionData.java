@@ -73,4 +73,12 @@ public class WbGetEntitiesActionData {
 	 * for details.
 	 */
 	public String sitefilter = null;
+
+	/**
+	 * Maximal replication lag in seconds that the server should accept before
+	 * refusing the request, or null if no limit should be set. See
+	 * {@link WbGetEntitiesAction#wbGetEntities(String, String, String, String, String, String, String)}
+	 * for details.
+	 */
+	public String maxlag = null;
 }
@@ -84,6 +84,34 @@ public class WbSearchEntitiesAction {
                 properties.strictlanguage, properties.type, properties.limit, properties.offset);
     }
 
+    /**
+     * Executes the API action "wbsearchentities" for the given parameters
+     * and adds the results to the given list. In contrast to
+     * {@link #wbSearchEntities(WbGetEntitiesSearchData)}, this method also
+     * returns the offset where the search can be continued, so that it can be
+     * used to fetch results page by page.
+     *
+     * @param properties
+     *            parameters of the search; see
+     *            {@link #wbSearchEntities(String, String, Boolean, String, Long, Long)}
+     *            for details
+     * @param results
+     *            list to which the results are added
+     * @return offset of the next page of results, or null if there are no
+     *         more results
+     * @throws MediaWikiApiErrorException
+     *             if the API returns an error
+     * @throws IllegalArgumentException
+     *             if the given combination of parameters does not make sense
+     */
+    public Long wbSearchEntities(WbGetEntitiesSearchData properties,
+                                 List<WbSearchEntitiesResult> results)
+            throws MediaWikiApiErrorException {
+        return sendSearchRequest(getParameters(properties.search,
+                properties.language, properties.strictlanguage,
+                properties.type, properties.limit, properties.offset), results);
+    }
+
     /**
      * Executes the API action "wbsearchentity" for the given parameters.
      * Searches for entities using labels and aliases. Returns a label and
@@ -125,7 +153,19 @@ public class WbSearchEntitiesAction {
     public List<WbSearchEntitiesResult> wbSearchEntities(String search, String language,
                                                          Boolean strictLanguage, String type, Long limit, Long offset)
             throws MediaWikiApiErrorException {
+        List<WbSearchEntitiesResult> results = new ArrayList<>();
+        sendSearchRequest(getParameters(search, language, strictLanguage,
+                type, limit, offset), results);
+        return results;
+    }
 
+    /**
+     * Returns the request parameters for the given search.
+     *
+     * @see #wbSearchEntities(String, String, Boolean, String, Long, Long)
+     */
+    Map<String, String> getParameters(String search, String language,
+                                      Boolean strictLanguage, String type, Long limit, Long offset) {
         Map<String, String> parameters = new HashMap<String, String>();
         parameters.put(ApiConnection.PARAM_ACTION, "wbsearchentities");
 
@@ -157,12 +197,31 @@ public class WbSearchEntitiesAction {
         if (offset != null) {
             parameters.put("continue", Long.toString(offset));
         }
+        return parameters;
+    }
 
-        List<WbSearchEntitiesResult> results = new ArrayList<>();
-
+    /**
+     * Sends a search request and adds the results to the given list.
+     *
+     * @param parameters
+     *            the parameters of the request
+     * @param results
+     *            list to which the results are added
+     * @return offset of the next page of results, or null if there are no
+     *         more results
+     * @throws MediaWikiApiErrorException
+     *             if the API returns an error
+     */
+    Long sendSearchRequest(Map<String, String> parameters,
+                           List<WbSearchEntitiesResult> results)
+            throws MediaWikiApiErrorException {
+        Long nextOffset = null;
         try {
             JsonNode root = this.connection.sendJsonRequest("POST", parameters);
             JsonNode entities = root.path("search");
+            if (root.path("search-continue").canConvertToLong()) {
+                nextOffset = root.path("search-continue").asLong();
+            }
             for (JsonNode entityNode : entities) {
                 try {
                     JacksonWbSearchEntitiesResult ed = mapper.treeToValue(entityNode,
@@ -178,7 +237,7 @@ public class WbSearchEntitiesAction {
             LOGGER.error("Could not retrive data: " + e.toString());
         }
 
-        return results;
+        return nextOffset;
     }
 
 }
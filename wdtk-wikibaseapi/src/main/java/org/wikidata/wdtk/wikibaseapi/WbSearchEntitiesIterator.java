@@ -0,0 +1,189 @@
+package org.wikidata.wdtk.wikibaseapi;
+
+/*
+ * #%L
+ * Wikidata Toolkit Wikibase API
+ * %%
+ * Copyright (C) 2014 - 2015 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+import org.wikidata.wdtk.wikibaseapi.apierrors.MediaWikiApiErrorException;
+
+/**
+ * Iterator over the results of an entity search that fetches the results
+ * page by page, following the continuation offsets returned by the API. The
+ * next page is requested in the background as soon as the current page has
+ * arrived, so that it is usually available when the caller has consumed the
+ * current page.
+ * <p>
+ * Since iterators cannot throw checked exceptions, API errors are reported
+ * as {@link RuntimeException} with the {@link MediaWikiApiErrorException} as
+ * its cause.
+ */
+public class WbSearchEntitiesIterator implements
+		Iterator<WbSearchEntitiesResult> {
+
+	/**
+	 * Number of results requested per page if no limit is given.
+	 */
+	public static final long DEFAULT_PAGE_SIZE = 50;
+
+	/**
+	 * One page of search results.
+	 */
+	static class Page {
+		final List<WbSearchEntitiesResult> results;
+		final Long nextOffset;
+
+		Page(List<WbSearchEntitiesResult> results, Long nextOffset) {
+			this.results = results;
+			this.nextOffset = nextOffset;
+		}
+	}
+
+	final WbSearchEntitiesAction action;
+	final RequestRateLimiter rateLimiter;
+	final Executor executor;
+	final WbGetEntitiesSearchData properties;
+	final long pageSize;
+	final long maxResults;
+
+	List<WbSearchEntitiesResult> currentResults = new ArrayList<>();
+	int position = 0;
+	long returnedResults = 0;
+
+	/**
+	 * Request for the next page, or null if there are no more pages.
+	 */
+	CompletableFuture<Page> nextPage;
+
+	/**
+	 * Creates a new iterator and requests the first page of results.
+	 *
+	 * @param action
+	 *            the action used to send requests
+	 * @param rateLimiter
+	 *            limiter that is acquired before each request
+	 * @param executor
+	 *            executor for fetching pages in the background
+	 * @param properties
+	 *            parameters of the search; the limit is used as the page size
+	 *            and the offset as the start of the first page
+	 * @param maxResults
+	 *            maximal number of results returned, or 0 if all results
+	 *            should be returned
+	 */
+	WbSearchEntitiesIterator(WbSearchEntitiesAction action,
+			RequestRateLimiter rateLimiter, Executor executor,
+			WbGetEntitiesSearchData properties, long maxResults) {
+		if (properties.search == null || properties.language == null) {
+			throw new IllegalArgumentException(
+					"Search and language parameters must be specified.");
+		}
+		this.action = action;
+		this.rateLimiter = rateLimiter;
+		this.executor = executor;
+		this.properties = properties;
+		this.pageSize = properties.limit != null ? properties.limit
+				: DEFAULT_PAGE_SIZE;
+		this.maxResults = maxResults;
+		this.nextPage = requestPage(properties.offset);
+	}
+
+	@Override
+	public boolean hasNext() {
+		if (this.maxResults > 0 && this.returnedResults >= this.maxResults) {
+			return false;
+		}
+		while (this.position >= this.currentResults.size()) {
+			if (this.nextPage == null) {
+				return false;
+			}
+			Page page = getPage(this.nextPage);
+			this.currentResults = page.results;
+			this.position = 0;
+			if (page.nextOffset != null
+					&& !page.results.isEmpty()
+					&& (this.maxResults <= 0 || this.returnedResults
+							+ page.results.size() < this.maxResults)) {
+				this.nextPage = requestPage(page.nextOffset);
+			} else {
+				this.nextPage = null;
+			}
+		}
+		return true;
+	}
+
+	@Override
+	public WbSearchEntitiesResult next() {
+		if (!hasNext()) {
+			throw new NoSuchElementException();
+		}
+		this.returnedResults++;
+		return this.currentResults.get(this.position++);
+	}
+
+	/**
+	 * Requests the page of results that starts at the given offset in the
+	 * background.
+	 *
+	 * @param offset
+	 *            offset of the first result, or null to start at the
+	 *            beginning
+	 * @return future for the page
+	 */
+	CompletableFuture<Page> requestPage(Long offset) {
+		WbGetEntitiesSearchData pageProperties = new WbGetEntitiesSearchData();
+		pageProperties.search = this.properties.search;
+		pageProperties.language = this.properties.language;
+		pageProperties.strictlanguage = this.properties.strictlanguage;
+		pageProperties.type = this.properties.type;
+		pageProperties.limit = this.pageSize;
+		pageProperties.offset = offset;
+		return CompletableFuture.supplyAsync(() -> {
+			this.rateLimiter.acquire();
+			List<WbSearchEntitiesResult> results = new ArrayList<>();
+			try {
+				Long nextOffset = this.action.wbSearchEntities(pageProperties,
+						results);
+				return new Page(results, nextOffset);
+			} catch (MediaWikiApiErrorException e) {
+				throw new CompletionException(e);
+			}
+		}, this.executor);
+	}
+
+	static Page getPage(CompletableFuture<Page> future) {
+		try {
+			return future.join();
+		} catch (CompletionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			throw new RuntimeException(cause.toString(), cause);
+		}
+	}
+
+}
@@ -27,6 +27,7 @@ import java.util.List;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.wikidata.wdtk.datamodel.implementation.json.JsonSerializer;
+import org.wikidata.wdtk.datamodel.interfaces.EntityDocument;
 import org.wikidata.wdtk.datamodel.interfaces.ItemDocument;
 import org.wikidata.wdtk.datamodel.interfaces.ItemIdValue;
 import org.wikidata.wdtk.datamodel.interfaces.MonolingualTextValue;
@@ -147,8 +148,8 @@ public class WikibaseDataEditor {
 
 	/**
 	 * Sets the average time that a single edit should take, measured in
-	 * milliseconds. See {@link WbEditEntityAction#getAverageTimePerEdit()} for
-	 * details.
+	 * milliseconds. This only affects the edits of this object. See
+	 * {@link WbEditEntityAction#getAverageTimePerEdit()} for details.
 	 *
 	 * @param milliseconds
 	 *            the new value in milliseconds
@@ -157,6 +158,27 @@ public class WikibaseDataEditor {
 		this.wbEditEntityAction.setAverageTimePerEdit(milliseconds);
 	}
 
+	/**
+	 * Returns the {@link EditScheduler} that limits the speed of editing. See
+	 * {@link WbEditEntityAction#getEditScheduler()} for details.
+	 *
+	 * @return the edit scheduler
+	 */
+	public EditScheduler getEditScheduler() {
+		return this.wbEditEntityAction.getEditScheduler();
+	}
+
+	/**
+	 * Sets the {@link EditScheduler} that limits the speed of editing. See
+	 * {@link WbEditEntityAction#setEditScheduler(EditScheduler)} for details.
+	 *
+	 * @param editScheduler
+	 *            the edit scheduler to use
+	 */
+	public void setEditScheduler(EditScheduler editScheduler) {
+		this.wbEditEntityAction.setEditScheduler(editScheduler);
+	}
+
 	/**
 	 * Returns the number of edits that will be performed before entering
 	 * simulation mode, or -1 if there is no limit on the number of edits
@@ -502,10 +524,7 @@ public class WikibaseDataEditor {
 		if (statementUpdate.isEmptyEdit()) {
 			return currentDocument;
 		} else {
-			return (T) this.wbEditEntityAction.wbEditEntity(currentDocument
-				.getEntityId().getId(), null, null, null, statementUpdate
-				.getJsonUpdateString(), false, this.editAsBot, currentDocument
-				.getRevisionId(), summary);
+			return (T) performUpdate(currentDocument, statementUpdate, summary);
 		}
 	}
 	
@@ -560,10 +579,8 @@ public class WikibaseDataEditor {
 		if (termStatementUpdate.isEmptyEdit()) {
 			return currentDocument;
 		} else {
-			return (ItemDocument) this.wbEditEntityAction.wbEditEntity(currentDocument
-				.getEntityId().getId(), null, null, null, termStatementUpdate
-				.getJsonUpdateString(), false, this.editAsBot, currentDocument
-				.getRevisionId(), summary);
+			return (ItemDocument) performUpdate(currentDocument,
+					termStatementUpdate, summary);
 		}
 	}
 	
@@ -627,4 +644,29 @@ public class WikibaseDataEditor {
 				.getJsonUpdateString(), false, this.editAsBot, currentDocument
 				.getRevisionId(), null);
 	}
+
+	/**
+	 * Sends the given update of the given document to the API.
+	 *
+	 * @param currentDocument
+	 *            the document that the update was computed for
+	 * @param update
+	 *            the update to send
+	 * @param summary
+	 *            short edit summary
+	 * @return the updated document, or null if editing is disabled
+	 * @throws MediaWikiApiErrorException
+	 *             if the API returns errors
+	 * @throws IOException
+	 *             if there are IO problems, such as missing network connection
+	 */
+	EntityDocument performUpdate(StatementDocument currentDocument,
+			StatementUpdate update, String summary)
+			throws MediaWikiApiErrorException, IOException {
+		return this.wbEditEntityAction.wbEditEntity(currentDocument
+				.getEntityId().getId(), null, null, null, update
+				.getJsonUpdateString(), false, this.editAsBot, currentDocument
+				.getRevisionId(), summary);
+	}
+
 }
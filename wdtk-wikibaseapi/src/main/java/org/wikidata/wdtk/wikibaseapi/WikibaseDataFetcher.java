@@ -24,20 +24,39 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.BiConsumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.wikidata.wdtk.datamodel.helpers.Datamodel;
 import org.wikidata.wdtk.datamodel.interfaces.DocumentDataFilter;
 import org.wikidata.wdtk.datamodel.interfaces.EntityDocument;
+import org.wikidata.wdtk.wikibaseapi.apierrors.MaxlagErrorException;
 import org.wikidata.wdtk.wikibaseapi.apierrors.MediaWikiApiErrorException;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 /**
  * Simple class to fetch data from Wikibase via the online API.
+ * <p>
+ * Large lists of entities are fetched in several requests. These requests
+ * can be sent concurrently, see {@link #setMaxConcurrentRequests(int)} and
+ * {@link #getEntityDocumentsAsync(List)}. All requests pass through a
+ * {@link RequestRateLimiter} that can be shared with other fetchers.
  *
  * @author Markus Kroetzsch
  * @author Michael Guenther
@@ -75,6 +94,44 @@ public class WikibaseDataFetcher {
 	 */
 	int maxListSize = 50;
 
+	/**
+	 * Time in milliseconds that all requests are paused after the server
+	 * reported a maxlag error.
+	 */
+	static int MAXLAG_SLEEP_TIME = 5000;
+
+	/**
+	 * Number of times a request is tried when the server reports maxlag
+	 * errors.
+	 */
+	static final int MAXLAG_RETRIES = 5;
+
+	/**
+	 * Maximal number of requests that are sent at the same time.
+	 */
+	int maxConcurrentRequests = 1;
+
+	/**
+	 * Value in seconds of MediaWiki's maxlag parameter, or 0 if the parameter
+	 * should not be sent.
+	 */
+	int maxLag = 0;
+
+	/**
+	 * Limiter used for all requests of this fetcher.
+	 */
+	RequestRateLimiter rateLimiter = new RequestRateLimiter(0);
+
+	/**
+	 * Executor for concurrent requests, created on demand.
+	 */
+	ExecutorService executor = null;
+
+	/**
+	 * Cache for documents, or null if no cache is used.
+	 */
+	EntityDocumentCache cache = null;
+
 	/**
 	 * Creates an object to fetch data from wikidata.org. This convenience
 	 * method creates a default {@link ApiConnection} that is not logged in. To
@@ -121,6 +178,106 @@ public class WikibaseDataFetcher {
 		return this.filter;
 	}
 
+	/**
+	 * Returns the maximal number of requests that are sent at the same time
+	 * when fetching many entities.
+	 *
+	 * @return number of requests
+	 */
+	public int getMaxConcurrentRequests() {
+		return this.maxConcurrentRequests;
+	}
+
+	/**
+	 * Sets the maximal number of requests that are sent at the same time when
+	 * fetching many entities. The default is 1, which means that requests are
+	 * sent one after the other. Larger values make fetching faster if the
+	 * time is dominated by network latency, but should be used with care
+	 * against public sites.
+	 *
+	 * @param maxConcurrentRequests
+	 *            number of requests, at least 1
+	 */
+	public synchronized void setMaxConcurrentRequests(int maxConcurrentRequests) {
+		if (maxConcurrentRequests < 1) {
+			throw new IllegalArgumentException(
+					"At least one request must be allowed.");
+		}
+		if (this.executor != null) {
+			this.executor.shutdown();
+			this.executor = null;
+		}
+		this.maxConcurrentRequests = maxConcurrentRequests;
+	}
+
+	/**
+	 * Returns the current value of the maxlag parameter, or 0 if the
+	 * parameter is not used. See {@link #setMaxLag(int)}.
+	 *
+	 * @return maxlag in seconds
+	 */
+	public int getMaxLag() {
+		return this.maxLag;
+	}
+
+	/**
+	 * Sets the value of MediaWiki's maxlag parameter for requests. If the
+	 * replication lag of the server is larger than this value, requests are
+	 * refused; all requests that use the same {@link RequestRateLimiter} are
+	 * then paused for a while before trying again. A value of 0 means that
+	 * the parameter is not sent, which is the default.
+	 *
+	 * @param maxLag
+	 *            maxlag in seconds, or 0
+	 */
+	public void setMaxLag(int maxLag) {
+		this.maxLag = maxLag;
+	}
+
+	/**
+	 * Returns the cache that is used for documents fetched by id, or null if
+	 * no cache is used.
+	 *
+	 * @return the cache or null
+	 */
+	public EntityDocumentCache getCache() {
+		return this.cache;
+	}
+
+	/**
+	 * Sets the cache that is used for documents fetched by id. By default, no
+	 * cache is used. The cache must have been created for the same site as
+	 * this fetcher. It can be shared by several fetchers for the same site,
+	 * even if they use different filters.
+	 *
+	 * @param cache
+	 *            the cache, or null if no cache should be used
+	 */
+	public void setCache(EntityDocumentCache cache) {
+		this.cache = cache;
+	}
+
+	/**
+	 * Returns the limiter that is used for all requests of this fetcher.
+	 *
+	 * @return the rate limiter
+	 */
+	public RequestRateLimiter getRateLimiter() {
+		return this.rateLimiter;
+	}
+
+	/**
+	 * Sets the limiter that is used for all requests of this fetcher. The same
+	 * limiter can be used by several fetchers to limit their combined request
+	 * rate.
+	 *
+	 * @param rateLimiter
+	 *            the rate limiter
+	 */
+	public void setRateLimiter(RequestRateLimiter rateLimiter) {
+		this.rateLimiter = rateLimiter;
+	}
+
 	/**
 	 * Fetches the documents for the entity of the given string IDs. The result
 	 * is an {@link EntityDocument} or null if the data could not be fetched.
@@ -166,6 +323,121 @@ public class WikibaseDataFetcher {
 	 */
 	public Map<String, EntityDocument> getEntityDocuments(List<String> entityIds)
 			throws MediaWikiApiErrorException {
+		if (this.cache != null) {
+			return getEntityDocumentsCached(entityIds);
+		}
+		return fetchEntityDocuments(entityIds);
+	}
+
+	/**
+	 * Returns the documents for the given entities, using the cache where
+	 * possible. Cached documents that need to be revalidated are only fetched
+	 * again if their revision has changed.
+	 *
+	 * @param entityIds
+	 *            list of string IDs of requested entities
+	 * @return map from IDs for which data could be found to the documents
+	 * @throws MediaWikiApiErrorException
+	 */
+	Map<String, EntityDocument> getEntityDocumentsCached(List<String> entityIds)
+			throws MediaWikiApiErrorException {
+		String filterKey = EntityDocumentCache.getFilterKey(this.filter);
+		Map<String, EntityDocument> result = new HashMap<>();
+		Map<String, EntityDocumentCache.Entry> toRevalidate = new HashMap<>();
+		List<String> toFetch = new ArrayList<>();
+		for (String entityId : entityIds) {
+			EntityDocumentCache.Entry entry = this.cache.lookup(filterKey,
+					entityId);
+			if (entry == null) {
+				toFetch.add(entityId);
+			} else if (this.cache.isFresh(entry)) {
+				result.put(entityId, entry.document);
+			} else {
+				toRevalidate.put(entityId, entry);
+			}
+		}
+
+		if (!toRevalidate.isEmpty()) {
+			Map<String, Long> revisionIds = getRevisionIds(new ArrayList<>(
+					toRevalidate.keySet()));
+			for (Map.Entry<String, EntityDocumentCache.Entry> entry : toRevalidate
+					.entrySet()) {
+				EntityDocument document = entry.getValue().document;
+				Long revisionId = revisionIds.get(entry.getKey());
+				if (revisionId != null
+						&& revisionId == document.getRevisionId()) {
+					this.cache.markValidated(entry.getValue());
+					result.put(entry.getKey(), document);
+				} else {
+					this.cache.markStale();
+					toFetch.add(entry.getKey());
+				}
+			}
+		}
+
+		if (!toFetch.isEmpty()) {
+			Map<String, EntityDocument> fetched = fetchEntityDocuments(toFetch);
+			for (EntityDocument document : fetched.values()) {
+				this.cache.put(this.filter, document);
+			}
+			result.putAll(fetched);
+		}
+		return result;
+	}
+
+	/**
+	 * Fetches the current revision ids of the given entities. This is much
+	 * cheaper than fetching the documents, and can be used to find out if
+	 * documents have changed. Requests are retried on maxlag errors as when
+	 * fetching documents.
+	 *
+	 * @param entityIds
+	 *            list of string IDs (e.g., "P31", "Q42") of entities
+	 * @return map from IDs of entities that were found to their current
+	 *         revision ids
+	 * @throws MediaWikiApiErrorException
+	 */
+	public Map<String, Long> getRevisionIds(List<String> entityIds)
+			throws MediaWikiApiErrorException {
+		Map<String, Long> result = new HashMap<>();
+		for (int i = 0; i < entityIds.size(); i += this.maxListSize) {
+			List<String> subListOfEntityIds = entityIds.subList(i,
+					Math.min(entityIds.size(), i + this.maxListSize));
+			WbGetEntitiesActionData properties = new WbGetEntitiesActionData();
+			properties.ids = ApiConnection.implodeObjects(subListOfEntityIds);
+			properties.props = "info|datatype";
+			if (this.maxLag > 0) {
+				properties.maxlag = Integer.toString(this.maxLag);
+			}
+			wbGetEntities(properties, (id, document) -> result.put(id,
+					document.getRevisionId()));
+		}
+		return result;
+	}
+
+	/**
+	 * Fetches the documents for the entities of the given string IDs from the
+	 * API, without using the cache.
+	 *
+	 * @param entityIds
+	 *            list of string IDs of requested entities
+	 * @return map from IDs for which data could be found to the documents that
+	 *         were retrieved
+	 * @throws MediaWikiApiErrorException
+	 */
+	Map<String, EntityDocument> fetchEntityDocuments(List<String> entityIds)
+			throws MediaWikiApiErrorException {
+		if (this.maxConcurrentRequests > 1 && entityIds.size() > maxListSize) {
+			try {
+				return getEntityDocumentsAsync(entityIds).join();
+			} catch (CompletionException e) {
+				if (e.getCause() instanceof MediaWikiApiErrorException) {
+					throw (MediaWikiApiErrorException) e.getCause();
+				}
+				throw e;
+			}
+		}
+
 		Map<String, EntityDocument> result = new HashMap<>();
 		List<String> newEntityIds = new ArrayList<>();
 		newEntityIds.addAll(entityIds);
@@ -186,6 +458,71 @@ public class WikibaseDataFetcher {
 		return result;
 	}
 
+	/**
+	 * Fetches the documents for the entities of the given string IDs
+	 * asynchronously. The IDs are split into requests of at most 50 entities,
+	 * and up to {@link #getMaxConcurrentRequests()} of these requests are sent
+	 * at the same time. The resulting future is completed with a map from
+	 * entity IDs to the documents that could be found, or completed
+	 * exceptionally with a {@link MediaWikiApiErrorException} if a request
+	 * failed.
+	 *
+	 * @param entityIds
+	 *            list of string IDs (e.g., "P31", "Q42") of requested entities
+	 * @return future map from IDs for which data could be found to the
+	 *         documents that were retrieved
+	 */
+	public CompletableFuture<Map<String, EntityDocument>> getEntityDocumentsAsync(
+			List<String> entityIds) {
+		Map<String, EntityDocument> result = new ConcurrentHashMap<>();
+		return processEntityDocumentsAsync(entityIds, result::put).thenApply(
+				v -> result);
+	}
+
+	/**
+	 * Fetches the documents for the entities of the given string IDs
+	 * asynchronously and passes each document to the given consumer as soon
+	 * as its request has finished. This avoids keeping all documents in
+	 * memory. Requests are sent as described for
+	 * {@link #getEntityDocumentsAsync(List)}. The consumer is called from the
+	 * threads that execute the requests, but never by two threads at the same
+	 * time.
+	 *
+	 * @param entityIds
+	 *            list of string IDs (e.g., "P31", "Q42") of requested entities
+	 * @param consumer
+	 *            receives the ID and document of each entity that was found
+	 * @return future that is completed when all documents have been processed
+	 */
+	public CompletableFuture<Void> processEntityDocumentsAsync(
+			List<String> entityIds,
+			BiConsumer<String, EntityDocument> consumer) {
+		ExecutorService executor = getExecutor();
+		List<CompletableFuture<Void>> futures = new ArrayList<>();
+		for (int i = 0; i < entityIds.size(); i += maxListSize) {
+			List<String> subListOfEntityIds = new ArrayList<>(
+					entityIds.subList(i,
+							Math.min(i + maxListSize, entityIds.size())));
+			futures.add(CompletableFuture.runAsync(() -> {
+				WbGetEntitiesActionData properties = new WbGetEntitiesActionData();
+				properties.ids = ApiConnection
+						.implodeObjects(subListOfEntityIds);
+				try {
+					processEntityDocuments(subListOfEntityIds.size(),
+							properties, (key, document) -> {
+								synchronized (consumer) {
+									consumer.accept(key, document);
+								}
+							});
+				} catch (MediaWikiApiErrorException e) {
+					throw new CompletionException(e);
+				}
+			}, executor));
+		}
+		return CompletableFuture.allOf(futures
+				.toArray(new CompletableFuture<?>[futures.size()]));
+	}
+
 	/**
 	 * Fetches the document for the entity that has a page of the given title on
 	 * the given site. Site keys should be some site identifier known to the
@@ -291,8 +628,101 @@ public class WikibaseDataFetcher {
 		if (numOfEntities == 0) {
 			return Collections.emptyMap();
 		}
+		Map<String, EntityDocument> result = new HashMap<>();
+		processEntityDocuments(numOfEntities, properties, result::put);
+		return result;
+	}
+
+	/**
+	 * Retrieves documents via the API and passes them to the given consumer
+	 * one at a time, as soon as they have been read from the response. The
+	 * request is retried if the server reports a maxlag error. Since the
+	 * error may come after some documents have been passed on already, each
+	 * identifier or title is passed to the consumer at most once, also
+	 * across retries.
+	 *
+	 * @param numOfEntities
+	 *            number of entities that should be retrieved
+	 * @param properties
+	 *            WbGetEntitiesProperties object that includes all relevant
+	 *            parameters for the wbgetentities action
+	 * @param consumer
+	 *            receives the identifier or title and the document of each
+	 *            entity that was found
+	 * @throws MediaWikiApiErrorException
+	 */
+	void processEntityDocuments(int numOfEntities,
+			WbGetEntitiesActionData properties,
+			BiConsumer<String, EntityDocument> consumer)
+			throws MediaWikiApiErrorException {
+		if (numOfEntities == 0) {
+			return;
+		}
 		configureProperties(properties);
-		return this.wbGetEntitiesAction.wbGetEntities(properties);
+		Set<String> processedKeys = new HashSet<>(numOfEntities * 4 / 3 + 1);
+		BiConsumer<String, EntityDocument> newDocumentConsumer = (key,
+				document) -> {
+			if (processedKeys.add(key)) {
+				consumer.accept(key, document);
+			}
+		};
+		wbGetEntities(properties, newDocumentConsumer);
+	}
+
+	/**
+	 * Executes the given wbgetentities request, passing the documents of the
+	 * response to the given consumer. The request is retried if the server
+	 * reports a maxlag error, so the consumer may receive a document more
+	 * than once.
+	 *
+	 * @param properties
+	 *            parameters of the request
+	 * @param consumer
+	 *            receives the identifier or title and the document of each
+	 *            entity that was found
+	 * @throws MediaWikiApiErrorException
+	 */
+	void wbGetEntities(WbGetEntitiesActionData properties,
+			BiConsumer<String, EntityDocument> consumer)
+			throws MediaWikiApiErrorException {
+		int retry = MAXLAG_RETRIES;
+		while (true) {
+			this.rateLimiter.acquire();
+			try {
+				this.wbGetEntitiesAction.wbGetEntities(properties, consumer);
+				return;
+			} catch (MaxlagErrorException e) {
+				retry--;
+				if (retry == 0) {
+					logger.error("Gave up after several retries. Last error was: "
+							+ e.toString());
+					throw e;
+				}
+				logger.warn(e.getMessage() + " -- pausing requests for "
+						+ MAXLAG_SLEEP_TIME + " milliseconds.");
+				this.rateLimiter.pause(MAXLAG_SLEEP_TIME);
+			}
+		}
+	}
+
+	/**
+	 * Returns the executor used for concurrent requests. It is created when
+	 * needed and uses daemon threads, so that it does not need to be shut down
+	 * explicitly.
+	 *
+	 * @return the executor
+	 */
+	synchronized ExecutorService getExecutor() {
+		if (this.executor == null) {
+			this.executor = Executors.newFixedThreadPool(
+					this.maxConcurrentRequests, runnable -> {
+						Thread thread = new Thread(runnable,
+								"wikibase-data-fetcher");
+						thread.setDaemon(true);
+						return thread;
+					});
+		}
+		return this.executor;
 	}
 
 	public List<WbSearchEntitiesResult> searchEntities(String search)
@@ -335,7 +765,67 @@ public class WikibaseDataFetcher {
 	}
 
 	/**
-	 * Configures props, languages and sitefilter properties.
+	 * Returns an iterator over the results of the given search. Results are
+	 * fetched page by page, following the continuation offsets of the API;
+	 * the next page is fetched in the background while the current page is
+	 * consumed. See {@link WbSearchEntitiesIterator} for details.
+	 *
+	 * @param properties
+	 *            parameters of the search; the limit is used as the page size
+	 *            (default {@link WbSearchEntitiesIterator#DEFAULT_PAGE_SIZE})
+	 *            and the offset as the start of the first page
+	 * @param maxResults
+	 *            maximal number of results, or 0 if all results should be
+	 *            returned
+	 * @return iterator over the results
+	 */
+	public Iterator<WbSearchEntitiesResult> iterateSearchEntities(
+			WbGetEntitiesSearchData properties, long maxResults) {
+		return new WbSearchEntitiesIterator(this.wbSearchEntitiesAction,
+				this.rateLimiter, getExecutor(), properties, maxResults);
+	}
+
+	/**
+	 * Returns a stream of the results of the given search. Results are
+	 * fetched as for {@link #iterateSearchEntities(WbGetEntitiesSearchData, long)}.
+	 *
+	 * @param properties
+	 *            parameters of the search
+	 * @param maxResults
+	 *            maximal number of results, or 0 if all results should be
+	 *            returned
+	 * @return stream of the results
+	 */
+	public Stream<WbSearchEntitiesResult> streamSearchEntities(
+			WbGetEntitiesSearchData properties, long maxResults) {
+		return StreamSupport.stream(Spliterators.spliteratorUnknownSize(
+				iterateSearchEntities(properties, maxResults),
+				Spliterator.ORDERED | Spliterator.NONNULL), false);
+	}
+
+	/**
+	 * Returns a stream of the results of a search in the given language.
+	 *
+	 * @see #streamSearchEntities(WbGetEntitiesSearchData, long)
+	 * @param search
+	 *            the text to search for
+	 * @param language
+	 *            the language to search in
+	 * @param maxResults
+	 *            maximal number of results, or 0 if all results should be
+	 *            returned
+	 * @return stream of the results
+	 */
+	public Stream<WbSearchEntitiesResult> streamSearchEntities(String search,
+			String language, long maxResults) {
+		WbGetEntitiesSearchData properties = new WbGetEntitiesSearchData();
+		properties.search = search;
+		properties.language = language;
+		return streamSearchEntities(properties, maxResults);
+	}
+
+	/**
+	 * Configures props, languages, sitefilter and maxlag properties.
 	 *
 	 * @param properties
 	 */
@@ -343,6 +833,9 @@ public class WikibaseDataFetcher {
 		setRequestProps(properties);
 		setRequestLanguages(properties);
 		setRequestSitefilter(properties);
+		if (this.maxLag > 0) {
+			properties.maxlag = Integer.toString(this.maxLag);
+		}
 	}
 
 	/**
@@ -41,6 +41,7 @@ import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 import org.wikidata.wdtk.util.CompressionType;
+import org.wikidata.wdtk.wikibaseapi.apierrors.MaxlagErrorException;
 import org.wikidata.wdtk.wikibaseapi.apierrors.MediaWikiApiErrorException;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
@@ -265,14 +266,41 @@ public class ApiConnectionTest {
 	public void testSetupConnection() throws IOException {
 		URL url = new URL("http://example.org/");
 		HttpURLConnection connection = (HttpURLConnection) url.openConnection();
-		con.setupConnection("POST", "", connection);
+		new UrlConnectionHttpTransport().setupConnection("POST",
+				con.getRequestHeaders(), connection);
 		assertEquals("POST",
 				connection.getRequestMethod());
 		assertEquals("application/x-www-form-urlencoded",
 				connection.getRequestProperty("Content-Type"));
+		assertEquals("gzip", connection.getRequestProperty("Accept-Encoding"));
 
 	}
 
+	@Test
+	public void testGetRetryAfter() {
+		Map<String, List<String>> headers = new HashMap<>();
+		assertEquals(-1, ApiConnection.getRetryAfter(headers));
+		headers.put("retry-after", Arrays.asList("120"));
+		assertEquals(120000, ApiConnection.getRetryAfter(headers));
+		headers.put("retry-after", Arrays.asList("Wed, 21 Oct 2015 07:28:00 GMT"));
+		assertEquals(0, ApiConnection.getRetryAfter(headers));
+		headers.put("retry-after", Arrays.asList("soon"));
+		assertEquals(-1, ApiConnection.getRetryAfter(headers));
+	}
+
+	@Test
+	public void testMaxlagError() throws IOException {
+		JsonNode root = mapper.readTree("{\"error\":{\"code\":\"maxlag\",\"info\":\"Waiting for a database server: 7 seconds lagged\",\"lag\":7.5}}");
+		try {
+			con.checkErrors(root);
+			Assert.fail("Expected an exception");
+		} catch (MaxlagErrorException e) {
+			assertEquals(7.5, e.getLag(), 0);
+		} catch (MediaWikiApiErrorException e) {
+			Assert.fail("Expected a maxlag error");
+		}
+	}
+
 	@Test
 	public void testClearCookies() throws IOException {
 		con.cookies.put("Content", "some content");
@@ -0,0 +1,236 @@
+package org.wikidata.wdtk.wikibaseapi;
+
+/*
+ * #%L
+ * Wikidata Toolkit Wikibase API
+ * %%
+ * Copyright (C) 2014 - 2015 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.wikidata.wdtk.datamodel.helpers.Datamodel;
+import org.wikidata.wdtk.datamodel.helpers.ItemDocumentBuilder;
+import org.wikidata.wdtk.datamodel.helpers.StatementBuilder;
+import org.wikidata.wdtk.datamodel.interfaces.EntityDocument;
+import org.wikidata.wdtk.datamodel.interfaces.ItemIdValue;
+import org.wikidata.wdtk.datamodel.interfaces.Statement;
+import org.wikidata.wdtk.datamodel.interfaces.StatementDocument;
+import org.wikidata.wdtk.wikibaseapi.apierrors.MediaWikiApiErrorException;
+import org.wikidata.wdtk.wikibaseapi.apierrors.NoSuchEntityErrorException;
+
+public class BulkEditQueueTest {
+
+	/**
+	 * Fetcher that serves documents from memory.
+	 */
+	class StubFetcher extends WikibaseDataFetcher {
+
+		final List<Integer> batchSizes = Collections
+				.synchronizedList(new ArrayList<>());
+
+		StubFetcher() {
+			super(new MockApiConnection(), Datamodel.SITE_WIKIDATA);
+		}
+
+		@Override
+		public Map<String, EntityDocument> getEntityDocuments(
+				List<String> entityIds) throws MediaWikiApiErrorException {
+			batchSizes.add(entityIds.size());
+			Map<String, EntityDocument> result = new HashMap<>();
+			for (String entityId : entityIds) {
+				Long revision = revisions.get(entityId);
+				if (revision != null) {
+					result.put(entityId, makeDocument(entityId, revision));
+				}
+			}
+			return result;
+		}
+	}
+
+	/**
+	 * Editor that records edits instead of sending them.
+	 */
+	class StubEditor extends WikibaseDataEditor {
+
+		final List<String> editedIds = Collections
+				.synchronizedList(new ArrayList<>());
+
+		StubEditor() {
+			super(new MockApiConnection(), Datamodel.SITE_WIKIDATA);
+		}
+
+		@Override
+		EntityDocument performUpdate(StatementDocument currentDocument,
+				StatementUpdate update, String summary)
+				throws MediaWikiApiErrorException {
+			String entityId = currentDocument.getEntityId().getId();
+			if ("Q666".equals(entityId)) {
+				throw new MediaWikiApiErrorException("failed", "Edit failed");
+			}
+			editedIds.add(entityId);
+			long revision = revisions.get(entityId) + 1;
+			revisions.put(entityId, revision);
+			return makeDocument(entityId, revision);
+		}
+	}
+
+	final Map<String, Long> revisions = Collections
+			.synchronizedMap(new HashMap<>());
+
+	StubFetcher fetcher;
+	StubEditor editor;
+	BulkEditQueue queue;
+
+	static StatementDocument makeDocument(String entityId, long revision) {
+		return ItemDocumentBuilder
+				.forItemId(Datamodel.makeWikidataItemIdValue(entityId))
+				.withRevisionId(revision).build();
+	}
+
+	static List<Statement> makeStatements(String entityId) {
+		ItemIdValue itemId = Datamodel.makeWikidataItemIdValue(entityId);
+		return Collections.singletonList(StatementBuilder
+				.forSubjectAndProperty(itemId,
+						Datamodel.makeWikidataPropertyIdValue("P31"))
+				.withValue(Datamodel.makeWikidataItemIdValue("Q5")).build());
+	}
+
+	@Before
+	public void setUp() {
+		this.fetcher = new StubFetcher();
+		this.editor = new StubEditor();
+		this.queue = new BulkEditQueue(this.editor, this.fetcher, 2, 1);
+	}
+
+	@After
+	public void tearDown() {
+		this.queue.close();
+	}
+
+	@Test
+	public void testBulkEdits() throws InterruptedException,
+			ExecutionException {
+		List<CompletableFuture<EntityDocument>> futures = new ArrayList<>();
+		for (int i = 1; i <= 120; i++) {
+			String entityId = "Q" + i;
+			this.revisions.put(entityId, 10L);
+			futures.add(this.queue.submitStatementUpdate(
+					Datamodel.makeWikidataItemIdValue(entityId),
+					makeStatements(entityId),
+					Collections.<Statement> emptyList(), "test"));
+		}
+		this.queue.awaitCompletion();
+
+		for (CompletableFuture<EntityDocument> future : futures) {
+			assertEquals(11, future.get().getRevisionId());
+		}
+		assertEquals(120, this.editor.editedIds.size());
+		assertEquals(120, this.queue.getCompletedEditCount());
+		assertEquals(0, this.queue.getPendingEditCount());
+		assertTrue(this.queue.getFailures().isEmpty());
+		int fetched = 0;
+		for (int batchSize : this.fetcher.batchSizes) {
+			assertTrue(batchSize <= BulkEditQueue.DEFAULT_BATCH_SIZE);
+			fetched += batchSize;
+		}
+		assertEquals(120, fetched);
+		assertTrue(this.fetcher.batchSizes.size() < 120);
+	}
+
+	@Test
+	public void testEmptyEditSkipped() throws InterruptedException,
+			ExecutionException {
+		this.revisions.put("Q1", 5L);
+		CompletableFuture<EntityDocument> future = this.queue.submit(
+				Datamodel.makeWikidataItemIdValue("Q1"), document -> null,
+				"test");
+		assertEquals(5, future.get().getRevisionId());
+		assertEquals(1, this.queue.getSkippedEditCount());
+		assertTrue(this.editor.editedIds.isEmpty());
+	}
+
+	@Test
+	public void testEditsOfSameEntityInOrder() throws InterruptedException,
+			ExecutionException {
+		this.revisions.put("Q1", 1L);
+		List<Long> seenRevisions = Collections
+				.synchronizedList(new ArrayList<>());
+		CompletableFuture<EntityDocument> first = null, last = null;
+		for (int i = 0; i < 3; i++) {
+			last = this.queue.submit(Datamodel.makeWikidataItemIdValue("Q1"),
+					document -> {
+						seenRevisions.add(document.getRevisionId());
+						return new StatementUpdate(document,
+								makeStatements("Q1"), Collections
+										.<Statement> emptyList());
+					}, "test");
+			if (first == null) {
+				first = last;
+			}
+		}
+		assertEquals(4, last.get().getRevisionId());
+		assertEquals(2, first.get().getRevisionId());
+		assertEquals(Arrays.asList(1L, 2L, 3L), seenRevisions);
+	}
+
+	@Test
+	public void testFailures() throws InterruptedException {
+		this.revisions.put("Q666", 1L);
+		CompletableFuture<EntityDocument> missing = this.queue
+				.submitStatementUpdate(Datamodel.makeWikidataItemIdValue("Q42"),
+						makeStatements("Q42"),
+						Collections.<Statement> emptyList(), "test");
+		CompletableFuture<EntityDocument> failing = this.queue
+				.submitStatementUpdate(
+						Datamodel.makeWikidataItemIdValue("Q666"),
+						makeStatements("Q666"),
+						Collections.<Statement> emptyList(), "test");
+		this.queue.awaitCompletion();
+
+		try {
+			missing.get();
+			fail("Expected an exception");
+		} catch (ExecutionException e) {
+			assertTrue(e.getCause() instanceof NoSuchEntityErrorException);
+		}
+		assertTrue(failing.isCompletedExceptionally());
+		assertEquals(2, this.queue.getFailures().size());
+		assertEquals(0, this.queue.getCompletedEditCount());
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testSubmitAfterClose() {
+		this.queue.close();
+		this.queue.submit(Datamodel.makeWikidataItemIdValue("Q1"),
+				document -> null, "test");
+	}
+
+}
@@ -0,0 +1,186 @@
+package org.wikidata.wdtk.wikibaseapi;
+
+/*
+ * #%L
+ * Wikidata Toolkit Wikibase API
+ * %%
+ * Copyright (C) 2014 - 2015 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.Test;
+import org.wikidata.wdtk.datamodel.helpers.Datamodel;
+import org.wikidata.wdtk.datamodel.helpers.ItemDocumentBuilder;
+import org.wikidata.wdtk.datamodel.interfaces.EntityDocument;
+import org.wikidata.wdtk.wikibaseapi.apierrors.MediaWikiApiErrorException;
+import org.wikidata.wdtk.wikibaseapi.apierrors.NoSuchEntityErrorException;
+
+public class CoalescingEntityFetcherTest {
+
+	/**
+	 * Fetcher that records requests instead of sending them. Requests wait
+	 * until the latch is released.
+	 */
+	static class StubFetcher extends WikibaseDataFetcher {
+
+		final List<List<String>> requests = Collections
+				.synchronizedList(new ArrayList<>());
+		final CountDownLatch latch;
+
+		StubFetcher(CountDownLatch latch) {
+			super(new MockApiConnection(), Datamodel.SITE_WIKIDATA);
+			this.latch = latch;
+		}
+
+		@Override
+		public Map<String, EntityDocument> getEntityDocuments(
+				List<String> entityIds) throws MediaWikiApiErrorException {
+			requests.add(new ArrayList<>(entityIds));
+			try {
+				latch.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			Map<String, EntityDocument> result = new HashMap<>();
+			for (String entityId : entityIds) {
+				if ("bogus".equals(entityId)) {
+					throw new NoSuchEntityErrorException("No such entity");
+				}
+				result.put(entityId, ItemDocumentBuilder.forItemId(
+						Datamodel.makeWikidataItemIdValue(entityId)).build());
+			}
+			return result;
+		}
+	}
+
+	@Test
+	public void testSharedInFlightLookup() throws Exception {
+		CountDownLatch latch = new CountDownLatch(1);
+		StubFetcher stub = new StubFetcher(latch);
+		CoalescingEntityFetcher fetcher = new CoalescingEntityFetcher(stub, 50,
+				0);
+
+		CompletableFuture<EntityDocument> future1 = fetcher
+				.getEntityDocumentAsync("Q1");
+		CompletableFuture<EntityDocument> future2 = fetcher
+				.getEntityDocumentAsync("Q1");
+		assertTrue(future1 == future2);
+		latch.countDown();
+
+		assertEquals("Q1", future1.get().getEntityId().getId());
+		assertEquals(1, stub.requests.size());
+		assertEquals(2, fetcher.getLookupCount());
+		assertEquals(1, fetcher.getCoalescedLookupCount());
+
+		// finished lookups are not shared
+		fetcher.getEntityDocument("Q1");
+		assertEquals(2, stub.requests.size());
+	}
+
+	@Test
+	public void testFullBatchIsSentImmediately() throws Exception {
+		StubFetcher stub = new StubFetcher(new CountDownLatch(0));
+		CoalescingEntityFetcher fetcher = new CoalescingEntityFetcher(stub, 3,
+				100000);
+
+		fetcher.getEntityDocumentAsync("Q1");
+		fetcher.getEntityDocumentAsync("Q2");
+		CompletableFuture<EntityDocument> future = fetcher
+				.getEntityDocumentAsync("Q3");
+
+		assertNotNull(future.get());
+		assertEquals(Collections.singletonList(Arrays.asList("Q1", "Q2", "Q3")),
+				stub.requests);
+		assertEquals(1, fetcher.getBatchCount());
+	}
+
+	@Test
+	public void testLookupsWithinDelayAreMerged() throws Exception {
+		StubFetcher stub = new StubFetcher(new CountDownLatch(0));
+		CoalescingEntityFetcher fetcher = new CoalescingEntityFetcher(stub, 50,
+				50);
+
+		CompletableFuture<EntityDocument> future1 = fetcher
+				.getEntityDocumentAsync("Q1");
+		CompletableFuture<EntityDocument> future2 = fetcher
+				.getEntityDocumentAsync("Q2");
+
+		assertEquals("Q1", future1.get().getEntityId().getId());
+		assertEquals("Q2", future2.get().getEntityId().getId());
+		assertEquals(Collections.singletonList(Arrays.asList("Q1", "Q2")),
+				stub.requests);
+	}
+
+	@Test
+	public void testGetEntityDocumentsWithMissingEntity()
+			throws MediaWikiApiErrorException {
+		StubFetcher stub = new StubFetcher(new CountDownLatch(0));
+		CoalescingEntityFetcher fetcher = new CoalescingEntityFetcher(stub,
+				50, 100000);
+
+		Map<String, EntityDocument> result = fetcher.getEntityDocuments(Arrays
+				.asList("Q1", "bogus", "Q2", "Q1"));
+
+		assertEquals(2, result.size());
+		assertTrue(result.containsKey("Q1"));
+		assertTrue(result.containsKey("Q2"));
+		CompletableFuture<EntityDocument> future = fetcher
+				.getEntityDocumentAsync("bogus");
+		fetcher.flush();
+		assertNull(future.join());
+	}
+
+	@Test
+	public void testCloseSendsPendingLookups() throws Exception {
+		StubFetcher stub = new StubFetcher(new CountDownLatch(0));
+		CoalescingEntityFetcher fetcher = new CoalescingEntityFetcher(stub,
+				50, 100000);
+		CompletableFuture<EntityDocument> future1 = fetcher
+				.getEntityDocumentAsync("Q1");
+
+		fetcher.close();
+
+		assertEquals("Q1", future1.get().getEntityId().getId());
+		assertTrue(fetcher.timer.isShutdown());
+		CompletableFuture<EntityDocument> future2 = fetcher
+				.getEntityDocumentAsync("Q2");
+		assertEquals("Q2", future2.get().getEntityId().getId());
+		assertEquals(2, stub.requests.size());
+	}
+
+	@Test
+	public void testBatchSizeIsLimitedByRequestSize() {
+		StubFetcher stub = new StubFetcher(new CountDownLatch(0));
+		try (CoalescingEntityFetcher fetcher = new CoalescingEntityFetcher(
+				stub, 200, 10)) {
+			assertEquals(stub.maxListSize, fetcher.batchSize);
+		}
+	}
+
+}
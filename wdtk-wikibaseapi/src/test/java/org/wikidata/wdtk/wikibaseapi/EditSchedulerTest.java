@@ -0,0 +1,161 @@
+package org.wikidata.wdtk.wikibaseapi;
+
+/*
+ * #%L
+ * Wikidata Toolkit Wikibase API
+ * %%
+ * Copyright (C) 2014 - 2015 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class EditSchedulerTest {
+
+	static long timeAcquires(EditScheduler scheduler, int count) {
+		long start = System.nanoTime();
+		for (int i = 0; i < count; i++) {
+			scheduler.acquire();
+		}
+		return (System.nanoTime() - start) / 1000000;
+	}
+
+	@Test
+	public void testBurst() {
+		EditScheduler scheduler = new EditScheduler(1000, 3);
+		assertTrue(timeAcquires(scheduler, 3) < 500);
+		assertEquals(3, scheduler.getEditCount());
+	}
+
+	@Test
+	public void testRate() {
+		EditScheduler scheduler = new EditScheduler(50, 1);
+		assertTrue(timeAcquires(scheduler, 5) >= 190);
+		assertEquals(20.0, scheduler.getCurrentRate(), 0.001);
+	}
+
+	@Test
+	public void testUnlimited() {
+		EditScheduler scheduler = new EditScheduler(0, 1);
+		assertTrue(timeAcquires(scheduler, 100) < 500);
+		assertEquals(Double.POSITIVE_INFINITY, scheduler.getCurrentRate(), 0);
+	}
+
+	@Test
+	public void testSetAverageTimePerEdit() {
+		EditScheduler scheduler = new EditScheduler(1000, 1);
+		scheduler.setAverageTimePerEdit(250);
+		assertEquals(250, scheduler.getAverageTimePerEdit());
+		assertEquals(4.0, scheduler.getCurrentRate(), 0.001);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testInvalidBurstSize() {
+		new EditScheduler(1000, 0);
+	}
+
+	@Test
+	public void testReportLag() {
+		EditScheduler scheduler = new EditScheduler(100, 1);
+		assertEquals(-1, scheduler.getLastLag(), 0);
+
+		long delay = scheduler.reportLag(3.5, 100);
+		assertTrue(delay >= 100 && delay <= 150);
+		assertEquals(5.0, scheduler.getCurrentRate(), 0.001);
+		assertEquals(3.5, scheduler.getLastLag(), 0);
+
+		delay = scheduler.reportLag(-1, 100);
+		assertTrue(delay >= 200 && delay <= 300);
+		assertEquals(2.5, scheduler.getCurrentRate(), 0.001);
+		assertEquals(3.5, scheduler.getLastLag(), 0);
+		assertEquals(2, scheduler.getLagReportCount());
+
+		scheduler.reportSuccess();
+		assertTrue(scheduler.getCurrentRate() > 2.5);
+		delay = scheduler.reportLag(-1, 100);
+		assertTrue(delay >= 100 && delay <= 150);
+	}
+
+	@Test
+	public void testSlowdownLimited() {
+		EditScheduler scheduler = new EditScheduler(100, 1);
+		for (int i = 0; i < 20; i++) {
+			scheduler.reportLag(10, 0);
+		}
+		assertEquals(10.0 / EditScheduler.MAX_SLOWDOWN,
+				scheduler.getCurrentRate(), 0.001);
+		for (int i = 0; i < 100; i++) {
+			scheduler.reportSuccess();
+		}
+		assertEquals(10.0, scheduler.getCurrentRate(), 0.001);
+	}
+
+	@Test
+	public void testBackoffLimited() {
+		EditScheduler scheduler = new EditScheduler(0, 1);
+		long delay = scheduler.reportLag(-1, Long.MAX_VALUE);
+		assertTrue(delay <= EditScheduler.MAX_BACKOFF_MSECS * 3 / 2);
+	}
+
+	@Test
+	public void testPause() throws InterruptedException {
+		EditScheduler scheduler = new EditScheduler(0, 1);
+		scheduler.reportLag(-1, 200);
+
+		Thread thread = new Thread(scheduler::acquire);
+		thread.start();
+		Thread.sleep(50);
+		assertEquals(1, scheduler.getQueuedEdits());
+
+		long start = System.nanoTime();
+		scheduler.acquire();
+		assertTrue((System.nanoTime() - start) / 1000000 >= 50);
+		thread.join();
+		assertEquals(0, scheduler.getQueuedEdits());
+	}
+
+	@Test
+	public void testSharedScheduler() {
+		EditScheduler scheduler = EditScheduler
+				.getSharedScheduler("http://example.org/w/api.php");
+		assertSame(scheduler,
+				EditScheduler.getSharedScheduler("http://example.org/w/api.php"));
+		assertNotSame(scheduler,
+				EditScheduler.getSharedScheduler("http://example.com/w/api.php"));
+		assertEquals(0, scheduler.getAverageTimePerEdit());
+		// without lag, the shared scheduler does not slow down editing
+		assertTrue(timeAcquires(scheduler, 100) < 500);
+
+		WbEditEntityAction action1 = new WbEditEntityAction(new ApiConnection(
+				"http://example.org/w/api.php"), "http://example.org/entity/");
+		WbEditEntityAction action2 = new WbEditEntityAction(new ApiConnection(
+				"http://example.org/w/api.php"), "http://example.org/entity/");
+		assertSame(scheduler, action1.getEditScheduler());
+		assertSame(scheduler, action2.getEditScheduler());
+
+		// the time per edit of one editor does not affect other editors
+		action1.setAverageTimePerEdit(100);
+		assertEquals(100, action1.getAverageTimePerEdit());
+		assertEquals(EditScheduler.DEFAULT_MSECS_PER_EDIT,
+				action2.getAverageTimePerEdit());
+		assertEquals(0, scheduler.getAverageTimePerEdit());
+	}
+
+}
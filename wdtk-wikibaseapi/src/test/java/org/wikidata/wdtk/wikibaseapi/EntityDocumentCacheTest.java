@@ -0,0 +1,162 @@
+package org.wikidata.wdtk.wikibaseapi;
+
+/*
+ * #%L
+ * Wikidata Toolkit Wikibase API
+ * %%
+ * Copyright (C) 2014 - 2015 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.Collections;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.wikidata.wdtk.datamodel.helpers.Datamodel;
+import org.wikidata.wdtk.datamodel.helpers.ItemDocumentBuilder;
+import org.wikidata.wdtk.datamodel.interfaces.DocumentDataFilter;
+import org.wikidata.wdtk.datamodel.interfaces.ItemDocument;
+import org.wikidata.wdtk.testing.MockDirectoryManager;
+
+public class EntityDocumentCacheTest {
+
+	MockDirectoryManager dm;
+
+	@Before
+	public void setUp() throws IOException {
+		dm = new MockDirectoryManager(Paths.get("/cache"), true, false);
+	}
+
+	ItemDocument makeItem(String id, long revisionId) {
+		return ItemDocumentBuilder
+				.forItemId(Datamodel.makeWikidataItemIdValue(id))
+				.withLabel("label " + revisionId, "en")
+				.withLabel("Beschriftung " + revisionId, "de")
+				.withRevisionId(revisionId).build();
+	}
+
+	@Test
+	public void testFilterKey() {
+		DocumentDataFilter filter1 = new DocumentDataFilter();
+		DocumentDataFilter filter2 = new DocumentDataFilter();
+		assertEquals(EntityDocumentCache.getFilterKey(filter1),
+				EntityDocumentCache.getFilterKey(filter2));
+
+		filter1.setLanguageFilter(Collections.singleton("en"));
+		assertNotEquals(EntityDocumentCache.getFilterKey(filter1),
+				EntityDocumentCache.getFilterKey(filter2));
+
+		filter2.setLanguageFilter(Collections.singleton("en"));
+		assertEquals(EntityDocumentCache.getFilterKey(filter1),
+				EntityDocumentCache.getFilterKey(filter2));
+
+		filter2.setSiteLinkFilter(Collections.<String> emptySet());
+		assertNotEquals(EntityDocumentCache.getFilterKey(filter1),
+				EntityDocumentCache.getFilterKey(filter2));
+	}
+
+	@Test
+	public void testLookupAndEviction() {
+		EntityDocumentCache cache = new EntityDocumentCache(
+				Datamodel.SITE_WIKIDATA, 2, null);
+		DocumentDataFilter filter = new DocumentDataFilter();
+		String filterKey = EntityDocumentCache.getFilterKey(filter);
+
+		cache.put(filter, makeItem("Q1", 10));
+		cache.put(filter, makeItem("Q2", 20));
+		assertNotNull(cache.lookup(filterKey, "Q1"));
+		cache.put(filter, makeItem("Q3", 30));
+
+		assertEquals(2, cache.size());
+		assertNull(cache.lookup(filterKey, "Q2"));
+		EntityDocumentCache.Entry entry = cache.lookup(filterKey, "Q1");
+		assertEquals(10, entry.document.getRevisionId());
+		assertTrue(cache.isFresh(entry));
+
+		assertEquals(2, cache.getHitCount());
+		assertEquals(1, cache.getMissCount());
+
+		cache.invalidate("Q1");
+		assertNull(cache.lookup(filterKey, "Q1"));
+	}
+
+	@Test
+	public void testMaxAge() {
+		EntityDocumentCache cache = new EntityDocumentCache(
+				Datamodel.SITE_WIKIDATA);
+		DocumentDataFilter filter = new DocumentDataFilter();
+		String filterKey = EntityDocumentCache.getFilterKey(filter);
+		cache.put(filter, makeItem("Q1", 10));
+
+		EntityDocumentCache.Entry entry = cache.lookup(filterKey, "Q1");
+		cache.setMaxAge(0);
+		assertFalse(cache.isFresh(entry));
+		cache.setMaxAge(-1);
+		assertTrue(cache.isFresh(entry));
+	}
+
+	@Test
+	public void testDiskTier() {
+		EntityDocumentCache cache = new EntityDocumentCache(
+				Datamodel.SITE_WIKIDATA, 10, dm);
+		DocumentDataFilter filter = new DocumentDataFilter();
+		String filterKey = EntityDocumentCache.getFilterKey(filter);
+		ItemDocument item = makeItem("Q1", 10);
+		cache.put(filter, item);
+		cache.clear();
+
+		EntityDocumentCache.Entry entry = cache.lookup(filterKey, "Q1");
+		assertEquals(1, cache.getDiskHitCount());
+		assertEquals(item, entry.document);
+		// documents from disk must be revalidated before use
+		assertFalse(cache.isFresh(entry));
+	}
+
+	@Test
+	public void testRefreshFromDump() {
+		EntityDocumentCache cache = new EntityDocumentCache(
+				Datamodel.SITE_WIKIDATA, 10, dm);
+		DocumentDataFilter filter = new DocumentDataFilter();
+		filter.setLanguageFilter(Collections.singleton("en"));
+		String filterKey = EntityDocumentCache.getFilterKey(filter);
+
+		cache.put(filter, makeItem("Q1", 10));
+		cache.processItemDocument(makeItem("Q1", 12));
+		cache.processItemDocument(makeItem("Q2", 12));
+
+		EntityDocumentCache.Entry entry = cache.lookup(filterKey, "Q1");
+		ItemDocument document = (ItemDocument) entry.document;
+		assertEquals(12, document.getRevisionId());
+		assertEquals(Collections.singleton("en"), document.getLabels()
+				.keySet());
+		assertFalse(cache.isFresh(entry));
+		assertNull(cache.lookup(filterKey, "Q2"));
+
+		// older documents do not replace newer ones
+		cache.processItemDocument(makeItem("Q1", 11));
+		assertEquals(12, cache.lookup(filterKey, "Q1").document
+				.getRevisionId());
+	}
+
+}
@@ -25,6 +25,7 @@ import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
@@ -169,6 +170,69 @@ public class StatementUpdateTest {
 		assertFalse(su.toKeep.get(P1).get(1).write);
 	}
 
+	@Test
+	public void testMergeReorderedQualifiers() {
+		Statement s1 = StatementBuilder.forSubjectAndProperty(Q1, P1)
+				.withValue(Q1).withQualifierValue(P2, Q2)
+				.withQualifierValue(P3, Q3).withId("ID-s1").build();
+		Statement s2 = StatementBuilder.forSubjectAndProperty(Q1, P1)
+				.withValue(Q1).withQualifierValue(P3, Q3)
+				.withQualifierValue(P2, Q2).build();
+
+		ItemDocument currentDocument = ItemDocumentBuilder.forItemId(Q1)
+				.withStatement(s1).build();
+
+		StatementUpdate su = new StatementUpdate(currentDocument,
+				Arrays.asList(s2), Collections.<Statement> emptyList());
+
+		assertEquals(1, su.toKeep.get(P1).size());
+		assertEquals("ID-s1", su.toKeep.get(P1).get(0).statement
+				.getStatementId());
+		assertTrue(su.isEmptyEdit());
+	}
+
+	@Test
+	public void testManyStatements() {
+		ItemDocumentBuilder builder = ItemDocumentBuilder.forItemId(Q1);
+		List<Statement> existing = new ArrayList<>();
+		for (int i = 0; i < 2000; i++) {
+			Statement statement = StatementBuilder
+					.forSubjectAndProperty(Q1, P1)
+					.withValue(Datamodel.makeStringValue("v" + i))
+					.withId("ID-" + i).build();
+			existing.add(statement);
+			builder.withStatement(statement);
+		}
+		ItemDocument currentDocument = builder.build();
+
+		Reference r1 = ReferenceBuilder.newInstance().withPropertyValue(P2, Q2)
+				.build();
+		List<Statement> addStatements = new ArrayList<>();
+		for (int i = 0; i < 100; i++) {
+			addStatements.add(StatementBuilder.forSubjectAndProperty(Q1, P1)
+					.withValue(Datamodel.makeStringValue("v" + i))
+					.withReference(r1).build());
+		}
+		for (int i = 2000; i < 2010; i++) {
+			addStatements.add(StatementBuilder.forSubjectAndProperty(Q1, P1)
+					.withValue(Datamodel.makeStringValue("v" + i)).build());
+		}
+
+		StatementUpdate su = new StatementUpdate(currentDocument,
+				addStatements, existing.subList(1000, 1005));
+
+		assertEquals(5, su.toDelete.size());
+		assertEquals(2005, su.toKeep.get(P1).size());
+		int written = 0;
+		for (StatementUpdate.StatementWithUpdate swu : su.toKeep.get(P1)) {
+			if (swu.write) {
+				written++;
+			}
+		}
+		assertEquals(110, written);
+		assertEquals(115, su.getUpdatedStatements().size());
+	}
+
 	@Test
 	public void testNoMergeRankConflict() {
 		Statement s1 = StatementBuilder.forSubjectAndProperty(Q1, P1)
@@ -295,7 +359,7 @@ public class StatementUpdateTest {
 		StatementUpdate su = new StatementUpdate(currentDocument,
 				Arrays.asList(s3), Collections.<Statement> emptyList());
 
-		assertEquals(su.toDelete, Arrays.asList("ID-s1"));
+		assertEquals(new ArrayList<>(su.toDelete), Arrays.asList("ID-s1"));
 		assertEquals(1, su.toKeep.size());
 		assertTrue(su.toKeep.containsKey(P1));
 		assertEquals(2, su.toKeep.get(P1).size());
@@ -376,7 +440,8 @@ public class StatementUpdateTest {
 		JsonNode expectedJson = mapper.readTree("{\"claims\":[{\"id\":\"ID-s2\",\"remove\":\"\"},{\"id\":\"ID-s5\",\"remove\":\"\"}]}");
 		JsonNode actualJson = mapper.readTree(su.getJsonUpdateString());
 
-		assertEquals(Arrays.asList("ID-s2", "ID-s5"), su.toDelete);
+		assertEquals(Arrays.asList("ID-s2", "ID-s5"),
+				new ArrayList<>(su.toDelete));
 		assertEquals(0, su.toKeep.size());
 		assertEquals(expectedJson, actualJson);
 		assertFalse(su.isEmptyEdit());
@@ -0,0 +1,211 @@
+package org.wikidata.wdtk.wikibaseapi;
+
+/*
+ * #%L
+ * Wikidata Toolkit Wikibase API
+ * %%
+ * Copyright (C) 2014 - 2015 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Scanner;
+import java.util.Set;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Tests {@link UrlConnectionHttpTransport} and its use in
+ * {@link ApiConnection} against a local stub server.
+ */
+public class UrlConnectionHttpTransportTest {
+
+	final static String RESPONSE = "{\"login\":{\"result\":\"Success\"}}";
+
+	HttpServer server;
+	String url;
+
+	final Set<Integer> clientPorts = new HashSet<>();
+	String lastAcceptEncoding;
+	String lastCookie;
+	String lastBody;
+
+	@Before
+	public void setUp() throws IOException {
+		this.server = HttpServer.create(new InetSocketAddress("localhost", 0),
+				0);
+		this.server.createContext("/w/api.php", this::handle);
+		this.server.createContext("/missing", exchange -> {
+			byte[] body = "not found".getBytes(StandardCharsets.UTF_8);
+			exchange.sendResponseHeaders(404, body.length);
+			try (OutputStream out = exchange.getResponseBody()) {
+				out.write(body);
+			}
+		});
+		this.server.createContext("/busy", exchange -> {
+			exchange.getResponseHeaders().add("Retry-After", "30");
+			exchange.sendResponseHeaders(503, -1);
+			exchange.close();
+		});
+		this.server.start();
+		this.url = "http://localhost:" + this.server.getAddress().getPort();
+	}
+
+	@After
+	public void tearDown() {
+		this.server.stop(0);
+	}
+
+	void handle(HttpExchange exchange) throws IOException {
+		synchronized (this) {
+			this.clientPorts.add(exchange.getRemoteAddress().getPort());
+			this.lastAcceptEncoding = exchange.getRequestHeaders().getFirst(
+					"Accept-Encoding");
+			this.lastCookie = exchange.getRequestHeaders().getFirst("Cookie");
+			this.lastBody = read(exchange.getRequestBody());
+		}
+
+		byte[] body = RESPONSE.getBytes(StandardCharsets.UTF_8);
+		if ("gzip".equals(this.lastAcceptEncoding)) {
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			try (GZIPOutputStream gzip = new GZIPOutputStream(bytes)) {
+				gzip.write(body);
+			}
+			body = bytes.toByteArray();
+			exchange.getResponseHeaders().add("Content-Encoding", "gzip");
+		}
+		exchange.getResponseHeaders().add("Set-Cookie",
+				"session=abc; path=/; httponly");
+		exchange.sendResponseHeaders(200, body.length);
+		try (OutputStream out = exchange.getResponseBody()) {
+			out.write(body);
+		}
+	}
+
+	static String read(InputStream stream) throws IOException {
+		try (Scanner scanner = new Scanner(stream, "UTF-8")) {
+			scanner.useDelimiter("\\A");
+			return scanner.hasNext() ? scanner.next() : "";
+		}
+	}
+
+	static Map<String, String> loginParameters() {
+		Map<String, String> parameters = new HashMap<>();
+		parameters.put("action", "login");
+		parameters.put("format", "json");
+		return parameters;
+	}
+
+	@Test
+	public void testCompressedResponse() throws IOException {
+		ApiConnection connection = new ApiConnection(this.url + "/w/api.php");
+		Map<String, String> parameters = loginParameters();
+		parameters.put("lgname", "user");
+
+		String response = read(connection.sendRequest("POST", parameters));
+
+		assertEquals(RESPONSE, response);
+		assertEquals("gzip", this.lastAcceptEncoding);
+		assertEquals(connection.getQueryString(parameters), this.lastBody);
+		assertEquals("abc", connection.cookies.get("session"));
+	}
+
+	@Test
+	public void testUncompressedResponse() throws IOException {
+		ApiConnection connection = new ApiConnection(this.url + "/w/api.php");
+		connection.setHttpTransport(new UrlConnectionHttpTransport(false));
+
+		String response = read(connection.sendRequest("POST",
+				loginParameters()));
+
+		assertEquals(RESPONSE, response);
+		assertEquals(null, this.lastAcceptEncoding);
+	}
+
+	@Test
+	public void testCookiesSent() throws IOException {
+		ApiConnection connection = new ApiConnection(this.url + "/w/api.php");
+		read(connection.sendRequest("POST", loginParameters()));
+		read(connection.sendRequest("POST", loginParameters()));
+
+		assertTrue(this.lastCookie.contains("session=abc"));
+	}
+
+	@Test
+	public void testConnectionReused() throws IOException {
+		ApiConnection connection = new ApiConnection(this.url + "/w/api.php");
+		for (int i = 0; i < 5; i++) {
+			read(connection.sendRequest("POST", loginParameters()));
+		}
+
+		assertEquals(1, this.clientPorts.size());
+	}
+
+	@Test
+	public void testErrorResponse() throws IOException {
+		UrlConnectionHttpTransport transport = new UrlConnectionHttpTransport();
+		HttpTransport.Response response = transport.sendRequest(this.url
+				+ "/missing", "POST",
+				new ApiConnection(this.url).getRequestHeaders(), new byte[0]);
+
+		assertEquals(404, response.getStatusCode());
+		assertEquals("not found", read(response.getBody()));
+	}
+
+	@Test
+	public void testApiErrorResponse() throws IOException {
+		ApiConnection connection = new ApiConnection(this.url + "/missing");
+		try {
+			connection.sendRequest("POST", loginParameters());
+			fail("Expected an exception");
+		} catch (RequestThrottledException e) {
+			fail("Unexpected exception type");
+		} catch (IOException e) {
+			assertEquals("Server returned HTTP response code: 404 for URL: "
+					+ this.url + "/missing", e.getMessage());
+		}
+	}
+
+	@Test
+	public void testThrottledResponse() throws IOException {
+		ApiConnection connection = new ApiConnection(this.url + "/busy");
+		try {
+			connection.sendRequest("POST", loginParameters());
+			fail("Expected an exception");
+		} catch (RequestThrottledException e) {
+			assertEquals(503, e.getStatusCode());
+			assertEquals(30000, e.getRetryAfter());
+		}
+	}
+
+}
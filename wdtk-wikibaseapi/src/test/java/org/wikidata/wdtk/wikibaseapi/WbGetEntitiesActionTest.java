@@ -23,15 +23,21 @@ package org.wikidata.wdtk.wikibaseapi;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import org.junit.Before;
 import org.junit.Test;
 import org.wikidata.wdtk.datamodel.helpers.Datamodel;
 import org.wikidata.wdtk.datamodel.interfaces.EntityDocument;
+import org.wikidata.wdtk.datamodel.interfaces.TermedDocument;
 import org.wikidata.wdtk.util.CompressionType;
+import org.wikidata.wdtk.wikibaseapi.apierrors.MaxlagErrorException;
 import org.wikidata.wdtk.wikibaseapi.apierrors.MediaWikiApiErrorException;
 
 public class WbGetEntitiesActionTest {
@@ -124,6 +130,65 @@ public class WbGetEntitiesActionTest {
 		assertEquals(Collections.<String, EntityDocument> emptyMap(), result);
 	}
 
+	@Test
+	public void testWbGetEntitiesStreaming() throws MediaWikiApiErrorException {
+		WbGetEntitiesActionData properties = new WbGetEntitiesActionData();
+		properties.ids = "Q6|Q42|P31";
+		List<String> keys = new ArrayList<>();
+		Map<String, EntityDocument> streamed = new HashMap<>();
+		action.wbGetEntities(properties, (key, document) -> {
+			keys.add(key);
+			streamed.put(key, document);
+		});
+
+		assertEquals(Arrays.asList("Q42", "P31"), keys);
+		assertEquals(action.wbGetEntities(properties), streamed);
+	}
+
+	@Test
+	public void testWbGetEntitiesStreamingSkipsBadEntities()
+			throws MediaWikiApiErrorException {
+		Map<String, String> params = new HashMap<String, String>();
+		params.put("action", "wbgetentities");
+		params.put("format", "json");
+		params.put("ids", "Q1|L1|Q2|Q3");
+		this.con.setWebResource(params, "{\"warnings\":{\"main\":{\"*\":\"Unrecognized parameter\"}},"
+				+ "\"entities\":{"
+				+ "\"Q1\":{\"pageid\":1,\"id\":\"Q1\",\"type\":\"item\",\"lastrevid\":5,\"labels\":{\"en\":{\"language\":\"en\",\"value\":\"universe\"}}},"
+				+ "\"L1\":{\"id\":\"L1\",\"type\":\"lexeme\",\"lemmas\":{\"en\":{\"language\":\"en\",\"value\":\"a\"}}},"
+				+ "\"Q2\":{\"id\":\"Q2\",\"missing\":\"\"},"
+				+ "\"Q3\":{\"type\":\"item\",\"id\":\"Q3\"}},"
+				+ "\"success\":1}");
+
+		Map<String, EntityDocument> result = new HashMap<>();
+		action.wbGetEntities("Q1|L1|Q2|Q3", null, null, null, null, null,
+				null, result::put);
+
+		assertEquals(2, result.size());
+		assertEquals(5, result.get("Q1").getRevisionId());
+		assertEquals("universe", ((TermedDocument) result.get("Q1"))
+				.getLabels().get("en").getText());
+		assertTrue(result.containsKey("Q3"));
+	}
+
+	@Test(expected = MaxlagErrorException.class)
+	public void testWbGetEntitiesStreamingError() throws IOException,
+			MediaWikiApiErrorException {
+		Map<String, String> params = new HashMap<String, String>();
+		params.put("action", "wbgetentities");
+		params.put("format", "json");
+		params.put("ids", "Q1");
+		params.put("maxlag", "5");
+		this.con.setWebResourceFromPath(params, getClass(),
+				"/error-maxlag.json", CompressionType.NONE);
+
+		WbGetEntitiesActionData properties = new WbGetEntitiesActionData();
+		properties.ids = "Q1";
+		properties.maxlag = "5";
+		action.wbGetEntities(properties, (key, document) -> {
+		});
+	}
+
 	@Test(expected = IllegalArgumentException.class)
 	public void testIdsAndTitles() throws MediaWikiApiErrorException {
 		action.wbGetEntities("Q42", null, "Tim Berners Lee", null, null, null);
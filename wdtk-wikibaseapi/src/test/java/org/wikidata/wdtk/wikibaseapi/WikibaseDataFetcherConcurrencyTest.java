@@ -0,0 +1,252 @@
+package org.wikidata.wdtk.wikibaseapi;
+
+/*
+ * #%L
+ * Wikidata Toolkit Wikibase API
+ * %%
+ * Copyright (C) 2014 - 2015 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.wikidata.wdtk.datamodel.helpers.Datamodel;
+import org.wikidata.wdtk.datamodel.interfaces.EntityDocument;
+import org.wikidata.wdtk.wikibaseapi.apierrors.MaxlagErrorException;
+import org.wikidata.wdtk.wikibaseapi.apierrors.MediaWikiApiErrorException;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Tests concurrent fetching against a local stub of the wbgetentities API.
+ */
+public class WikibaseDataFetcherConcurrencyTest {
+
+	HttpServer server;
+	WikibaseDataFetcher wdf;
+
+	final AtomicInteger requestCount = new AtomicInteger();
+	final AtomicInteger activeRequests = new AtomicInteger();
+	final AtomicInteger maxActiveRequests = new AtomicInteger();
+	final AtomicInteger maxlagErrors = new AtomicInteger();
+	final List<String> maxlagParameters = new ArrayList<>();
+	/**
+	 * If true, maxlag errors are sent after the entities instead of in place
+	 * of them.
+	 */
+	volatile boolean entitiesBeforeMaxlagError = false;
+
+	@Before
+	public void setUp() throws IOException {
+		this.server = HttpServer.create(new InetSocketAddress("localhost", 0),
+				0);
+		this.server.createContext("/w/api.php", this::handle);
+		this.server.setExecutor(Executors.newCachedThreadPool());
+		this.server.start();
+
+		ApiConnection connection = new ApiConnection("http://localhost:"
+				+ this.server.getAddress().getPort() + "/w/api.php");
+		this.wdf = new WikibaseDataFetcher(connection, Datamodel.SITE_WIKIDATA);
+		WikibaseDataFetcher.MAXLAG_SLEEP_TIME = 10; // speed up the test
+	}
+
+	@After
+	public void tearDown() {
+		this.server.stop(0);
+	}
+
+	@Test
+	public void testConcurrentFetching() throws MediaWikiApiErrorException {
+		this.wdf.setMaxConcurrentRequests(4);
+		List<String> ids = getItemIds(500);
+
+		Map<String, EntityDocument> result = this.wdf.getEntityDocuments(ids);
+
+		assertEquals(500, result.size());
+		assertEquals(Datamodel.makeWikidataItemIdValue("Q123"),
+				result.get("Q123").getEntityId());
+		assertEquals(10, this.requestCount.get());
+		assertTrue(this.maxActiveRequests.get() > 1);
+		assertTrue(this.maxActiveRequests.get() <= 4);
+	}
+
+	@Test
+	public void testProcessEntityDocumentsAsync() {
+		this.wdf.setMaxConcurrentRequests(3);
+		Map<String, EntityDocument> result = new HashMap<>();
+
+		this.wdf.processEntityDocumentsAsync(getItemIds(120), result::put)
+				.join();
+
+		assertEquals(120, result.size());
+		assertEquals(3, this.requestCount.get());
+	}
+
+	@Test
+	public void testMaxlagPausesAndRetries() throws MediaWikiApiErrorException {
+		this.maxlagErrors.set(2);
+		this.wdf.setMaxLag(5);
+		this.wdf.setMaxConcurrentRequests(2);
+
+		Map<String, EntityDocument> result = this.wdf
+				.getEntityDocumentsAsync(getItemIds(100)).join();
+
+		assertEquals(100, result.size());
+		assertEquals(4, this.requestCount.get());
+		synchronized (this.maxlagParameters) {
+			for (String maxlag : this.maxlagParameters) {
+				assertEquals("5", maxlag);
+			}
+		}
+	}
+
+	@Test
+	public void testMaxlagAfterEntitiesDoesNotRepeatEntities() {
+		this.maxlagErrors.set(1);
+		this.entitiesBeforeMaxlagError = true;
+		List<String> keys = new ArrayList<>();
+
+		this.wdf.processEntityDocumentsAsync(getItemIds(30),
+				(key, document) -> keys.add(key)).join();
+
+		assertEquals(2, this.requestCount.get());
+		assertEquals(getItemIds(30), keys);
+	}
+
+	@Test
+	public void testRevisionIdsRetryOnMaxlag()
+			throws MediaWikiApiErrorException {
+		this.maxlagErrors.set(2);
+		this.wdf.setMaxLag(5);
+
+		Map<String, Long> result = this.wdf.getRevisionIds(getItemIds(10));
+
+		assertEquals(10, result.size());
+		assertEquals(3, this.requestCount.get());
+	}
+
+	@Test(expected = MaxlagErrorException.class)
+	public void testMaxlagGivesUp() throws MediaWikiApiErrorException {
+		this.maxlagErrors.set(WikibaseDataFetcher.MAXLAG_RETRIES);
+		this.wdf.setMaxLag(5);
+		this.wdf.getEntityDocuments("Q1");
+	}
+
+	@Test
+	public void testSharedRateLimiter() {
+		RequestRateLimiter limiter = new RequestRateLimiter(100);
+		this.wdf.setRateLimiter(limiter);
+		assertEquals(limiter, this.wdf.getRateLimiter());
+		assertEquals(10000000, limiter.getMinIntervalNanos());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testInvalidConcurrency() {
+		this.wdf.setMaxConcurrentRequests(0);
+	}
+
+	List<String> getItemIds(int count) {
+		List<String> result = new ArrayList<>();
+		for (int i = 1; i <= count; i++) {
+			result.add("Q" + i);
+		}
+		return result;
+	}
+
+	void handle(HttpExchange exchange) throws IOException {
+		this.requestCount.incrementAndGet();
+		int active = this.activeRequests.incrementAndGet();
+		this.maxActiveRequests.accumulateAndGet(active, Math::max);
+		try {
+			Map<String, String> parameters = getParameters(exchange
+					.getRequestBody());
+			synchronized (this.maxlagParameters) {
+				this.maxlagParameters.add(parameters.get("maxlag"));
+			}
+			Thread.sleep(50);
+
+			StringBuilder entities = new StringBuilder("\"entities\":{");
+			boolean first = true;
+			for (String id : parameters.get("ids").split("\\|")) {
+				if (!first) {
+					entities.append(",");
+				}
+				first = false;
+				entities.append("\"").append(id).append("\":{\"type\":\"item\",\"id\":\"")
+						.append(id).append("\",\"lastrevid\":1}");
+			}
+			entities.append("}");
+			String error = "\"error\":{\"code\":\"maxlag\",\"info\":\"Waiting for a server: 6 seconds lagged\"}";
+
+			StringBuilder response = new StringBuilder("{");
+			if (this.maxlagErrors.getAndDecrement() > 0) {
+				if (this.entitiesBeforeMaxlagError) {
+					response.append(entities).append(",");
+				}
+				response.append(error);
+			} else {
+				response.append(entities).append(",\"success\":1");
+			}
+			response.append("}");
+
+			byte[] bytes = response.toString().getBytes(StandardCharsets.UTF_8);
+			exchange.getResponseHeaders().set("Content-Type",
+					"application/json");
+			exchange.sendResponseHeaders(200, bytes.length);
+			try (OutputStream out = exchange.getResponseBody()) {
+				out.write(bytes);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} finally {
+			this.activeRequests.decrementAndGet();
+		}
+	}
+
+	Map<String, String> getParameters(InputStream body) throws IOException {
+		StringBuilder builder = new StringBuilder();
+		byte[] buffer = new byte[4096];
+		int read;
+		while ((read = body.read(buffer)) != -1) {
+			builder.append(new String(buffer, 0, read, StandardCharsets.UTF_8));
+		}
+		Map<String, String> result = new HashMap<>();
+		for (String pair : builder.toString().split("&")) {
+			String[] parts = pair.split("=", 2);
+			result.put(URLDecoder.decode(parts[0], "UTF-8"),
+					parts.length > 1 ? URLDecoder.decode(parts[1], "UTF-8") : "");
+		}
+		return result;
+	}
+
+}
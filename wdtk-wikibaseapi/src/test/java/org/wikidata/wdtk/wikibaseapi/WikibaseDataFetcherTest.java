@@ -93,6 +93,61 @@ public class WikibaseDataFetcherTest {
 		assertEquals(null, result);
 	}
 
+	@Test
+	public void testGetEntityDocumentCached() throws IOException,
+			MediaWikiApiErrorException {
+		Map<String, String> parameters = new HashMap<String, String>();
+		setStandardParameters(parameters);
+		parameters.put("ids", "Q42");
+		con.setWebResourceFromPath(parameters, this.getClass(),
+				"/wbgetentities-Q6-Q42-P31.json", CompressionType.NONE);
+		Map<String, String> infoParameters = new HashMap<String, String>();
+		infoParameters.put("action", "wbgetentities");
+		infoParameters.put("format", "json");
+		infoParameters.put("props", "info|datatype");
+		infoParameters.put("ids", "Q42");
+		con.setWebResourceFromPath(infoParameters, this.getClass(),
+				"/wbgetentities-Q42-info.json", CompressionType.NONE);
+
+		EntityDocumentCache cache = new EntityDocumentCache(
+				Datamodel.SITE_WIKIDATA);
+		wdf.setCache(cache);
+		EntityDocument first = wdf.getEntityDocument("Q42");
+		EntityDocument second = wdf.getEntityDocument("Q42");
+		assertTrue(first == second);
+		assertEquals(1, cache.getMissCount());
+		assertEquals(1, cache.getHitCount());
+		assertEquals(0, cache.getRevalidationCount());
+
+		cache.setMaxAge(0);
+		EntityDocument third = wdf.getEntityDocument("Q42");
+		assertTrue(first == third);
+		assertEquals(1, cache.getRevalidationCount());
+
+		con.setWebResourceFromPath(infoParameters, this.getClass(),
+				"/wbgetentities-Q42-info-changed.json", CompressionType.NONE);
+		EntityDocument fourth = wdf.getEntityDocument("Q42");
+		assertFalse(first == fourth);
+		assertEquals(first, fourth);
+		assertEquals(1, cache.getStaleCount());
+	}
+
+	@Test
+	public void testGetRevisionIds() throws IOException,
+			MediaWikiApiErrorException {
+		Map<String, String> parameters = new HashMap<String, String>();
+		parameters.put("action", "wbgetentities");
+		parameters.put("format", "json");
+		parameters.put("props", "info|datatype");
+		parameters.put("ids", "Q42");
+		con.setWebResourceFromPath(parameters, this.getClass(),
+				"/wbgetentities-Q42-info.json", CompressionType.NONE);
+
+		Map<String, Long> result = wdf.getRevisionIds(Collections
+				.singletonList("Q42"));
+		assertEquals(Collections.singletonMap("Q42", 196015688L), result);
+	}
+
 	@Test(expected = NoSuchEntityErrorException.class)
 	public void testWbGetEntitiesError() throws IOException,
 			MediaWikiApiErrorException {
@@ -245,6 +300,53 @@ public class WikibaseDataFetcherTest {
 		assertEquals(expectedIds, actualIds);
 	}
 
+	@Test
+	public void testIterateSearchEntities() throws IOException {
+		setSearchPages();
+		WbGetEntitiesSearchData properties = new WbGetEntitiesSearchData();
+		properties.search = "abc";
+		properties.language = "en";
+		properties.limit = 2L;
+
+		Iterator<WbSearchEntitiesResult> results = wdf.iterateSearchEntities(
+				properties, 0);
+		List<String> actualIds = new ArrayList<>();
+		while (results.hasNext()) {
+			actualIds.add(results.next().getEntityId());
+		}
+		assertEquals(Arrays.asList("Q1", "Q2", "Q3", "Q4", "Q5"), actualIds);
+	}
+
+	@Test
+	public void testStreamSearchEntitiesWithCap() throws IOException {
+		setSearchPages();
+		WbGetEntitiesSearchData properties = new WbGetEntitiesSearchData();
+		properties.search = "abc";
+		properties.language = "en";
+		properties.limit = 2L;
+
+		List<String> actualIds = new ArrayList<>();
+		wdf.streamSearchEntities(properties, 3).forEach(
+				result -> actualIds.add(result.getEntityId()));
+		assertEquals(Arrays.asList("Q1", "Q2", "Q3"), actualIds);
+	}
+
+	private void setSearchPages() throws IOException {
+		for (int page = 1; page <= 3; page++) {
+			Map<String, String> parameters = new HashMap<String, String>();
+			setStandardSearchParameters(parameters);
+			parameters.put("search", "abc");
+			parameters.put("language", "en");
+			parameters.put("limit", "2");
+			if (page > 1) {
+				parameters.put("continue", Integer.toString(2 * (page - 1)));
+			}
+			con.setWebResourceFromPath(parameters, this.getClass(),
+					"/wbsearchentities-abc-page" + page + ".json",
+					CompressionType.NONE);
+		}
+	}
+
 	private void setStandardSearchParameters(Map<String, String> parameters) {
 		parameters.put("action", "wbsearchentities");
 		parameters.put("format", "json");